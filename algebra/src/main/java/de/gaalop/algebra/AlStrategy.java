@@ -3,6 +3,7 @@ package de.gaalop.algebra;
 import de.gaalop.AlgebraStrategy;
 import de.gaalop.CodeParserException;
 import de.gaalop.CompilationException;
+import de.gaalop.CompileProfiler;
 import de.gaalop.InputFile;
 import de.gaalop.OptimizationException;
 import de.gaalop.cfg.AlgebraDefinitionFile;
@@ -46,38 +47,17 @@ public class AlStrategy implements AlgebraStrategy {
             throw new OptimizationException("There are no lines marked for optimization ('?')", graph);
         }
 
-        InputStream inputStream = null;
         try {
             //load algebra
+            LoadedAlgebra loadedAlgebra = AlgebraRegistry.getInstance().get(graph.algebraName, graph.algebraBaseDirectory, graph.asRessource);
             AlgebraDefinitionFile alFile = graph.getAlgebraDefinitionFile();
             alFile.setUsePrecalculatedTable(plugin.usePrecalulatedTables);
-            alFile.setUseAsRessource(graph.asRessource);
-            
-            String baseDir = (graph.asRessource) ? "algebra" : graph.algebraBaseDirectory;
-            
-            if (!baseDir.endsWith("/")) baseDir += "/";
-            
-            baseDir += graph.algebraName+"/";
-            
-            alFile.setProductsFilePath(baseDir+"products.csv");
-
-            inputStream = (graph.asRessource)
-                    ? getClass().getResourceAsStream(baseDir+"definition.csv")
-                    : new FileInputStream(new File(baseDir+"definition.csv"));
-            alFile.loadFromFile(inputStream);
-            
-            createBlades(alFile);
+            loadedAlgebra.applyTo(alFile);
 
             //replace all functions / macros
-
-            inputStream = (graph.asRessource)
-                    ? getClass().getResourceAsStream(baseDir+"macros.clu")
-                    : new FileInputStream(new File(baseDir+"macros.clu"));
-            
-            ControlFlowGraph macrosGraph = new de.gaalop.clucalc.input.Plugin().createCodeParser().parseFile(inputStreamToInputFile(inputStream, "macros", null));
-            inputStream.close();
-            HashMap<StringIntContainer, Macro> macros = MacrosVisitor.getAllMacros(macrosGraph);
-            MacrosVisitor.getAllMacros(graph, macros);
+            HashMap<StringIntContainer, Macro> macros = loadedAlgebra.createMacroMap();
+            HashMap<StringIntContainer, Macro> graphMacros = MacrosVisitor.getAllMacros(graph);
+            macros.putAll(graphMacros);
             StringIntContainer dual = new StringIntContainer("Dual",1);
             if (macros.containsKey(dual)) {
                 macros.put(new StringIntContainer("*",1), macros.get(dual));
@@ -88,7 +68,7 @@ public class AlStrategy implements AlgebraStrategy {
             if (!plugin.getUserMacroFilePath().trim().equals("")) {
                 File f = new File(plugin.userMacroFilePath);
                 if (f.exists()) {
-                     inputStream = new FileInputStream(f);
+                     InputStream inputStream = new FileInputStream(f);
                      ControlFlowGraph userMacrosGraph = new de.gaalop.clucalc.input.Plugin().createCodeParser().parseFile(inputStreamToInputFile(inputStream, "userMacros", f.getParentFile()));
                      inputStream.close();
                      MacrosVisitor.getAllMacros(userMacrosGraph, macros);
@@ -97,10 +77,12 @@ public class AlStrategy implements AlgebraStrategy {
             }
 
             //inline all macros
+            CompileProfiler.Phase phase = CompileProfiler.begin("Macro inlining", graph);
             Inliner.inline(graph, macros);
+            CompileProfiler.end(phase, graph);
             
-            //Remove Macro definitions from graph
-            for (Macro macro: macros.values()) 
+            //Remove Macro definitions from graph, the shared macros of the algebra are not part of it
+            for (Macro macro: graphMacros.values()) 
                 graph.removeNode(macro);
             
             //replace Variables which are basevectors
@@ -135,12 +117,6 @@ public class AlStrategy implements AlgebraStrategy {
             Logger.getLogger(AlStrategy.class.getName()).log(Level.SEVERE, null, ex);
         } catch (IOException ex) {
             Logger.getLogger(AlStrategy.class.getName()).log(Level.SEVERE, null, ex);
-        } finally {
-            try {
-                inputStream.close();
-            } catch (IOException ex) {
-                Logger.getLogger(AlStrategy.class.getName()).log(Level.SEVERE, null, ex);
-            }
         }
 
         
@@ -170,7 +146,7 @@ public class AlStrategy implements AlgebraStrategy {
      * @param parent The parent file object
      * @return The InputFile
      */
-    private InputFile inputStreamToInputFile(InputStream inputStream, String cluName, File parent) {
+    static InputFile inputStreamToInputFile(InputStream inputStream, String cluName, File parent) {
         StringBuilder sb = new StringBuilder();
         readIn(inputStream, sb, parent);
         sb.append("\n");
@@ -183,7 +159,7 @@ public class AlStrategy implements AlgebraStrategy {
      * @param sb The stringbuilder object to use
      * @param parent The parent file object
      */
-    private void readIn(InputStream inputStream, StringBuilder sb, File parent) {
+    private static void readIn(InputStream inputStream, StringBuilder sb, File parent) {
         try {
             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
             String line;
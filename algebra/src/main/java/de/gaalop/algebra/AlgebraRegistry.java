@@ -0,0 +1,141 @@
+package de.gaalop.algebra;
+
+import de.gaalop.CodeParserException;
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.cfg.Macro;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a process-wide registry of loaded algebras,
+ * so that definition.csv and macros.clu of an algebra are read and parsed only once.
+ *
+ * Algebras are keyed by their name and base directory.
+ * Algebras from the file system are reloaded, if one of their files was modified.
+ */
+public final class AlgebraRegistry {
+
+    private static final AlgebraRegistry INSTANCE = new AlgebraRegistry();
+
+    private static final String[] FILES = new String[] {"definition.csv", "macros.clu", "products.csv"};
+
+    private final ConcurrentHashMap<String, LoadedAlgebra> algebras = new ConcurrentHashMap<String, LoadedAlgebra>();
+
+    private AlgebraRegistry() {
+    }
+
+    public static AlgebraRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the directory of an algebra
+     * @param algebraName The name of the algebra
+     * @param baseDirectory The base directory of the algebras
+     * @param asRessource true, if the algebra is a ressource
+     * @return The directory, ending with a slash
+     */
+    public static String getAlgebraDirectory(String algebraName, String baseDirectory, boolean asRessource) {
+        String baseDir = (asRessource) ? "algebra" : baseDirectory;
+        if (!baseDir.endsWith("/")) baseDir += "/";
+        return baseDir + algebraName + "/";
+    }
+
+    /**
+     * Returns a loaded algebra. The algebra is loaded, if it is not registered or out of date.
+     * @param algebraName The name of the algebra
+     * @param baseDirectory The base directory of the algebras
+     * @param asRessource true, if the algebra is a ressource
+     * @return The loaded algebra
+     * @throws IOException
+     * @throws CodeParserException
+     */
+    public LoadedAlgebra get(String algebraName, String baseDirectory, boolean asRessource) throws IOException, CodeParserException {
+        String directory = getAlgebraDirectory(algebraName, baseDirectory, asRessource);
+        String key = ((asRessource) ? "ressource:" : "file:") + directory;
+        long[] timestamps = (asRessource) ? null : getTimestamps(directory);
+
+        LoadedAlgebra loaded = algebras.get(key);
+        if (loaded != null && loaded.isUpToDate(timestamps))
+            return loaded;
+
+        synchronized (this) {
+            loaded = algebras.get(key);
+            if (loaded == null || !loaded.isUpToDate(timestamps)) {
+                loaded = load(directory, asRessource, timestamps);
+                algebras.put(key, loaded);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Removes all registered algebras
+     */
+    public void clear() {
+        algebras.clear();
+    }
+
+    /**
+     * Returns the modification timestamps of the files of an algebra
+     * @param directory The directory of the algebra
+     * @return The timestamps
+     */
+    private static long[] getTimestamps(String directory) {
+        long[] timestamps = new long[FILES.length];
+        for (int i = 0; i < FILES.length; i++)
+            timestamps[i] = new File(directory + FILES[i]).lastModified();
+        return timestamps;
+    }
+
+    /**
+     * Opens a file of an algebra
+     * @param directory The directory of the algebra
+     * @param asRessource true, if the algebra is a ressource
+     * @param fileName The name of the file
+     * @return The opened stream
+     * @throws IOException
+     */
+    private static InputStream open(String directory, boolean asRessource, String fileName) throws IOException {
+        return (asRessource)
+                ? AlStrategy.class.getResourceAsStream(directory + fileName)
+                : new FileInputStream(new File(directory + fileName));
+    }
+
+    /**
+     * Loads an algebra
+     * @param directory The directory of the algebra
+     * @param asRessource true, if the algebra is a ressource
+     * @param timestamps The timestamps of the files
+     * @return The loaded algebra
+     * @throws IOException
+     * @throws CodeParserException
+     */
+    private static LoadedAlgebra load(String directory, boolean asRessource, long[] timestamps) throws IOException, CodeParserException {
+        AlgebraDefinitionFile definition = new AlgebraDefinitionFile();
+        InputStream inputStream = open(directory, asRessource, "definition.csv");
+        try {
+            definition.loadFromFile(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        AlStrategy.createBlades(definition);
+
+        HashMap<StringIntContainer, Macro> macros;
+        inputStream = open(directory, asRessource, "macros.clu");
+        try {
+            ControlFlowGraph macrosGraph = new de.gaalop.clucalc.input.Plugin().createCodeParser().parseFile(AlStrategy.inputStreamToInputFile(inputStream, "macros", null));
+            macros = MacrosVisitor.getAllMacros(macrosGraph);
+        } finally {
+            inputStream.close();
+        }
+
+        return new LoadedAlgebra(directory, asRessource, definition, macros, timestamps);
+    }
+
+}
@@ -0,0 +1,106 @@
+package de.gaalop.algebra;
+
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.cfg.Macro;
+import de.gaalop.dfg.Expression;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores an algebra, which is loaded once by the AlgebraRegistry:
+ * its definition, its blades and the macros of its macros.clu file.
+ *
+ * Instances are shared by all compilations and must not be changed,
+ * use applyTo and createMacroMap to get the data for a compilation.
+ * Other plugins can attach their own data to an algebra, e.g. its product tables.
+ */
+public final class LoadedAlgebra {
+
+    private final String directory;
+    private final boolean asRessource;
+    private final AlgebraDefinitionFile definition;
+    private final HashMap<StringIntContainer, Macro> macros;
+    private final long[] timestamps;
+    private final ConcurrentHashMap<String, Object> attachments = new ConcurrentHashMap<String, Object>();
+
+    LoadedAlgebra(String directory, boolean asRessource, AlgebraDefinitionFile definition, HashMap<StringIntContainer, Macro> macros, long[] timestamps) {
+        this.directory = directory;
+        this.asRessource = asRessource;
+        this.definition = definition;
+        this.macros = macros;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Returns the directory of the algebra, ending with a slash
+     * @return The directory
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+    public boolean isAsRessource() {
+        return asRessource;
+    }
+
+    /**
+     * Determines, if the files of the algebra were not changed since loading
+     * @param currentTimestamps The current timestamps of the files, null for ressources
+     * @return true, if the algebra is up to date
+     */
+    boolean isUpToDate(long[] currentTimestamps) {
+        return Arrays.equals(timestamps, currentTimestamps);
+    }
+
+    /**
+     * Copies the definition of the algebra into an AlgebraDefinitionFile of a compilation.
+     * The blades are copied, since they are expressions.
+     * @param alFile The AlgebraDefinitionFile
+     */
+    public void applyTo(AlgebraDefinitionFile alFile) {
+        alFile.base = definition.base;
+        alFile.base2 = definition.base2;
+        alFile.baseSquares = new HashMap<String, Byte>(definition.baseSquares);
+        alFile.lineMapPlusMinusToZeroInf = definition.lineMapPlusMinusToZeroInf;
+        alFile.lineMapZeroInfToPlusMinus = definition.lineMapZeroInfToPlusMinus;
+        alFile.createIndices();
+
+        alFile.blades = new Expression[definition.blades.length];
+        for (int i = 0; i < definition.blades.length; i++)
+            alFile.blades[i] = definition.blades[i].copy();
+
+        alFile.setProductsFilePath(directory + "products.csv");
+        alFile.setUseAsRessource(asRessource);
+    }
+
+    /**
+     * Creates a new map of the macros of the algebra.
+     * The macros itself are shared, they are only read when inlining.
+     * @return The new map
+     */
+    public HashMap<StringIntContainer, Macro> createMacroMap() {
+        return new HashMap<StringIntContainer, Macro>(macros);
+    }
+
+    /**
+     * Returns data, which is attached to this algebra
+     * @param key The key of the data
+     * @return The data, null if there is no data attached with this key
+     */
+    public Object getAttachment(String key) {
+        return attachments.get(key);
+    }
+
+    /**
+     * Attaches data to this algebra, if there is no data attached with the key yet
+     * @param key The key of the data
+     * @param value The data
+     * @return The data, which is attached with the key after this call
+     */
+    public Object putAttachmentIfAbsent(String key, Object value) {
+        Object old = attachments.putIfAbsent(key, value);
+        return (old != null) ? old : value;
+    }
+
+}
@@ -0,0 +1,446 @@
+package de.gaalop;
+
+import de.gaalop.cfg.GlobalSettings;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A persistent cache of compilation results, which is shared by all processes using the same directory.
+ *
+ * The key of an entry is a SHA-256 hash of the input file, the files of the algebra,
+ * the values of all configuration properties of the selected plugins, the build of the compiler
+ * and, if Maxima is used, the Maxima command and version,
+ * the value is the set of output files.
+ * The build is identified by the contents of the jar files or class directories of all Gaalop modules
+ * and of the selected plugins, so that an updated compiler never reads the entries of an older one.
+ * The entries are evicted in least recently used order, if the size of the directory exceeds a limit.
+ *
+ * Temporary files, which are left over by terminated processes, are deleted when the cache is opened.
+ *
+ * Errors of the cache never fail a compilation, they are logged and treated as cache misses.
+ */
+public class CompilationCache {
+
+    /**
+     * The version of the entry format, which is part of every key
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String SUFFIX = ".cache";
+
+    private static final String TEMP_PREFIX = "entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Temporary files, which are older than this age, are not written anymore
+     */
+    private static final long STALE_TEMP_AGE = 60 * 60 * 1000;
+
+    private static final String[] ALGEBRA_FILES = {"definition.csv", "macros.clu", "products.csv"};
+
+    private static final Log log = LogFactory.getLog(CompilationCache.class);
+
+    /**
+     * The hashes of the already fingerprinted code sources, which do not change while the classes are loaded
+     */
+    private static final HashMap<String, String> codeSourceHashes = new HashMap<String, String>();
+
+    private final File directory;
+    private final long maxSize;
+
+    /**
+     * Creates a cache
+     * @param directory The directory of the cache entries, which is created if necessary
+     * @param maxSize The maximum size of all entries in bytes
+     */
+    public CompilationCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        deleteStaleTemporaryFiles();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Computes the key of a compilation
+     * @param input The input file
+     * @param algebraName The name of the algebra
+     * @param asRessource true, if the algebra is a ressource
+     * @param algebraBaseDirectory The base directory of the user-defined algebras
+     * @param plugins The plugins, which configure the compilation
+     * @param settings The global settings of the compilation, null if they are unknown
+     * @return The key as hexadecimal string
+     * @throws IOException if a file can not be read or the Maxima version can not be determined
+     */
+    public static String computeKey(InputFile input, String algebraName, boolean asRessource, String algebraBaseDirectory, Collection<? extends Plugin> plugins, GlobalSettings settings) throws IOException {
+        MessageDigest digest = createDigest();
+        update(digest, "format " + FORMAT_VERSION);
+        for (String codeSourceHash : getBuildFingerprint(plugins))
+            update(digest, codeSourceHash);
+        update(digest, input.getName());
+        update(digest, input.getContent());
+        update(digest, algebraName);
+
+        for (String fileName : ALGEBRA_FILES) {
+            update(digest, fileName);
+            InputStream inputStream = asRessource
+                    ? CompilationCache.class.getClassLoader().getResourceAsStream("de/gaalop/algebra/algebra/" + algebraName + "/" + fileName)
+                    : openFile(new File(getAlgebraDirectory(algebraBaseDirectory, algebraName), fileName));
+            update(digest, inputStream);
+        }
+
+        // an upgraded Maxima can optimize differently
+        if (settings != null && settings.isOptMaxima()) {
+            String maximaVersion = settings.getMaximaVersion();
+            if (maximaVersion == null)
+                throw new IOException("The version of Maxima could not be determined");
+            update(digest, "maxima " + settings.getMaximaCommand());
+            update(digest, maximaVersion);
+        }
+
+        for (Plugin plugin : plugins) {
+            update(digest, plugin.getClass().getName());
+            for (Field field : getConfigurationFields(plugin.getClass())) {
+                Object value;
+                try {
+                    field.setAccessible(true);
+                    value = field.get(plugin);
+                } catch (IllegalAccessException e) {
+                    throw new IOException("Unable to read configuration property " + field.getName(), e);
+                }
+                update(digest, field.getName() + "=" + value);
+                // the content of a configured file is part of the configuration, e.g. the user macros
+                if (value != null && field.getAnnotation(ConfigurationProperty.class).type() == ConfigurationProperty.Type.FILEPATH && !value.toString().trim().isEmpty())
+                    update(digest, openFile(new File(value.toString())));
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    /**
+     * Returns the hashes of the code sources, which contain the compiler and the plugins
+     * @param plugins The plugins, which configure the compilation
+     * @return The hashes in ascending order
+     */
+    private static Set<String> getBuildFingerprint(Collection<? extends Plugin> plugins) throws IOException {
+        Set<String> hashes = new TreeSet<String>();
+        // every Gaalop module contains the package directory de/gaalop
+        Enumeration<URL> modules = CompilationCache.class.getClassLoader().getResources("de/gaalop");
+        while (modules.hasMoreElements())
+            hashes.add(getCodeSourceHash(getCodeSourceLocation(modules.nextElement())));
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        classes.add(CompilationCache.class);
+        for (Plugin plugin : plugins)
+            classes.add(plugin.getClass());
+        for (Class<?> c : classes) {
+            CodeSource codeSource = c.getProtectionDomain().getCodeSource();
+            if (codeSource != null)
+                hashes.add(getCodeSourceHash(codeSource.getLocation()));
+        }
+        return hashes;
+    }
+
+    /**
+     * Returns the location of the jar file or class directory, which contains the package directory de/gaalop
+     * @param packageUrl The url of the package directory
+     * @return The location
+     */
+    private static URL getCodeSourceLocation(URL packageUrl) throws IOException {
+        if (packageUrl.getProtocol().equals("jar")) {
+            URLConnection connection = packageUrl.openConnection();
+            if (connection instanceof JarURLConnection)
+                return ((JarURLConnection) connection).getJarFileURL();
+        }
+        String url = packageUrl.toString();
+        return new URL(url.substring(0, url.lastIndexOf("de/gaalop")));
+    }
+
+    /**
+     * Returns the hash of the content of a jar file or class directory
+     * @param location The location of the jar file or class directory
+     * @return The hash as hexadecimal string
+     */
+    private static String getCodeSourceHash(URL location) throws IOException {
+        synchronized (codeSourceHashes) {
+            String hash = codeSourceHashes.get(location.toString());
+            if (hash == null) {
+                File file;
+                try {
+                    file = new File(location.toURI());
+                } catch (URISyntaxException e) {
+                    throw new IOException("Unable to fingerprint the code source " + location, e);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Unable to fingerprint the code source " + location, e);
+                }
+                if (!file.exists())
+                    throw new IOException("Unable to fingerprint the code source " + location);
+                MessageDigest digest = createDigest();
+                updateCodeSource(digest, file, "");
+                hash = toHex(digest.digest());
+                codeSourceHashes.put(location.toString(), hash);
+            }
+            return hash;
+        }
+    }
+
+    private static void updateCodeSource(MessageDigest digest, File file, String path) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                throw new IOException("Unable to list the directory " + file);
+            Arrays.sort(children);
+            for (File child : children)
+                updateCodeSource(digest, child, path + "/" + child.getName());
+        } else {
+            update(digest, path);
+            update(digest, new FileInputStream(file));
+        }
+    }
+
+    /**
+     * Returns the configuration properties of a plugin class including the inherited ones, sorted by name
+     * @param pluginClass The class of the plugin
+     * @return The annotated fields
+     */
+    private static List<Field> getConfigurationFields(Class<?> pluginClass) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c = pluginClass; c != null; c = c.getSuperclass())
+            for (Field field : c.getDeclaredFields())
+                if (field.isAnnotationPresent(ConfigurationProperty.class))
+                    fields.add(field);
+        Collections.sort(fields, new Comparator<Field>() {
+            @Override
+            public int compare(Field f1, Field f2) {
+                return (f1.getDeclaringClass().getName() + "." + f1.getName()).compareTo(f2.getDeclaringClass().getName() + "." + f2.getName());
+            }
+        });
+        return fields;
+    }
+
+    private static File getAlgebraDirectory(String algebraBaseDirectory, String algebraName) {
+        return new File((algebraBaseDirectory == null) ? "." : algebraBaseDirectory, algebraName);
+    }
+
+    private static InputStream openFile(File file) throws IOException {
+        return file.isFile() ? new FileInputStream(file) : null;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        byte[] bytes = s.getBytes(Charset.forName("UTF-8"));
+        // the length separates the strings, so that different strings can not result in the same key
+        updateLength(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void update(MessageDigest digest, InputStream inputStream) throws IOException {
+        if (inputStream == null) {
+            updateLength(digest, -1);
+            return;
+        }
+        try {
+            byte[] buffer = new byte[8192];
+            long length = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+                length += read;
+            }
+            updateLength(digest, length);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static void updateLength(MessageDigest digest, long length) {
+        for (int i = 0; i < 8; i++)
+            digest.update((byte) (length >>> (8 * i)));
+    }
+
+    /**
+     * Returns the output files of a compilation and marks the entry as recently used
+     * @param key The key of the compilation
+     * @return The output files, null if the compilation is not cached
+     */
+    public Set<OutputFile> get(String key) {
+        File file = getFile(key);
+        if (!file.isFile())
+            return null;
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                int count = in.readInt();
+                Set<OutputFile> outputFiles = new HashSet<OutputFile>();
+                for (int i = 0; i < count; i++) {
+                    String name = in.readUTF();
+                    Charset encoding = Charset.forName(in.readUTF());
+                    byte[] content = new byte[in.readInt()];
+                    in.readFully(content);
+                    outputFiles.add(new OutputFile(name, new String(content, encoding), encoding));
+                }
+                file.setLastModified(System.currentTimeMillis());
+                return outputFiles;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            log.warn("Removing unreadable cache entry " + file, e);
+            file.delete();
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("Removing unreadable cache entry " + file, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the output files of a compilation and evicts the least recently used entries
+     * @param key The key of the compilation
+     * @param outputFiles The output files
+     */
+    public void put(String key, Set<OutputFile> outputFiles) {
+        try {
+            directory.mkdirs();
+            // the entry is written to a temporary file first, so that other processes never read an incomplete entry
+            File temp = File.createTempFile(TEMP_PREFIX, TEMP_SUFFIX, directory);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(outputFiles.size());
+                for (OutputFile outputFile : outputFiles) {
+                    out.writeUTF(outputFile.getName());
+                    out.writeUTF(outputFile.getEncoding().name());
+                    byte[] content = outputFile.getContent().getBytes(outputFile.getEncoding());
+                    out.writeInt(content.length);
+                    out.write(content);
+                }
+            } finally {
+                out.close();
+            }
+            Files.move(temp.toPath(), getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Unable to store cache entry " + key, e);
+        }
+        evict();
+    }
+
+    /**
+     * Deletes the least recently used entries, until the size of all entries is not greater than the maximum size
+     */
+    public synchronized void evict() {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+
+        List<File> entries = new ArrayList<File>();
+        // the modification times are read once, because they can be changed concurrently
+        final HashMap<File, Long> lastUsed = new HashMap<File, Long>();
+        long size = 0;
+        for (File file : files)
+            if (file.getName().endsWith(SUFFIX)) {
+                entries.add(file);
+                lastUsed.put(file, file.lastModified());
+                size += file.length();
+            }
+        if (size <= maxSize)
+            return;
+
+        Collections.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return lastUsed.get(f1).compareTo(lastUsed.get(f2));
+            }
+        });
+        for (int i = 0; i < entries.size() && size > maxSize; i++) {
+            long length = entries.get(i).length();
+            if (entries.get(i).delete())
+                size -= length;
+        }
+    }
+
+    /**
+     * Deletes the temporary files of entries, which have not been completed
+     */
+    private void deleteStaleTemporaryFiles() {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+        // recent temporary files can be written by other processes at the moment
+        long staleTime = System.currentTimeMillis() - STALE_TEMP_AGE;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX) && file.lastModified() < staleTime)
+                file.delete();
+        }
+    }
+
+    /**
+     * Deletes all entries
+     */
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                if (file.getName().endsWith(SUFFIX))
+                    file.delete();
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+}
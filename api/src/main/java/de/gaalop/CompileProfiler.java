@@ -0,0 +1,251 @@
+package de.gaalop;
+
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.visitors.GraphStatistics;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records the wall time, the allocated bytes and the node and expression counts
+ * before and after each phase of a compilation.
+ *
+ * The CompilerFacade makes its profiler the current profiler of the compiling thread,
+ * so that strategies can record their own sub phases with begin and end
+ * without knowing, whether profiling is enabled:
+ * <pre>
+ * CompileProfiler.Phase phase = CompileProfiler.begin("Inlining", graph);
+ * ...
+ * CompileProfiler.end(phase, graph);
+ * </pre>
+ */
+public class CompileProfiler {
+
+    private static final ThreadLocal<CompileProfiler> CURRENT = new ThreadLocal<CompileProfiler>();
+
+    /**
+     * A recorded phase, nested phases have a higher depth
+     */
+    public static class Phase {
+
+        private final String name;
+        private final int depth;
+        private final long startNanos;
+        private final long startAllocated;
+        private final int nodesBefore;
+        private final int expressionsBefore;
+
+        private long wallNanos = -1;
+        private long allocatedBytes = -1;
+        private int nodesAfter = -1;
+        private int expressionsAfter = -1;
+
+        private Phase(String name, int depth, int nodesBefore, int expressionsBefore) {
+            this.name = name;
+            this.depth = depth;
+            this.nodesBefore = nodesBefore;
+            this.expressionsBefore = expressionsBefore;
+            this.startAllocated = measureAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return The wall time in nanoseconds, -1 if the phase was not ended
+         */
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * @return The bytes allocated by the compiling thread, -1 if unknown
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @return The number of graph nodes before the phase, -1 if there was no graph
+         */
+        public int getNodesBefore() {
+            return nodesBefore;
+        }
+
+        public int getExpressionsBefore() {
+            return expressionsBefore;
+        }
+
+        public int getNodesAfter() {
+            return nodesAfter;
+        }
+
+        public int getExpressionsAfter() {
+            return expressionsAfter;
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<Phase>();
+    private final LinkedList<Phase> open = new LinkedList<Phase>();
+
+    /**
+     * Returns the profiler of the compilation, which is performed by the current thread
+     * @return The profiler, null if the compilation is not profiled
+     */
+    public static CompileProfiler getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes this profiler the current profiler of the current thread
+     * @return The profiler, which was current before
+     */
+    CompileProfiler attach() {
+        CompileProfiler previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    /**
+     * Restores the current profiler of the current thread
+     * @param previous The profiler, which was current before attach
+     */
+    static void detach(CompileProfiler previous) {
+        if (previous == null)
+            CURRENT.remove();
+        else
+            CURRENT.set(previous);
+    }
+
+    /**
+     * Begins a phase in the current profiler
+     * @param name The name of the phase
+     * @param graph The graph, which is transformed by the phase, can be null
+     * @return The begun phase, null if the compilation is not profiled
+     */
+    public static Phase begin(String name, ControlFlowGraph graph) {
+        CompileProfiler profiler = CURRENT.get();
+        return (profiler == null) ? null : profiler.beginPhase(name, graph);
+    }
+
+    /**
+     * Ends a phase, which was begun with begin
+     * @param phase The phase, can be null
+     * @param graph The graph, which was transformed by the phase, can be null
+     */
+    public static void end(Phase phase, ControlFlowGraph graph) {
+        CompileProfiler profiler = CURRENT.get();
+        if (phase != null && profiler != null)
+            profiler.endPhase(phase, graph);
+    }
+
+    /**
+     * Begins a phase
+     * @param name The name of the phase
+     * @param graph The graph, which is transformed by the phase, can be null
+     * @return The begun phase
+     */
+    public synchronized Phase beginPhase(String name, ControlFlowGraph graph) {
+        GraphStatistics statistics = (graph == null) ? null : GraphStatistics.count(graph);
+        Phase phase = new Phase(name, open.size(),
+                (statistics == null) ? -1 : statistics.getNodeCount(),
+                (statistics == null) ? -1 : statistics.getExpressionCount());
+        phases.add(phase);
+        open.push(phase);
+        return phase;
+    }
+
+    /**
+     * Ends a phase and all phases, which were begun in it and not ended
+     * @param phase The phase
+     * @param graph The graph, which was transformed by the phase, can be null
+     */
+    public synchronized void endPhase(Phase phase, ControlFlowGraph graph) {
+        long now = System.nanoTime();
+        long allocated = measureAllocatedBytes();
+        if (!open.contains(phase))
+            return;
+        Phase top;
+        do {
+            top = open.pop();
+            top.wallNanos = now - top.startNanos;
+            if (allocated >= 0 && top.startAllocated >= 0)
+                top.allocatedBytes = allocated - top.startAllocated;
+        } while (top != phase);
+
+        if (graph != null) {
+            GraphStatistics statistics = GraphStatistics.count(graph);
+            phase.nodesAfter = statistics.getNodeCount();
+            phase.expressionsAfter = statistics.getExpressionCount();
+        }
+    }
+
+    /**
+     * Returns the recorded phases in the order of their beginning
+     * @return The phases
+     */
+    public synchronized List<Phase> getPhases() {
+        return Collections.unmodifiableList(new ArrayList<Phase>(phases));
+    }
+
+    /**
+     * Returns the bytes, which were allocated by the current thread so far
+     * @return The allocated bytes, -1 if the virtual machine does not support this measurement
+     */
+    private static long measureAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the recorded phases as JSON array
+     * @return The JSON string
+     */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[\n");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            sb.append("  {\"name\": \"").append(escape(phase.name)).append('"');
+            sb.append(", \"depth\": ").append(phase.depth);
+            sb.append(", \"wallMillis\": ").append((phase.wallNanos < 0) ? "-1" : String.format(Locale.ENGLISH, "%.3f", phase.wallNanos / 1e6));
+            sb.append(", \"allocatedBytes\": ").append(phase.allocatedBytes);
+            sb.append(", \"nodesBefore\": ").append(phase.nodesBefore);
+            sb.append(", \"nodesAfter\": ").append(phase.nodesAfter);
+            sb.append(", \"expressionsBefore\": ").append(phase.expressionsBefore);
+            sb.append(", \"expressionsAfter\": ").append(phase.expressionsAfter);
+            sb.append((i + 1 < phases.size()) ? "},\n" : "}\n");
+        }
+        sb.append("]\n");
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.toString();
+    }
+
+}
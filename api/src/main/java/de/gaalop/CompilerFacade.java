@@ -1,7 +1,11 @@
 package de.gaalop;
 
 import de.gaalop.cfg.ControlFlowGraph;
+import org.apache.commons.logging.LogFactory;
 
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Observable;
 import java.util.Set;
@@ -29,6 +33,12 @@ public final class CompilerFacade extends Observable {
     
     private static boolean useCodeSegmenter;
 
+    private CompileProfiler profiler;
+
+    private CompilationCache cache;
+
+    private Collection<? extends Plugin> cachePlugins = Collections.emptyList();
+
     public static boolean isUseCodeSegmenter() {
 		return useCodeSegmenter;
 	}
@@ -56,6 +66,33 @@ public final class CompilerFacade extends Observable {
         this.algebraBaseDirectory = algebraBaseDirectory;
     }
 
+    /**
+     * Sets the profiler, which records the phases of the following compilations.
+     * @param profiler The profiler, null to disable profiling
+     */
+    public void setProfiler(CompileProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public CompileProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Sets the cache, which stores the results of the following compilations.
+     * @param cache The cache, null to disable caching
+     * @param plugins The plugins, which created the strategies of this facade.
+     * Their configuration properties are part of the cache key.
+     */
+    public void setCache(CompilationCache cache, Collection<? extends Plugin> plugins) {
+        this.cache = cache;
+        this.cachePlugins = plugins;
+    }
+
+    public CompilationCache getCache() {
+        return cache;
+    }
+
     /**
      * Compiles an input file using the previously configured subsystems.
      *
@@ -64,7 +101,52 @@ public final class CompilerFacade extends Observable {
      * @throws CompilationException If any error occurs during compilation.
      */
     public Set<OutputFile> compile(InputFile input) throws CompilationException {
-    	return realCompile(input);
+        if (profiler == null)
+            return cachedCompile(input);
+
+        CompileProfiler previous = profiler.attach();
+        try {
+            CompileProfiler.Phase phase = CompileProfiler.begin("Compilation", null);
+            Set<OutputFile> output = cachedCompile(input);
+            CompileProfiler.end(phase, null);
+            return output;
+        } finally {
+            CompileProfiler.detach(previous);
+        }
+    }
+
+    private Set<OutputFile> cachedCompile(InputFile input) throws CompilationException {
+        if (cache == null)
+            return realCompile(input);
+
+        CompileProfiler.Phase phase = CompileProfiler.begin("Cache lookup", null);
+        String key;
+        try {
+            // the global settings select external tools like Maxima, whose versions are part of the key
+            ControlFlowGraph settingsGraph = new ControlFlowGraph();
+            globalSettingsStrategy.transform(settingsGraph);
+            key = CompilationCache.computeKey(input, algebraName, asRessource, algebraBaseDirectory, cachePlugins, settingsGraph.globalSettings);
+        } catch (IOException e) {
+            // the cache never fails a compilation
+            CompileProfiler.end(phase, null);
+            LogFactory.getLog(CompilerFacade.class).warn("Unable to compute the cache key, compiling without cache", e);
+            return realCompile(input);
+        } catch (OptimizationException e) {
+            CompileProfiler.end(phase, null);
+            LogFactory.getLog(CompilerFacade.class).warn("Unable to compute the cache key, compiling without cache", e);
+            return realCompile(input);
+        }
+        Set<OutputFile> output = cache.get(key);
+        CompileProfiler.end(phase, null);
+        if (output != null) {
+            setChanged();
+            notifyObservers("Finished");
+            return output;
+        }
+
+        output = realCompile(input);
+        cache.put(key, output);
+        return output;
     }
     
     
@@ -72,7 +154,9 @@ public final class CompilerFacade extends Observable {
     private Set<OutputFile> realCompile(InputFile input) throws CompilationException {
     	setChanged();
     	notifyObservers("Parsing...");
+        CompileProfiler.Phase phase = CompileProfiler.begin("Parsing", null);
         ControlFlowGraph graph = codeParser.parseFile(input);
+        CompileProfiler.end(phase, graph);
         setChanged();
         
         graph.algebraName = algebraName;
@@ -80,7 +164,9 @@ public final class CompilerFacade extends Observable {
         graph.algebraBaseDirectory = algebraBaseDirectory;
         
         notifyObservers("Setting global settings...");
+        phase = CompileProfiler.begin("Global settings", graph);
         globalSettingsStrategy.transform(graph);
+        CompileProfiler.end(phase, graph);
         setChanged();
         
         //notifyObservers("Algebra inserting...");  
@@ -88,19 +174,27 @@ public final class CompilerFacade extends Observable {
         //setChanged();
 
         notifyObservers("Inserting code for visualization...");
+        phase = CompileProfiler.begin("Visualization", graph);
         visualizerStrategy.transform(graph);
+        CompileProfiler.end(phase, graph);
         setChanged();
 
         notifyObservers("Algebra inserting...");  
+        phase = CompileProfiler.begin("Algebra", graph);
         algebraStrategy.transform(graph);
+        CompileProfiler.end(phase, graph);
         setChanged();
         
         notifyObservers("Optimizing...");  //FIXME thomas
+        phase = CompileProfiler.begin("Optimization", graph);
         optimizationStrategy.transform(graph);
+        CompileProfiler.end(phase, graph);
         setChanged();
         
         notifyObservers("Generating Code...");
+        phase = CompileProfiler.begin("Code generation", graph);
         Set<OutputFile> output = codeGenerator.generate(graph);  
+        CompileProfiler.end(phase, null);
         setChanged();
         notifyObservers("Finished");        
         return output;   	
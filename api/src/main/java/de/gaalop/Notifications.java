@@ -1,6 +1,7 @@
 package de.gaalop;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,7 +14,7 @@ import java.util.List;
  */
 public abstract class Notifications {
 
-	private static List<Warning> warnings = new ArrayList<Warning>();
+	private static List<Warning> warnings = Collections.synchronizedList(new ArrayList<Warning>());
 
 	public static void addWarning(Warning warning) {
 		warnings.add(warning);
@@ -56,6 +56,7 @@ public final class AssignmentNode extends SequentialNode {
      */
     public void setVariable(Variable variable) {
         this.variable = variable;
+        changed();
     }
 
     /**
@@ -65,6 +66,16 @@ public final class AssignmentNode extends SequentialNode {
      */
     public void setValue(Expression value) {
         this.value = value;
+        changed();
+    }
+
+    /**
+     * Updates the variable references of the graph, after the variable or the value has changed.
+     */
+    private void changed() {
+        if (getGraph() != null) {
+            getGraph().nodeChanged(this);
+        }
     }
 
     /**
@@ -87,6 +98,7 @@ public final class AssignmentNode extends SequentialNode {
     		// recursively try to replace expression
     		value.replaceExpression(old, newExpression);
     	}
+    	changed();
     }
     
     @Override
@@ -42,6 +42,9 @@ public final class ControlFlowGraph {
 	private Set<Variable> scalarVariables = new HashSet<Variable>();
 	private Set<Variable> inputVariables = new HashSet<Variable>();
 
+	/* the reference counts of the variables, null if they are not tracked */
+	private VariableReferences variableReferences;
+
         private AlgebraDefinitionFile algebraDefinitionFile = new AlgebraDefinitionFile();
 
 	private final StartNode startNode;
@@ -319,6 +322,100 @@ public final class ControlFlowGraph {
 		inputVariables.remove(variable);
 	}
 
+	/**
+	 * Starts counting for every variable the assignment nodes, which use or define it.
+	 * <p/>
+	 * The counts are initialized by one traversal of this graph and then updated incrementally by
+	 * {@link SequentialNode#insertAfter(SequentialNode)}, {@link Node#insertBefore(SequentialNode)},
+	 * {@link #removeNode(SequentialNode)} and the setters of {@link AssignmentNode}, so that unreferenced local
+	 * variables can be removed without traversing the graph again. While tracking, an expression that is changed in
+	 * place must be set again by {@link AssignmentNode#setValue(Expression)}. Blocks of inserted control flow nodes are
+	 * not counted.
+	 */
+	public void trackVariableReferences() {
+		final VariableReferences references = new VariableReferences();
+		accept(new EmptyControlFlowVisitor() {
+			@Override
+			public void visit(AssignmentNode node) {
+				references.add(node);
+				super.visit(node);
+			}
+		});
+		for (Variable variable : localVariables) {
+			references.markCandidate(variable.getName());
+		}
+		variableReferences = references;
+	}
+
+	/**
+	 * Stops counting the references of the variables.
+	 */
+	public void stopTrackingVariableReferences() {
+		variableReferences = null;
+	}
+
+	/**
+	 * Determines whether the references of the variables are counted.
+	 * 
+	 * @return true, if {@link #trackVariableReferences()} was called and the tracking was not stopped
+	 */
+	public boolean isTrackingVariableReferences() {
+		return variableReferences != null;
+	}
+
+	/**
+	 * Returns the number of assignment nodes, which use or define a variable.
+	 * 
+	 * @param name name of the variable
+	 * @return the number of referencing assignment nodes
+	 * @throws IllegalStateException If the references are not tracked.
+	 */
+	public int getVariableReferenceCount(String name) {
+		checkTracking();
+		return variableReferences.getCount(name);
+	}
+
+	/**
+	 * Removes all local variables, which are not referenced by an assignment node anymore. Only the variables, whose
+	 * count dropped to zero since the last call, are checked.
+	 * 
+	 * @throws IllegalStateException If the references are not tracked.
+	 */
+	public void removeUnreferencedLocalVariables() {
+		checkTracking();
+		for (String name : variableReferences.pollUnreferenced()) {
+			localVariables.remove(new Variable(name));
+		}
+	}
+
+	private void checkTracking() {
+		if (variableReferences == null) {
+			throw new IllegalStateException("The variable references of this graph are not tracked.");
+		}
+	}
+
+	/**
+	 * Counts the references of a node, which was inserted into this graph.
+	 * 
+	 * @param node The inserted node
+	 */
+	void nodeInserted(SequentialNode node) {
+		if (variableReferences != null && node instanceof AssignmentNode) {
+			variableReferences.add((AssignmentNode) node);
+		}
+	}
+
+	/**
+	 * Updates the references of an assignment node, whose variable or value has changed.
+	 * 
+	 * @param node The changed node
+	 */
+	void nodeChanged(AssignmentNode node) {
+		if (variableReferences != null) {
+			variableReferences.update(node);
+		}
+	}
+
 	/**
 	 * Starts the traversal of this control flow graph using a visitor.
 	 * <p/>
@@ -346,6 +443,9 @@ public final class ControlFlowGraph {
 			successor.addPredecessor(predecessor);
 			predecessor.replaceSuccessor(node, successor);
 		}
+		if (variableReferences != null && node instanceof AssignmentNode) {
+			variableReferences.remove((AssignmentNode) node);
+		}
 	}
 
 	@Override
@@ -1,15 +1,28 @@
 package de.gaalop.cfg;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+
 /**
  *
  * @author Christian Steinmetz
  */
 public class GlobalSettings {
+
+    private static final HashMap<String, String> maximaVersions = new HashMap<String, String>();
     
     public String maximaCommand;
     
     public boolean optMaxima;
 
+    public int maximaSessions;
+
+    public String maximaCacheDirectory;
+
+    public int maximaCacheSize;
+
     public String getMaximaCommand() {
         return maximaCommand;
     }
@@ -17,6 +30,61 @@ public class GlobalSettings {
     public boolean isOptMaxima() {
         return optMaxima;
     }
+
+    public int getMaximaSessions() {
+        return maximaSessions;
+    }
+
+    public String getMaximaCacheDirectory() {
+        return maximaCacheDirectory;
+    }
+
+    public int getMaximaCacheSize() {
+        return maximaCacheSize;
+    }
+
+    /**
+     * Returns the version of Maxima, which is started by the Maxima command.
+     * The version is determined once per command.
+     * @return The output of <code>maxima --version</code>, null if it could not be determined
+     */
+    public String getMaximaVersion() {
+        synchronized (maximaVersions) {
+            if (!maximaVersions.containsKey(maximaCommand)) {
+                maximaVersions.put(maximaCommand, readMaximaVersion(maximaCommand));
+            }
+            return maximaVersions.get(maximaCommand);
+        }
+    }
+
+    private static String readMaximaVersion(String maximaCommand) {
+        if (maximaCommand == null) {
+            return null;
+        }
+        try {
+            ProcessBuilder builder = new ProcessBuilder(maximaCommand, "--version");
+            builder.redirectErrorStream(true);
+            Process process = builder.start();
+            process.getOutputStream().close();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            StringBuilder version = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                version.append(line.trim()).append('\n');
+            }
+            reader.close();
+            if (process.waitFor() != 0 || version.toString().trim().isEmpty()) {
+                return null;
+            }
+            return version.toString().trim();
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
     
     
 
@@ -124,5 +124,8 @@ public abstract class Node {
 		}
 		predecessors.clear(); // previous predecessors are no predecessors anymore
 		addPredecessor(newNode);
+		if (graph != null) {
+			graph.nodeInserted(newNode);
+		}
 	}
 }
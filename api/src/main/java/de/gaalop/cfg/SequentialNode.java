@@ -59,6 +59,9 @@ public abstract class SequentialNode extends Node {
 			oldSuccessor.removePredecessor(this);
 			oldSuccessor.addPredecessor(newNode);
 		}
+		if (getGraph() != null) {
+			getGraph().nodeInserted(newNode);
+		}
 	}
 
 	@Override
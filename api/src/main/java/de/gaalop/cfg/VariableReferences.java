@@ -0,0 +1,148 @@
+package de.gaalop.cfg;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import de.gaalop.dfg.EmptyExpressionVisitor;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Variable;
+
+/**
+ * This class counts for every variable name the number of assignment nodes, which use or define the variable.
+ * <p/>
+ * The counts are updated incrementally, when a node is inserted, removed or changed, so that the variables which are not
+ * referenced anymore can be determined without traversing the whole graph.
+ *
+ * @see ControlFlowGraph#trackVariableReferences()
+ */
+final class VariableReferences {
+
+	/** The counted variable names of every assignment node, which is part of the graph */
+	private final IdentityHashMap<AssignmentNode, Set<String>> nodes = new IdentityHashMap<AssignmentNode, Set<String>>();
+
+	private final HashMap<String, Integer> counts = new HashMap<String, Integer>();
+
+	/** The variable names, whose count dropped to zero since the last call of pollUnreferenced */
+	private Set<String> unreferenced = new HashSet<String>();
+
+	/**
+	 * Collects the names of all variables, which are used or defined by an assignment node
+	 */
+	private static final class NameCollector extends EmptyExpressionVisitor {
+
+		private final Set<String> names = new HashSet<String>();
+
+		@Override
+		public void visit(Variable node) {
+			names.add(node.getName());
+		}
+
+		@Override
+		public void visit(MultivectorComponent node) {
+			names.add(node.getName());
+		}
+
+	}
+
+	private static Set<String> collectNames(AssignmentNode node) {
+		NameCollector collector = new NameCollector();
+		node.getVariable().accept(collector);
+		if (node.getValue() != null) {
+			node.getValue().accept(collector);
+		}
+		return collector.names;
+	}
+
+	/**
+	 * Counts the references of an assignment node, which is inserted into the graph.
+	 * If the node is already counted, its references are updated.
+	 *
+	 * @param node The inserted node
+	 */
+	void add(AssignmentNode node) {
+		Set<String> names = collectNames(node);
+		for (String name : names) {
+			Integer count = counts.get(name);
+			counts.put(name, (count == null) ? 1 : count + 1);
+		}
+		Set<String> old = nodes.put(node, names);
+		if (old != null) {
+			decrement(old);
+		}
+	}
+
+	/**
+	 * Removes the references of an assignment node, which is removed from the graph
+	 *
+	 * @param node The removed node
+	 */
+	void remove(AssignmentNode node) {
+		Set<String> old = nodes.remove(node);
+		if (old != null) {
+			decrement(old);
+		}
+	}
+
+	/**
+	 * Updates the references of an assignment node, whose variable or value has changed.
+	 * Nodes, which are not part of the graph, are ignored.
+	 *
+	 * @param node The changed node
+	 */
+	void update(AssignmentNode node) {
+		if (nodes.containsKey(node)) {
+			add(node);
+		}
+	}
+
+	private void decrement(Set<String> names) {
+		for (String name : names) {
+			int count = counts.get(name) - 1;
+			if (count == 0) {
+				counts.remove(name);
+				unreferenced.add(name);
+			} else {
+				counts.put(name, count);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of assignment nodes, which use or define a variable
+	 *
+	 * @param name The name of the variable
+	 * @return The number of referencing nodes
+	 */
+	int getCount(String name) {
+		Integer count = counts.get(name);
+		return (count == null) ? 0 : count;
+	}
+
+	/**
+	 * Marks a variable as candidate for the next call of pollUnreferenced
+	 *
+	 * @param name The name of the variable
+	 */
+	void markCandidate(String name) {
+		unreferenced.add(name);
+	}
+
+	/**
+	 * Returns the variables, which are not referenced anymore and whose count dropped to zero since the last call
+	 *
+	 * @return The names of the unreferenced variables
+	 */
+	Set<String> pollUnreferenced() {
+		Set<String> result = new HashSet<String>();
+		for (String name : unreferenced) {
+			if (!counts.containsKey(name)) {
+				result.add(name);
+			}
+		}
+		unreferenced = new HashSet<String>();
+		return result;
+	}
+
+}
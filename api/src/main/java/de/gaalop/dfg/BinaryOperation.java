@@ -40,6 +40,7 @@ public abstract class BinaryOperation extends Expression {
     
     @Override
     public void replaceExpression(Expression old, Expression newExpression) {
+    	checkMutable();
     	if (old == left) {
     		left = newExpression;
     	} else if (left.isComposite()) {
@@ -93,6 +94,8 @@ public abstract class BinaryOperation extends Expression {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
+        if (isInternedTogether(o)) return false;
+
         BinaryOperation that = (BinaryOperation) o;
 
         if (left != null ? !left.equals(that.left) : that.left != null) return false;
@@ -103,16 +106,19 @@ public abstract class BinaryOperation extends Expression {
 
     @Override
     public int hashCode() {
+        if (isInterned()) return internedHash;
         int result = left != null ? left.hashCode() : 0;
         result = 31 * result + (right != null ? right.hashCode() : 0);
         return result;
     }
 
     public void setLeft(Expression left) {
+        checkMutable();
         this.left = left;
     }
 
     public void setRight(Expression right) {
+        checkMutable();
         this.right = right;
     }
 
@@ -7,6 +7,46 @@ package de.gaalop.dfg;
  */
 public abstract class Expression {
 
+	/**
+	 * The interner, which created this expression, null if the expression is mutable
+	 */
+	ExpressionInterner interner;
+
+	/**
+	 * The hash code, which was computed when this expression was interned
+	 */
+	int internedHash;
+
+	/**
+	 * Indicates that this expression was created by an {@link ExpressionInterner} and is shared.
+	 * Interned expressions must not be changed until the interner is released.
+	 *
+	 * @return True if this expression is interned.
+	 */
+	public boolean isInterned() {
+		return interner != null;
+	}
+
+	/**
+	 * Indicates that this expression and another object are interned by the same interner,
+	 * so that they are equal if and only if they are identical.
+	 *
+	 * @param o The other object.
+	 * @return True if both are interned by the same interner.
+	 */
+	protected boolean isInternedTogether(Object o) {
+		return interner != null && o instanceof Expression && ((Expression) o).interner == interner;
+	}
+
+	/**
+	 * Throws an exception if this expression is interned, because interned expressions are shared.
+	 */
+	protected void checkMutable() {
+		if (interner != null) {
+			throw new IllegalStateException("Interned expressions must not be changed");
+		}
+	}
+
 	/**
 	 * Creates a deep copy of this expression and returns it. We do not use the clone method of the Object class here,
 	 * because by definition it only creates shallow copies.
@@ -0,0 +1,154 @@
+package de.gaalop.dfg;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class builds expressions as a directed acyclic graph with hash consing.
+ * <p/>
+ * Every structure is created only once: interning an expression, which is equal to an already interned one,
+ * returns the already interned expression, so that shared subexpressions are stored once.
+ * The hash code of an interned expression is computed once, and two expressions of the same interner
+ * are equal if and only if they are identical, so hashing and comparing interned expressions takes constant time.
+ * <p/>
+ * Interned expressions are immutable, because they are shared. After {@link #release()}
+ * they become ordinary mutable expressions, which still share their subexpressions.
+ * <p/>
+ * Expressions, whose type is not supported, and variables with a value range are not interned,
+ * the same holds for all expressions containing them.
+ */
+public final class ExpressionInterner {
+
+	/**
+	 * The key of an interned expression: its class, its data and the identities of its operands.
+	 */
+	private static final class Key {
+
+		private final Class<?> type;
+		private final Object data;
+		private final Expression left;
+		private final Expression right;
+		private final int hash;
+
+		private Key(Class<?> type, Object data, Expression left, Expression right) {
+			this.type = type;
+			this.data = data;
+			this.left = left;
+			this.right = right;
+			int h = type.hashCode();
+			h = 31 * h + (data != null ? data.hashCode() : 0);
+			h = 31 * h + System.identityHashCode(left);
+			h = 31 * h + System.identityHashCode(right);
+			this.hash = h;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key that = (Key) o;
+			return type == that.type && left == that.left && right == that.right
+					&& (data != null ? data.equals(that.data) : that.data == null);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private final HashMap<Key, Expression> table = new HashMap<Key, Expression>();
+
+	private final List<Expression> interned = new ArrayList<Expression>();
+
+	/**
+	 * Returns the interned expression, which is equal to the given expression.
+	 * Operands, which are not interned yet, are interned first.
+	 *
+	 * @param expression The expression to be interned. Its operands may be replaced by their interned equivalents.
+	 * @return The interned expression, or the given expression, if it can not be interned.
+	 */
+	public Expression intern(Expression expression) {
+		if (expression == null || expression.interner == this) {
+			return expression;
+		}
+		if (expression.interner != null) {
+			throw new IllegalArgumentException("The expression is interned by another interner");
+		}
+
+		Key key;
+		if (expression instanceof BinaryOperation) {
+			BinaryOperation binary = (BinaryOperation) expression;
+			Expression left = intern(binary.getLeft());
+			Expression right = intern(binary.getRight());
+			if (!isInterned(left) || !isInterned(right)) {
+				return expression;
+			}
+			binary.setLeft(left);
+			binary.setRight(right);
+			Object data = (expression instanceof Relation) ? ((Relation) expression).getType() : null;
+			key = new Key(expression.getClass(), data, left, right);
+		} else if (expression instanceof UnaryOperation) {
+			UnaryOperation unary = (UnaryOperation) expression;
+			Expression operand = intern(unary.getOperand());
+			if (!isInterned(operand)) {
+				return expression;
+			}
+			unary.setOperand(operand);
+			Object data = (expression instanceof MathFunctionCall) ? ((MathFunctionCall) expression).getFunction() : null;
+			key = new Key(expression.getClass(), data, operand, null);
+		} else if (expression instanceof FloatConstant) {
+			key = new Key(FloatConstant.class, ((FloatConstant) expression).getValue(), null, null);
+		} else if (expression instanceof Variable) {
+			Variable variable = (Variable) expression;
+			if (variable.getMinValue() != null || variable.getMaxValue() != null) {
+				return expression;
+			}
+			Object data = (expression instanceof MultivectorComponent)
+					? variable.getName() + "[" + ((MultivectorComponent) expression).getBladeIndex() + "]"
+					: variable.getName();
+			key = new Key(expression.getClass(), data, null, null);
+		} else {
+			return expression;
+		}
+
+		Expression existing = table.get(key);
+		if (existing != null) {
+			return existing;
+		}
+
+		// the operands are interned, so the structural hash code is computed in constant time
+		expression.internedHash = expression.hashCode();
+		expression.interner = this;
+		table.put(key, expression);
+		interned.add(expression);
+		return expression;
+	}
+
+	private boolean isInterned(Expression expression) {
+		return expression != null && expression.interner == this;
+	}
+
+	/**
+	 * Returns the number of distinct interned expressions
+	 *
+	 * @return The number of interned expressions
+	 */
+	public int size() {
+		return interned.size();
+	}
+
+	/**
+	 * Makes all interned expressions mutable again and clears this interner.
+	 * The expressions keep sharing their subexpressions.
+	 */
+	public void release() {
+		for (Expression expression : interned) {
+			expression.interner = null;
+		}
+		interned.clear();
+		table.clear();
+	}
+
+}
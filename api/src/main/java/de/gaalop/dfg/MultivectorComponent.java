@@ -94,6 +94,7 @@ public final class MultivectorComponent extends Variable {
 
     @Override
     public void replaceExpression(Expression old, Expression newExpression) {
+        checkMutable();
 
         if (old instanceof MultivectorComponent && newExpression instanceof MultivectorComponent) {
             MultivectorComponent oldVar = (MultivectorComponent) old;
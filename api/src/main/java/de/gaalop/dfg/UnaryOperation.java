@@ -36,6 +36,7 @@ public abstract class UnaryOperation extends Expression {
     
     @Override
     public void replaceExpression(Expression old, Expression newExpression) {
+    	checkMutable();
     	if (old == operand) {
     		operand = newExpression;
     	} else {
@@ -56,6 +57,8 @@ public abstract class UnaryOperation extends Expression {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
+        if (isInternedTogether(o)) return false;
+
         UnaryOperation that = (UnaryOperation) o;
 
         if (!operand.equals(that.operand)) return false;
@@ -65,10 +68,12 @@ public abstract class UnaryOperation extends Expression {
 
     @Override
     public int hashCode() {
+        if (isInterned()) return internedHash;
         return operand.hashCode();
     }
 
     public void setOperand(Expression operand) {
+        checkMutable();
         this.operand = operand;
     }
 
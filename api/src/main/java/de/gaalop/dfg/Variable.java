@@ -100,6 +100,7 @@ public class Variable extends Expression {
 
 	@Override
 	public void replaceExpression(Expression old, Expression newExpression) {
+		checkMutable();
 
 		if (old instanceof Variable && newExpression instanceof Variable) {
 			Variable oldVar = (Variable) old;
@@ -0,0 +1,243 @@
+package de.gaalop.visitors;
+
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.cfg.EmptyControlFlowVisitor;
+import de.gaalop.cfg.ExpressionStatement;
+import de.gaalop.cfg.IfThenElseNode;
+import de.gaalop.cfg.StoreResultNode;
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.BaseVector;
+import de.gaalop.dfg.Division;
+import de.gaalop.dfg.Equality;
+import de.gaalop.dfg.Exponentiation;
+import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.FloatConstant;
+import de.gaalop.dfg.FunctionArgument;
+import de.gaalop.dfg.Inequality;
+import de.gaalop.dfg.InnerProduct;
+import de.gaalop.dfg.LogicalAnd;
+import de.gaalop.dfg.LogicalNegation;
+import de.gaalop.dfg.LogicalOr;
+import de.gaalop.dfg.MacroCall;
+import de.gaalop.dfg.MathFunctionCall;
+import de.gaalop.dfg.Multiplication;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Negation;
+import de.gaalop.dfg.OuterProduct;
+import de.gaalop.dfg.Relation;
+import de.gaalop.dfg.Reverse;
+import de.gaalop.dfg.Subtraction;
+import de.gaalop.dfg.Variable;
+
+/**
+ * Counts the nodes and the expressions of a ControlFlowGraph
+ */
+public class GraphStatistics extends EmptyControlFlowVisitor {
+
+    private int nodeCount;
+    private ExpressionCounter expressionCounter = new ExpressionCounter();
+
+    private GraphStatistics() {
+    }
+
+    /**
+     * Counts the nodes and the expressions of a given ControlFlowGraph
+     * @param graph The ControlFlowGraph
+     * @return The statistics
+     */
+    public static GraphStatistics count(ControlFlowGraph graph) {
+        GraphStatistics statistics = new GraphStatistics();
+        statistics.nodeCount = NodeCollector.collectNodes(graph).size();
+        graph.accept(statistics);
+        return statistics;
+    }
+
+    /**
+     * Returns the number of nodes of the graph
+     * @return The number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of expressions of the graph, each operation and operand counted once
+     * @return The number of expressions
+     */
+    public int getExpressionCount() {
+        return expressionCounter.count;
+    }
+
+    private void count(Expression expression) {
+        if (expression != null)
+            expression.accept(expressionCounter);
+    }
+
+    @Override
+    public void visit(AssignmentNode node) {
+        count(node.getVariable());
+        count(node.getValue());
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(ExpressionStatement node) {
+        count(node.getExpression());
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(StoreResultNode node) {
+        count(node.getValue());
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(IfThenElseNode node) {
+        count(node.getCondition());
+        super.visit(node);
+    }
+
+    /**
+     * Counts all visited expressions
+     */
+    private static class ExpressionCounter extends DFGTraversalVisitor {
+
+        private int count;
+
+        @Override
+        public void visit(Subtraction node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Addition node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Division node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(InnerProduct node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Multiplication node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(MathFunctionCall node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Variable node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(MultivectorComponent node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Exponentiation node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(FloatConstant node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(OuterProduct node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(BaseVector node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Negation node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Reverse node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(LogicalOr node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(LogicalAnd node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(LogicalNegation node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Equality node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Inequality node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(Relation node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(FunctionArgument node) {
+            count++;
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(MacroCall node) {
+            count++;
+            super.visit(node);
+        }
+
+    }
+
+}
@@ -0,0 +1,174 @@
+package de.gaalop.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and compares their scores with a baseline file,
+ * so that regressions show up before an upgrade.
+ *
+ * Usage: java -jar benchmarks.jar [-baseline &lt;file&gt;] [-tolerance &lt;percent&gt;] [-update] [JMH options]
+ * <ul>
+ * <li>-baseline: the baseline file, default benchmarks/baseline.txt</li>
+ * <li>-tolerance: the allowed slow down in percent, default 25</li>
+ * <li>-update: writes the scores as new baseline instead of comparing them</li>
+ * </ul>
+ * All other arguments are passed to JMH, e.g. a benchmark pattern or -wi 1 -i 3 for a quick run.
+ * The exit code is 1, if a benchmark is slower than its baseline score plus tolerance.
+ *
+ * The baseline file contains one line per benchmark: &lt;benchmark&gt;[&lt;parameters&gt;]=&lt;score&gt;,
+ * all scores are average times in microseconds per operation.
+ * Lines starting with # are comments.
+ */
+public class BaselineRunner {
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        File baselineFile = new File("benchmarks/baseline.txt");
+        double tolerance = 25;
+        boolean update = false;
+        List<String> jmhArgs = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-baseline") && i + 1 < args.length)
+                baselineFile = new File(args[++i]);
+            else if (args[i].equals("-tolerance") && i + 1 < args.length)
+                tolerance = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-update"))
+                update = true;
+            else
+                jmhArgs.add(args[i]);
+        }
+
+        CommandLineOptions jmhOptions;
+        try {
+            jmhOptions = new CommandLineOptions(jmhArgs.toArray(new String[jmhArgs.size()]));
+        } catch (CommandLineOptionException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        if (jmhOptions.shouldHelp()) {
+            jmhOptions.showHelp();
+            return;
+        }
+        Runner runner = new Runner(new OptionsBuilder().parent(jmhOptions).build());
+        if (jmhOptions.shouldList()) {
+            runner.list();
+            return;
+        }
+
+        Collection<RunResult> results = runner.run();
+        TreeMap<String, Double> scores = new TreeMap<String, Double>();
+        for (RunResult result : results)
+            scores.put(getKey(result.getParams()), result.getPrimaryResult().getScore());
+
+        if (update) {
+            // keep the scores of the benchmarks, which were not run
+            TreeMap<String, Double> baseline = baselineFile.exists() ? readBaseline(baselineFile) : new TreeMap<String, Double>();
+            baseline.putAll(scores);
+            writeBaseline(baselineFile, baseline);
+            System.out.println("Wrote " + baseline.size() + " scores to " + baselineFile);
+        } else {
+            if (!compare(readBaseline(baselineFile), scores, tolerance))
+                System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the key of a benchmark in the baseline file
+     * @param params The parameters of the benchmark run
+     * @return The simple class and method name, followed by the parameter values
+     */
+    static String getKey(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        int method = benchmark.lastIndexOf('.');
+        int clazz = benchmark.lastIndexOf('.', method - 1);
+        StringBuilder sb = new StringBuilder(benchmark.substring(clazz + 1));
+        List<String> values = new ArrayList<String>();
+        for (String key : params.getParamsKeys())
+            values.add(key + "=" + params.getParam(key));
+        if (!values.isEmpty())
+            sb.append(Arrays.toString(values.toArray()).replace(" ", ""));
+        return sb.toString();
+    }
+
+    /**
+     * Compares scores with their baseline and prints the comparison
+     * @param baseline The baseline scores
+     * @param scores The measured scores
+     * @param tolerance The allowed slow down in percent
+     * @return true, if no benchmark is slower than allowed
+     */
+    static boolean compare(Map<String, Double> baseline, Map<String, Double> scores, double tolerance) {
+        int regressions = 0;
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            Double base = baseline.get(score.getKey());
+            if (base == null) {
+                System.out.println(String.format(Locale.ENGLISH, "NEW        %-70s %12.3f us/op", score.getKey(), score.getValue()));
+                continue;
+            }
+            double change = (score.getValue() - base) / base * 100;
+            boolean regression = change > tolerance;
+            if (regression) regressions++;
+            System.out.println(String.format(Locale.ENGLISH, "%-10s %-70s %12.3f us/op %+8.1f %%",
+                    regression ? "REGRESSION" : "OK", score.getKey(), score.getValue(), change));
+        }
+        System.out.println(regressions + " of " + scores.size() + " benchmarks are more than " + tolerance + " % slower than the baseline");
+        return regressions == 0;
+    }
+
+    static TreeMap<String, Double> readBaseline(File file) throws IOException {
+        TreeMap<String, Double> baseline = new TreeMap<String, Double>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                int separator = line.lastIndexOf('=');
+                baseline.put(line.substring(0, separator), Double.parseDouble(line.substring(separator + 1)));
+            }
+        } finally {
+            reader.close();
+        }
+        return baseline;
+    }
+
+    static void writeBaseline(File file, Map<String, Double> baseline) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        try {
+            writer.println("# Gaalop benchmark baseline, average time in us/op");
+            writer.println("# JVM: " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+            writer.println("# OS: " + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                    + ", " + Runtime.getRuntime().availableProcessors() + " processors");
+            for (Map.Entry<String, Double> score : baseline.entrySet())
+                writer.println(score.getKey() + "=" + String.format(Locale.ENGLISH, "%.3f", score.getValue()));
+        } finally {
+            writer.close();
+        }
+    }
+
+}
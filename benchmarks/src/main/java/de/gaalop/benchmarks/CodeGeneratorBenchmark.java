@@ -0,0 +1,80 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.CodeGenerator;
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.CodeGeneratorPlugin;
+import de.gaalop.CompilationException;
+import de.gaalop.OutputFile;
+import de.gaalop.cfg.ControlFlowGraph;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the code generators on the optimized representative scripts.
+ *
+ * The GAPP based generators get a graph, which is decorated with GAPP instructions,
+ * all other generators get the graph of the table based approach.
+ * The generators of the visualizers and the Verilog generator are not benchmarked,
+ * because they open windows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeGeneratorBenchmark {
+
+    @Param({"clucalc", "cpp", "java", "dot", "latex", "rust", "mathematica", "julia", "compressed", "gapp", "gappopencl"})
+    public String generator;
+
+    @Param({"3d", "5d", "cr4d", "8d", "9d"})
+    public String algebra;
+
+    private ControlFlowGraph graph;
+    private CodeGenerator codeGenerator;
+
+    @Setup
+    public void setUp() throws CompilationException, IOException {
+        CodeGeneratorPlugin plugin = createPlugin(generator);
+        codeGenerator = plugin.createCodeGenerator();
+        graph = generator.startsWith("gapp")
+                ? Fixtures.compile(algebra, new de.gaalop.gapp.Plugin().createOptimizationStrategy())
+                : Fixtures.compileOptimized(algebra);
+    }
+
+    private static CodeGeneratorPlugin createPlugin(String generator) {
+        switch (generator) {
+            case "clucalc": return new de.gaalop.clucalc.output.Plugin();
+            case "cpp": return new de.gaalop.cpp.Plugin();
+            case "java": return new de.gaalop.java.Plugin();
+            case "dot": return new de.gaalop.dot.Plugin();
+            case "latex": return new de.gaalop.latex.Plugin();
+            case "rust": return new de.gaalop.rust.Plugin();
+            case "mathematica": return new de.gaalop.mathematica.Plugin();
+            case "julia": return new de.gaalop.julia.Plugin();
+            case "compressed": return new de.gaalop.compressed.Plugin();
+            case "gapp": return new de.gaalop.codegenGapp.Plugin();
+            case "gappopencl": return new de.gaalop.gappopencl.Plugin();
+            default: throw new IllegalArgumentException("Unknown code generator " + generator);
+        }
+    }
+
+    @Benchmark
+    public Set<OutputFile> generate() throws CodeGeneratorException {
+        return codeGenerator.generate(graph);
+    }
+
+}
@@ -0,0 +1,161 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.CodeGenerator;
+import de.gaalop.CompilationException;
+import de.gaalop.CompilerFacade;
+import de.gaalop.InputFile;
+import de.gaalop.LoggingListener;
+import de.gaalop.OptimizationStrategy;
+import de.gaalop.OutputFile;
+import de.gaalop.algebra.AlStrategy;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.cfgImport.CFGImporter;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Creates the inputs of the benchmarks: a representative script for every algebra
+ * and its control flow graph after the different compilation phases.
+ *
+ * The script builds three vectors of input variables and combines them
+ * with outer, inner and geometric products, a reverse and scalar functions,
+ * so that every algebra is benchmarked with the same kind of workload.
+ */
+final class Fixtures {
+
+    /**
+     * Performs no optimization, the graph is left after the algebra phase
+     */
+    static final OptimizationStrategy NONE = new OptimizationStrategy() {
+        @Override
+        public void transform(ControlFlowGraph graph) {
+        }
+
+        @Override
+        public void addProgressListener(LoggingListener progressListener) {
+        }
+    };
+
+    /**
+     * Imports the graph with the table based approach, but performs no further optimizations
+     */
+    static final OptimizationStrategy TBA_IMPORT = new OptimizationStrategy() {
+        @Override
+        public void transform(ControlFlowGraph graph) {
+            graph.accept(new CFGImporter(UseAlgebra.getShared(graph), true, graph.getAlgebraDefinitionFile()));
+        }
+
+        @Override
+        public void addProgressListener(LoggingListener progressListener) {
+        }
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * Returns the base vectors of a shipped algebra
+     * @param algebraName The name of the algebra
+     * @return The base vectors without the scalar 1
+     */
+    static String[] getBase(String algebraName) throws IOException {
+        InputStream inputStream = getResource(algebraName, "definition.csv");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
+        try {
+            String[] blades = reader.readLine().split(",");
+            String[] base = new String[blades.length - 1];
+            for (int i = 1; i < blades.length; i++)
+                base[i - 1] = blades[i].trim();
+            return base;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Opens a resource of a shipped algebra
+     * @param algebraName The name of the algebra
+     * @param fileName The file name of the resource
+     * @return The input stream of the resource
+     */
+    static InputStream getResource(String algebraName, String fileName) throws IOException {
+        InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/" + algebraName + "/" + fileName);
+        if (inputStream == null)
+            throw new IOException("Resource " + fileName + " of algebra " + algebraName + " not found");
+        return inputStream;
+    }
+
+    /**
+     * Creates the representative script of an algebra
+     * @param algebraName The name of the algebra
+     * @return The clucalc source
+     */
+    static String createScript(String algebraName) throws IOException {
+        String[] base = getBase(algebraName);
+        StringBuilder sb = new StringBuilder();
+        for (String vector : new String[] {"a", "b", "c"}) {
+            sb.append(vector).append(" = ");
+            for (int i = 0; i < base.length; i++) {
+                if (i > 0) sb.append(" + ");
+                sb.append(vector).append("In").append(i + 1).append('*').append(base[i]);
+            }
+            sb.append(";\n");
+        }
+        sb.append("p = a^b;\n");
+        sb.append("q = p^c;\n");
+        sb.append("r = a*b;\n");
+        sb.append("?s = r*c*~r;\n");
+        sb.append("?t = q.a;\n");
+        sb.append("?n = sqrt(abs(s.s));\n");
+        return sb.toString();
+    }
+
+    /**
+     * Compiles the representative script of an algebra up to the code generation
+     * @param algebraName The name of the algebra
+     * @param optimization The optimization to be applied
+     * @return The graph, which would be passed to the code generator
+     */
+    static ControlFlowGraph compile(String algebraName, OptimizationStrategy optimization) throws CompilationException, IOException {
+        GraphCapture capture = new GraphCapture();
+        CompilerFacade facade = new CompilerFacade(
+                new de.gaalop.clucalc.input.Plugin().createCodeParser(),
+                new de.gaalop.globalSettings.Plugin().createGlobalSettingsStrategy(),
+                new de.gaalop.visualCodeInserter.Plugin().createVisualCodeInserterStrategy(),
+                new de.gaalop.algebra.Plugin().createAlgebraStrategy(),
+                optimization,
+                capture,
+                algebraName, true, "");
+        facade.compile(new InputFile("Benchmark" + algebraName, createScript(algebraName)));
+        return capture.graph;
+    }
+
+    /**
+     * Compiles the representative script of an algebra with the table based approach
+     * @param algebraName The name of the algebra
+     * @return The optimized graph
+     */
+    static ControlFlowGraph compileOptimized(String algebraName) throws CompilationException, IOException {
+        return compile(algebraName, new de.gaalop.tba.Plugin().createOptimizationStrategy());
+    }
+
+    /**
+     * Keeps the graph, which is passed to the code generation
+     */
+    private static class GraphCapture implements CodeGenerator {
+
+        private ControlFlowGraph graph;
+
+        @Override
+        public Set<OutputFile> generate(ControlFlowGraph in) {
+            graph = in;
+            return Collections.emptySet();
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.CompilationException;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.gapp.importing.GAPPDecoratingMain;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the decoration of the representative scripts with GAPP instructions,
+ * which includes the table based import and optimizations.
+ *
+ * The decoration changes the graph in place, so every invocation gets a freshly parsed graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GappDecoratingBenchmark {
+
+    @Param({"3d", "5d", "cr4d", "8d", "9d"})
+    public String algebra;
+
+    private ControlFlowGraph graph;
+    private final de.gaalop.gapp.Plugin plugin = new de.gaalop.gapp.Plugin();
+
+    @Setup(Level.Invocation)
+    public void setUp() throws CompilationException, IOException {
+        graph = Fixtures.compile(algebra, Fixtures.NONE);
+    }
+
+    @Benchmark
+    public ControlFlowGraph decorateGraph() throws OptimizationException {
+        return new GAPPDecoratingMain(plugin).decorateGraph(graph);
+    }
+
+}
@@ -0,0 +1,68 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.CompilationException;
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.cfgImport.optimization.DefUseOptimization;
+import de.gaalop.tba.cfgImport.optimization.OptConstantPropagation;
+import de.gaalop.tba.cfgImport.optimization.OptUnusedAssignmentsRemoval;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks one pass of the table based optimizations on the imported representative scripts
+ * and the def-use optimization, which applies all of them until the fixpoint.
+ *
+ * The optimizations change the graph in place, so every invocation gets a freshly imported graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizationBenchmark {
+
+    @Param({"3d", "5d", "cr4d", "8d", "9d"})
+    public String algebra;
+
+    private ControlFlowGraph graph;
+    private UseAlgebra usedAlgebra;
+    private final LoggingListenerGroup listeners = new LoggingListenerGroup();
+
+    @Setup(Level.Invocation)
+    public void setUp() throws CompilationException, IOException {
+        graph = Fixtures.compile(algebra, Fixtures.TBA_IMPORT);
+        usedAlgebra = UseAlgebra.getShared(graph);
+    }
+
+    @Benchmark
+    public boolean constantPropagation() throws OptimizationException {
+        return new OptConstantPropagation().transform(graph, usedAlgebra, listeners);
+    }
+
+    @Benchmark
+    public boolean unusedAssignmentsRemoval() throws OptimizationException {
+        return new OptUnusedAssignmentsRemoval().transform(graph, usedAlgebra, listeners);
+    }
+
+    @Benchmark
+    public boolean defUseOptimization() {
+        return new DefUseOptimization(graph, usedAlgebra).optimize(true, true, true);
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.productComputer.AlgebraPC;
+import de.gaalop.productComputer.GeoProductCalculator;
+import de.gaalop.productComputer.MaskProductComputer;
+import de.gaalop.productComputer.ProductCalculator;
+import de.gaalop.productComputer.ProductComputer;
+import de.gaalop.tba.Products;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the live computation of geometric products of blade pairs.
+ *
+ * Every invocation computes the products of the same fixed sample of blade pairs,
+ * so that the scores of the algebras are comparable per product.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductComputerBenchmark {
+
+    private static final int PAIRS = 256;
+
+    @Param({"3d", "5d", "cr4d", "8d", "9d"})
+    public String algebra;
+
+    private ProductComputer computer;
+    private MaskProductComputer maskComputer;
+    private ProductCalculator calculator;
+    private int[] factors1;
+    private int[] factors2;
+
+    @Setup
+    public void setUp() throws IOException {
+        InputStream inputStream = Fixtures.getResource(algebra, "definition.csv");
+        AlgebraDefinitionFile alFile = new AlgebraDefinitionFile();
+        alFile.loadFromFile(inputStream);
+        inputStream.close();
+        AlgebraPC algebraPC = new AlgebraPC(alFile);
+
+        computer = new ProductComputer();
+        computer.initialize(algebraPC);
+        maskComputer = new MaskProductComputer();
+        maskComputer.initialize(algebraPC);
+        calculator = new GeoProductCalculator();
+
+        int bladeCount = 1 << algebraPC.base.length;
+        Random random = new Random(42);
+        factors1 = new int[PAIRS];
+        factors2 = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            factors1[i] = random.nextInt(bladeCount);
+            factors2[i] = random.nextInt(bladeCount);
+        }
+    }
+
+    @Benchmark
+    public void calcProduct(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++)
+            blackhole.consume(computer.calcProduct(factors1[i], factors2[i], calculator));
+    }
+
+    @Benchmark
+    public void calcMaskProduct(Blackhole blackhole) {
+        for (int i = 0; i < PAIRS; i++)
+            blackhole.consume(maskComputer.calcProduct(factors1[i], factors2[i], Products.GEO));
+    }
+
+}
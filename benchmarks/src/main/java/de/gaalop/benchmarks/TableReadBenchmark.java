@@ -0,0 +1,67 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.tba.IMultTable;
+import de.gaalop.tba.MultTableImpl;
+import de.gaalop.tba.table.TableFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the reading of the shipped product tables
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableReadBenchmark {
+
+    @Param({"3d", "5d", "cr4d", "8d", "9d"})
+    public String algebra;
+
+    private byte[] table;
+    private int bladeCount;
+
+    @Setup
+    public void setUp() throws IOException {
+        bladeCount = 1 << Fixtures.getBase(algebra).length;
+
+        // the table is read from memory, so that the file system is not measured
+        InputStream in = Fixtures.getResource(algebra, "products.csv");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0)
+            out.write(buffer, 0, read);
+        in.close();
+        table = out.toByteArray();
+    }
+
+    @Benchmark
+    public IMultTable readFromFile() throws IOException {
+        IMultTable inner = new MultTableImpl();
+        IMultTable outer = new MultTableImpl();
+        IMultTable geo = new MultTableImpl();
+        inner.createTable(bladeCount);
+        outer.createTable(bladeCount);
+        geo.createTable(bladeCount);
+        TableFormat.readFromFile(new ByteArrayInputStream(table), inner, outer, geo);
+        return geo;
+    }
+
+}
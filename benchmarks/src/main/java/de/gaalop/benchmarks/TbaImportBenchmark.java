@@ -0,0 +1,53 @@
+package de.gaalop.benchmarks;
+
+import de.gaalop.CompilationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.cfgImport.CFGImporter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the import of the representative scripts with the MvExpressionsBuilder.
+ *
+ * The import changes the graph in place, so every invocation gets a freshly parsed graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TbaImportBenchmark {
+
+    @Param({"3d", "5d", "cr4d", "8d", "9d"})
+    public String algebra;
+
+    private ControlFlowGraph graph;
+    private UseAlgebra usedAlgebra;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws CompilationException, IOException {
+        graph = Fixtures.compile(algebra, Fixtures.NONE);
+        usedAlgebra = UseAlgebra.getShared(graph);
+    }
+
+    @Benchmark
+    public ControlFlowGraph importGraph() {
+        graph.accept(new CFGImporter(usedAlgebra, true, graph.getAlgebraDefinitionFile()));
+        return graph;
+    }
+
+}
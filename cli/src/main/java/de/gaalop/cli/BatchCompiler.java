@@ -0,0 +1,233 @@
+package de.gaalop.cli;
+
+import de.gaalop.CompileProfiler;
+import de.gaalop.CompilerFacade;
+import de.gaalop.OutputFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Compiles multiple input files concurrently in one process.
+ *
+ * Every compilation uses its own compiler, created with the configuration of the command line interface,
+ * whereas the plugins, the loaded algebras and the warmed up code are shared.
+ */
+public class BatchCompiler {
+
+  private final Main configuration;
+  private final ExecutorService executor;
+  private final Map<String, CompileProfiler> profiles = new ConcurrentSkipListMap<String, CompileProfiler>();
+
+  /**
+   * Is notified in the worker thread, when a compilation is finished
+   */
+  public interface CompletionHandler {
+
+    /**
+     * Handles a finished compilation
+     * @param inputFile The path of the input file
+     * @param future The finished future of the compilation
+     */
+    void completed(String inputFile, Future<Integer> future);
+  }
+
+  /**
+   * Creates a batch compiler
+   * @param configuration The command line configuration, which creates the compilers
+   * @param threads The number of concurrent compilations
+   */
+  public BatchCompiler(Main configuration, int threads) {
+    this.configuration = configuration;
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+  }
+
+  /**
+   * Collects the input files of a batch input
+   * @param batchInput A directory, whose .clu files are collected recursively,
+   * a glob pattern like scripts/*.clu or a single file
+   * @return The input files in sorted order, mapped to the relative directory of their outputs
+   */
+  public static Map<File, String> collectInputs(String batchInput) throws IOException {
+    final TreeMap<File, String> inputs = new TreeMap<File, String>();
+    File file = new File(batchInput);
+
+    if (file.isFile()) {
+      inputs.put(file, "");
+      return inputs;
+    }
+
+    final Path baseDir;
+    final PathMatcher matcher;
+    if (file.isDirectory()) {
+      baseDir = file.toPath();
+      matcher = FileSystems.getDefault().getPathMatcher("glob:**.clu");
+    } else {
+      // the base directory is the part of the pattern before the first path element with wildcards
+      String pattern = batchInput.replace('\\', '/');
+      int wildcard = pattern.length();
+      for (char c : new char[] {'*', '?', '[', '{'}) {
+        int index = pattern.indexOf(c);
+        if (index >= 0) wildcard = Math.min(wildcard, index);
+      }
+      int separator = pattern.lastIndexOf('/', wildcard);
+      baseDir = Paths.get((separator < 0) ? "." : pattern.substring(0, separator + 1));
+      matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(separator + 1));
+    }
+
+    if (!Files.isDirectory(baseDir))
+      throw new IOException("No input files found for " + batchInput);
+
+    Files.walkFileTree(baseDir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+        Path relative = baseDir.relativize(path);
+        if (attrs.isRegularFile() && matcher.matches(relative)) {
+          Path parent = relative.getParent();
+          inputs.put(path.toFile(), (parent == null) ? "" : parent.toString());
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return inputs;
+  }
+
+  /**
+   * Submits the compilation of an input file
+   * @param inputFile The path of the input file
+   * @param outputDirectory The directory of the output files, - to print them
+   * @return The future of the compilation, which returns the number of written output files
+   */
+  public Future<Integer> submit(String inputFile, String outputDirectory) {
+    return executor.submit(createCompilation(inputFile, outputDirectory));
+  }
+
+  /**
+   * Submits the compilation of an input file, the handler is called by the worker thread when it is finished
+   * @param inputFile The path of the input file
+   * @param outputDirectory The directory of the output files, - to print them
+   * @param handler The handler of the finished compilation
+   * @return The future of the compilation, which returns the number of written output files
+   */
+  public Future<Integer> submit(final String inputFile, String outputDirectory, final CompletionHandler handler) {
+    FutureTask<Integer> task = new FutureTask<Integer>(createCompilation(inputFile, outputDirectory)) {
+      @Override
+      protected void done() {
+        handler.completed(inputFile, this);
+      }
+    };
+    executor.execute(task);
+    return task;
+  }
+
+  private Callable<Integer> createCompilation(final String inputFile, final String outputDirectory) {
+    return new Callable<Integer>() {
+      @Override
+      public Integer call() throws Exception {
+        CompilerFacade compiler = configuration.createCompiler();
+        if (configuration.isProfiling()) {
+          CompileProfiler profiler = new CompileProfiler();
+          compiler.setProfiler(profiler);
+          profiles.put(inputFile, profiler);
+        }
+        Set<OutputFile> outputFiles = compiler.compile(Main.readInputFile(inputFile));
+        if (!outputDirectory.equals("-"))
+          new File(outputDirectory).mkdirs();
+        // the generators name the outputs after the input path, only the file name is kept
+        for (OutputFile output : outputFiles)
+          Main.writeFile(new OutputFile(new File(output.getName()).getName(), output.getContent(), output.getEncoding()), outputDirectory);
+        return outputFiles.size();
+      }
+    };
+  }
+
+  /**
+   * Compiles input files concurrently and waits for all compilations
+   * @param inputs The input files, mapped to the directories of their outputs
+   * @param log The stream, which the failures and a summary are printed to
+   * @return true, if all files were compiled successfully
+   */
+  public boolean compileAll(Map<File, File> inputs, PrintStream log) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    LinkedHashMap<File, Future<Integer>> futures = new LinkedHashMap<File, Future<Integer>>();
+    for (Map.Entry<File, File> input : inputs.entrySet())
+      futures.put(input.getKey(), submit(input.getKey().getPath(), input.getValue().getPath()));
+
+    List<File> failed = new ArrayList<File>();
+    for (Map.Entry<File, Future<Integer>> future : futures.entrySet()) {
+      try {
+        future.getValue().get();
+      } catch (ExecutionException e) {
+        failed.add(future.getKey());
+        log.println(future.getKey().getPath() + ": " + getMessage(e));
+      }
+    }
+
+    double seconds = (System.currentTimeMillis() - start) / 1000.0;
+    log.println(String.format("Compiled %d of %d files in %.2f s", inputs.size() - failed.size(), inputs.size(), seconds));
+    return failed.isEmpty();
+  }
+
+  /**
+   * Returns the profiles of all compilations as JSON object, which maps the input files to their phases
+   * @return The JSON string
+   */
+  public String getProfilesJson() {
+    StringBuilder sb = new StringBuilder("{\n");
+    int i = 0;
+    for (Map.Entry<String, CompileProfiler> profile : profiles.entrySet()) {
+      sb.append("\"").append(profile.getKey().replace("\\", "\\\\").replace("\"", "\\\"")).append("\": ");
+      sb.append(profile.getValue().toJson().trim());
+      sb.append((++i < profiles.size()) ? ",\n" : "\n");
+    }
+    return sb.append("}\n").toString();
+  }
+
+  /**
+   * Returns the message of the cause of a failed compilation
+   * @param e The exception of the compilation
+   * @return The message
+   */
+  static String getMessage(ExecutionException e) {
+    Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+    return (cause.getMessage() != null) ? cause.getMessage() : cause.toString();
+  }
+
+  /**
+   * Returns the output directory of the command line configuration
+   * @return The output directory
+   */
+  public String getDefaultOutputDirectory() {
+    return configuration.getOutputDirectory();
+  }
+
+  /**
+   * Stops the worker threads, after all submitted compilations are finished
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+}
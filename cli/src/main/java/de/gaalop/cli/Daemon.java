@@ -0,0 +1,82 @@
+package de.gaalop.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Serves compile requests of a line protocol with a warmed up BatchCompiler.
+ *
+ * Requests:
+ * <ul>
+ * <li>compile &lt;input file&gt; [&lt;output directory&gt;]: compiles a file,
+ * answered with "OK &lt;input file&gt; &lt;number of output files&gt; &lt;milliseconds&gt;"
+ * or "ERROR &lt;input file&gt; &lt;message&gt;"</li>
+ * <li>ping: answered with "PONG"</li>
+ * <li>quit: stops the daemon after all pending compilations, as the end of the input does</li>
+ * </ul>
+ * Compile requests are performed concurrently, so the answers can arrive in another order.
+ * Paths must not contain whitespaces.
+ */
+public class Daemon {
+
+  private final BatchCompiler compiler;
+
+  public Daemon(BatchCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /**
+   * Serves requests until the end of the input or a quit request
+   * @param in The reader of the requests
+   * @param out The stream of the answers
+   */
+  public void serve(BufferedReader in, final PrintStream out) throws IOException, InterruptedException {
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts[0].isEmpty())
+          continue;
+        if (parts[0].equals("quit"))
+          break;
+
+        if (parts[0].equals("ping")) {
+          answer(out, "PONG");
+        } else if (parts[0].equals("compile") && parts.length >= 2 && parts.length <= 3) {
+          String inputFile = parts[1];
+          String outputDirectory = (parts.length == 3) ? parts[2] : compiler.getDefaultOutputDirectory();
+          final long start = System.currentTimeMillis();
+          // the worker answers, when the compilation is finished, so that further requests can be read
+          compiler.submit(inputFile, outputDirectory, new BatchCompiler.CompletionHandler() {
+            @Override
+            public void completed(String inputFile, Future<Integer> future) {
+              try {
+                int count = future.get();
+                answer(out, "OK " + inputFile + " " + count + " " + (System.currentTimeMillis() - start));
+              } catch (ExecutionException e) {
+                answer(out, "ERROR " + inputFile + " " + BatchCompiler.getMessage(e).replace('\n', ' '));
+              } catch (InterruptedException e) {
+                answer(out, "ERROR " + inputFile + " interrupted");
+              }
+            }
+          });
+        } else {
+          answer(out, "ERROR unknown request: " + line);
+        }
+      }
+    } finally {
+      compiler.shutdown();
+    }
+  }
+
+  private static void answer(PrintStream out, String answer) {
+    synchronized (out) {
+      out.println(answer);
+      out.flush();
+    }
+  }
+
+}
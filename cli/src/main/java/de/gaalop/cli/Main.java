@@ -9,6 +9,10 @@ import org.kohsuke.args4j.CmdLineParser;
 import org.kohsuke.args4j.Option;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -23,9 +27,18 @@ public class Main {
 
   private Log log = LogFactory.getLog(Main.class);
 
-  @Option(name = "-i", required = true, usage = "The input file.")
+  @Option(name = "-i", required = false, usage = "The input file.")
   private String inputFile;
 
+  @Option(name = "-batch", required = false, usage = "Compiles all .clu files of a directory or all files matching a glob pattern in one process, can be given multiple times.")
+  private List<String> batchInputs = new ArrayList<String>();
+
+  @Option(name = "-threads", required = false, usage = "Sets the number of compilations, which are performed concurrently in batch and daemon mode.")
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  @Option(name = "-daemon", required = false, usage = "Reads compile requests line by line from the standard input and keeps the compiler warmed up.")
+  private boolean daemon = false;
+
   @Option(name = "-o", required = false, usage = "Sets the directory where the output files are created.")
   private String outputDirectory = ".";
 
@@ -53,10 +66,27 @@ public class Main {
   @Option(name = "-algebraBaseDir", required = false, usage = "Sets the base directory path of the user-defined algebras.")
   private String algebraBaseDirectory;
   
+  @Option(name = "-profile", required = false, usage = "Writes the wall time, allocated bytes and graph sizes of each compilation phase as JSON to the given file, - for the standard error.")
+  private String profileFile;
+
+  @Option(name = "-noCache", required = false, usage = "Compiles without reading or writing the compilation cache.")
+  private boolean noCache = false;
+
+  @Option(name = "-cacheDir", required = false, usage = "Sets the directory of the compilation cache.")
+  private String cacheDirectory = System.getProperty("user.home") + File.separator + ".gaalop" + File.separator + "cache";
+
+  @Option(name = "-cacheSize", required = false, usage = "Sets the maximum size of the compilation cache in megabytes.")
+  private long cacheSize = 256;
+
+  private Boolean asRessource;
+
+  private CompilationCache cache;
+
   /**
    * Starts the command line interface of Gaalop.
    * 
-   * @param args -i to specify the input file (mandatory), -o to specify the output directory,
+   * @param args -i to specify the input file, -batch to specify multiple input files,
+   * -daemon to start the daemon mode, -o to specify the output directory, -noCache to bypass the compilation cache,
    * -parser to set the input parser, -generator to set the code generator plugin, -optimizer to
    * select the optimization strategy.
    */
@@ -65,7 +95,18 @@ public class Main {
     CmdLineParser parser = new CmdLineParser(main);
     try {
       parser.parseArgument(args);
-      main.run();
+      if (main.daemon) {
+        new Daemon(new BatchCompiler(main, main.threads)).serve(new BufferedReader(new InputStreamReader(System.in)), System.out);
+      } else if (!main.batchInputs.isEmpty()) {
+        if (!main.runBatch())
+          System.exit(1);
+      } else if (main.inputFile != null) {
+        main.run();
+      } else {
+        System.err.println("One of the options -i, -batch or -daemon is required");
+        parser.printUsage(System.err);
+        System.exit(1);
+      }
     } catch (CmdLineException e) {
       System.err.println(e.getMessage());
       parser.printUsage(System.err);
@@ -81,15 +122,68 @@ public class Main {
     // Configure the compiler
     CompilerFacade compiler = createCompiler();
 
+    CompileProfiler profiler = null;
+    if (profileFile != null) {
+      profiler = new CompileProfiler();
+      compiler.setProfiler(profiler);
+    }
+
     // Perform compilation
     InputFile inputFile = getInputFile();
     Set<OutputFile> outputFiles = compiler.compile(inputFile);
     for (OutputFile output : outputFiles) {
-      writeFile(output);
+      writeFile(output, outputDirectory);
+    }
+
+    if (profiler != null)
+      writeProfile(profiler.toJson());
+  }
+
+  /**
+   * Writes a profile to the profile file
+   * @param json The profile as JSON
+   */
+  void writeProfile(String json) throws FileNotFoundException, UnsupportedEncodingException {
+    if (profileFile.equals("-")) {
+      System.err.print(json);
+    } else {
+      PrintWriter writer = new PrintWriter(profileFile, "UTF-8");
+      writer.print(json);
+      writer.close();
     }
   }
 
-  private void writeFile(OutputFile output) throws FileNotFoundException,
+  boolean isProfiling() {
+    return profileFile != null;
+  }
+
+  /**
+   * Runs the batch mode: compiles all given input files concurrently.
+   * The directory structure below a given input directory is kept in the output directory.
+   * @return true, if all files were compiled successfully
+   */
+  public boolean runBatch() throws Exception {
+    LinkedHashMap<File, File> inputs = new LinkedHashMap<File, File>();
+    for (String batchInput : batchInputs)
+      for (Map.Entry<File, String> input : BatchCompiler.collectInputs(batchInput).entrySet())
+        inputs.put(input.getKey(), new File(outputDirectory, input.getValue()));
+
+    BatchCompiler batchCompiler = new BatchCompiler(this, threads);
+    try {
+      boolean success = batchCompiler.compileAll(inputs, System.err);
+      if (isProfiling())
+        writeProfile(batchCompiler.getProfilesJson());
+      return success;
+    } finally {
+      batchCompiler.shutdown();
+    }
+  }
+
+  String getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  static void writeFile(OutputFile output, String outputDirectory) throws FileNotFoundException,
       UnsupportedEncodingException {
     if (outputDirectory.equals("-")) {
       printFileToConsole(output);
@@ -101,7 +195,7 @@ public class Main {
     }
   }
 
-  private void printFileToConsole(OutputFile output) {
+  private static void printFileToConsole(OutputFile output) {
     System.out.println("----------------------------------------------------------");
     System.out.println("Output File: " + output.getName());
     System.out.println("----------------------------------------------------------");
@@ -109,7 +203,12 @@ public class Main {
     System.out.println("----------------------------------------------------------");
   }
 
-  private CompilerFacade createCompiler() {
+  /**
+   * Creates a new compiler with new instances of the configured plugin strategies.
+   * The compilers are independent and can be used concurrently.
+   * @return The new compiler
+   */
+  CompilerFacade createCompiler() {
     CodeParser codeParser = createCodeParser();
     
     GlobalSettingsStrategy globalSettingsStrategy = createGlobalSettingsStrategy();
@@ -122,23 +221,66 @@ public class Main {
 
     CodeGenerator codeGenerator = createCodeGenerator();
     
-    boolean asRessource = false;
-    
+    CompilerFacade compiler = new CompilerFacade(codeParser, globalSettingsStrategy, visualizerStrategy, algebraStrategy, optimizationStrategy, codeGenerator, algebraName, isAsRessource(), algebraBaseDirectory);
+    if (!noCache)
+      compiler.setCache(getCache(), getSelectedPlugins());
+    return compiler;
+  }
+
+  /**
+   * Returns the compilation cache, which is shared by all compilers
+   * @return The cache
+   */
+  private synchronized CompilationCache getCache() {
+    if (cache == null)
+      cache = new CompilationCache(new File(cacheDirectory), cacheSize * 1024 * 1024);
+    return cache;
+  }
+
+  /**
+   * Returns the plugins, whose strategies are used by the compilers
+   * @return The selected plugins
+   */
+  private List<Plugin> getSelectedPlugins() {
+    List<Plugin> plugins = new ArrayList<Plugin>();
+    addPlugin(plugins, Plugins.getCodeParserPlugins(), codeParserPlugin);
+    addPlugin(plugins, Plugins.getGlobalSettingsStrategyPlugins(), globalSettingsStrategyPlugin);
+    addPlugin(plugins, Plugins.getVisualizerStrategyPlugins(), visualizerStrategyPlugin);
+    addPlugin(plugins, Plugins.getAlgebraStrategyPlugins(), algebraStrategyPlugin);
+    addPlugin(plugins, Plugins.getOptimizationStrategyPlugins(), optimizationStrategyPlugin);
+    addPlugin(plugins, Plugins.getCodeGeneratorPlugins(), codeGeneratorPlugin);
+    return plugins;
+  }
+
+  private static void addPlugin(List<Plugin> selected, Set<? extends Plugin> plugins, String className) {
+    for (Plugin plugin : plugins)
+      if (plugin.getClass().getName().equals(className))
+        selected.add(plugin);
+  }
+
+  /**
+   * Determines once, if the algebra is one of the defined algebras, which are stored as ressources
+   * @return true, if the algebra is a ressource
+   */
+  private synchronized boolean isAsRessource() {
+    if (asRessource != null)
+      return asRessource;
+
+    asRessource = false;
     try {
         InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/definedAlgebras.txt");
         BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
 
         String line;
         while ((line = reader.readLine()) != null) 
-            if (line.trim().equals(algebraName.trim()))
+            if (line.split(";")[0].trim().equals(algebraName.trim()))
                 asRessource = true;
 
         reader.close();
     } catch (IOException ex) {
         Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
     }
-
-    return new CompilerFacade(codeParser, globalSettingsStrategy, visualizerStrategy, algebraStrategy, optimizationStrategy, codeGenerator, algebraName, asRessource, algebraBaseDirectory);
+    return asRessource;
   }
 
   private CodeParser createCodeParser() {
@@ -222,6 +364,15 @@ public class Main {
   }
 
   public InputFile getInputFile() throws Exception {
+    return readInputFile(inputFile);
+  }
+
+  /**
+   * Reads an input file
+   * @param inputFile The path of the file, - for the standard input
+   * @return The input file
+   */
+  static InputFile readInputFile(String inputFile) throws IOException {
     final Reader reader;
     final String filename;
 
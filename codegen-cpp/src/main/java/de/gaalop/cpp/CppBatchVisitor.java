@@ -0,0 +1,322 @@
+package de.gaalop.cpp;
+
+import de.gaalop.cfg.*;
+import de.gaalop.dfg.*;
+
+import java.util.*;
+
+/**
+ * This visitor generates a batched C/C++ kernel, which calculates many input sets in structure-of-arrays layout.
+ * <p/>
+ * The generated function <code>calculate_batch(const float* const in[], float* const out[], size_t n)</code>
+ * gets one array of n values per input variable and one array of bladeCount*n values per multivector.
+ * The multivector components are held in local scalars, so that the loop over the elements can be vectorized
+ * by the compiler (<code>#pragma omp simd</code>). Optionally, the loop is preceded by loops with AVX-512 and AVX2
+ * intrinsics, which are selected by the preprocessor, if the graph contains only supported operations and no control flow.
+ */
+public class CppBatchVisitor extends CppVisitor {
+
+	private static final String SUFFIX = "_opt";
+
+	private final boolean useDouble;
+	private final boolean intrinsics;
+
+	private List<Variable> inputs;
+	private List<String> multivectors;
+	/** The blade indices of the used components per multivector */
+	private TreeMap<String, TreeSet<Integer>> components = new TreeMap<String, TreeSet<Integer>>();
+	/** The blade indices of the assigned components per multivector */
+	private TreeMap<String, TreeSet<Integer>> assignedComponents = new TreeMap<String, TreeSet<Integer>>();
+	private int bladeCount;
+
+	public CppBatchVisitor(boolean useDouble, boolean intrinsics) {
+		super(false, useDouble);
+		this.useDouble = useDouble;
+		this.intrinsics = intrinsics;
+	}
+
+	/**
+	 * Returns the name of the local scalar, which holds a multivector component
+	 * @param component The component
+	 * @return The name
+	 */
+	static String getComponentName(MultivectorComponent component) {
+		return component.getName().replace(SUFFIX, "") + "_" + component.getBladeIndex();
+	}
+
+	/**
+	 * Collects the used and the assigned multivector components
+	 */
+	private class ComponentCollector extends EmptyControlFlowVisitor {
+
+		private EmptyExpressionVisitor expressionVisitor = new EmptyExpressionVisitor() {
+			@Override
+			public void visit(MultivectorComponent node) {
+				add(components, node);
+			}
+		};
+
+		private void add(TreeMap<String, TreeSet<Integer>> map, MultivectorComponent component) {
+			String name = component.getName().replace(SUFFIX, "");
+			if (!map.containsKey(name)) {
+				map.put(name, new TreeSet<Integer>());
+			}
+			map.get(name).add(component.getBladeIndex());
+		}
+
+		@Override
+		public void visit(AssignmentNode node) {
+			if (node.getVariable() instanceof MultivectorComponent) {
+				add(components, (MultivectorComponent) node.getVariable());
+				add(assignedComponents, (MultivectorComponent) node.getVariable());
+			}
+			node.getValue().accept(expressionVisitor);
+			super.visit(node);
+		}
+
+		@Override
+		public void visit(ExpressionStatement node) {
+			node.getExpression().accept(expressionVisitor);
+			super.visit(node);
+		}
+
+		@Override
+		public void visit(IfThenElseNode node) {
+			node.getCondition().accept(expressionVisitor);
+			super.visit(node);
+		}
+	}
+
+	@Override
+	public void visit(StartNode node) {
+		graph = node.getGraph();
+		bladeCount = graph.getAlgebraDefinitionFile().getBladeCount();
+		inputs = sortVariables(graph.getInputVariables());
+		multivectors = new ArrayList<String>();
+		for (Variable var : sortVariables(graph.getLocalVariables())) {
+			multivectors.add(var.getName());
+		}
+		graph.accept(new ComponentCollector());
+
+		List<CppIntrinsics> instructionSets = new LinkedList<CppIntrinsics>();
+		List<String> vectorLoops = new LinkedList<String>();
+		if (intrinsics) {
+			for (CppIntrinsics instructionSet : new CppIntrinsics[]{CppIntrinsics.avx512(useDouble), CppIntrinsics.avx2(useDouble)}) {
+				String vectorLoop = generateVectorLoop(node, instructionSet);
+				if (vectorLoop != null) {
+					instructionSets.add(instructionSet);
+					vectorLoops.add(vectorLoop);
+				}
+			}
+		}
+
+		code.append("#include <math.h>\n");
+		code.append("#include <stddef.h>\n");
+		if (!instructionSets.isEmpty()) {
+			code.append("#if ").append(instructionSets.get(0).getCondition());
+			for (CppIntrinsics instructionSet : instructionSets.subList(1, instructionSets.size())) {
+				code.append(" || ").append(instructionSet.getCondition());
+			}
+			code.append("\n#include <immintrin.h>\n#endif\n");
+		}
+		code.append("\n");
+
+		code.append("/*\n");
+		code.append(" * Calculates n elements in structure-of-arrays layout.\n");
+		code.append(" * in[k] points to the n values of the input variable k:");
+		for (Variable var : inputs) {
+			code.append(' ').append(var.getName());
+		}
+		code.append("\n * out[k] points to the ").append(bladeCount).append("*n values of the multivector k:");
+		for (String multivector : multivectors) {
+			code.append(' ').append(multivector);
+		}
+		code.append("\n * The component b of the element i is stored at out[k][b*n+i], components, which are not assigned, are left unchanged.\n");
+		code.append(" */\n");
+		code.append("void calculate_batch(const ").append(variableType).append("* const in[], ")
+				.append(variableType).append("* const out[], size_t n) {\n");
+		indentation++;
+
+		for (int i = 0; i < inputs.size(); i++) {
+			appendIndentation();
+			code.append("const ").append(variableType).append("* __restrict in_").append(inputs.get(i).getName())
+					.append(" = in[").append(i).append("];\n");
+		}
+		for (int i = 0; i < multivectors.size(); i++) {
+			appendIndentation();
+			code.append(variableType).append("* __restrict out_").append(multivectors.get(i))
+					.append(" = out[").append(i).append("];\n");
+		}
+
+		String start = "0";
+		if (!instructionSets.isEmpty()) {
+			start = "vectorized";
+			appendIndentation();
+			code.append("size_t vectorized = 0;\n");
+			for (int i = 0; i < instructionSets.size(); i++) {
+				code.append(i == 0 ? "#if " : "#elif ").append(instructionSets.get(i).getCondition()).append('\n');
+				code.append(vectorLoops.get(i));
+			}
+			code.append("#endif\n");
+		}
+
+		code.append("#pragma omp simd\n");
+		appendIndentation();
+		code.append("for (size_t i = ").append(start).append("; i < n; ++i) {\n");
+		indentation++;
+		for (Variable var : inputs) {
+			appendIndentation();
+			code.append("const ").append(variableType).append(' ').append(var.getName())
+					.append(" = in_").append(var.getName()).append("[i];\n");
+		}
+		appendDeclarations(variableType, "0.0");
+
+		node.getSuccessor().accept(this);
+	}
+
+	/**
+	 * Declares the local scalars of the multivector components and the scalar variables
+	 * @param type The type of the scalars
+	 * @param zero The initial value
+	 */
+	private void appendDeclarations(String type, String zero) {
+		for (Map.Entry<String, TreeSet<Integer>> entry : components.entrySet()) {
+			appendIndentation();
+			code.append(type).append(' ');
+			boolean first = true;
+			for (int bladeIndex : entry.getValue()) {
+				if (!first) {
+					code.append(", ");
+				}
+				first = false;
+				code.append(entry.getKey()).append('_').append(bladeIndex).append(" = ").append(zero);
+			}
+			code.append(";\n");
+		}
+		if (graph.getScalarVariables().size() > 0) {
+			appendIndentation();
+			code.append(type).append(' ');
+			for (Variable tmp : graph.getScalarVariables()) {
+				code.append(tmp.getName()).append(" = ").append(zero).append(", ");
+			}
+			code.setLength(code.length() - 2);
+			code.append(";\n");
+		}
+		code.append("\n");
+	}
+
+	/**
+	 * Appends the stores of the assigned components
+	 * @param store The format of a store with the arguments multivector name, blade index and component name
+	 */
+	private void appendStores(String store) {
+		for (String multivector : multivectors) {
+			TreeSet<Integer> assignedIndices = assignedComponents.get(multivector);
+			if (assignedIndices != null) {
+				for (int bladeIndex : assignedIndices) {
+					appendIndentation();
+					code.append(String.format(store, multivector, bladeIndex, multivector + "_" + bladeIndex)).append('\n');
+				}
+			}
+		}
+	}
+
+	/**
+	 * Generates the loop over the elements, which are calculated with intrinsics
+	 * @param start The start node of the graph
+	 * @param instructionSet The instruction set
+	 * @return The loop, null if the graph can not be translated
+	 */
+	private String generateVectorLoop(StartNode start, CppIntrinsics instructionSet) {
+		StringBuilder scalarCode = code;
+		int scalarIndentation = indentation;
+		code = new StringBuilder();
+		indentation = 1;
+		try {
+			int lanes = instructionSet.getLanes();
+			String type = instructionSet.getVectorType();
+			appendIndentation();
+			code.append("for (; vectorized + ").append(lanes).append(" <= n; vectorized += ").append(lanes).append(") {\n");
+			indentation++;
+			for (Variable var : inputs) {
+				appendIndentation();
+				code.append("const ").append(type).append(' ').append(var.getName()).append(" = ")
+						.append(instructionSet.getIntrinsic("loadu")).append("(in_").append(var.getName()).append(" + vectorized);\n");
+			}
+			appendDeclarations(type, instructionSet.getIntrinsic("setzero") + "()");
+
+			// only straight-line code can be translated
+			Set<String> stored = new HashSet<String>();
+			Node node = start.getSuccessor();
+			while (!(node instanceof EndNode)) {
+				if (node instanceof AssignmentNode) {
+					AssignmentNode assignment = (AssignmentNode) node;
+					String variable = assignment.getVariable().getName();
+					if (stored.remove(variable)) {
+						appendReset(variable, instructionSet.getIntrinsic("setzero") + "()");
+					}
+					appendIndentation();
+					if (assignment.getVariable() instanceof MultivectorComponent) {
+						code.append(getComponentName((MultivectorComponent) assignment.getVariable()));
+					} else {
+						code.append(variable);
+					}
+					code.append(" = ").append(instructionSet.translate(assignment.getValue())).append(";\n");
+				} else if (node instanceof StoreResultNode) {
+					stored.add(((StoreResultNode) node).getValue().getName() + SUFFIX);
+				} else if (!(node instanceof ColorNode)) {
+					return null;
+				}
+				node = ((SequentialNode) node).getSuccessor();
+			}
+
+			appendStores(instructionSet.getIntrinsic("storeu") + "(out_%1$s + %2$d * n + vectorized, %3$s);");
+			indentation--;
+			appendIndentation();
+			code.append("}\n");
+			return code.toString();
+		} catch (UnsupportedOperationException e) {
+			return null;
+		} finally {
+			code = scalarCode;
+			indentation = scalarIndentation;
+		}
+	}
+
+	@Override
+	protected void appendReset(String variable) {
+		appendReset(variable, "0.0");
+	}
+
+	/**
+	 * Appends the statements, which set all components of a multivector to zero
+	 * @param variable The name of the multivector
+	 * @param zero The zero value
+	 */
+	private void appendReset(String variable, String zero) {
+		TreeSet<Integer> indices = components.get(variable.replace(SUFFIX, ""));
+		if (indices != null) {
+			for (int bladeIndex : indices) {
+				appendIndentation();
+				code.append(variable.replace(SUFFIX, "")).append('_').append(bladeIndex).append(" = ").append(zero).append(";\n");
+			}
+		}
+	}
+
+	@Override
+	public void visit(MultivectorComponent component) {
+		code.append(getComponentName(component));
+	}
+
+	@Override
+	public void visit(EndNode node) {
+		code.append("\n");
+		appendStores("out_%1$s[%2$d * n + i] = %3$s;");
+		indentation--;
+		appendIndentation();
+		code.append("}\n");
+		indentation--;
+		code.append("}\n");
+	}
+
+}
@@ -3,9 +3,13 @@ package de.gaalop.cpp;
 import de.gaalop.CodeGenerator;
 import de.gaalop.OutputFile;
 import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.dfg.Variable;
 
-import java.util.Set;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.nio.charset.Charset;
 
 /**
@@ -23,23 +27,31 @@ public class CppCodeGenerator implements CodeGenerator {
     public Set<OutputFile> generate(ControlFlowGraph in) {
         String code = generateCode(in);
 
-        String filename = generateFilename(in);
+        String name = generateName(in);
 
-        OutputFile sourceFile = new OutputFile(filename, code, Charset.forName("UTF-8"));
-        return Collections.singleton(sourceFile);
+        Set<OutputFile> outputFiles = new HashSet<OutputFile>();
+        outputFiles.add(new OutputFile(name + ".c", code, Charset.forName("UTF-8")));
+        if (plugin.getBatchKernel() || plugin.getBenchmarkHarness()) {
+            String batchCode = generateBatchCode(in);
+            outputFiles.add(new OutputFile(name + "_batch.c", batchCode, Charset.forName("UTF-8")));
+        }
+        if (plugin.getBenchmarkHarness()) {
+            String benchmarkCode = generateBenchmarkCode(in, name);
+            outputFiles.add(new OutputFile(name + "_benchmark.cpp", benchmarkCode, Charset.forName("UTF-8")));
+        }
+        return outputFiles;
     }
 
-    private String generateFilename(ControlFlowGraph in) {
-        String filename = "gaalop.c";
+    private String generateName(ControlFlowGraph in) {
+        String name = "gaalop";
         if (in.getSource() != null) {
-            filename = in.getSource().getName();
-            int lastDotIndex = filename.lastIndexOf('.');
+            name = in.getSource().getName();
+            int lastDotIndex = name.lastIndexOf('.');
             if (lastDotIndex != -1) {
-                filename = filename.substring(0, lastDotIndex);
+                name = name.substring(0, lastDotIndex);
             }
-            filename += ".c";
         }
-        return filename;
+        return name;
     }
 
     /**
@@ -58,4 +70,119 @@ public class CppCodeGenerator implements CodeGenerator {
         return visitor.getCode();
     }
 
+    /**
+     * Generates the batched kernel in structure-of-arrays layout for a control dataflow graph.
+     *
+     * @param in
+     * @return
+     */
+    private String generateBatchCode(ControlFlowGraph in) {
+        CppBatchVisitor visitor = new CppBatchVisitor(plugin.getUseDouble(), plugin.getSimdIntrinsics());
+        try {
+        	in.accept(visitor);
+        } catch (Throwable error) {
+        	plugin.notifyError(error);
+        }
+        return visitor.getCode();
+    }
+
+    /**
+     * Generates a microbenchmark, which measures the throughput of the batched kernel with random inputs.
+     * In standalone mode, the results are compared with the scalar calculate function.
+     *
+     * @param in
+     * @param name The name of the generated source files without extension
+     * @return
+     */
+    private String generateBenchmarkCode(ControlFlowGraph in, String name) {
+        String type = plugin.getUseDouble() ? "double" : "float";
+        int inputCount = in.getInputVariables().size();
+        int outputCount = in.getLocalVariables().size();
+        int bladeCount = in.getAlgebraDefinitionFile().getBladeCount();
+
+        StringBuilder code = new StringBuilder();
+        code.append("// Microbenchmark of calculate_batch, build e.g. with: g++ -O3 -march=native -fopenmp-simd ").append(name).append("_benchmark.cpp\n");
+        code.append("// Usage: ").append(name).append("_benchmark [elements] [repetitions]\n");
+        code.append("#include <chrono>\n#include <cmath>\n#include <cstdio>\n#include <cstdlib>\n#include <vector>\n");
+        if (plugin.getStandalone()) {
+            code.append("#include \"").append(name).append(".c\"\n");
+        }
+        code.append("#include \"").append(name).append("_batch.c\"\n\n");
+
+        code.append("int main(int argc, char* argv[]) {\n");
+        code.append("\tconst size_t n = argc > 1 ? (size_t) atol(argv[1]) : 65536;\n");
+        code.append("\tconst int repetitions = argc > 2 ? atoi(argv[2]) : 100;\n");
+        code.append("\tconst size_t inputCount = ").append(inputCount).append(";\n");
+        code.append("\tconst size_t outputCount = ").append(outputCount).append(";\n");
+        code.append("\tconst size_t bladeCount = ").append(bladeCount).append(";\n\n");
+
+        code.append("\tstd::vector<std::vector<").append(type).append("> > inputs(inputCount, std::vector<").append(type).append(">(n));\n");
+        code.append("\tstd::vector<std::vector<").append(type).append("> > outputs(outputCount, std::vector<").append(type).append(">(bladeCount * n));\n");
+        code.append("\tstd::vector<const ").append(type).append("*> in(inputCount);\n");
+        code.append("\tstd::vector<").append(type).append("*> out(outputCount);\n");
+        code.append("\tsrand(1);\n");
+        code.append("\tfor (size_t k = 0; k < inputCount; ++k) {\n");
+        code.append("\t\tfor (size_t i = 0; i < n; ++i) {\n");
+        code.append("\t\t\tinputs[k][i] = (").append(type).append(") (2.0 * rand() / RAND_MAX - 1.0);\n");
+        code.append("\t\t}\n");
+        code.append("\t\tin[k] = inputs[k].data();\n");
+        code.append("\t}\n");
+        code.append("\tfor (size_t k = 0; k < outputCount; ++k) {\n");
+        code.append("\t\tout[k] = outputs[k].data();\n");
+        code.append("\t}\n\n");
+
+        code.append("\t// warm up\n");
+        code.append("\tcalculate_batch(in.data(), out.data(), n);\n");
+        code.append("\tstd::chrono::high_resolution_clock::time_point start = std::chrono::high_resolution_clock::now();\n");
+        code.append("\tfor (int r = 0; r < repetitions; ++r) {\n");
+        code.append("\t\tcalculate_batch(in.data(), out.data(), n);\n");
+        code.append("\t}\n");
+        code.append("\tdouble seconds = std::chrono::duration<double>(std::chrono::high_resolution_clock::now() - start).count();\n\n");
+
+        code.append("\tdouble checksum = 0.0;\n");
+        code.append("\tfor (size_t k = 0; k < outputCount; ++k) {\n");
+        code.append("\t\tfor (size_t j = 0; j < bladeCount * n; ++j) {\n");
+        code.append("\t\t\tchecksum += outputs[k][j];\n");
+        code.append("\t\t}\n");
+        code.append("\t}\n");
+        code.append("\tprintf(\"%zu elements, %d repetitions: %.3f ms per batch, %.2f million elements/s, checksum %g\\n\",\n");
+        code.append("\t\tn, repetitions, 1000.0 * seconds / repetitions, 1e-6 * n * repetitions / seconds, checksum);\n");
+
+        if (plugin.getStandalone()) {
+            List<String> multivectors = new ArrayList<String>();
+            for (Variable var : in.getLocalVariables()) {
+                multivectors.add(var.getName());
+            }
+            Collections.sort(multivectors, String.CASE_INSENSITIVE_ORDER);
+
+            code.append("\n\t// compare with the scalar calculation\n");
+            code.append("\tdouble maxDifference = 0.0;\n");
+            code.append("\tfor (size_t i = 0; i < n; ++i) {\n");
+            StringBuilder arguments = new StringBuilder();
+            for (int k = 0; k < inputCount; k++) {
+                arguments.append("inputs[").append(k).append("][i], ");
+            }
+            for (String multivector : multivectors) {
+                code.append("\t\t").append(type).append(' ').append(multivector).append('[').append(bladeCount).append("] = { 0.0 };\n");
+                arguments.append(multivector).append(", ");
+            }
+            if (arguments.length() > 0) {
+                arguments.setLength(arguments.length() - 2);
+            }
+            code.append("\t\tcalculate(").append(arguments).append(");\n");
+            for (int k = 0; k < multivectors.size(); k++) {
+                code.append("\t\tfor (size_t b = 0; b < bladeCount; ++b) {\n");
+                code.append("\t\t\tmaxDifference = fmax(maxDifference, fabs(").append(multivectors.get(k))
+                        .append("[b] - outputs[").append(k).append("][b * n + i]));\n");
+                code.append("\t\t}\n");
+            }
+            code.append("\t}\n");
+            code.append("\tprintf(\"maximal difference to calculate: %g\\n\", maxDifference);\n");
+        }
+
+        code.append("\treturn 0;\n");
+        code.append("}\n");
+        return code.toString();
+    }
+
 }
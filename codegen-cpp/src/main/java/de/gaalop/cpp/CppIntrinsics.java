@@ -0,0 +1,229 @@
+package de.gaalop.cpp;
+
+import de.gaalop.dfg.*;
+
+/**
+ * Translates expressions to nested x86 SIMD intrinsics, which calculate several elements at once.
+ * <p/>
+ * Only the arithmetic operations, sqrt, abs and squares are supported.
+ * Unsupported expressions throw an {@link UnsupportedOperationException},
+ * the batched kernel is calculated without intrinsics then.
+ */
+public class CppIntrinsics implements ExpressionVisitor {
+
+	private final String condition;
+	private final String vectorType;
+	private final String prefix;
+	private final String suffix;
+	private final int lanes;
+
+	private StringBuilder code;
+
+	/**
+	 * Creates the translation for an instruction set
+	 * @param condition The preprocessor condition, which enables the instruction set
+	 * @param vectorType The vector type of single precision, the double precision type gets the suffix d
+	 * @param prefix The prefix of the intrinsics
+	 * @param lanes The number of single precision lanes
+	 * @param useDouble true, if double precision is used
+	 */
+	private CppIntrinsics(String condition, String vectorType, String prefix, int lanes, boolean useDouble) {
+		this.condition = condition;
+		this.vectorType = useDouble ? vectorType + "d" : vectorType;
+		this.prefix = prefix;
+		this.suffix = useDouble ? "pd" : "ps";
+		this.lanes = useDouble ? lanes / 2 : lanes;
+	}
+
+	/**
+	 * Returns the translation to AVX-512 intrinsics
+	 * @param useDouble true, if double precision is used
+	 */
+	public static CppIntrinsics avx512(boolean useDouble) {
+		return new CppIntrinsics("defined(__AVX512F__)", "__m512", "_mm512", 16, useDouble);
+	}
+
+	/**
+	 * Returns the translation to AVX2 intrinsics
+	 * @param useDouble true, if double precision is used
+	 */
+	public static CppIntrinsics avx2(boolean useDouble) {
+		return new CppIntrinsics("defined(__AVX2__)", "__m256", "_mm256", 8, useDouble);
+	}
+
+	public String getCondition() {
+		return condition;
+	}
+
+	public String getVectorType() {
+		return vectorType;
+	}
+
+	public int getLanes() {
+		return lanes;
+	}
+
+	/**
+	 * Returns the intrinsic, which applies an operation to all lanes
+	 * @param operation The operation, e.g. add
+	 */
+	public String getIntrinsic(String operation) {
+		return prefix + "_" + operation + "_" + suffix;
+	}
+
+	/**
+	 * Translates an expression
+	 * @param expression The expression
+	 * @return The nested intrinsics
+	 * @throws UnsupportedOperationException if the expression contains unsupported operations
+	 */
+	public String translate(Expression expression) {
+		code = new StringBuilder();
+		expression.accept(this);
+		return code.toString();
+	}
+
+	private void appendCall(String operation, Expression... operands) {
+		code.append(getIntrinsic(operation));
+		code.append('(');
+		for (int i = 0; i < operands.length; i++) {
+			if (i > 0) {
+				code.append(", ");
+			}
+			operands[i].accept(this);
+		}
+		code.append(')');
+	}
+
+	@Override
+	public void visit(Subtraction node) {
+		appendCall("sub", node.getLeft(), node.getRight());
+	}
+
+	@Override
+	public void visit(Addition node) {
+		appendCall("add", node.getLeft(), node.getRight());
+	}
+
+	@Override
+	public void visit(Division node) {
+		appendCall("div", node.getLeft(), node.getRight());
+	}
+
+	@Override
+	public void visit(Multiplication node) {
+		appendCall("mul", node.getLeft(), node.getRight());
+	}
+
+	@Override
+	public void visit(MathFunctionCall node) {
+		switch (node.getFunction()) {
+		case SQRT:
+			appendCall("sqrt", node.getOperand());
+			break;
+		case ABS:
+			if (prefix.equals("_mm512")) {
+				appendCall("abs", node.getOperand());
+			} else {
+				// clear the sign bit
+				code.append(getIntrinsic("andnot")).append('(').append(getIntrinsic("set1")).append("(-0.0), ");
+				node.getOperand().accept(this);
+				code.append(')');
+			}
+			break;
+		default:
+			throw new UnsupportedOperationException("The function " + node.getFunction() + " has no SIMD intrinsic.");
+		}
+	}
+
+	@Override
+	public void visit(Variable node) {
+		code.append(node.getName());
+	}
+
+	@Override
+	public void visit(MultivectorComponent node) {
+		code.append(CppBatchVisitor.getComponentName(node));
+	}
+
+	@Override
+	public void visit(Exponentiation node) {
+		if (!new FloatConstant(2.0f).equals(node.getRight())) {
+			throw new UnsupportedOperationException("Only squares have a SIMD translation.");
+		}
+		appendCall("mul", node.getLeft(), node.getLeft());
+	}
+
+	@Override
+	public void visit(FloatConstant node) {
+		code.append(getIntrinsic("set1")).append('(').append(Double.toString(node.getValue())).append(')');
+	}
+
+	@Override
+	public void visit(Negation node) {
+		code.append(getIntrinsic("sub")).append('(').append(getIntrinsic("setzero")).append("(), ");
+		node.getOperand().accept(this);
+		code.append(')');
+	}
+
+	@Override
+	public void visit(InnerProduct node) {
+		throw new UnsupportedOperationException("The C/C++ backend does not support the inner product.");
+	}
+
+	@Override
+	public void visit(OuterProduct node) {
+		throw new UnsupportedOperationException("The C/C++ backend does not support the outer product.");
+	}
+
+	@Override
+	public void visit(BaseVector node) {
+		throw new UnsupportedOperationException("The C/C++ backend does not support base vectors.");
+	}
+
+	@Override
+	public void visit(Reverse node) {
+		throw new UnsupportedOperationException("The C/C++ backend does not support the reverse operation.");
+	}
+
+	@Override
+	public void visit(LogicalOr node) {
+		throw new UnsupportedOperationException("Logical operations have no SIMD translation.");
+	}
+
+	@Override
+	public void visit(LogicalAnd node) {
+		throw new UnsupportedOperationException("Logical operations have no SIMD translation.");
+	}
+
+	@Override
+	public void visit(LogicalNegation node) {
+		throw new UnsupportedOperationException("Logical operations have no SIMD translation.");
+	}
+
+	@Override
+	public void visit(Equality node) {
+		throw new UnsupportedOperationException("Relations have no SIMD translation.");
+	}
+
+	@Override
+	public void visit(Inequality node) {
+		throw new UnsupportedOperationException("Relations have no SIMD translation.");
+	}
+
+	@Override
+	public void visit(Relation node) {
+		throw new UnsupportedOperationException("Relations have no SIMD translation.");
+	}
+
+	@Override
+	public void visit(FunctionArgument node) {
+		throw new IllegalStateException("Macros should have been inlined and no function arguments should be the graph.");
+	}
+
+	@Override
+	public void visit(MacroCall node) {
+		throw new IllegalStateException("Macros should have been inlined and no macro calls should be in the graph.");
+	}
+
+}
@@ -143,12 +143,7 @@ public class CppVisitor implements ControlFlowVisitor, ExpressionVisitor {
 			log.warn(message);
 			Notifications.addWarning(message);
 			code.append("\n");
-			appendIndentation();
-			code.append("memset(");
-			code.append(variable);
-			code.append(", 0, sizeof(");
-			code.append(variable);
-			code.append(")); // Reset variable for reuse.\n");
+			appendReset(variable);
 			assigned.remove(variable);
 		}
 
@@ -169,6 +164,19 @@ public class CppVisitor implements ControlFlowVisitor, ExpressionVisitor {
 		node.getSuccessor().accept(this);
 	}
 
+	/**
+	 * Appends the statement, which sets all components of a multivector to zero
+	 * @param variable The name of the multivector
+	 */
+	protected void appendReset(String variable) {
+		appendIndentation();
+		code.append("memset(");
+		code.append(variable);
+		code.append(", 0, sizeof(");
+		code.append(variable);
+		code.append(")); // Reset variable for reuse.\n");
+	}
+
 	@Override
 	public void visit(ExpressionStatement node) {
 		appendIndentation();
@@ -29,6 +29,15 @@ public class Plugin extends Observable implements CodeGeneratorPlugin {
     
     @ConfigurationProperty(type = Type.BOOLEAN)
     public boolean useDouble = false;
+
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean batchKernel = false;
+
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean simdIntrinsics = false;
+
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean benchmarkHarness = false;
     
 
     public Plugin() {
@@ -59,6 +68,30 @@ public class Plugin extends Observable implements CodeGeneratorPlugin {
     public boolean getUseDouble() {
 		return useDouble;
 	}
+
+    public void setBatchKernel(boolean batchKernel) {
+        this.batchKernel = batchKernel;
+    }
+
+    public boolean getBatchKernel() {
+		return batchKernel;
+	}
+
+    public void setSimdIntrinsics(boolean simdIntrinsics) {
+        this.simdIntrinsics = simdIntrinsics;
+    }
+
+    public boolean getSimdIntrinsics() {
+		return simdIntrinsics;
+	}
+
+    public void setBenchmarkHarness(boolean benchmarkHarness) {
+        this.benchmarkHarness = benchmarkHarness;
+    }
+
+    public boolean getBenchmarkHarness() {
+		return benchmarkHarness;
+	}
     
     
 
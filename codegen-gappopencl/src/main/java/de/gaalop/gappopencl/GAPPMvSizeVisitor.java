@@ -23,6 +23,8 @@ import java.util.Map;
 public class GAPPMvSizeVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor {
 
     protected Map<String,Integer> mvSizes = new HashMap<String,Integer>();
+    // sizes of the current definitions, a shared buffer is as large as its largest definition
+    protected Map<String,Integer> currentSizes = new HashMap<String,Integer>();
     
     @Override
     public Object visitAssignMv(GAPPAssignMv gappAssignMv, Object arg) {
@@ -37,7 +39,10 @@ public class GAPPMvSizeVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor {
 
     @Override
     public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
-        getMvSizes().put(GAPPOpenCLCodeGenerator.getVarName(gappResetMv.getDestination().getName()), 0);
+        final String mvName = GAPPOpenCLCodeGenerator.getVarName(gappResetMv.getDestination().getName());
+        currentSizes.put(mvName, 0);
+        if(!getMvSizes().containsKey(mvName))
+            getMvSizes().put(mvName, 0);
         return null;
     }
 
@@ -49,7 +54,9 @@ public class GAPPMvSizeVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor {
     }
 
     protected void incrementSize(final String gappMvName,final int add) {
-        getMvSizes().put(gappMvName,getMvSizes().get(gappMvName) + add);
+        final int size = currentSizes.get(gappMvName) + add;
+        currentSizes.put(gappMvName, size);
+        getMvSizes().put(gappMvName, Math.max(getMvSizes().get(gappMvName), size));
     }
 
     @Override
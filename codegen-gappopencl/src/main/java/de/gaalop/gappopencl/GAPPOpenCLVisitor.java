@@ -27,8 +27,10 @@ import de.gaalop.gapp.variables.GAPPValueHolder;
 import de.gaalop.gapp.variables.GAPPVector;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 
@@ -47,6 +49,8 @@ public class GAPPOpenCLVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor
     protected boolean gpcMetaInfo = true;
     protected Map<String,Map<Integer,String>> mvBladeMap = new HashMap<String,Map<Integer,String>>();
     protected StringBuilder result = new StringBuilder();
+    // buffers shared by several temporaries are declared only once
+    protected Set<String> declared = new HashSet<String>();
 
     public GAPPOpenCLVisitor(Map<String, Integer> mvSizes) {
         this.mvSizes = mvSizes;
@@ -55,6 +59,9 @@ public class GAPPOpenCLVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor
     @Override
     public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
         final String destMv = GAPPOpenCLCodeGenerator.getVarName(gappResetMv.getDestination().getName());
+        mvBladeMap.put(destMv,new HashMap<Integer,String>());
+        if(!declared.add(destMv))
+            return null;
         
         if(gpcMetaInfo && !destMv.startsWith(GAPPOpenCLCodeGenerator.tempMv))
             result.append("//#pragma gpc multivector ").append(destMv).append("\n");
@@ -62,7 +69,6 @@ public class GAPPOpenCLVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor
         printOpenCLVectorType(computeNearestOpenCLVectorSize(mvSizes.get(destMv)));
         result.append(" ");
         result.append(destMv).append(";\n");
-        mvBladeMap.put(destMv,new HashMap<Integer,String>());
 
         return null;
     }
@@ -169,8 +175,10 @@ public class GAPPOpenCLVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor
             final String destVec = destVecBase + "_" + subvectorIndex;
             
             // print declaration
-            printOpenCLVectorType(openCLVectorSize);
-            result.append(" ");
+            if(declared.add(destVec)) {
+                printOpenCLVectorType(openCLVectorSize);
+                result.append(" ");
+            }
             result.append(destVec);
             result.append(" = (");
             printOpenCLVectorType(openCLVectorSize);
@@ -288,7 +296,8 @@ public class GAPPOpenCLVisitor extends de.gaalop.gapp.visitor.CFGGAPPVisitor
         result.append(" = ");
         visitCalculateOp(gappCalculateMvCoeff.getType(),
                          GAPPOpenCLCodeGenerator.getVarName(gappCalculateMvCoeff.getOperand1().getName()),
-                         GAPPOpenCLCodeGenerator.getVarName(gappCalculateMvCoeff.getOperand2().getName()));
+                         (gappCalculateMvCoeff.getOperand2() == null) ? null
+                             : GAPPOpenCLCodeGenerator.getVarName(gappCalculateMvCoeff.getOperand2().getName()));
         result.append(";\n");
 
         mvBladeMap.get(destMv).put(gappCalculateMvCoeff.getDestination().getBladeIndex(),bladeCoeff);
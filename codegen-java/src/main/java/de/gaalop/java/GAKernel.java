@@ -0,0 +1,74 @@
+package de.gaalop.java;
+
+import java.util.HashMap;
+
+/**
+ * Performs the calculations of a Geometric Algebra program, which has been compiled at runtime by the {@link JavaKernelCompiler}.
+ * <p/>
+ * The input and output variables are accessed by name or by their index in the arrays,
+ * the names are in the order of the indices.
+ * A kernel is not thread-safe, several kernels of the same program can be instantiated
+ * from the class, which is returned by {@link JavaKernelCompiler#compileClass(de.gaalop.cfg.ControlFlowGraph)}.
+ */
+public interface GAKernel {
+
+    /**
+     * Performs the calculation
+     */
+    public void calculate();
+
+    /**
+     * Returns the value of a variable
+     * @param varName The variable name, specified in the Geometric Algebra program
+     * @return The value of the variable with the given name
+     */
+    public double getValue(String varName);
+
+    /**
+     * Sets the value of a variable
+     * @param varName The variable name, specified in the Geometric Algebra program
+     * @param value The value
+     * @return <value>true</value> if the setting was successful, <value>false</value> otherwise
+     */
+    public boolean setValue(String varName, double value);
+
+    /**
+     * Returns all values in a map name->value
+     * @return The map which contains all values
+     */
+    public HashMap<String, Double> getValues();
+
+    /**
+     * Sets the values of all input variables
+     * @param in The values in the order of {@link #getInputNames()}
+     */
+    public void setInputs(double[] in);
+
+    /**
+     * Returns the values of all output variables
+     * @param out The array to be filled in the order of {@link #getOutputNames()}
+     */
+    public void getOutputs(double[] out);
+
+    /**
+     * Returns the names of the input variables in the order of their indices
+     * @return The names
+     */
+    public String[] getInputNames();
+
+    /**
+     * Returns the names of the output variables in the order of their indices
+     * @return The names
+     */
+    public String[] getOutputNames();
+
+    /**
+     * Performs the calculation for several elements.
+     * The buffers are structure-of-arrays: the variable with index k of element i is stored at k*count+i.
+     * @param in The values of the input variables, at least getInputNames().length*count values
+     * @param out The array for the values of the output variables, at least getOutputNames().length*count values
+     * @param count The number of elements
+     */
+    public void calculateBatch(double[] in, double[] out, int count);
+
+}
@@ -32,6 +32,13 @@ public class JavaCodeGenerator implements CodeGenerator {
                 createGAInterface(),
                 Charset.forName("UTF-8")));
 
+        if (plugin.getIndexedAccess()) {
+            result.add(new OutputFile(
+                    "GAIndexedProgram.java",
+                    createGAIndexedInterface(),
+                    Charset.forName("UTF-8")));
+        }
+
         return result;
     }
 
@@ -63,6 +70,7 @@ public class JavaCodeGenerator implements CodeGenerator {
     private String generateCode(ControlFlowGraph in, String filename) {
         JavaVisitor visitor = new JavaVisitor();
         visitor.filename = filename;
+        visitor.indexedAccess = plugin.getIndexedAccess();
         try {
             in.accept(visitor);
         } catch (Throwable error) {
@@ -114,4 +122,53 @@ public class JavaCodeGenerator implements CodeGenerator {
                 + "\n"
                 + "}\n";
     }
+    /**
+     * Returns an interface source for external Java programs,
+     * that access the variables of the optimized code by index
+     * @return The String containing the java interface source
+     */
+    private String createGAIndexedInterface() {
+        return "\n"
+                + "\n"
+                + "/**\n"
+                + " * Performs the calculations specified in a Geometric Algebra Program\n"
+                + " * and accesses the input and output variables by their index constants IN_... and OUT_...\n"
+                + " */\n"
+                + "public interface GAIndexedProgram extends GAProgram {\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Sets the values of all input variables\n"
+                + "     * @param in The values, indexed by the IN_... constants\n"
+                + "     */\n"
+                + "    public void setInputs(double[] in);\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Returns the values of all output variables\n"
+                + "     * @param out The array to be filled, indexed by the OUT_... constants\n"
+                + "     */\n"
+                + "    public void getOutputs(double[] out);\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Returns the names of the input variables in the order of their indices\n"
+                + "     * @return The names\n"
+                + "     */\n"
+                + "    public String[] getInputNames();\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Returns the names of the output variables in the order of their indices\n"
+                + "     * @return The names\n"
+                + "     */\n"
+                + "    public String[] getOutputNames();\n"
+                + "\n"
+                + "    /**\n"
+                + "     * Performs the calculation for several elements.\n"
+                + "     * The buffers are structure-of-arrays: the variable with index k of element i is stored at k*count+i.\n"
+                + "     * @param in The values of the input variables, at least INPUT_COUNT*count values\n"
+                + "     * @param out The array for the values of the output variables, at least OUTPUT_COUNT*count values\n"
+                + "     * @param count The number of elements\n"
+                + "     */\n"
+                + "    public void calculateBatch(double[] in, double[] out, int count);\n"
+                + "\n"
+                + "}\n";
+    }
 }
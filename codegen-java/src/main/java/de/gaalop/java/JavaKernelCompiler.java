@@ -0,0 +1,210 @@
+package de.gaalop.java;
+
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.cfg.ControlFlowGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles control flow graphs at runtime to Java bytecode, which is loaded and returned as {@link GAKernel}.
+ * <p/>
+ * The source code is generated by the {@link JavaVisitor} with indexed access and compiled in memory by the
+ * system Java compiler, so nothing is written to disk. Every program is loaded by its own class loader,
+ * so that it can be garbage collected together with its kernels.
+ * The system Java compiler is only available, if Gaalop runs on a JDK.
+ */
+public class JavaKernelCompiler {
+
+    private static final String PACKAGE = "de.gaalop.java.kernels";
+
+    private static final AtomicInteger counter = new AtomicInteger(0);
+
+    /**
+     * A source file, which is held in memory
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+
+        private final String code;
+
+        private SourceFile(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /**
+     * A class file, which is held in memory
+     */
+    private static class ClassFile extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Loads the compiled classes of one program
+     */
+    private static class KernelClassLoader extends ClassLoader {
+
+        private final HashMap<String, ClassFile> classFiles;
+
+        private KernelClassLoader(HashMap<String, ClassFile> classFiles) {
+            super(GAKernel.class.getClassLoader());
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ClassFile classFile = classFiles.get(name);
+            if (classFile == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] bytes = classFile.bytes.toByteArray();
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Compiles a control flow graph and returns a new kernel
+     * @param graph The optimized control flow graph
+     * @return The kernel
+     * @throws CodeGeneratorException if the code can not be generated or compiled
+     */
+    public GAKernel compile(ControlFlowGraph graph) throws CodeGeneratorException {
+        Class<? extends GAKernel> kernelClass = compileClass(graph);
+        try {
+            return kernelClass.getDeclaredConstructor().newInstance();
+        } catch (InstantiationException e) {
+            throw new CodeGeneratorException(graph, "Unable to instantiate the compiled kernel", e);
+        } catch (IllegalAccessException e) {
+            throw new CodeGeneratorException(graph, "Unable to instantiate the compiled kernel", e);
+        } catch (NoSuchMethodException e) {
+            throw new CodeGeneratorException(graph, "Unable to instantiate the compiled kernel", e);
+        } catch (InvocationTargetException e) {
+            throw new CodeGeneratorException(graph, "Unable to instantiate the compiled kernel", e);
+        }
+    }
+
+    /**
+     * Compiles a control flow graph and returns the class of the kernel, which has a public default constructor
+     * @param graph The optimized control flow graph
+     * @return The class of the kernel
+     * @throws CodeGeneratorException if the code can not be generated or compiled
+     */
+    public Class<? extends GAKernel> compileClass(ControlFlowGraph graph) throws CodeGeneratorException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new CodeGeneratorException(graph, "No Java compiler is available. Please run Gaalop with a JDK instead of a JRE.");
+        }
+
+        String simpleName = "Kernel" + counter.incrementAndGet();
+        String className = PACKAGE + "." + simpleName;
+        String code = "package " + PACKAGE + ";\n\n" + generateCode(graph, simpleName);
+
+        final HashMap<String, ClassFile> classFiles = new HashMap<String, ClassFile>();
+        StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(null, null, null);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                ClassFile classFile = new ClassFile(name);
+                classFiles.put(name, classFile);
+                return classFile;
+            }
+        };
+
+        List<String> options = Arrays.asList("-nowarn", "-g:none", "-classpath", getClassPath());
+        StringWriter messages = new StringWriter();
+        Boolean success;
+        try {
+            success = compiler.getTask(messages, fileManager, null, options, null,
+                    Collections.singletonList(new SourceFile(className, code))).call();
+        } finally {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                // the in-memory files do not need to be closed
+            }
+        }
+        if (!success) {
+            throw new CodeGeneratorException(graph, "The generated Java code could not be compiled:\n" + messages);
+        }
+
+        try {
+            return new KernelClassLoader(classFiles).loadClass(className).asSubclass(GAKernel.class);
+        } catch (ClassNotFoundException e) {
+            throw new CodeGeneratorException(graph, "The compiled kernel could not be loaded", e);
+        }
+    }
+
+    /**
+     * Generates the source code of the kernel class without package declaration
+     * @param graph The control flow graph
+     * @param simpleName The name of the class
+     * @return The source code
+     */
+    private String generateCode(ControlFlowGraph graph, String simpleName) throws CodeGeneratorException {
+        JavaVisitor visitor = new JavaVisitor();
+        visitor.filename = simpleName;
+        visitor.indexedAccess = true;
+        visitor.implementedInterface = GAKernel.class.getName();
+        try {
+            graph.accept(visitor);
+        } catch (RuntimeException e) {
+            throw new CodeGeneratorException(graph, "The Java code could not be generated: " + e.getMessage(), e);
+        }
+        return visitor.getCode();
+    }
+
+    /**
+     * Returns the class path, which contains the GAKernel interface
+     */
+    private static String getClassPath() {
+        String classPath = System.getProperty("java.class.path");
+        CodeSource codeSource = GAKernel.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null) {
+            try {
+                classPath = new File(codeSource.getLocation().toURI()).getPath() + File.pathSeparator + classPath;
+            } catch (URISyntaxException e) {
+                // the class path of the virtual machine is used
+            } catch (IllegalArgumentException e) {
+                // the location is no file, the class path of the virtual machine is used
+            }
+        }
+        return classPath;
+    }
+
+}
@@ -15,6 +15,17 @@ public class JavaVisitor implements ControlFlowVisitor, ExpressionVisitor {
     
     public String filename;
 
+    /**
+     * Emits index constants, array accessors and a batched calculation in addition to the access by name
+     */
+    public boolean indexedAccess = false;
+
+    /**
+     * The fully qualified name of the interface, which is implemented by the generated class.
+     * If null, GAProgram or GAIndexedProgram is implemented.
+     */
+    public String implementedInterface = null;
+
     protected Log log = LogFactory.getLog(JavaVisitor.class);
     protected StringBuilder codePre = new StringBuilder();
     protected StringBuilder codeCalc = new StringBuilder();
@@ -28,6 +39,7 @@ public class JavaVisitor implements ControlFlowVisitor, ExpressionVisitor {
     private final int JAVALIMIT = 65500; // let space for indentation!
     private byte curSection = 0;
     private boolean implementFactorial = false;
+    private int calcBodyLength = 0;
 
     /**
      * Appends a character to the result string
@@ -99,7 +111,11 @@ public class JavaVisitor implements ControlFlowVisitor, ExpressionVisitor {
             filename = filename.substring(0, lastDotIndex);
         
         
-        append("public class " + filename + " implements GAProgram {\n");
+        String implemented = implementedInterface;
+        if (implemented == null) {
+            implemented = indexedAccess ? "GAIndexedProgram" : "GAProgram";
+        }
+        append("public class " + filename + " implements " + implemented + " {\n");
         indentation++;
         indentation++;
         appendIndentation();
@@ -245,7 +261,7 @@ public class JavaVisitor implements ControlFlowVisitor, ExpressionVisitor {
     @Override
     public void visit(EndNode node) {
         
-        
+        calcBodyLength = codeCalc.length(); // without the end of the calculate method
         indentation--;
         appendIndentation();
         append("}\n\n"); // close procedure calculate
@@ -404,6 +420,10 @@ public class JavaVisitor implements ControlFlowVisitor, ExpressionVisitor {
         appendIndentation();
         append("}\n"); // close procedure setValue
 
+        if (indexedAccess) {
+            appendIndexedAccess(localsArr, outputsArr);
+        }
+
         appendIndentation();
         append("\n");
         appendIndentation();
@@ -416,6 +436,152 @@ public class JavaVisitor implements ControlFlowVisitor, ExpressionVisitor {
         
     }
 
+    /**
+     * Appends the index constants of the input and output variables, the array accessors
+     * and the batched calculation over structure-of-arrays buffers.
+     * The inputs are sorted by name, the outputs in the order of the output variable declarations.
+     * @param localsArr The sorted local variables
+     * @param outputsArr The sorted output variables
+     */
+    private void appendIndexedAccess(String[] localsArr, String[] outputsArr) {
+        LinkedList<String> inputs = new LinkedList<String>();
+        for (Variable inputVar : sortVariables(graph.getInputVariables())) {
+            inputs.add(getVarName(inputVar));
+        }
+
+        append("\n");
+        appendIndentation();
+        append("// indices of the input and output variables in the arrays\n");
+        for (int i = 0; i < inputs.size(); i++) {
+            appendIndentation();
+            append("public static final int IN_" + inputs.get(i) + " = " + i + ";\n");
+        }
+        for (int i = 0; i < outputsArr.length; i++) {
+            appendIndentation();
+            append("public static final int OUT_" + outputsArr[i] + " = " + i + ";\n");
+        }
+        appendIndentation();
+        append("public static final int INPUT_COUNT = " + inputs.size() + ";\n");
+        appendIndentation();
+        append("public static final int OUTPUT_COUNT = " + outputsArr.length + ";\n");
+        appendIndentation();
+        append("private static final String[] INPUT_NAMES = {" + joinQuoted(inputs) + "};\n");
+        appendIndentation();
+        append("private static final String[] OUTPUT_NAMES = {" + joinQuoted(Arrays.asList(outputsArr)) + "};\n");
+        append("\n");
+
+        appendIndentation();
+        append("@Override\n");
+        appendIndentation();
+        append("public String[] getInputNames() {\n");
+        indentation++;
+        appendIndentation();
+        append("return INPUT_NAMES.clone();\n");
+        indentation--;
+        appendIndentation();
+        append("}\n\n"); // close procedure getInputNames
+
+        appendIndentation();
+        append("@Override\n");
+        appendIndentation();
+        append("public String[] getOutputNames() {\n");
+        indentation++;
+        appendIndentation();
+        append("return OUTPUT_NAMES.clone();\n");
+        indentation--;
+        appendIndentation();
+        append("}\n\n"); // close procedure getOutputNames
+
+        // setInputs
+        appendIndentation();
+        append("@Override\n");
+        appendIndentation();
+        append("public void setInputs(double[] in) {\n");
+        indentation++;
+        for (String input : inputs) {
+            appendIndentation();
+            append(input + " = in[IN_" + input + "];\n");
+        }
+        indentation--;
+        appendIndentation();
+        append("}\n\n"); // close procedure setInputs
+
+        // getOutputs
+        appendIndentation();
+        append("@Override\n");
+        appendIndentation();
+        append("public void getOutputs(double[] out) {\n");
+        indentation++;
+        for (String output : outputsArr) {
+            appendIndentation();
+            append("out[OUT_" + output + "] = " + output + ";\n");
+        }
+        indentation--;
+        appendIndentation();
+        append("}\n\n"); // close procedure getOutputs
+
+        // calculateBatch: variable k of element i is stored at index k*count+i
+        appendIndentation();
+        append("@Override\n");
+        appendIndentation();
+        append("public void calculateBatch(double[] in, double[] out, int count) {\n");
+        indentation++;
+        appendIndentation();
+        append("for (int i = 0; i < count; i++) {\n");
+        indentation++;
+        if (calcBodyLength > JAVALIMIT) {
+            // the calculation is split up in several methods, which work on the fields
+            for (String input : inputs) {
+                appendIndentation();
+                append(input + " = in[IN_" + input + " * count + i];\n");
+            }
+            appendIndentation();
+            append("calculate();\n");
+        } else {
+            // the calculation works on local variables, which shadow the fields, so that it can be optimized by the JIT
+            for (String input : inputs) {
+                appendIndentation();
+                append("double " + input + " = in[IN_" + input + " * count + i];\n");
+            }
+            HashSet<String> declared = new HashSet<String>(inputs);
+            for (String[] variables : new String[][]{localsArr, outputsArr}) {
+                for (String variable : variables) {
+                    if (declared.add(variable)) {
+                        appendIndentation();
+                        append("double " + variable + " = 0.0d;\n");
+                    }
+                }
+            }
+            for (String line : codeCalc.substring(0, calcBodyLength).split("\n")) {
+                append(line.isEmpty() ? "\n" : "\t" + line + "\n");
+            }
+        }
+        for (String output : outputsArr) {
+            appendIndentation();
+            append("out[OUT_" + output + " * count + i] = " + output + ";\n");
+        }
+        indentation--;
+        appendIndentation();
+        append("}\n");
+        indentation--;
+        appendIndentation();
+        append("}\n"); // close procedure calculateBatch
+    }
+
+    /**
+     * Returns the names as comma separated string literals
+     */
+    private static String joinQuoted(List<String> names) {
+        StringBuilder result = new StringBuilder();
+        for (String name : names) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append('"').append(name).append('"');
+        }
+        return result.toString();
+    }
+
     @Override
     public void visit(ColorNode node) {
         node.getSuccessor().accept(this);
@@ -2,6 +2,8 @@ package de.gaalop.java;
 
 import de.gaalop.CodeGenerator;
 import de.gaalop.CodeGeneratorPlugin;
+import de.gaalop.ConfigurationProperty;
+import de.gaalop.ConfigurationProperty.Type;
 import de.gaalop.Notifications;
 
 import org.apache.commons.logging.Log;
@@ -21,6 +23,13 @@ public class Plugin extends Observable implements CodeGeneratorPlugin {
     private Log log = LogFactory.getLog(Plugin.class);
     private Image icon;
 
+    /*
+     * Emits index constants, double[] accessors and a batched calculation (interface GAIndexedProgram)
+     * in addition to the access by variable name.
+     */
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean indexedAccess = false;
+
     public Plugin() {
         URL url = getClass().getResource("icon.png");
         if (url != null) {
@@ -34,6 +43,14 @@ public class Plugin extends Observable implements CodeGeneratorPlugin {
         }
     }
 
+    public boolean getIndexedAccess() {
+        return indexedAccess;
+    }
+
+    public void setIndexedAccess(boolean indexedAccess) {
+        this.indexedAccess = indexedAccess;
+    }
+
     @Override
     public CodeGenerator createCodeGenerator() {
         return new JavaCodeGenerator(this);
@@ -1,17 +1,17 @@
 package de.gaalop.visualizer;
 
+import de.gaalop.cfg.GlobalSettings;
+
 /**
  * Creates a differentiater
  * @author Christian
  */
 public class DifferentiaterCreator {
     
-    private boolean optMaxima;
-    private String maximaCommand;
+    private GlobalSettings globalSettings;
 
-    public DifferentiaterCreator(boolean optMaxima, String maximaCommand) {
-        this.optMaxima = optMaxima;
-        this.maximaCommand = maximaCommand;
+    public DifferentiaterCreator(GlobalSettings globalSettings) {
+        this.globalSettings = globalSettings;
     }
 
     /**
@@ -19,8 +19,8 @@ public class DifferentiaterCreator {
      * @return The differentiater
      */
     public Differentiater createDifferentiater() {
-        return (optMaxima)
-                ? new MaximaDifferentiater(maximaCommand)
+        return (globalSettings.isOptMaxima())
+                ? new MaximaDifferentiater(globalSettings)
                 : new CFGDifferentiater();
     }
     
@@ -3,6 +3,7 @@ package de.gaalop.visualizer;
 import de.gaalop.LoggingListenerGroup;
 import de.gaalop.OptimizationException;
 import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.GlobalSettings;
 import de.gaalop.dfg.Expression;
 import de.gaalop.dfg.MultivectorComponent;
 import de.gaalop.tba.cfgImport.optimization.maxima.DFGToMaximaCode;
@@ -10,7 +11,7 @@ import de.gaalop.tba.cfgImport.optimization.maxima.MaximaConnection;
 import de.gaalop.tba.cfgImport.optimization.maxima.MaximaInput;
 import de.gaalop.tba.cfgImport.optimization.maxima.MaximaOutput;
 import de.gaalop.tba.cfgImport.optimization.maxima.MaximaRoutines;
-import de.gaalop.tba.cfgImport.optimization.maxima.ProcessBuilderMaximaConnection;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaSessionPool;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.logging.Level;
@@ -22,16 +23,16 @@ import java.util.logging.Logger;
  */
 public class MaximaDifferentiater implements Differentiater {
     
-    private String maximaCommand;
+    private GlobalSettings globalSettings;
 
-    public MaximaDifferentiater(String maximaCommand) {
-        this.maximaCommand = maximaCommand;
+    public MaximaDifferentiater(GlobalSettings globalSettings) {
+        this.globalSettings = globalSettings;
     }
  
     @Override
     public LinkedList<AssignmentNode> differentiate(LinkedList<AssignmentNode> toDerive, MultivectorComponent variable) {
         try {
-            MaximaConnection connection = new ProcessBuilderMaximaConnection(maximaCommand);
+            MaximaConnection connection = MaximaSessionPool.createConnection(globalSettings);
             connection.setProgressListeners(new LoggingListenerGroup());
             
             MaximaInput input = new MaximaInput();
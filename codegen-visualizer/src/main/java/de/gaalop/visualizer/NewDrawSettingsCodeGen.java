@@ -174,7 +174,7 @@ public class NewDrawSettingsCodeGen extends DrawSettings implements CodeGenerato
         in.accept(collector);
         graphAssignmentNodes = collector.getAssignmentNodes();
         
-        differentiater = new DifferentiaterCreator(in.globalSettings.optMaxima, in.globalSettings.maximaCommand).createDifferentiater();
+        differentiater = new DifferentiaterCreator(in.globalSettings).createDifferentiater();
         renderingExpressions = in.getRenderingExpressions();
         colors = ColorEvaluater.getColors(in);
         
@@ -0,0 +1,484 @@
+package de.gaalop.visualizer.zerofinding;
+
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.dfg.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Compiles a list of assignment nodes once to a straight-line program over a register file of doubles,
+ * which evaluates a whole row of samples at a time.
+ *
+ * Every multivector component, constant and temporary value gets a slot of count registers,
+ * the value of the sample i in the slot s is stored at index s*count+i.
+ * The program computes the same values as the Evaluater, components, which are read before they are assigned,
+ * evaluate to NaN.
+ */
+public class CompiledEvaluater implements ExpressionVisitor {
+
+    private static final int COPY = 0;
+    private static final int ADD = 1;
+    private static final int SUB = 2;
+    private static final int MUL = 3;
+    private static final int DIV = 4;
+    private static final int POW = 5;
+    private static final int NEG = 6;
+    private static final int FUNCTION = 7;
+
+    private static final MathFunction[] FUNCTIONS = MathFunction.values();
+
+    private LinkedHashMap<MultivectorComponent, Integer> slots = new LinkedHashMap<MultivectorComponent, Integer>();
+    private LinkedHashMap<Double, Integer> constantSlots = new LinkedHashMap<Double, Integer>();
+    /**
+     * The input components and the assigned components
+     */
+    private HashSet<MultivectorComponent> defined = new HashSet<MultivectorComponent>();
+    private int undefinedSlot;
+    private int tempBase;
+    private int tempCount = 0;
+    private int depth = 0;
+
+    private ArrayList<Integer> codeList = new ArrayList<Integer>();
+    private int[] code;
+    private int slotCount;
+
+    private int destination;
+    private int result;
+
+    /**
+     * Compiles a list of assignment nodes
+     * @param inputs The components, which are set before each evaluation
+     * @param assignmentNodes The assignment nodes
+     */
+    public CompiledEvaluater(Collection<MultivectorComponent> inputs, LinkedList<AssignmentNode> assignmentNodes) {
+        // allocate the slots of the components and the constants
+        for (MultivectorComponent input : inputs) {
+            getSlot(input);
+        }
+        EmptyExpressionVisitor collector = new EmptyExpressionVisitor() {
+            @Override
+            public void visit(MultivectorComponent node) {
+                getSlot(node);
+            }
+
+            @Override
+            public void visit(Variable node) {
+                getSlot(new MultivectorComponent(node.getName(), 0));
+            }
+
+            @Override
+            public void visit(FloatConstant node) {
+                getConstantSlot(node.getValue());
+            }
+        };
+        for (AssignmentNode node : assignmentNodes) {
+            getSlot((MultivectorComponent) node.getVariable());
+            node.getValue().accept(collector);
+        }
+        undefinedSlot = getConstantSlot(Double.NaN);
+        tempBase = slots.size() + constantSlots.size();
+
+        defined.addAll(inputs);
+        for (AssignmentNode node : assignmentNodes) {
+            MultivectorComponent variable = (MultivectorComponent) node.getVariable();
+            int slot = compile(node.getValue(), slots.get(variable));
+            if (slot != slots.get(variable)) {
+                append(COPY, slots.get(variable), slot);
+            }
+            defined.add(variable);
+        }
+
+        code = new int[codeList.size()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = codeList.get(i);
+        }
+        codeList = null;
+        slotCount = tempBase + tempCount;
+    }
+
+    private int getSlot(MultivectorComponent component) {
+        Integer slot = slots.get(component);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(component, slot);
+        }
+        return slot;
+    }
+
+    private int getConstantSlot(double value) {
+        Integer slot = constantSlots.get(value);
+        if (slot == null) {
+            slot = constantSlots.size();
+            constantSlots.put(value, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the number of slots
+     * @return The number of slots
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Creates a register file for rows of a given length, in which the constants are already set
+     * and all components are NaN
+     * @param count The number of samples per row
+     * @return The register file
+     */
+    public double[] createRegisters(int count) {
+        double[] registers = new double[slotCount * count];
+        Arrays.fill(registers, 0, slots.size() * count, Double.NaN);
+        for (Map.Entry<Double, Integer> constant : constantSlots.entrySet()) {
+            int offset = (slots.size() + constant.getValue()) * count;
+            Arrays.fill(registers, offset, offset + count, constant.getKey());
+        }
+        return registers;
+    }
+
+    /**
+     * Sets the value of a component for all samples of a row
+     * @param registers The register file
+     * @param count The number of samples per row
+     * @param component The component
+     * @param value The value
+     */
+    public void setValue(double[] registers, int count, MultivectorComponent component, double value) {
+        int offset = slots.get(component) * count;
+        Arrays.fill(registers, offset, offset + count, value);
+    }
+
+    /**
+     * Sets the values of a component for every sample of a row
+     * @param registers The register file
+     * @param count The number of samples per row
+     * @param component The component
+     * @param values The values of the samples
+     */
+    public void setValues(double[] registers, int count, MultivectorComponent component, double[] values) {
+        System.arraycopy(values, 0, registers, slots.get(component) * count, count);
+    }
+
+    /**
+     * Returns the value of a component of a sample
+     * @param registers The register file
+     * @param count The number of samples per row
+     * @param component The component
+     * @param sample The index of the sample
+     * @return The value, NaN if the component is unknown
+     */
+    public double getValue(double[] registers, int count, MultivectorComponent component, int sample) {
+        Integer slot = slots.get(component);
+        return (slot == null) ? Double.NaN : registers[slot * count + sample];
+    }
+
+    /**
+     * Returns the register offsets of the input and assigned components, whose names start with a given prefix
+     * @param prefix The prefix
+     * @param count The number of samples per row
+     * @return Maps the names of the multivectors to the register offsets of their components
+     */
+    public LinkedHashMap<String, int[]> getOffsets(String prefix, int count) {
+        LinkedHashMap<String, LinkedList<Integer>> offsetLists = new LinkedHashMap<String, LinkedList<Integer>>();
+        for (Map.Entry<MultivectorComponent, Integer> entry : slots.entrySet()) {
+            String name = entry.getKey().getName();
+            if (name.startsWith(prefix) && defined.contains(entry.getKey())) {
+                if (!offsetLists.containsKey(name)) {
+                    offsetLists.put(name, new LinkedList<Integer>());
+                }
+                offsetLists.get(name).add(entry.getValue() * count);
+            }
+        }
+
+        LinkedHashMap<String, int[]> offsets = new LinkedHashMap<String, int[]>();
+        for (Map.Entry<String, LinkedList<Integer>> entry : offsetLists.entrySet()) {
+            int[] array = new int[entry.getValue().size()];
+            int i = 0;
+            for (int offset : entry.getValue()) {
+                array[i++] = offset;
+            }
+            offsets.put(entry.getKey(), array);
+        }
+        return offsets;
+    }
+
+    /**
+     * Evaluates all assignments for a row of samples
+     * @param registers The register file, which is created with createRegisters(count)
+     * @param count The number of samples per row
+     */
+    public void evaluate(double[] registers, int count) {
+        int pc = 0;
+        while (pc < code.length) {
+            int d = code[pc + 1] * count;
+            int a = code[pc + 2] * count;
+            switch (code[pc]) {
+                case COPY:
+                    System.arraycopy(registers, a, registers, d, count);
+                    pc += 3;
+                    break;
+                case NEG:
+                    for (int i = 0; i < count; i++) {
+                        registers[d + i] = -registers[a + i];
+                    }
+                    pc += 3;
+                    break;
+                case FUNCTION:
+                    MathFunction function = FUNCTIONS[code[pc + 3]];
+                    for (int i = 0; i < count; i++) {
+                        registers[d + i] = calculate(function, registers[a + i]);
+                    }
+                    pc += 4;
+                    break;
+                default:
+                    int b = code[pc + 3] * count;
+                    switch (code[pc]) {
+                        case ADD:
+                            for (int i = 0; i < count; i++) {
+                                registers[d + i] = registers[a + i] + registers[b + i];
+                            }
+                            break;
+                        case SUB:
+                            for (int i = 0; i < count; i++) {
+                                registers[d + i] = registers[a + i] - registers[b + i];
+                            }
+                            break;
+                        case MUL:
+                            for (int i = 0; i < count; i++) {
+                                registers[d + i] = registers[a + i] * registers[b + i];
+                            }
+                            break;
+                        case DIV:
+                            for (int i = 0; i < count; i++) {
+                                registers[d + i] = registers[a + i] / registers[b + i];
+                            }
+                            break;
+                        case POW:
+                            for (int i = 0; i < count; i++) {
+                                registers[d + i] = Math.pow(registers[a + i], registers[b + i]);
+                            }
+                            break;
+                    }
+                    pc += 4;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Calculates a math function in the same way as the Evaluater
+     * @param function The function
+     * @param value The operand
+     * @return The result
+     */
+    private static double calculate(MathFunction function, double value) {
+        switch (function) {
+            case ABS:
+                return Math.abs(value);
+            case ACOS:
+                return Math.acos(value);
+            case ASIN:
+                return Math.asin(value);
+            case ATAN:
+                return Math.atan(value);
+            case CEIL:
+                return Math.ceil(value);
+            case COS:
+                return Math.cos(value);
+            case EXP:
+                return Math.exp(value);
+            case FACT:
+                int n = (int) value;
+                double result = 1.0;
+                for (int i = 2; i <= n; i++) {
+                    result *= i;
+                }
+                return result;
+            case FLOOR:
+                return Math.floor(value);
+            case LOG:
+                return Math.log(value);
+            case SIN:
+                return Math.sin(value);
+            case SQRT:
+                return Math.sqrt(value);
+            case TAN:
+                return Math.tan(value);
+        }
+        return value;
+    }
+
+    // ====================== Compilation ======================
+
+    private void append(int... values) {
+        for (int value : values) {
+            codeList.add(value);
+        }
+    }
+
+    /**
+     * Compiles an expression
+     * @param expression The expression
+     * @param destination The slot, in which an operation stores its result, -1 for a temporary slot
+     * @return The slot, which holds the value of the expression
+     */
+    private int compile(Expression expression, int destination) {
+        this.destination = destination;
+        expression.accept(this);
+        return result;
+    }
+
+    /**
+     * Returns the destination slot of the current operation and allocates a temporary slot, if needed
+     * @return The destination slot
+     */
+    private int takeDestination() {
+        int slot = destination;
+        if (slot < 0) {
+            slot = tempBase + depth;
+            depth++;
+            tempCount = Math.max(tempCount, depth);
+        }
+        return slot;
+    }
+
+    private void compileBinary(int opcode, BinaryOperation node) {
+        int d = takeDestination();
+        int savedDepth = depth;
+        int left = compile(node.getLeft(), -1);
+        int right = compile(node.getRight(), -1);
+        depth = savedDepth;
+        append(opcode, d, left, right);
+        result = d;
+    }
+
+    @Override
+    public void visit(Subtraction node) {
+        compileBinary(SUB, node);
+    }
+
+    @Override
+    public void visit(Addition node) {
+        compileBinary(ADD, node);
+    }
+
+    @Override
+    public void visit(Division node) {
+        compileBinary(DIV, node);
+    }
+
+    @Override
+    public void visit(Multiplication node) {
+        compileBinary(MUL, node);
+    }
+
+    @Override
+    public void visit(Exponentiation node) {
+        compileBinary(POW, node);
+    }
+
+    @Override
+    public void visit(Negation node) {
+        int d = takeDestination();
+        int savedDepth = depth;
+        int operand = compile(node.getOperand(), -1);
+        depth = savedDepth;
+        append(NEG, d, operand);
+        result = d;
+    }
+
+    @Override
+    public void visit(MathFunctionCall node) {
+        int d = takeDestination();
+        int savedDepth = depth;
+        int operand = compile(node.getOperand(), -1);
+        depth = savedDepth;
+        append(FUNCTION, d, operand, node.getFunction().ordinal());
+        result = d;
+    }
+
+    @Override
+    public void visit(MultivectorComponent node) {
+        result = defined.contains(node) ? slots.get(node) : slots.size() + undefinedSlot;
+    }
+
+    @Override
+    public void visit(Variable node) {
+        visit(new MultivectorComponent(node.getName(), 0));
+    }
+
+    @Override
+    public void visit(FloatConstant node) {
+        result = slots.size() + constantSlots.get(node.getValue());
+    }
+
+    // ====================== Illegal methods ======================
+
+    @Override
+    public void visit(OuterProduct node) {
+        throw new UnsupportedOperationException("OuterProducts should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(BaseVector node) {
+        throw new UnsupportedOperationException("BaseVectors should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(Reverse node) {
+        throw new UnsupportedOperationException("Reverses should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(LogicalOr node) {
+        throw new UnsupportedOperationException("LogicalOrs should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(LogicalAnd node) {
+        throw new UnsupportedOperationException("LogicalAnds should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(LogicalNegation node) {
+        throw new UnsupportedOperationException("LogicalNegations should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(Equality node) {
+        throw new UnsupportedOperationException("Equalities should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(Inequality node) {
+        throw new UnsupportedOperationException("Inequalities should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(Relation relation) {
+        throw new UnsupportedOperationException("Relations should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(FunctionArgument node) {
+        throw new UnsupportedOperationException("FunctionArguments should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(MacroCall node) {
+        throw new UnsupportedOperationException("MacroCalls should have been removed by TBA.");
+    }
+
+    @Override
+    public void visit(InnerProduct node) {
+        throw new UnsupportedOperationException("Inner products should have been removed by TBA.");
+    }
+
+}
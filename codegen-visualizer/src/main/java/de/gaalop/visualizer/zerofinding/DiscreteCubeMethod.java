@@ -24,12 +24,15 @@ public class DiscreteCubeMethod extends ZeroFinder {
         
         int processorCount = Runtime.getRuntime().availableProcessors();
         
+        // compile the assignments once, all threads share the program
+        CompiledEvaluater evaluater = new CompiledEvaluater(DiscreteCubeMethodThread.getInputs(globalValues), assignmentNodes);
+        
         DiscreteCubeMethodThread[] threads = new DiscreteCubeMethodThread[processorCount];
         for (int i=0;i<processorCount;i++) {
             int from = (i*2*a)/processorCount - a;
             int to = ((i != processorCount-1) ? ((i+1)*2*a)/processorCount : 2*a) - a; 
 
-            threads[i] = new DiscreteCubeMethodThread(from, to, a, dist, globalValues, assignmentNodes, epsilon, renderIn2d);
+            threads[i] = new DiscreteCubeMethodThread(from, to, a, dist, globalValues, evaluater, epsilon, renderIn2d);
             threads[i].start();
         }
         
@@ -1,17 +1,23 @@
 package de.gaalop.visualizer.zerofinding;
 
-import de.gaalop.cfg.AssignmentNode;
 import de.gaalop.dfg.MultivectorComponent;
 import de.gaalop.visualizer.Point3d;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 /**
- * Implements a zero finder thread, which samples a cube
+ * Implements a zero finder thread, which samples a cube.
+ * The samples are evaluated row by row with a compiled evaluater.
  * @author christian
  */
 public class DiscreteCubeMethodThread extends Thread {
     
+    private static final MultivectorComponent V_X = new MultivectorComponent("_V_X", 0);
+    private static final MultivectorComponent V_Y = new MultivectorComponent("_V_Y", 0);
+    private static final MultivectorComponent V_Z = new MultivectorComponent("_V_Z", 0);
+    
     private double epsilon;
     
     private int fromX_Incl;
@@ -19,7 +25,7 @@ public class DiscreteCubeMethodThread extends Thread {
     
     private int a;
     private float dist;
-    private LinkedList<AssignmentNode> assignmentNodes;
+    private CompiledEvaluater evaluater;
     
     private HashMap<MultivectorComponent, Double> globalValues;
     
@@ -27,17 +33,31 @@ public class DiscreteCubeMethodThread extends Thread {
     
     public HashMap<String, LinkedList<Point3d>> points = new HashMap<String, LinkedList<Point3d>>();
 
-    public DiscreteCubeMethodThread(int fromX_Incl, int toX_Excl, int a, float dist, HashMap<MultivectorComponent, Double> globalValues, LinkedList<AssignmentNode> assignmentNodes, double epsilon, boolean renderIn2d) {
+    public DiscreteCubeMethodThread(int fromX_Incl, int toX_Excl, int a, float dist, HashMap<MultivectorComponent, Double> globalValues, CompiledEvaluater evaluater, double epsilon, boolean renderIn2d) {
         this.fromX_Incl = fromX_Incl;
         this.toX_Excl = toX_Excl;
         this.a = a;
         this.dist = dist;
         this.globalValues = globalValues;
-        this.assignmentNodes = assignmentNodes;
+        this.evaluater = evaluater;
         this.epsilon = epsilon;
         this.renderIn2d = renderIn2d;
     }
     
+    /**
+     * Returns the components of the global values and the sample coordinates,
+     * which are the inputs of the compiled evaluater
+     * @param globalValues The global values
+     * @return The input components
+     */
+    public static LinkedList<MultivectorComponent> getInputs(HashMap<MultivectorComponent, Double> globalValues) {
+        LinkedList<MultivectorComponent> inputs = new LinkedList<MultivectorComponent>(globalValues.keySet());
+        inputs.add(V_X);
+        inputs.add(V_Y);
+        inputs.add(V_Z);
+        return inputs;
+    }
+    
     @Override
     public void run() {
         if (renderIn2d)
@@ -46,92 +66,94 @@ public class DiscreteCubeMethodThread extends Thread {
             run3d();
     }
     
-    private void run2d() {
-        Point3d p = new Point3d(0, 0, 0);
+    /**
+     * Returns the sample coordinates of one row from -a to a
+     * @return The coordinates
+     */
+    private double[] getRow() {
+        LinkedList<Float> row = new LinkedList<Float>();
+        for (float c = -a; c <= a; c += dist) 
+            row.add(c);
         
-        HashMap<MultivectorComponent, Double> globalValuesL = new HashMap<MultivectorComponent, Double>(globalValues);
-        globalValuesL.put(new MultivectorComponent("_V_Z", 0), p.z);
+        double[] result = new double[row.size()];
+        int i = 0;
+        for (float c : row)
+            result[i++] = c;
+        return result;
+    }
+    
+    /**
+     * Creates a register file for rows of a given length, in which the global values are set
+     * @param count The number of samples per row
+     * @return The register file
+     */
+    private double[] createRegisters(int count) {
+        double[] registers = evaluater.createRegisters(count);
+        for (Map.Entry<MultivectorComponent, Double> entry : globalValues.entrySet()) 
+            evaluater.setValue(registers, count, entry.getKey(), entry.getValue());
+        return registers;
+    }
+    
+    private void run2d() {
+        double[] ys = getRow();
+        int count = ys.length;
+        double[] registers = createRegisters(count);
+        LinkedHashMap<String, int[]> products = evaluater.getOffsets("_V_PRODUCT", count);
         
         for (float x = fromX_Incl; x < toX_Excl; x += dist) {
-            for (float y = -a; y <= a; y += dist) {
-
-                    p.x = x;
-                    p.y = y;
-
-                    HashMap<MultivectorComponent, Double> values = new HashMap<MultivectorComponent, Double>(globalValuesL);
-                    values.put(new MultivectorComponent("_V_X", 0), p.x);
-                    values.put(new MultivectorComponent("_V_Y", 0), p.y);
-
-                    Evaluater evaluater = new Evaluater(values);
-                    evaluater.evaluate(assignmentNodes);
-
-                    HashMap<String, Double> squaredAndSummedValues = new HashMap<String, Double>();
-                    for (MultivectorComponent mvC : values.keySet()) {
-
-                        String name = mvC.getName();
-                        if (name.startsWith("_V_PRODUCT")) {
-                            if (!squaredAndSummedValues.containsKey(name)) {
-                                squaredAndSummedValues.put(name, new Double(0));
-                            }
-
-                            double value = values.get(mvC);
-                            squaredAndSummedValues.put(name, squaredAndSummedValues.get(name) + value * value);
-                        }
-                    }
-                    for (String key : squaredAndSummedValues.keySet()) {
-                        if (Math.sqrt(squaredAndSummedValues.get(key)) <= epsilon) {
-                            //output point!
-                            if (!points.containsKey(key)) {
-                                points.put(key, new LinkedList<Point3d>());
-                            }
-                            points.get(key).add(new Point3d(p));
-                        }
-                    }
-            }
+            evaluater.setValue(registers, count, V_X, x);
+            evaluater.setValues(registers, count, V_Y, ys);
+            evaluater.setValue(registers, count, V_Z, 0);
+            evaluater.evaluate(registers, count);
+            
+            for (int i = 0; i < count; i++) 
+                outputZeros(registers, count, products, i, x, ys[i], 0);
         }
     }
     
     private void run3d() {
-        Point3d p = new Point3d(0, 0, 0);
+        double[] zs = getRow();
+        int count = zs.length;
+        double[] registers = createRegisters(count);
+        LinkedHashMap<String, int[]> products = evaluater.getOffsets("_V_PRODUCT", count);
+        
         for (float x = fromX_Incl; x < toX_Excl; x += dist) {
             for (float y = -a; y <= a; y += dist) {
-                for (float z = -a; z <= a; z += dist) {
-
-                    p.x = x;
-                    p.y = y;
-                    p.z = z;
-
-                    HashMap<MultivectorComponent, Double> values = new HashMap<MultivectorComponent, Double>(globalValues);
-                    values.put(new MultivectorComponent("_V_X", 0), p.x);
-                    values.put(new MultivectorComponent("_V_Y", 0), p.y);
-                    values.put(new MultivectorComponent("_V_Z", 0), p.z);
-
-                    Evaluater evaluater = new Evaluater(values);
-                    evaluater.evaluate(assignmentNodes);
-
-                    HashMap<String, Double> squaredAndSummedValues = new HashMap<String, Double>();
-                    for (MultivectorComponent mvC : values.keySet()) {
-
-                        String name = mvC.getName();
-                        if (name.startsWith("_V_PRODUCT")) {
-                            if (!squaredAndSummedValues.containsKey(name)) {
-                                squaredAndSummedValues.put(name, new Double(0));
-                            }
-
-                            double value = values.get(mvC);
-                            squaredAndSummedValues.put(name, squaredAndSummedValues.get(name) + value * value);
-                        }
-                    }
-                    for (String key : squaredAndSummedValues.keySet()) {
-                        if (Math.sqrt(squaredAndSummedValues.get(key)) <= epsilon) {
-                            //output point!
-                            if (!points.containsKey(key)) {
-                                points.put(key, new LinkedList<Point3d>());
-                            }
-                            points.get(key).add(new Point3d(p));
-                        }
-                    }
+                evaluater.setValue(registers, count, V_X, x);
+                evaluater.setValue(registers, count, V_Y, y);
+                evaluater.setValues(registers, count, V_Z, zs);
+                evaluater.evaluate(registers, count);
+                
+                for (int i = 0; i < count; i++) 
+                    outputZeros(registers, count, products, i, x, y, zs[i]);
+            }
+        }
+    }
+    
+    /**
+     * Outputs the point of a sample for every product, whose norm is not greater than epsilon
+     * @param registers The evaluated register file
+     * @param count The number of samples per row
+     * @param products The register offsets of the product components
+     * @param i The index of the sample in the row
+     * @param x The x coordinate of the sample
+     * @param y The y coordinate of the sample
+     * @param z The z coordinate of the sample
+     */
+    private void outputZeros(double[] registers, int count, LinkedHashMap<String, int[]> products, int i, double x, double y, double z) {
+        for (Map.Entry<String, int[]> product : products.entrySet()) {
+            double squaredAndSummed = 0;
+            for (int offset : product.getValue()) {
+                double value = registers[offset + i];
+                squaredAndSummed += value * value;
+            }
+            if (Math.sqrt(squaredAndSummed) <= epsilon) {
+                //output point!
+                String key = product.getKey();
+                if (!points.containsKey(key)) {
+                    points.put(key, new LinkedList<Point3d>());
                 }
+                points.get(key).add(new Point3d(x, y, z));
             }
         }
     }
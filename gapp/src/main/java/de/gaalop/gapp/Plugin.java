@@ -17,6 +17,9 @@ public class Plugin extends Observable implements OptimizationStrategyPlugin {
     
     @ConfigurationProperty(type = Type.BOOLEAN)
     public boolean useScalarFunctions = true;
+
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean reuseBuffers = true;
     
 
     public boolean isUseScalarFunctions() {
@@ -28,6 +31,14 @@ public class Plugin extends Observable implements OptimizationStrategyPlugin {
         this.useScalarFunctions = useScalarFunctions;
     }
 
+    public boolean isReuseBuffers() {
+        return reuseBuffers;
+    }
+
+    public void setReuseBuffers(boolean reuseBuffers) {
+        this.reuseBuffers = reuseBuffers;
+    }
+
     @Override
     public OptimizationStrategy createOptimizationStrategy() {
         return new GAPPOptStrategy(this);
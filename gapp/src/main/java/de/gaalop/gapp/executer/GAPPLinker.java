@@ -0,0 +1,301 @@
+package de.gaalop.gapp.executer;
+
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.gapp.ConstantSetVectorArgument;
+import de.gaalop.gapp.PairSetOfVariablesAndIndices;
+import de.gaalop.gapp.PosSelectorset;
+import de.gaalop.gapp.Selector;
+import de.gaalop.gapp.Selectorset;
+import de.gaalop.gapp.SetVectorArgument;
+import de.gaalop.gapp.instructionSet.CalculationType;
+import de.gaalop.gapp.instructionSet.GAPPAssignInputsVector;
+import de.gaalop.gapp.instructionSet.GAPPAssignMv;
+import de.gaalop.gapp.instructionSet.GAPPCalculateMv;
+import de.gaalop.gapp.instructionSet.GAPPCalculateMvCoeff;
+import de.gaalop.gapp.instructionSet.GAPPDotVectors;
+import de.gaalop.gapp.instructionSet.GAPPResetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetVector;
+import de.gaalop.gapp.variables.GAPPConstant;
+import de.gaalop.gapp.variables.GAPPMultivector;
+import de.gaalop.gapp.variables.GAPPValueHolder;
+import de.gaalop.gapp.variables.GAPPVariable;
+import de.gaalop.gapp.variables.GAPPVector;
+import de.gaalop.gapp.visitor.CFGGAPPVisitor;
+import de.gaalop.gapp.visitor.EmptyCFGGAPPVisitor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GAPP Visitor which links a GAPP program to a LinkedProgram.
+ *
+ * Every multivector and vector gets a slot in one register file, which is large enough
+ * for all its definitions. The instructions are translated to opcodes with absolute register indices,
+ * so that no names have to be looked up during execution.
+ * The LinkedProgram computes the same values as the Executer.
+ */
+public class GAPPLinker extends CFGGAPPVisitor {
+
+    private static final String INPUTS_VECTOR = "inputsVector";
+
+    private LinkedHashMap<String, LinkedProgram.Slot> slots;
+    private ArrayList<Integer> code = new ArrayList<Integer>();
+    private ArrayList<Double> constants = new ArrayList<Double>();
+    private LinkedHashMap<String, Integer> inputIndices = new LinkedHashMap<String, Integer>();
+    /**
+     * Maps the names of the defined multivectors and vectors to their current sizes
+     */
+    private HashMap<String, Integer> currentSizes = new HashMap<String, Integer>();
+
+    private GAPPLinker(LinkedHashMap<String, LinkedProgram.Slot> slots) { //Make usage of static method mandatory
+        this.slots = slots;
+    }
+
+    /**
+     * Links the GAPP program of a control flow graph
+     * @param graph The graph, whose assignment nodes are decorated with GAPP instructions
+     * @return The linked program
+     */
+    public static LinkedProgram link(ControlFlowGraph graph) {
+        LinkedHashMap<String, LinkedProgram.Slot> slots = allocateSlots(graph);
+        int registerCount = 0;
+        for (LinkedProgram.Slot slot : slots.values()) {
+            registerCount = Math.max(registerCount, slot.offset + slot.size);
+        }
+
+        GAPPLinker linker = new GAPPLinker(slots);
+        graph.accept(linker);
+
+        int[] code = new int[linker.code.size()];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = linker.code.get(i);
+        }
+        double[] constants = new double[linker.constants.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = linker.constants.get(i);
+        }
+        String[] inputNames = linker.inputIndices.keySet().toArray(new String[0]);
+        return new LinkedProgram(code, constants, inputNames, registerCount, slots);
+    }
+
+    /**
+     * Determines the maximum size of all multivectors and vectors and assigns consecutive slots
+     * @param graph The graph
+     * @return Maps the names to their slots in the order of their first definition
+     */
+    private static LinkedHashMap<String, LinkedProgram.Slot> allocateSlots(ControlFlowGraph graph) {
+        final LinkedHashMap<String, Integer> sizes = new LinkedHashMap<String, Integer>();
+        final HashMap<String, Boolean> multivectors = new HashMap<String, Boolean>();
+        graph.accept(new EmptyCFGGAPPVisitor() {
+
+            private void define(String name, int size, boolean multivector) {
+                Integer oldSize = sizes.get(name);
+                sizes.put(name, (oldSize == null) ? size : Math.max(oldSize, size));
+                multivectors.put(name, multivector);
+            }
+
+            @Override
+            public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
+                define(gappResetMv.getDestination().getName(), gappResetMv.getSize(), true);
+                return null;
+            }
+
+            @Override
+            public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+                define(gappSetVector.getDestination().getName(), getSize(gappSetVector), false);
+                return null;
+            }
+
+            @Override
+            public Object visitAssignInputsVector(GAPPAssignInputsVector gappAssignInputsVector, Object arg) {
+                define(INPUTS_VECTOR, gappAssignInputsVector.getValues().size(), false);
+                return null;
+            }
+        });
+
+        LinkedHashMap<String, LinkedProgram.Slot> slots = new LinkedHashMap<String, LinkedProgram.Slot>();
+        int offset = 0;
+        for (Map.Entry<String, Integer> entry : sizes.entrySet()) {
+            slots.put(entry.getKey(), new LinkedProgram.Slot(offset, entry.getValue(), multivectors.get(entry.getKey())));
+            offset += entry.getValue();
+        }
+        return slots;
+    }
+
+    /**
+     * Returns the number of entries of a vector, which is set by a setVector instruction
+     * @param gappSetVector The setVector instruction
+     * @return The number of entries
+     */
+    private static int getSize(GAPPSetVector gappSetVector) {
+        int size = 0;
+        for (SetVectorArgument curArg : gappSetVector.getEntries()) {
+            if (curArg.isConstant()) {
+                size += 1;
+            } else {
+                size += ((PairSetOfVariablesAndIndices) curArg).getSelectors().size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the register index of an entry of a defined multivector or vector
+     * @param name The name of the multivector or vector
+     * @param index The index of the entry
+     * @return The register index
+     */
+    private int getRegister(String name, int index) {
+        Integer size = currentSizes.get(name);
+        if (size == null) {
+            throw new IllegalStateException("Multivector " + name + " does not exist!");
+        }
+        if (index < 0 || index >= size) {
+            throw new IllegalStateException("Index " + index + " is out of the bounds of " + name + " with size " + size + ".");
+        }
+        return slots.get(name).offset + index;
+    }
+
+    /**
+     * Appends the instruction, which loads a value of a scalar input variable or a constant
+     * @param destination The register index of the destination
+     * @param value The value holder
+     */
+    private void appendValue(int destination, GAPPValueHolder value) {
+        if (value.isVariable()) {
+            String name = ((GAPPVariable) value).getName();
+            Integer index = inputIndices.get(name);
+            if (index == null) {
+                index = inputIndices.size();
+                inputIndices.put(name, index);
+            }
+            append(LinkedProgram.INPUT, destination, index);
+        } else {
+            appendConstant(destination, ((GAPPConstant) value).getValue());
+        }
+    }
+
+    private void appendConstant(int destination, double value) {
+        append(LinkedProgram.CONSTANT, destination, constants.size());
+        constants.add(value);
+    }
+
+    private void append(int... values) {
+        for (int value : values) {
+            code.add(value);
+        }
+    }
+
+    private void appendCalculation(CalculationType type, int destination, GAPPMultivector operand1, GAPPMultivector operand2) {
+        if (type == CalculationType.INVERT) {
+            throw new UnsupportedOperationException("GAPPLinker: " + type + " is not supported yet.");
+        }
+        int op1 = getRegister(operand1.getName(), 0);
+        int op2 = (operand2 != null) ? getRegister(operand2.getName(), 0) : -1;
+        append(LinkedProgram.CALCULATE, type.ordinal(), destination, op1, op2);
+    }
+
+    @Override
+    public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
+        String name = gappResetMv.getDestination().getName();
+        currentSizes.put(name, gappResetMv.getSize());
+        append(LinkedProgram.ZERO, slots.get(name).offset, gappResetMv.getSize());
+        return null;
+    }
+
+    @Override
+    public Object visitSetMv(GAPPSetMv gappSetMv, Object arg) {
+        String destName = gappSetMv.getDestination().getName();
+        String srcName = gappSetMv.getSource().getName();
+
+        Selectorset selSrc = gappSetMv.getSelectorsSrc();
+        PosSelectorset selDest = gappSetMv.getSelectorsDest();
+
+        int selCount = selSrc.size();
+        append(LinkedProgram.MOVE, selCount);
+        for (int sel = 0; sel < selCount; sel++) {
+            Selector sSrc = selSrc.get(sel);
+            append(getRegister(destName, selDest.get(sel).getIndex()), getRegister(srcName, sSrc.getIndex()), sSrc.getSign());
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitDotVectors(GAPPDotVectors gappDotVectors, Object arg) {
+        Selector sDest = gappDotVectors.getDestSelector();
+        int destination = getRegister(gappDotVectors.getDestination().getName(), sDest.getIndex());
+
+        String first = gappDotVectors.getParts().getFirst().getName();
+        getRegister(first, 0);
+        int length = currentSizes.get(first);
+
+        append(LinkedProgram.DOT, destination, sDest.getSign(), length, gappDotVectors.getParts().size());
+        for (GAPPVector part : gappDotVectors.getParts()) {
+            if (length > 0) {
+                getRegister(part.getName(), length - 1);
+            }
+            append(slots.get(part.getName()).offset);
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+        String destName = gappSetVector.getDestination().getName();
+        currentSizes.put(destName, getSize(gappSetVector));
+
+        int i = 0;
+        for (SetVectorArgument curArg : gappSetVector.getEntries()) {
+            if (curArg.isConstant()) {
+                appendConstant(getRegister(destName, i), ((ConstantSetVectorArgument) curArg).getValue());
+                i++;
+            } else {
+                PairSetOfVariablesAndIndices p = (PairSetOfVariablesAndIndices) curArg;
+                String srcName = p.getSetOfVariable().getName();
+                append(LinkedProgram.MOVE, p.getSelectors().size());
+                for (Selector sel : p.getSelectors()) {
+                    append(getRegister(destName, i), getRegister(srcName, sel.getIndex()), sel.getSign());
+                    i++;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitAssignMv(GAPPAssignMv gappAssignMv, Object arg) {
+        String destName = gappAssignMv.getDestination().getName();
+        PosSelectorset selector = gappAssignMv.getSelectors();
+        int selCount = selector.size();
+        for (int sel = 0; sel < selCount; sel++) {
+            appendValue(getRegister(destName, selector.get(sel).getIndex()), gappAssignMv.getValues().get(sel));
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitCalculateMv(GAPPCalculateMv gappCalculate, Object arg) {
+        int destination = getRegister(gappCalculate.getDestination().getName(), 0);
+        appendCalculation(gappCalculate.getType(), destination, gappCalculate.getOperand1(), gappCalculate.getOperand2());
+        return null;
+    }
+
+    @Override
+    public Object visitCalculateMvCoeff(GAPPCalculateMvCoeff gappCalculateCoeff, Object arg) {
+        int destination = getRegister(gappCalculateCoeff.getDestination().getName(), gappCalculateCoeff.getDestination().getBladeIndex());
+        appendCalculation(gappCalculateCoeff.getType(), destination, gappCalculateCoeff.getOperand1(), gappCalculateCoeff.getOperand2());
+        return null;
+    }
+
+    @Override
+    public Object visitAssignInputsVector(GAPPAssignInputsVector gappAssignInputsVector, Object arg) {
+        int size = gappAssignInputsVector.getValues().size();
+        currentSizes.put(INPUTS_VECTOR, size);
+        for (int sel = 0; sel < size; sel++) {
+            appendValue(getRegister(INPUTS_VECTOR, sel), gappAssignInputsVector.getValues().get(sel));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,512 @@
+package de.gaalop.gapp.executer;
+
+import de.gaalop.gapp.instructionSet.CalculationType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A GAPP program, whose multivectors and vectors are resolved to slots in one register file.
+ * Created by the GAPPLinker.
+ *
+ * The instructions are stored as opcodes with absolute register indices in an int array:
+ * <ul>
+ * <li>ZERO offset size</li>
+ * <li>MOVE count (destination source sign)*count</li>
+ * <li>CONSTANT destination constantIndex</li>
+ * <li>INPUT destination inputIndex</li>
+ * <li>DOT destination sign length partCount partOffset*partCount</li>
+ * <li>CALCULATE type destination operand1 operand2 (operand2 is -1, if there is no second operand)</li>
+ * </ul>
+ * One program can be executed many times, each execution does not allocate memory.
+ * A register file must not be used by several threads at the same time.
+ *
+ * The batch execution calculates many input tuples at once. The inputs and registers are stored in
+ * structure-of-arrays layout then: the register r of the element i of a batch of count elements is stored at r*count+i,
+ * so that every instruction becomes a loop over the elements, which can be vectorized by the JIT compiler.
+ * Large batches can be split across the threads of a ForkJoinPool.
+ */
+public class LinkedProgram {
+
+    static final int ZERO = 0;
+    static final int MOVE = 1;
+    static final int CONSTANT = 2;
+    static final int INPUT = 3;
+    static final int DOT = 4;
+    static final int CALCULATE = 5;
+
+    private static final CalculationType[] TYPES = CalculationType.values();
+
+    /**
+     * The number of elements of a batch, which are calculated by one task of a ForkJoinPool
+     */
+    private static final int BATCH_CHUNK_SIZE = 4096;
+
+    /**
+     * Describes the position of a multivector or vector in the register file
+     */
+    static class Slot {
+
+        final int offset;
+        final int size;
+        final boolean multivector;
+
+        Slot(int offset, int size, boolean multivector) {
+            this.offset = offset;
+            this.size = size;
+            this.multivector = multivector;
+        }
+    }
+
+    private final int[] code;
+    private final double[] constants;
+    private final String[] inputNames;
+    private final int registerCount;
+    private final LinkedHashMap<String, Slot> slots;
+
+    LinkedProgram(int[] code, double[] constants, String[] inputNames, int registerCount, LinkedHashMap<String, Slot> slots) {
+        this.code = code;
+        this.constants = constants;
+        this.inputNames = inputNames;
+        this.registerCount = registerCount;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the names of the scalar input variables in the order of the inputs array
+     * @return The names
+     */
+    public String[] getInputNames() {
+        return inputNames.clone();
+    }
+
+    /**
+     * Returns the names of all multivectors and vectors in the register file
+     * @return The names
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(slots.keySet());
+    }
+
+    /**
+     * Returns the number of registers, a register file of this program must have
+     * @return The number of registers
+     */
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    /**
+     * Creates a new register file for this program
+     * @return The register file
+     */
+    public double[] createRegisters() {
+        return new double[registerCount];
+    }
+
+    /**
+     * Creates the inputs array from a map of input values
+     * @param inputValues Maps the names of the scalar input variables to their values
+     * @return The inputs array in the order of getInputNames()
+     */
+    public double[] createInputs(Map<String, Double> inputValues) {
+        double[] inputs = new double[inputNames.length];
+        for (int i = 0; i < inputNames.length; i++) {
+            Double value = inputValues.get(inputNames[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("The input variable " + inputNames[i] + " has no value.");
+            }
+            inputs[i] = value;
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns the register index of the first entry of a multivector or vector
+     * @param name The name of the multivector or vector
+     * @return The register index, -1 if the name does not exist
+     */
+    public int getOffset(String name) {
+        Slot slot = slots.get(name);
+        return (slot == null) ? -1 : slot.offset;
+    }
+
+    /**
+     * Returns a copy of the values of a multivector or vector at the end of the program
+     * @param registers The register file of an execution
+     * @param name The name of the multivector or vector
+     * @return The values, null if the name does not exist
+     */
+    public MultivectorWithValues getValue(double[] registers, String name) {
+        Slot slot = slots.get(name);
+        if (slot == null) {
+            return null;
+        }
+        MultivectorWithValues values = new MultivectorWithValues(slot.size, slot.multivector);
+        System.arraycopy(registers, slot.offset, values.getEntries(), 0, slot.size);
+        return values;
+    }
+
+    /**
+     * Returns copies of the values of all multivectors and vectors at the end of the program
+     * @param registers The register file of an execution
+     * @return Maps the names to their values
+     */
+    public HashMap<String, MultivectorWithValues> getValues(double[] registers) {
+        HashMap<String, MultivectorWithValues> values = new HashMap<String, MultivectorWithValues>();
+        for (String name : slots.keySet()) {
+            values.put(name, getValue(registers, name));
+        }
+        return values;
+    }
+
+    /**
+     * Executes the program
+     * @param inputs The values of the scalar input variables in the order of getInputNames()
+     * @param registers The register file, at least getRegisterCount() entries
+     */
+    public void execute(double[] inputs, double[] registers) {
+        if (inputs.length < inputNames.length || registers.length < registerCount) {
+            throw new IllegalArgumentException("The inputs or registers array is too small.");
+        }
+        final int[] code = this.code;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc]) {
+                case ZERO:
+                    Arrays.fill(registers, code[pc + 1], code[pc + 1] + code[pc + 2], 0);
+                    pc += 3;
+                    break;
+                case MOVE: {
+                    int end = pc + 2 + 3 * code[pc + 1];
+                    for (int i = pc + 2; i < end; i += 3) {
+                        registers[code[i]] = code[i + 2] * registers[code[i + 1]];
+                    }
+                    pc = end;
+                    break;
+                }
+                case CONSTANT:
+                    registers[code[pc + 1]] = constants[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case INPUT:
+                    registers[code[pc + 1]] = inputs[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case DOT: {
+                    int length = code[pc + 3];
+                    int partCount = code[pc + 4];
+                    double sum = 0;
+                    if (partCount == 2) {
+                        int part1 = code[pc + 5];
+                        int part2 = code[pc + 6];
+                        for (int slot = 0; slot < length; slot++) {
+                            sum += registers[part1 + slot] * registers[part2 + slot];
+                        }
+                    } else {
+                        for (int slot = 0; slot < length; slot++) {
+                            double prod = 1;
+                            for (int part = pc + 5; part < pc + 5 + partCount; part++) {
+                                prod *= registers[code[part] + slot];
+                            }
+                            sum += prod;
+                        }
+                    }
+                    registers[code[pc + 1]] = code[pc + 2] * sum;
+                    pc += 5 + partCount;
+                    break;
+                }
+                case CALCULATE: {
+                    double op2 = (code[pc + 4] < 0) ? 0 : registers[code[pc + 4]];
+                    registers[code[pc + 2]] = calculate(TYPES[code[pc + 1]], registers[code[pc + 3]], op2);
+                    pc += 5;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+
+    /**
+     * Creates a new register file for a batch
+     * @param count The number of elements of the batch
+     * @return The register file
+     */
+    public double[] createBatchRegisters(int count) {
+        return new double[getBatchSize(registerCount, count)];
+    }
+
+    /**
+     * Returns the size of an array in structure-of-arrays layout
+     * @param width The number of values per element
+     * @param count The number of elements
+     * @return The size
+     * @throws IllegalArgumentException if the count is negative or the size exceeds the maximum array size
+     */
+    private static int getBatchSize(int width, int count) {
+        long size = ((long) width) * count;
+        if (count < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A batch of " + count + " elements with " + width + " values each is not supported.");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Creates the inputs array of a batch from maps of input values
+     * @param inputValues Maps the names of the scalar input variables to their values, one map per element
+     * @return The inputs array in structure-of-arrays layout
+     */
+    public double[] createBatchInputs(List<? extends Map<String, Double>> inputValues) {
+        int count = inputValues.size();
+        double[] inputs = new double[getBatchSize(inputNames.length, count)];
+        for (int i = 0; i < count; i++) {
+            double[] element = createInputs(inputValues.get(i));
+            for (int k = 0; k < element.length; k++) {
+                inputs[k * count + i] = element[k];
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns a copy of the values of a multivector or vector of one element of a batch at the end of the program
+     * @param registers The register file of a batch execution
+     * @param count The number of elements of the batch
+     * @param element The index of the element
+     * @param name The name of the multivector or vector
+     * @return The values, null if the name does not exist
+     */
+    public MultivectorWithValues getBatchValue(double[] registers, int count, int element, String name) {
+        Slot slot = slots.get(name);
+        if (slot == null) {
+            return null;
+        }
+        MultivectorWithValues values = new MultivectorWithValues(slot.size, slot.multivector);
+        for (int entry = 0; entry < slot.size; entry++) {
+            values.setEntry(entry, registers[(slot.offset + entry) * count + element]);
+        }
+        return values;
+    }
+
+    /**
+     * Executes the program for a batch of input tuples in the calling thread
+     * @param inputs The values of the scalar input variables, the input k of the element i at k*count+i
+     * @param registers The register file, at least getRegisterCount()*count entries
+     * @param count The number of elements
+     */
+    public void executeBatch(double[] inputs, double[] registers, int count) {
+        checkBatch(inputs, registers, count);
+        executeRange(inputs, registers, count, 0, count);
+    }
+
+    /**
+     * Executes the program for a batch of input tuples,
+     * the elements are split into chunks, which are calculated by the threads of a pool
+     * @param inputs The values of the scalar input variables, the input k of the element i at k*count+i
+     * @param registers The register file, at least getRegisterCount()*count entries
+     * @param count The number of elements
+     * @param pool The pool
+     */
+    public void executeBatch(double[] inputs, double[] registers, int count, ForkJoinPool pool) {
+        checkBatch(inputs, registers, count);
+        pool.invoke(new BatchTask(inputs, registers, count, 0, count));
+    }
+
+    private void checkBatch(double[] inputs, double[] registers, int count) {
+        if (inputs.length < getBatchSize(inputNames.length, count) || registers.length < getBatchSize(registerCount, count)) {
+            throw new IllegalArgumentException("The inputs or registers array is too small for " + count + " elements.");
+        }
+    }
+
+    /**
+     * Calculates a range of the elements of a batch, the range is split, if it is larger than BATCH_CHUNK_SIZE
+     */
+    private class BatchTask extends RecursiveAction {
+
+        private final double[] inputs;
+        private final double[] registers;
+        private final int count;
+        private final int from;
+        private final int to;
+
+        BatchTask(double[] inputs, double[] registers, int count, int from, int to) {
+            this.inputs = inputs;
+            this.registers = registers;
+            this.count = count;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_CHUNK_SIZE) {
+                executeRange(inputs, registers, count, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BatchTask(inputs, registers, count, from, middle),
+                        new BatchTask(inputs, registers, count, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Executes the program for the elements from (inclusive) to to (exclusive) of a batch
+     * @param inputs The inputs in structure-of-arrays layout
+     * @param registers The registers in structure-of-arrays layout
+     * @param n The number of elements of the batch
+     * @param from The first element
+     * @param to The element after the last element
+     */
+    private void executeRange(double[] inputs, double[] registers, int n, int from, int to) {
+        final int[] code = this.code;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc]) {
+                case ZERO:
+                    for (int r = code[pc + 1]; r < code[pc + 1] + code[pc + 2]; r++) {
+                        Arrays.fill(registers, r * n + from, r * n + to, 0);
+                    }
+                    pc += 3;
+                    break;
+                case MOVE: {
+                    int end = pc + 2 + 3 * code[pc + 1];
+                    for (int i = pc + 2; i < end; i += 3) {
+                        int destination = code[i] * n;
+                        int source = code[i + 1] * n;
+                        int sign = code[i + 2];
+                        for (int e = from; e < to; e++) {
+                            registers[destination + e] = sign * registers[source + e];
+                        }
+                    }
+                    pc = end;
+                    break;
+                }
+                case CONSTANT:
+                    Arrays.fill(registers, code[pc + 1] * n + from, code[pc + 1] * n + to, constants[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case INPUT:
+                    System.arraycopy(inputs, code[pc + 2] * n + from, registers, code[pc + 1] * n + from, to - from);
+                    pc += 3;
+                    break;
+                case DOT:
+                    executeDot(registers, n, from, to, pc);
+                    pc += 5 + code[pc + 4];
+                    break;
+                case CALCULATE: {
+                    CalculationType type = TYPES[code[pc + 1]];
+                    int destination = code[pc + 2] * n;
+                    int op1 = code[pc + 3] * n;
+                    int op2 = (code[pc + 4] < 0) ? -1 : code[pc + 4] * n;
+                    for (int e = from; e < to; e++) {
+                        registers[destination + e] = calculate(type, registers[op1 + e], (op2 < 0) ? 0 : registers[op2 + e]);
+                    }
+                    pc += 5;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+
+    /**
+     * Executes a DOT instruction for a range of the elements of a batch.
+     * The products are summed in the same order as in execute(), so that the results are equal.
+     */
+    private void executeDot(double[] registers, int n, int from, int to, int pc) {
+        final int[] code = this.code;
+        int destination = code[pc + 1];
+        int sign = code[pc + 2];
+        int length = code[pc + 3];
+        int partCount = code[pc + 4];
+
+        boolean aliased = false;
+        for (int part = pc + 5; part < pc + 5 + partCount; part++) {
+            aliased |= destination >= code[part] && destination < code[part] + length;
+        }
+
+        if (partCount == 2 && !aliased) {
+            // sum the products slot by slot in the destination column, the inner loops are vectorizable
+            int d = destination * n;
+            Arrays.fill(registers, d + from, d + to, 0);
+            for (int slot = 0; slot < length; slot++) {
+                int part1 = (code[pc + 5] + slot) * n;
+                int part2 = (code[pc + 6] + slot) * n;
+                for (int e = from; e < to; e++) {
+                    registers[d + e] += registers[part1 + e] * registers[part2 + e];
+                }
+            }
+            for (int e = from; e < to; e++) {
+                registers[d + e] = sign * registers[d + e];
+            }
+        } else {
+            for (int e = from; e < to; e++) {
+                double sum = 0;
+                for (int slot = 0; slot < length; slot++) {
+                    double prod = 1;
+                    for (int part = pc + 5; part < pc + 5 + partCount; part++) {
+                        prod *= registers[(code[part] + slot) * n + e];
+                    }
+                    sum += prod;
+                }
+                registers[destination * n + e] = sign * sum;
+            }
+        }
+    }
+
+    /**
+     * Performs a calculation of a calculateMv or calculateMvCoeff instruction
+     * @param type The type of the calculation
+     * @param op1 The first operand
+     * @param op2 The second operand, 0 if there is none
+     * @return The result
+     */
+    static double calculate(CalculationType type, double op1, double op2) {
+        switch (type) {
+            case ABS:
+                return Math.abs(op1);
+            case ACOS:
+                return Math.acos(op1);
+            case ASIN:
+                return Math.asin(op1);
+            case ATAN:
+                return Math.atan(op1);
+            case CEIL:
+                return Math.ceil(op1);
+            case COS:
+                return Math.cos(op1);
+            case DIVISION:
+                return op1 / op2;
+            case EXP:
+                return Math.exp(op1);
+            case EXPONENTIATION:
+                return Math.pow(op1, op2);
+            case FACT:
+                double result = 1;
+                for (int i = 2; i <= (int) op1; i++) {
+                    result *= i;
+                }
+                return result;
+            case FLOOR:
+                return Math.floor(op1);
+            case LOG:
+                return Math.log(op1);
+            case SIN:
+                return Math.sin(op1);
+            case SQRT:
+                return Math.sqrt(op1);
+            case TAN:
+                return Math.tan(op1);
+            default:
+                throw new UnsupportedOperationException("LinkedProgram: " + type + " is not supported yet.");
+        }
+    }
+}
@@ -12,6 +12,7 @@ import de.gaalop.dfg.MultivectorComponent;
 import de.gaalop.dfg.Variable;
 import de.gaalop.gapp.GAPP;
 import de.gaalop.gapp.Variableset;
+import de.gaalop.gapp.importing.optimization.GAPPBufferAllocator;
 import de.gaalop.gapp.importing.optimization.GAPPFurtherOptimizationsFacade;
 import de.gaalop.gapp.instructionSet.GAPPAssignInputsVector;
 import de.gaalop.gapp.variables.GAPPScalarVariable;
@@ -85,6 +86,11 @@ public class GAPPDecoratingMain {
         GAPPFurtherOptimizationsFacade furtherOpt = new GAPPFurtherOptimizationsFacade();
         furtherOpt.doFurtherGAPPOptimizations(graph);
 
+        // let temporaries with disjoint live ranges share their buffers
+        if (this.plugin.isReuseBuffers()) {
+            GAPPBufferAllocator.allocate(graph, variables);
+        }
+
         //System.out.println("Memory usage of "+graph.getSource().getName());
         //MemoryUsage.printMemoryUsage(graph);
 
@@ -0,0 +1,340 @@
+package de.gaalop.gapp.importing.optimization;
+
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.gapp.PairSetOfVariablesAndIndices;
+import de.gaalop.gapp.SetVectorArgument;
+import de.gaalop.gapp.instructionSet.GAPPAssignInputsVector;
+import de.gaalop.gapp.instructionSet.GAPPAssignMv;
+import de.gaalop.gapp.instructionSet.GAPPCalculateMv;
+import de.gaalop.gapp.instructionSet.GAPPCalculateMvCoeff;
+import de.gaalop.gapp.instructionSet.GAPPDotVectors;
+import de.gaalop.gapp.instructionSet.GAPPResetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetVector;
+import de.gaalop.gapp.statistics.Interval;
+import de.gaalop.gapp.variables.GAPPVariable;
+import de.gaalop.gapp.variables.GAPPVector;
+import de.gaalop.gapp.visitor.CFGGAPPVisitor;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * GAPP Visitor which assigns temporary multivectors and vectors with disjoint live ranges to shared buffers.
+ *
+ * The live range of a temporary is the interval of instructions from its definition (resetMv or setVector)
+ * up to its last access. Only temporaries, which are not variables of the graph
+ * and which are accessed in the GAPP instructions of one assignment node only, are considered,
+ * so that the instruction order is the execution order even in loops and branches.
+ * The intervals are colored greedily in the order of their start,
+ * which needs the minimal number of buffers per kind and size.
+ * The temporaries are renamed to the name of their buffer, so that all code generators honor the mapping.
+ */
+public class GAPPBufferAllocator extends CFGGAPPVisitor {
+
+    private static final String INPUTS_VECTOR = "inputsVector";
+
+    /**
+     * Represents a temporary multivector or vector with its live range
+     */
+    private static class Temporary {
+
+        private String name;
+        private boolean multivector;
+        private int size;
+        private Interval interval;
+        private AssignmentNode node;
+        private String buffer;
+
+        public Temporary(String name, boolean multivector, int size, int line, AssignmentNode node) {
+            this.name = name;
+            this.multivector = multivector;
+            this.size = size;
+            this.interval = new Interval(line);
+            this.node = node;
+        }
+
+        /**
+         * Returns the key of the buffers, which fit to this temporary
+         * @return The key
+         */
+        public String getBufferClass() {
+            return (multivector ? "mv" : "vector") + size;
+        }
+    }
+
+    private Set<String> variables;
+    private LinkedHashMap<String, Temporary> temporaries = new LinkedHashMap<String, Temporary>();
+    private HashSet<String> excluded = new HashSet<String>();
+    private AssignmentNode curNode;
+    private int curLine = 0;
+
+    private GAPPBufferAllocator(Set<String> variables) { //Make usage of static method mandatory
+        this.variables = variables;
+    }
+
+    /**
+     * Assigns the temporaries of a graph to shared buffers and renames them accordingly
+     * @param graph The graph, whose assignment nodes are decorated with GAPP instructions
+     * @param variables The names of all variables in the graph, which must not be renamed
+     * @return Maps the names of the renamed temporaries to the names of their buffers
+     */
+    public static HashMap<String, String> allocate(ControlFlowGraph graph, Set<String> variables) {
+        GAPPBufferAllocator allocator = new GAPPBufferAllocator(variables);
+        graph.accept(allocator);
+
+        final HashMap<String, String> mapping = allocator.colorIntervals();
+        if (!mapping.isEmpty()) {
+            graph.accept(new CFGGAPPVisitor() {
+
+                private void rename(GAPPVariable variable) {
+                    String buffer = mapping.get(variable.getName());
+                    if (buffer != null) {
+                        variable.setName(buffer);
+                    }
+                }
+
+                @Override
+                public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
+                    rename(gappResetMv.getDestination());
+                    return null;
+                }
+
+                @Override
+                public Object visitSetMv(GAPPSetMv gappSetMv, Object arg) {
+                    rename(gappSetMv.getDestination());
+                    rename(gappSetMv.getSource());
+                    return null;
+                }
+
+                @Override
+                public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+                    rename(gappSetVector.getDestination());
+                    for (SetVectorArgument curArg : gappSetVector.getEntries()) {
+                        if (!curArg.isConstant()) {
+                            rename(((PairSetOfVariablesAndIndices) curArg).getSetOfVariable());
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public Object visitDotVectors(GAPPDotVectors gappDotVectors, Object arg) {
+                    rename(gappDotVectors.getDestination());
+                    for (GAPPVector part : gappDotVectors.getParts()) {
+                        rename(part);
+                    }
+                    return null;
+                }
+
+                @Override
+                public Object visitAssignMv(GAPPAssignMv gappAssignMv, Object arg) {
+                    rename(gappAssignMv.getDestination());
+                    return null;
+                }
+
+                @Override
+                public Object visitCalculateMv(GAPPCalculateMv gappCalculateMv, Object arg) {
+                    rename(gappCalculateMv.getDestination());
+                    rename(gappCalculateMv.getOperand1());
+                    if (gappCalculateMv.getOperand2() != null) {
+                        rename(gappCalculateMv.getOperand2());
+                    }
+                    return null;
+                }
+
+                @Override
+                public Object visitCalculateMvCoeff(GAPPCalculateMvCoeff gappCalculateMvCoeff, Object arg) {
+                    rename(gappCalculateMvCoeff.getDestination());
+                    rename(gappCalculateMvCoeff.getOperand1());
+                    if (gappCalculateMvCoeff.getOperand2() != null) {
+                        rename(gappCalculateMvCoeff.getOperand2());
+                    }
+                    return null;
+                }
+
+                @Override
+                public Object visitAssignInputsVector(GAPPAssignInputsVector gappAssignInputsVector, Object arg) {
+                    return null;
+                }
+            });
+        }
+        return mapping;
+    }
+
+    /**
+     * Colors the live ranges of the temporaries with buffers
+     * @return Maps the names of the temporaries, which share the buffer of another temporary, to the name of the buffer
+     */
+    private HashMap<String, String> colorIntervals() {
+        HashMap<String, String> mapping = new HashMap<String, String>();
+        HashMap<String, LinkedList<String>> freeBuffers = new HashMap<String, LinkedList<String>>();
+        PriorityQueue<Temporary> active = new PriorityQueue<Temporary>(11, new Comparator<Temporary>() {
+            @Override
+            public int compare(Temporary o1, Temporary o2) {
+                return Integer.compare(o1.interval.getTo(), o2.interval.getTo());
+            }
+        });
+
+        // temporaries are inserted in the order of their definition
+        for (Temporary temporary : temporaries.values()) {
+            if (excluded.contains(temporary.name)) {
+                continue;
+            }
+
+            int from = temporary.interval.getFrom();
+            while (!active.isEmpty() && active.peek().interval.getTo() < from) {
+                Temporary ended = active.poll();
+                String key = ended.getBufferClass();
+                if (!freeBuffers.containsKey(key)) {
+                    freeBuffers.put(key, new LinkedList<String>());
+                }
+                freeBuffers.get(key).add(ended.buffer);
+            }
+
+            LinkedList<String> free = freeBuffers.get(temporary.getBufferClass());
+            if (free != null && !free.isEmpty()) {
+                temporary.buffer = free.removeFirst();
+                mapping.put(temporary.name, temporary.buffer);
+            } else {
+                temporary.buffer = temporary.name;
+            }
+            active.add(temporary);
+        }
+        return mapping;
+    }
+
+    /**
+     * Determines, if a name can denote a temporary
+     * @param name The name
+     * @return <value>true</value> if the name is no variable of the graph, otherwise <value>false</value>
+     */
+    private boolean isCandidate(String name) {
+        return !variables.contains(name) && !name.equals(INPUTS_VECTOR) && !excluded.contains(name);
+    }
+
+    /**
+     * This method is called, if a multivector or vector is defined
+     * @param name The name of the multivector or vector
+     * @param multivector Is it a multivector?
+     * @param size The size of the definition
+     */
+    private void define(String name, boolean multivector, int size) {
+        if (!isCandidate(name)) {
+            return;
+        }
+        Temporary temporary = temporaries.get(name);
+        if (temporary == null) {
+            temporaries.put(name, new Temporary(name, multivector, size, curLine, curNode));
+        } else if (temporary.node != curNode || temporary.multivector != multivector || temporary.size != size) {
+            excluded.add(name);
+        } else {
+            temporary.interval.setTo(curLine);
+        }
+    }
+
+    /**
+     * This method is called, if a multivector or vector is accessed
+     * @param name The name of the multivector or vector
+     */
+    private void access(String name) {
+        if (!isCandidate(name)) {
+            return;
+        }
+        Temporary temporary = temporaries.get(name);
+        if (temporary == null || temporary.node != curNode) {
+            // accessed before its definition or in another assignment node
+            excluded.add(name);
+        } else {
+            temporary.interval.setTo(curLine);
+        }
+    }
+
+    @Override
+    public void visit(AssignmentNode node) {
+        curNode = node;
+        super.visit(node);
+    }
+
+    @Override
+    public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
+        curLine++;
+        define(gappResetMv.getDestination().getName(), true, gappResetMv.getSize());
+        return null;
+    }
+
+    @Override
+    public Object visitSetMv(GAPPSetMv gappSetMv, Object arg) {
+        curLine++;
+        access(gappSetMv.getSource().getName());
+        access(gappSetMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+        curLine++;
+        int size = 0;
+        for (SetVectorArgument curArg : gappSetVector.getEntries()) {
+            if (curArg.isConstant()) {
+                size++;
+            } else {
+                PairSetOfVariablesAndIndices pair = (PairSetOfVariablesAndIndices) curArg;
+                access(pair.getSetOfVariable().getName());
+                size += pair.getSelectors().size();
+            }
+        }
+        define(gappSetVector.getDestination().getName(), false, size);
+        return null;
+    }
+
+    @Override
+    public Object visitDotVectors(GAPPDotVectors gappDotVectors, Object arg) {
+        curLine++;
+        for (GAPPVector part : gappDotVectors.getParts()) {
+            access(part.getName());
+        }
+        access(gappDotVectors.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitAssignMv(GAPPAssignMv gappAssignMv, Object arg) {
+        curLine++;
+        access(gappAssignMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitCalculateMv(GAPPCalculateMv gappCalculateMv, Object arg) {
+        curLine++;
+        access(gappCalculateMv.getOperand1().getName());
+        if (gappCalculateMv.getOperand2() != null) {
+            access(gappCalculateMv.getOperand2().getName());
+        }
+        access(gappCalculateMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitCalculateMvCoeff(GAPPCalculateMvCoeff gappCalculateMvCoeff, Object arg) {
+        curLine++;
+        access(gappCalculateMvCoeff.getOperand1().getName());
+        if (gappCalculateMvCoeff.getOperand2() != null) {
+            access(gappCalculateMvCoeff.getOperand2().getName());
+        }
+        access(gappCalculateMvCoeff.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitAssignInputsVector(GAPPAssignInputsVector gappAssignInputsVector, Object arg) {
+        curLine++;
+        return null;
+    }
+}
@@ -22,5 +22,9 @@ public class GAPPFurtherOptimizationsFacade {
         graph.accept(merger);
         GAPPSetMvRemover remover = new GAPPSetMvRemover(merger.getToRemove());
         graph.accept(remover);
+
+        //Reuse vectors, which are already assembled, in further dot products
+        GAPPSetVectorReuser reuser = new GAPPSetVectorReuser();
+        graph.accept(reuser);
     }
 }
@@ -0,0 +1,196 @@
+package de.gaalop.gapp.importing.optimization;
+
+import de.gaalop.cfg.BreakNode;
+import de.gaalop.cfg.IfThenElseNode;
+import de.gaalop.cfg.LoopNode;
+import de.gaalop.gapp.ConstantSetVectorArgument;
+import de.gaalop.gapp.PairSetOfVariablesAndIndices;
+import de.gaalop.gapp.Selector;
+import de.gaalop.gapp.SetVectorArgument;
+import de.gaalop.gapp.instructionSet.GAPPAssignInputsVector;
+import de.gaalop.gapp.instructionSet.GAPPAssignMv;
+import de.gaalop.gapp.instructionSet.GAPPCalculateMv;
+import de.gaalop.gapp.instructionSet.GAPPCalculateMvCoeff;
+import de.gaalop.gapp.instructionSet.GAPPDotVectors;
+import de.gaalop.gapp.instructionSet.GAPPResetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetVector;
+import de.gaalop.gapp.variables.GAPPVariable;
+import de.gaalop.gapp.variables.GAPPVector;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Optimizes the GAPP Code by
+ * removing setVector instructions, which gather the same entries as an earlier setVector instruction.
+ *
+ * The dot products, which use the removed vector, use the already assembled vector instead.
+ * An assembled vector is available until one of its sources is written or control flow is reached,
+ * so that only vectors of the same basic block are reused.
+ */
+public class GAPPSetVectorReuser extends GAPPRemover {
+    //return Boolean: true, if command should be removed, otherwise false or null
+
+    /**
+     * Maps the entries of the available vectors to their names
+     */
+    private LinkedHashMap<String, String> available = new LinkedHashMap<String, String>();
+    /**
+     * Maps the names of the available vectors to the names of their sources
+     */
+    private HashMap<String, HashSet<String>> sources = new HashMap<String, HashSet<String>>();
+    /**
+     * Maps the names of the removed vectors to the names of the reused vectors
+     */
+    private HashMap<String, String> reused = new HashMap<String, String>();
+
+    /**
+     * Returns the number of removed setVector instructions
+     * @return The number
+     */
+    public int getRemovedCount() {
+        return reused.size();
+    }
+
+    /**
+     * Renames a variable, if it denotes a removed vector
+     * @param variable The variable
+     */
+    private void rename(GAPPVariable variable) {
+        String name = reused.get(variable.getName());
+        if (name != null) {
+            variable.setName(name);
+        }
+    }
+
+    /**
+     * This method is called, if a multivector or vector is written.
+     * All vectors, which are gathered from it, are not available anymore.
+     * @param name The name of the multivector or vector
+     */
+    private void write(String name) {
+        Iterator<Map.Entry<String, String>> it = available.entrySet().iterator();
+        while (it.hasNext()) {
+            String vector = it.next().getValue();
+            if (vector.equals(name) || sources.get(vector).contains(name)) {
+                it.remove();
+                sources.remove(vector);
+            }
+        }
+    }
+
+    /**
+     * Forgets all available vectors
+     */
+    private void clear() {
+        available.clear();
+        sources.clear();
+    }
+
+    @Override
+    public void visit(IfThenElseNode node) {
+        clear();
+        node.getPositive().accept(this);
+        clear();
+        node.getNegative().accept(this);
+        clear();
+        node.getSuccessor().accept(this);
+    }
+
+    @Override
+    public void visit(LoopNode node) {
+        clear();
+        node.getBody().accept(this);
+        clear();
+        node.getSuccessor().accept(this);
+    }
+
+    @Override
+    public void visit(BreakNode node) {
+        clear();
+        super.visit(node);
+    }
+
+    @Override
+    public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+        StringBuilder key = new StringBuilder();
+        HashSet<String> vectorSources = new HashSet<String>();
+        for (SetVectorArgument curArg : gappSetVector.getEntries()) {
+            if (curArg.isConstant()) {
+                key.append(((ConstantSetVectorArgument) curArg).getValue());
+            } else {
+                PairSetOfVariablesAndIndices pair = (PairSetOfVariablesAndIndices) curArg;
+                rename(pair.getSetOfVariable());
+                String source = pair.getSetOfVariable().getName();
+                vectorSources.add(source);
+                key.append(source).append('[');
+                for (Selector sel : pair.getSelectors()) {
+                    key.append(sel.getSign() < 0 ? "-" : "").append(sel.getIndex()).append(',');
+                }
+                key.append(']');
+            }
+            key.append(';');
+        }
+
+        String destination = gappSetVector.getDestination().getName();
+        String vector = available.get(key.toString());
+        if (vector != null) {
+            reused.put(destination, vector);
+            return true;
+        }
+
+        write(destination);
+        available.put(key.toString(), destination);
+        sources.put(destination, vectorSources);
+        return null;
+    }
+
+    @Override
+    public Object visitDotVectors(GAPPDotVectors gappDotVectors, Object arg) {
+        for (GAPPVector part : gappDotVectors.getParts()) {
+            rename(part);
+        }
+        write(gappDotVectors.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitSetMv(GAPPSetMv gappSetMv, Object arg) {
+        rename(gappSetMv.getSource());
+        write(gappSetMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
+        write(gappResetMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitAssignMv(GAPPAssignMv gappAssignMv, Object arg) {
+        write(gappAssignMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitCalculateMv(GAPPCalculateMv gappCalculateMv, Object arg) {
+        write(gappCalculateMv.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitCalculateMvCoeff(GAPPCalculateMvCoeff gappCalculateMvCoeff, Object arg) {
+        write(gappCalculateMvCoeff.getDestination().getName());
+        return null;
+    }
+
+    @Override
+    public Object visitAssignInputsVector(GAPPAssignInputsVector gappAssignInputsVector, Object arg) {
+        write("inputsVector");
+        return null;
+    }
+}
@@ -20,6 +20,25 @@ public class Plugin extends Observable implements GlobalSettingsStrategyPlugin {
      */
     @ConfigurationProperty(type=Type.BOOLEAN)
     public boolean optMaxima = false;
+
+    /*
+     * The number of Maxima processes, which are kept running between the compilations.
+     * 0 starts a new Maxima process for every optimization.
+     */
+    @ConfigurationProperty(type=Type.NUMBER)
+    public int maximaSessions = 0;
+
+    /*
+     * The directory of the persistent cache of Maxima results, the cache is disabled if empty.
+     */
+    @ConfigurationProperty(type=Type.TEXT)
+    public String maximaCacheDirectory = "";
+
+    /*
+     * The maximum size of the Maxima cache in megabytes.
+     */
+    @ConfigurationProperty(type=Type.NUMBER)
+    public int maximaCacheSize = 64;
     
     @ConfigurationProperty(type=Type.NUMBER)
     public int editorFontSize = 12;
@@ -27,6 +46,12 @@ public class Plugin extends Observable implements GlobalSettingsStrategyPlugin {
     @ConfigurationProperty(type=Type.NUMBER)
     public int guiFontSize = 12;
 
+    /*
+     * Shows the wall time, allocated bytes and graph sizes of the compilation phases as additional result.
+     */
+    @ConfigurationProperty(type=Type.BOOLEAN)
+    public boolean profileCompilation = false;
+
     @Override
     public GlobalSettingsStrategy createGlobalSettingsStrategy() {
         return new MyGlobalSettingsStrategy(this);
@@ -68,6 +93,30 @@ public class Plugin extends Observable implements GlobalSettingsStrategyPlugin {
         this.optMaxima = optMaxima;
     }
 
+    public int getMaximaSessions() {
+        return maximaSessions;
+    }
+
+    public void setMaximaSessions(int maximaSessions) {
+        this.maximaSessions = maximaSessions;
+    }
+
+    public String getMaximaCacheDirectory() {
+        return maximaCacheDirectory;
+    }
+
+    public void setMaximaCacheDirectory(String maximaCacheDirectory) {
+        this.maximaCacheDirectory = maximaCacheDirectory;
+    }
+
+    public int getMaximaCacheSize() {
+        return maximaCacheSize;
+    }
+
+    public void setMaximaCacheSize(int maximaCacheSize) {
+        this.maximaCacheSize = maximaCacheSize;
+    }
+
     public int getEditorFontSize() {
         return editorFontSize;
     }
@@ -83,6 +132,14 @@ public class Plugin extends Observable implements GlobalSettingsStrategyPlugin {
     public void setGuiFontSize(int guiFontSize) {
         this.guiFontSize = guiFontSize;
     }
+
+    public boolean isProfileCompilation() {
+        return profileCompilation;
+    }
+
+    public void setProfileCompilation(boolean profileCompilation) {
+        this.profileCompilation = profileCompilation;
+    }
     
     
     
@@ -13,6 +13,8 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -124,6 +126,10 @@ public class CompileAction extends AbstractAction {
                 algebraToUse.algebraName,algebraToUse.ressource,algebraBaseDirectory
                 );
         facade.addObserver(statusBar);
+
+        if (globalSettingsPlugin instanceof de.gaalop.globalSettings.Plugin
+                && ((de.gaalop.globalSettings.Plugin) globalSettingsPlugin).isProfileCompilation())
+            facade.setProfiler(new CompileProfiler());
         
 
         // start new thread in order to see status changes in main thread (GUI)
@@ -133,6 +139,10 @@ public class CompileAction extends AbstractAction {
 				try {
 					Set<OutputFile> output;
 					output = facade.compile(sourcePanel.getInputFile());
+                                        if (facade.getProfiler() != null) {
+                                            output = new LinkedHashSet<OutputFile>(output);
+                                            output.add(new OutputFile("profile.json", facade.getProfiler().toJson(), Charset.forName("UTF-8")));
+                                        }
                                         if (!output.isEmpty())
                                             displayOutput(output);
 				} catch (CompilationException ex) {
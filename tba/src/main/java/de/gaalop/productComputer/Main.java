@@ -11,13 +11,15 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
- * Creates the multiplication table
+ * Creates the multiplication table.
+ * The format of the created files can be given as first argument, see TableFormat.getFormat
  * @author Christian Steinmetz
  */
 public class Main {
 
     public static void main(String[] args) throws IOException {
         int[] dimensions = {8};
+        int format = (args.length > 0) ? TableFormat.getFormat(args[0]) : TableFormat.TABLE_COMPRESSED_MAX;
         for (int dimension: dimensions) {
             ProductComputer productComputer = new ProductComputer();
             InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/"+dimension+"d/definition.csv");
@@ -48,7 +50,7 @@ public class Main {
                     geo.setProduct(i, j, geoLive.getProduct(i, j));
                 }
             
-            TableFormat.writeToFile(bladeCount,algebraPC.base.length,inner,outer,geo,new FileOutputStream("products"+dimension+".csv"),TableFormat.TABLE_COMPRESSED_MAX);
+            TableFormat.writeToFile(bladeCount,algebraPC.base.length,inner,outer,geo,new FileOutputStream("products"+dimension+".csv"),format);
         }
 
     }
@@ -0,0 +1,421 @@
+package de.gaalop.productComputer;
+
+import de.gaalop.tba.BladeRef;
+import de.gaalop.tba.Multivector;
+import de.gaalop.tba.Products;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Computes the product of two blades like ProductComputer,
+ * but works directly on primitive blade masks.
+ *
+ * A blade is represented by a long, in which bit i is set, if the i-th base vector is contained.
+ * Reordering signs are computed with popcount, sums of blades are accumulated
+ * in dense coefficient buffers, which are indexed by the blade mask.
+ * Hence the dimension of the algebra is limited by the size of these buffers (2^dimension entries).
+ *
+ * Instances are thread-safe after initialization, every thread uses its own buffers.
+ */
+public class MaskProductComputer {
+
+    private static final float EPSILON = 10E-4f;
+
+    private int bitCount;
+    private byte[] squareMask;
+
+    // base transformation maps: images of every base vector, null if the base vector is mapped to itself
+    private long[][] mapZIToPMMasks;
+    private float[][] mapZIToPMCoefficients;
+    private long[][] mapPMToZIMasks;
+    private float[][] mapPMToZICoefficients;
+
+    // blades in the plusminus base
+    private long[][] bladeMasksPM;
+    private float[][] bladeCoefficientsPM;
+
+    private int[] maskToIndex;
+
+    /**
+     * Stores a sum of blades in a dense coefficient buffer, indexed by the blade mask.
+     * The touched masks are remembered, so that the buffer can be cleared cheaply.
+     */
+    private static class Sums {
+        float[] coefficients;
+        boolean[] marked;
+        int[] touched;
+        int touchedCount;
+
+        Sums(int size) {
+            coefficients = new float[size];
+            marked = new boolean[size];
+            touched = new int[size];
+        }
+
+        void add(int mask, float coefficient) {
+            if (!marked[mask]) {
+                marked[mask] = true;
+                touched[touchedCount++] = mask;
+            }
+            coefficients[mask] += coefficient;
+        }
+
+        /**
+         * Returns the coefficient of a touched mask and clears it
+         * @param mask The mask
+         * @return The coefficient
+         */
+        float take(int mask) {
+            float coefficient = coefficients[mask];
+            coefficients[mask] = 0;
+            marked[mask] = false;
+            return coefficient;
+        }
+    }
+
+    /**
+     * Stores the buffers of one thread
+     */
+    private static class Buffers {
+        Sums sumsPM;
+        Sums sumsZI;
+
+        Buffers(int size) {
+            sumsPM = new Sums(size);
+            sumsZI = new Sums(size);
+        }
+    }
+
+    private ThreadLocal<Buffers> buffers;
+
+    // ============================ INITIALIZATION ============================
+
+    /**
+     * Returns the index of an element in an array
+     * @param element The element to search
+     * @param arr The array to search in
+     * @return The index of the element
+     */
+    private static int getIndex(String element, String[] arr) {
+        for (int i = 0;i<arr.length;i++)
+            if (element.equals(arr[i]))
+                return i;
+        throw new IllegalArgumentException("Base vector "+element+" is not defined");
+    }
+
+    /**
+     * Initializes a transformation map
+     * @param base The base of the images
+     * @param base2 The base of the keys
+     * @param source The map of the algebra definition
+     * @param masks The masks of the images of every base vector of base2
+     * @param coefficients The coefficients of the images of every base vector of base2
+     */
+    private void initializeMap(String[] base, String[] base2, HashMap<String, LinkedList<BladeStr>> source, long[][] masks, float[][] coefficients) {
+        for (String baseElement: source.keySet()) {
+            LinkedList<BladeStr> list = source.get(baseElement);
+            int key = getIndex(baseElement, base2);
+            masks[key] = new long[list.size()];
+            coefficients[key] = new float[list.size()];
+            int i = 0;
+            for (BladeStr element: list) {
+                String[] vectors = element.getBaseVectors();
+                int[] indices = new int[vectors.length];
+                long mask = 0;
+                for (int v = 0; v < vectors.length; v++) {
+                    indices[v] = getIndex(vectors[v], base);
+                    mask |= 1L << indices[v];
+                }
+                int inversions = 0;
+                for (int a = 0; a < indices.length; a++)
+                    for (int b = a + 1; b < indices.length; b++)
+                        if (indices[a] > indices[b])
+                            inversions++;
+                masks[key][i] = mask;
+                coefficients[key][i] = ((inversions % 2) == 1) ? -element.getPrefactor() : element.getPrefactor();
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Enumerates all blades with k base vectors in the order of ProductComputer
+     * @param trailing The mask of the already chosen base vectors
+     * @param startPos The start position in the base
+     * @param k The number of base vectors to be added
+     * @param masks The list of masks to add the blades to
+     */
+    private void createBlades(long trailing, int startPos, int k, LinkedList<Long> masks) {
+        for (int s = startPos; s <= bitCount - k; s++) {
+            long mask = trailing | (1L << s);
+            if (k == 1)
+                masks.add(mask);
+            else
+                createBlades(mask, s + 1, k - 1, masks);
+        }
+    }
+
+    /**
+     * Initializes the MaskProductComputer using an AlgebraPC instance
+     * @param algebraPC The AlgebraPC instance
+     */
+    public void initialize(AlgebraPC algebraPC) {
+        bitCount = algebraPC.base.length;
+        if (bitCount > 30)
+            throw new IllegalArgumentException("Algebras with more than 30 base vectors are not supported");
+        final int size = 1 << bitCount;
+
+        squareMask = new byte[algebraPC.base2.length];
+        for (int index = 0;index < algebraPC.base2.length; index++)
+            squareMask[index] = algebraPC.baseSquaresStr.get(algebraPC.base2[index]);
+
+        mapZIToPMMasks = new long[bitCount][];
+        mapZIToPMCoefficients = new float[bitCount][];
+        initializeMap(algebraPC.base2, algebraPC.base, algebraPC.mapToPlusMinus, mapZIToPMMasks, mapZIToPMCoefficients);
+
+        mapPMToZIMasks = new long[bitCount][];
+        mapPMToZICoefficients = new float[bitCount][];
+        initializeMap(algebraPC.base, algebraPC.base2, algebraPC.mapToZeroInf, mapPMToZIMasks, mapPMToZICoefficients);
+
+        buffers = new ThreadLocal<Buffers>() {
+            @Override
+            protected Buffers initialValue() {
+                return new Buffers(size);
+            }
+        };
+
+        LinkedList<Long> masks = new LinkedList<Long>();
+        masks.add(0L);
+        for (int k = 1; k <= bitCount; k++)
+            createBlades(0, 0, k, masks);
+
+        maskToIndex = new int[size];
+        bladeMasksPM = new long[masks.size()][];
+        bladeCoefficientsPM = new float[masks.size()][];
+        Buffers b = buffers.get();
+        int index = 0;
+        for (long mask: masks) {
+            maskToIndex[(int) mask] = index;
+
+            Sums sums = b.sumsPM;
+            transform(mask, 1, mapZIToPMMasks, mapZIToPMCoefficients, sums);
+            bladeMasksPM[index] = new long[sums.touchedCount];
+            bladeCoefficientsPM[index] = new float[sums.touchedCount];
+            for (int t = 0; t < sums.touchedCount; t++) {
+                int m = sums.touched[t];
+                bladeMasksPM[index][t] = m;
+                bladeCoefficientsPM[index][t] = sums.take(m);
+            }
+            sums.touchedCount = 0;
+            index++;
+        }
+    }
+
+    // ============================ COMPUTATION OF PRODUCTS ============================
+
+    /**
+     * Computes the 'reordering sign' to get the outer product of two blades into canonical order.
+     * This method is taken from the dissertation of Daniel Fontijne - Efficient Implementation of Geometric Algebra
+     * @param a The first blade
+     * @param b The second blade
+     * @return The sign
+     */
+    public static float canonicalReorderingSign(long a, long b) {
+        a >>>= 1;
+        int sum = 0;
+        while (a != 0) {
+            sum += Long.bitCount(a & b);
+            a >>>= 1;
+        }
+        return ((sum & 1) == 0) ? 1.0f : -1.0f;
+    }
+
+    /**
+     * Transforms a weighted blade into another base and adds the result to a sum
+     * @param mask The blade
+     * @param coefficient The coefficient of the blade
+     * @param mapMasks The masks of the images of every base vector
+     * @param mapCoefficients The coefficients of the images of every base vector
+     * @param b The sum
+     */
+    private void transform(long mask, float coefficient, long[][] mapMasks, float[][] mapCoefficients, Sums b) {
+        if (mask == 0) {
+            b.add(0, coefficient);
+            return;
+        }
+        int bit = Long.numberOfTrailingZeros(mask);
+        long rest = mask & (mask - 1);
+        wedgeImages(rest, bit, 0, coefficient, mapMasks, mapCoefficients, b);
+    }
+
+    /**
+     * Builds the outer product of the images of all base vectors of a blade,
+     * going through all combinations of the summands of the images
+     * @param rest The base vectors, which are not processed yet
+     * @param bit The current base vector
+     * @param result The outer product of the images of the processed base vectors
+     * @param coefficient The coefficient of result
+     * @param mapMasks The masks of the images of every base vector
+     * @param mapCoefficients The coefficients of the images of every base vector
+     * @param b The sum
+     */
+    private void wedgeImages(long rest, int bit, long result, float coefficient, long[][] mapMasks, float[][] mapCoefficients, Sums b) {
+        long[] imageMasks = mapMasks[bit];
+        int count = (imageMasks == null) ? 1 : imageMasks.length;
+        for (int i = 0; i < count; i++) {
+            long image = (imageMasks == null) ? 1L << bit : imageMasks[i];
+            float imageCoefficient = (imageMasks == null) ? 1 : mapCoefficients[bit][i];
+            if ((result & image) != 0)
+                continue; // = 0, because of double indices in a wedge operation
+
+            long newResult = result | image;
+            float newCoefficient = coefficient * imageCoefficient * canonicalReorderingSign(result, image);
+            if (rest == 0)
+                b.add((int) newResult, newCoefficient);
+            else
+                wedgeImages(rest & (rest - 1), Long.numberOfTrailingZeros(rest), newResult, newCoefficient, mapMasks, mapCoefficients, b);
+        }
+    }
+
+    /**
+     * Computes the geometric product of two weighted blades and adds it to the sums
+     */
+    private void geo(long m1, float c1, long m2, float c2, Sums b) {
+        float coefficient = c1 * c2 * canonicalReorderingSign(m1, m2);
+        long common = m1 & m2;
+        while (common != 0) {
+            coefficient *= squareMask[Long.numberOfTrailingZeros(common)];
+            common &= common - 1;
+        }
+        if (coefficient != 0)
+            b.add((int) (m1 ^ m2), coefficient);
+    }
+
+    /**
+     * Computes the outer product of two weighted blades and adds it to the sums
+     */
+    private void outer(long m1, float c1, long m2, float c2, Sums b) {
+        if ((m1 & m2) == 0)
+            b.add((int) (m1 ^ m2), c1 * c2 * canonicalReorderingSign(m1, m2));
+    }
+
+    /**
+     * Computes the inner product of two weighted blades like InnerProductCalculator and adds it to the sums.
+     * The blade of lower grade is contracted onto the other blade (left contraction for equal grades),
+     * inner products with scalars are zero.
+     */
+    private void inner(long m1, float c1, long m2, float c2, Sums b) {
+        if (m1 == 0 || m2 == 0)
+            return;
+
+        float coefficient = c1 * c2;
+        long cur;
+        if (Long.bitCount(m1) <= Long.bitCount(m2)) {
+            if ((m1 & ~m2) != 0)
+                return;
+            // contract the base vectors of m1 from the highest to the lowest
+            cur = m2;
+            long bits = m1;
+            while (bits != 0) {
+                int i = 63 - Long.numberOfLeadingZeros(bits);
+                bits &= ~(1L << i);
+                if ((Long.bitCount(cur & ((1L << i) - 1)) & 1) == 1)
+                    coefficient = -coefficient;
+                cur &= ~(1L << i);
+                if (squareMask[i] == 0)
+                    return;
+                coefficient *= squareMask[i];
+            }
+        } else {
+            if ((m2 & ~m1) != 0)
+                return;
+            // contract the base vectors of m2 from the lowest to the highest
+            cur = m1;
+            long bits = m2;
+            while (bits != 0) {
+                int i = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if ((Long.bitCount(cur & (-1L << i << 1)) & 1) == 1)
+                    coefficient = -coefficient;
+                cur &= ~(1L << i);
+                if (squareMask[i] == 0)
+                    return;
+                coefficient *= squareMask[i];
+            }
+        }
+        b.add((int) cur, coefficient);
+    }
+
+    /**
+     * Computes a product of two blades
+     * @param factor1 The index of the first blade
+     * @param factor2 The index of the second blade
+     * @param typeProduct The type of the product
+     * @return The product of the two blades
+     */
+    public Multivector calcProduct(int factor1, int factor2, Products typeProduct) {
+        Buffers b = buffers.get();
+        long[] masks1 = bladeMasksPM[factor1];
+        float[] coefficients1 = bladeCoefficientsPM[factor1];
+        long[] masks2 = bladeMasksPM[factor2];
+        float[] coefficients2 = bladeCoefficientsPM[factor2];
+
+        // product in the plusminus base
+        for (int t1 = 0; t1 < masks1.length; t1++)
+            for (int t2 = 0; t2 < masks2.length; t2++) {
+                switch (typeProduct) {
+                    case INNER:
+                        inner(masks1[t1], coefficients1[t1], masks2[t2], coefficients2[t2], b.sumsPM);
+                        break;
+                    case OUTER:
+                        outer(masks1[t1], coefficients1[t1], masks2[t2], coefficients2[t2], b.sumsPM);
+                        break;
+                    case GEO:
+                        geo(masks1[t1], coefficients1[t1], masks2[t2], coefficients2[t2], b.sumsPM);
+                        break;
+                }
+            }
+
+        // transform back to the zeroinf base
+        Sums sumsPM = b.sumsPM;
+        Sums sumsZI = b.sumsZI;
+        for (int t = 0; t < sumsPM.touchedCount; t++) {
+            int m = sumsPM.touched[t];
+            float coefficient = sumsPM.take(m);
+            if (coefficient != 0)
+                transform(m, coefficient, mapPMToZIMasks, mapPMToZICoefficients, sumsZI);
+        }
+        sumsPM.touchedCount = 0;
+
+        // group and sort by blade index
+        int[] indices = new int[sumsZI.touchedCount];
+        float[] coefficients = new float[sumsZI.touchedCount];
+        int count = 0;
+        for (int t = 0; t < sumsZI.touchedCount; t++) {
+            int m = sumsZI.touched[t];
+            float coefficient = sumsZI.take(m);
+            if (Math.abs(coefficient) > EPSILON) {
+                int index = maskToIndex[m];
+                int pos = count;
+                while (pos > 0 && indices[pos - 1] > index) {
+                    indices[pos] = indices[pos - 1];
+                    coefficients[pos] = coefficients[pos - 1];
+                    pos--;
+                }
+                indices[pos] = index;
+                coefficients[pos] = coefficient;
+                count++;
+            }
+        }
+        sumsZI.touchedCount = 0;
+
+        Multivector result = new Multivector();
+        for (int i = 0; i < count; i++) {
+            if (1-Math.abs(coefficients[i]) > EPSILON)
+                System.err.println("Error: MvCoeff is not -1,0,1 but "+coefficients[i]);
+            result.addBlade(new BladeRef((coefficients[i] > 0) ? (byte) 1 : (byte) -1, indices[i]));
+        }
+        return result;
+    }
+
+}
@@ -62,7 +62,7 @@ public class Algebra {
      * @param bladeExpr The blade to be searched
      * @return The index of the blade
      */
-    public int getIndex(Blade bladeExpr) {
+    public synchronized int getIndex(Blade bladeExpr) {
         if (dirty) buildMap();
         if (bladeExpr.getBases().isEmpty())
             return 0;
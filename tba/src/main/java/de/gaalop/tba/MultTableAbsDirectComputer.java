@@ -4,35 +4,84 @@ import de.gaalop.productComputer.ProductComputer;
 import de.gaalop.productComputer.ProductCalculator;
 import de.gaalop.cfg.AlgebraDefinitionFile;
 import de.gaalop.productComputer.AlgebraPC;
+import de.gaalop.productComputer.GeoProductCalculator;
+import de.gaalop.productComputer.InnerProductCalculator;
+import de.gaalop.productComputer.MaskProductComputer;
+import de.gaalop.productComputer.OuterProductCalculator;
 
 /**
- * Provides methods for direct computation of the product of two blades
+ * Provides methods for direct computation of the product of two blades.
+ *
+ * The products of the known calculators are computed by the primitive MaskProductComputer,
+ * other calculators are used with the ProductComputer.
+ * Computed products are memoized in a ProductCache,
+ * by default in the cache which is shared by all computations of the same algebra.
  * @author Christian Steinmetz
  */
 public class MultTableAbsDirectComputer implements IMultTable {
 
     private ProductComputer computer;
+    private MaskProductComputer maskComputer;
     private ProductCalculator calculator;
+    private Products typeProduct;
+    private ProductCache cache;
 
     public MultTableAbsDirectComputer(AlgebraDefinitionFile alFile, ProductCalculator calculator) {
+        this(alFile, calculator, ProductCache.getShared(alFile));
+    }
+
+    public MultTableAbsDirectComputer(AlgebraDefinitionFile alFile, ProductCalculator calculator, ProductCache cache) {
         AlgebraPC algebraPC = new AlgebraPC(alFile);
-        computer = new ProductComputer();
-        computer.initialize(algebraPC);
         this.calculator = calculator;
+        this.typeProduct = getProductType(calculator);
+        if (typeProduct != null) {
+            maskComputer = new MaskProductComputer();
+            maskComputer.initialize(algebraPC);
+            this.cache = cache;
+        } else {
+            computer = new ProductComputer();
+            computer.initialize(algebraPC);
+        }
+    }
+
+    /**
+     * Returns the product type, which is computed by a calculator
+     * @param calculator The calculator
+     * @return The product type, null if the calculator is unknown
+     */
+    private static Products getProductType(ProductCalculator calculator) {
+        if (calculator instanceof InnerProductCalculator) return Products.INNER;
+        if (calculator instanceof OuterProductCalculator) return Products.OUTER;
+        if (calculator instanceof GeoProductCalculator) return Products.GEO;
+        return null;
     }
 
     @Override
     public void createTable(int dimension) {
         //Do nothing
     }
-    
+
     @Override
     public Multivector getProduct(Integer factor1, Integer factor2) {
-        return computer.calcProduct(factor1, factor2, calculator);
+        if (computer != null)
+            return computer.calcProduct(factor1, factor2, calculator);
+        if (cache == null)
+            return maskComputer.calcProduct(factor1, factor2, typeProduct);
+
+        Multivector product = cache.get(typeProduct, factor1, factor2);
+        if (product == null) {
+            product = maskComputer.calcProduct(factor1, factor2, typeProduct);
+            cache.put(typeProduct, factor1, factor2, product);
+        }
+        return product;
     }
 
     @Override
     public void setProduct(Integer factor1, Integer factor2, Multivector product) {
         //Do nothing
     }
+
+    public ProductCache getCache() {
+        return cache;
+    }
 }
@@ -2,10 +2,18 @@ package de.gaalop.tba;
 
 import de.gaalop.algebra.AlStrategy;
 import de.gaalop.tba.table.TableFormat;
+import de.gaalop.tba.table.TableMapped;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashMap;
 
 /**
  * Provides methods for loading a Multiplication table from a file
@@ -14,7 +22,14 @@ import java.io.InputStream;
 public class MultTableLoader {
 
     /**
-     * Loads an algebra from different files
+     * The files of the products ressources, which are memory-mapped, indexed by the ressource name
+     */
+    private static final HashMap<String, File> ressourceFiles = new HashMap<String, File>();
+
+    /**
+     * Loads an algebra from different files.
+     * Products files in the format TableFormat.TABLE_MAPPED are not decoded here,
+     * they are memory-mapped and the tables of useAlgebra are replaced by tables, which decode their products lazily.
      * @param useAlgebra The algebra to be used
      * @param filename_Products The filename of the file which contains the products
      * @param useAsRessource true, if filename_products is a ressource
@@ -22,6 +37,25 @@ public class MultTableLoader {
      */
     public void load(UseAlgebra useAlgebra, String filename_Products, boolean useAsRessource) throws IOException {
 
+        InputStream filestream;
+        if (useAsRessource) {
+            filestream = AlStrategy.class.getResourceAsStream(filename_Products);
+        } else {
+            filestream = new FileInputStream(new File(filename_Products));
+        }
+
+        BufferedInputStream in = new BufferedInputStream(filestream);
+        in.mark(1);
+        int format = in.read();
+        if (format == TableFormat.TABLE_MAPPED) {
+            in.close();
+            File file = (useAsRessource) ? getRessourceFile(filename_Products) : new File(filename_Products);
+            IMultTable[] tables = TableMapped.createTables(TableMapped.map(file));
+            useAlgebra.setTables(tables[TableMapped.INNER], tables[TableMapped.OUTER], tables[TableMapped.GEO]);
+            return;
+        }
+        in.reset();
+
         int bladeCount = useAlgebra.getAlgebra().getBladeCount();
 
         IMultTable tableInner = useAlgebra.getTableInner();
@@ -32,13 +66,46 @@ public class MultTableLoader {
         tableOuter.createTable(bladeCount);
         tableGeo.createTable(bladeCount);
 
-        InputStream filestream;
-        if (useAsRessource) {
-            filestream = AlStrategy.class.getResourceAsStream(filename_Products);
+        TableFormat.readFromFile(in, tableInner, tableOuter, tableGeo);
+    }
+
+    /**
+     * Returns a file of a products ressource, which can be memory-mapped.
+     * A ressource inside a jar is extracted to a temporary file on its first use.
+     * @param filename_Products The name of the ressource
+     * @return The file
+     * @throws IOException
+     */
+    private static synchronized File getRessourceFile(String filename_Products) throws IOException {
+        File file = ressourceFiles.get(filename_Products);
+        if (file != null)
+            return file;
+
+        URL url = AlStrategy.class.getResource(filename_Products);
+        if (url == null)
+            throw new FileNotFoundException("Ressource "+filename_Products+" not found");
+        if (url.getProtocol().equals("file")) {
+            try {
+                file = new File(url.toURI());
+            } catch (URISyntaxException ex) {
+                throw new IOException(ex);
+            }
         } else {
-            filestream = new FileInputStream(new File(filename_Products));
+            file = File.createTempFile("products", ".csv");
+            file.deleteOnExit();
+            InputStream in = url.openStream();
+            OutputStream out = new FileOutputStream(file);
+            try {
+                byte[] chunk = new byte[65536];
+                int read;
+                while ((read = in.read(chunk)) != -1)
+                    out.write(chunk, 0, read);
+            } finally {
+                in.close();
+                out.close();
+            }
         }
-
-        TableFormat.readFromFile(filestream, tableInner, tableOuter, tableGeo);
+        ressourceFiles.put(filename_Products, file);
+        return file;
     }
 }
@@ -0,0 +1,52 @@
+package de.gaalop.tba;
+
+import de.gaalop.tba.table.TableMapped;
+import java.nio.ByteBuffer;
+
+/**
+ * Implements the IMultTable interface.
+ *
+ * Reads the products from a buffer in the format of TableMapped,
+ * which is usually a memory-mapped products file.
+ * A product is decoded, when it is requested for the first time,
+ * the rows of the table are allocated on demand.
+ */
+public class MultTableMapped implements IMultTable {
+
+    private ByteBuffer buffer;
+    private int table;
+    private int bladeCount;
+    private Multivector[][] rows;
+
+    public MultTableMapped(ByteBuffer buffer, int table, int bladeCount) {
+        this.buffer = buffer;
+        this.table = table;
+        this.bladeCount = bladeCount;
+        this.rows = new Multivector[bladeCount][];
+    }
+
+    @Override
+    public void createTable(int dimension) {
+        //Do nothing
+    }
+
+    @Override
+    public synchronized Multivector getProduct(Integer factor1, Integer factor2) {
+        Multivector[] row = rows[factor1];
+        if (row == null) {
+            row = new Multivector[bladeCount];
+            rows[factor1] = row;
+        }
+        Multivector product = row[factor2];
+        if (product == null) {
+            product = TableMapped.decodeProduct(buffer, table, bladeCount, factor1, factor2);
+            row[factor2] = product;
+        }
+        return product;
+    }
+
+    @Override
+    public void setProduct(Integer factor1, Integer factor2, Multivector product) {
+        throw new UnsupportedOperationException("A mapped multiplication table is read-only");
+    }
+}
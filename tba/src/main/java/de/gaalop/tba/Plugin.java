@@ -36,6 +36,16 @@ public class Plugin extends Observable implements OptimizationStrategyPlugin {
     // adding config parameter to test SparseMvExpressions
     // by Adrian Kiesthardt
     public boolean useSparseExpressions = false;
+
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean useInternedExpressions = false;
+
+    @ConfigurationProperty(type = Type.BOOLEAN)
+    public boolean optPolynomialSimplification = false;
+
+    // the number of Maxima processes, which optimize independent assignments concurrently
+    @ConfigurationProperty(type = Type.NUMBER)
+    public int maximaWorkers = 1;
     
     @ConfigurationProperty(type = Type.BOOLEAN)
     public boolean doRoundingAfterOptimization = false;
@@ -99,6 +109,30 @@ public class Plugin extends Observable implements OptimizationStrategyPlugin {
         this.maximaExpand = maximaExpand;
     }
 
+    public boolean isUseInternedExpressions() {
+        return useInternedExpressions;
+    }
+
+    public void setUseInternedExpressions(boolean useInternedExpressions) {
+        this.useInternedExpressions = useInternedExpressions;
+    }
+
+    public boolean isOptPolynomialSimplification() {
+        return optPolynomialSimplification;
+    }
+
+    public void setOptPolynomialSimplification(boolean optPolynomialSimplification) {
+        this.optPolynomialSimplification = optPolynomialSimplification;
+    }
+
+    public int getMaximaWorkers() {
+        return maximaWorkers;
+    }
+
+    public void setMaximaWorkers(int maximaWorkers) {
+        this.maximaWorkers = maximaWorkers;
+    }
+
     public boolean isDoRoundingAfterOptimization() {
         return doRoundingAfterOptimization;
     }
@@ -0,0 +1,127 @@
+package de.gaalop.tba;
+
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches computed products of two blades, keyed by the product type and the blade indices.
+ *
+ * The cache is thread-safe and bounded: if the capacity is exceeded,
+ * arbitrary entries are evicted.
+ * Caches can be shared by all computations of the same algebra with getShared.
+ */
+public class ProductCache {
+
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private static final ConcurrentHashMap<String, ProductCache> SHARED = new ConcurrentHashMap<String, ProductCache>();
+
+    private final ConcurrentHashMap<Long, Multivector> products = new ConcurrentHashMap<Long, Multivector>();
+    private final int capacity;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ProductCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the cache, which is shared by all computations of an algebra
+     * @param alFile The definition of the algebra
+     * @return The shared cache
+     */
+    public static ProductCache getShared(AlgebraDefinitionFile alFile) {
+        String key = getAlgebraKey(alFile);
+        ProductCache cache = SHARED.get(key);
+        if (cache == null) {
+            ProductCache newCache = new ProductCache(DEFAULT_CAPACITY);
+            cache = SHARED.putIfAbsent(key, newCache);
+            if (cache == null)
+                cache = newCache;
+        }
+        return cache;
+    }
+
+    /**
+     * Returns a string, which identifies the products of an algebra definition
+     * @param alFile The definition of the algebra
+     * @return The identifying string
+     */
+    private static String getAlgebraKey(AlgebraDefinitionFile alFile) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Arrays.toString(alFile.base)).append('|');
+        sb.append(Arrays.toString(alFile.base2)).append('|');
+        sb.append(new TreeMap<String, Byte>(alFile.baseSquares)).append('|');
+        sb.append(alFile.lineMapZeroInfToPlusMinus).append('|');
+        sb.append(alFile.lineMapPlusMinusToZeroInf);
+        return sb.toString();
+    }
+
+    private static Long getKey(Products typeProduct, int factor1, int factor2) {
+        return (((long) typeProduct.ordinal()) << 48) | (((long) factor1) << 24) | factor2;
+    }
+
+    /**
+     * Returns a cached product
+     * @param typeProduct The type of the product
+     * @param factor1 The index of the blade of the first factor
+     * @param factor2 The index of the blade of the second factor
+     * @return The product, null if it is not cached
+     */
+    public Multivector get(Products typeProduct, int factor1, int factor2) {
+        Multivector product = products.get(getKey(typeProduct, factor1, factor2));
+        if (product == null)
+            misses.incrementAndGet();
+        else
+            hits.incrementAndGet();
+        return product;
+    }
+
+    /**
+     * Puts a product into the cache
+     * @param typeProduct The type of the product
+     * @param factor1 The index of the blade of the first factor
+     * @param factor2 The index of the blade of the second factor
+     * @param product The product
+     */
+    public void put(Products typeProduct, int factor1, int factor2, Multivector product) {
+        if (products.size() >= capacity) {
+            Iterator<Long> it = products.keySet().iterator();
+            while (products.size() >= capacity && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        products.put(getKey(typeProduct, factor1, factor2), product);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        return products.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes all cached products and resets the counters
+     */
+    public void clear() {
+        products.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+}
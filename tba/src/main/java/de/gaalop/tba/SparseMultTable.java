@@ -0,0 +1,102 @@
+package de.gaalop.tba;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Provides a sparse view on a multiplication table.
+ *
+ * Every product of two blades is stored as an int array,
+ * which contains one entry for each blade with a non-zero prefactor.
+ * An entry holds the index of the blade in the upper bits
+ * and the (signed) prefactor in the lowest byte.
+ *
+ * The entries are built lazily from the underlying table,
+ * when the product of two blades is requested for the first time.
+ */
+public class SparseMultTable {
+
+    private static final int[] EMPTY = new int[0];
+
+    private IMultTable table;
+    private int bladeCount;
+    private AtomicReferenceArray<int[]> products;
+
+    public SparseMultTable(IMultTable table, int bladeCount) {
+        this.table = table;
+        this.bladeCount = bladeCount;
+        this.products = new AtomicReferenceArray<int[]>(bladeCount * bladeCount);
+    }
+
+    /**
+     * Returns the product of two blades with specified indices in the algebra
+     * @param factor1 The index of the blade of the first factor
+     * @param factor2 The index of the blade of the second factor
+     * @return The entries of the product, must not be modified
+     */
+    public int[] getProduct(int factor1, int factor2) {
+        int position = factor1 * bladeCount + factor2;
+        int[] product = products.get(position);
+        if (product == null) {
+            product = encode(table.getProduct(factor1, factor2));
+            products.set(position, product);
+        }
+        return product;
+    }
+
+    /**
+     * Returns the blade index of an entry
+     * @param entry The entry
+     * @return The blade index
+     */
+    public static int getIndex(int entry) {
+        return entry >>> 8;
+    }
+
+    /**
+     * Returns the prefactor of an entry
+     * @param entry The entry
+     * @return The prefactor
+     */
+    public static byte getPrefactor(int entry) {
+        return (byte) entry;
+    }
+
+    /**
+     * Encodes a multivector into entries.
+     * Prefactors of equal blades are summed up, blades with a zero sum are omitted.
+     * @param product The multivector to be encoded
+     * @return The entries
+     */
+    private static int[] encode(Multivector product) {
+        int size = product.getBlades().size();
+        if (size == 0)
+            return EMPTY;
+
+        int[] indices = new int[size];
+        int[] prefactors = new int[size];
+        int count = 0;
+        for (BladeRef ref: product.getBlades()) {
+            int i = 0;
+            while (i < count && indices[i] != ref.getIndex())
+                i++;
+            if (i == count) {
+                indices[count] = ref.getIndex();
+                count++;
+            }
+            prefactors[i] += ref.getPrefactor();
+        }
+
+        int nonZero = 0;
+        for (int i = 0; i < count; i++)
+            if (prefactors[i] != 0)
+                nonZero++;
+
+        int[] result = new int[nonZero];
+        int pos = 0;
+        for (int i = 0; i < count; i++)
+            if (prefactors[i] != 0)
+                result[pos++] = (indices[i] << 8) | (prefactors[i] & 0xFF);
+        return result;
+    }
+
+}
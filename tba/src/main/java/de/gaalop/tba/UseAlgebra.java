@@ -1,9 +1,13 @@
 package de.gaalop.tba;
 
+import de.gaalop.CodeParserException;
 import de.gaalop.algebra.AlStrategy;
+import de.gaalop.algebra.AlgebraRegistry;
+import de.gaalop.algebra.LoadedAlgebra;
 import de.gaalop.algebra.BladeArrayRoutines;
 import de.gaalop.algebra.TCBlade;
 import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.cfg.ControlFlowGraph;
 import de.gaalop.dfg.Expression;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -23,6 +27,9 @@ public class UseAlgebra {
     private IMultTable tableInner;
     private IMultTable tableOuter;
     private IMultTable tableGeo;
+    private SparseMultTable sparseInner;
+    private SparseMultTable sparseOuter;
+    private SparseMultTable sparseGeo;
 
     public UseAlgebra(AlgebraDefinitionFile alFile) {
         if (alFile.isUsePrecalculatedTable()) {
@@ -30,9 +37,6 @@ public class UseAlgebra {
             tableInner = new MultTableImpl();
             tableOuter = new MultTableImpl();
             tableGeo = new MultTableImpl();
-            tableInner.createTable(algebra.getBladeCount());
-            tableOuter.createTable(algebra.getBladeCount());
-            tableGeo.createTable(algebra.getBladeCount());
 
             MultTableLoader loader = new MultTableLoader();
             try {
@@ -49,6 +53,7 @@ public class UseAlgebra {
             tableGeo.createTable(0);
             algebra = new Algebra(alFile);
         }
+        createSparseTables(algebra.getBladeCount());
     }
 
     public UseAlgebra(Algebra algebra, int bladeCount) {
@@ -59,6 +64,30 @@ public class UseAlgebra {
         tableInner.createTable(bladeCount);
         tableOuter.createTable(bladeCount);
         tableGeo.createTable(bladeCount);
+        createSparseTables(bladeCount);
+    }
+
+    /**
+     * Replaces the three multiplication tables, e.g. by tables which are read lazily
+     * @param tableInner The inner product table
+     * @param tableOuter The outer product table
+     * @param tableGeo The geometric product table
+     */
+    void setTables(IMultTable tableInner, IMultTable tableOuter, IMultTable tableGeo) {
+        this.tableInner = tableInner;
+        this.tableOuter = tableOuter;
+        this.tableGeo = tableGeo;
+        createSparseTables(algebra.getBladeCount());
+    }
+
+    /**
+     * Creates the sparse views on the three multiplication tables
+     * @param bladeCount The number of blades
+     */
+    private void createSparseTables(int bladeCount) {
+        sparseInner = new SparseMultTable(tableInner, bladeCount);
+        sparseOuter = new SparseMultTable(tableOuter, bladeCount);
+        sparseGeo = new SparseMultTable(tableGeo, bladeCount);
     }
 
     /**
@@ -124,6 +153,34 @@ public class UseAlgebra {
         return tableGeo;
     }
 
+    /**
+     * Returns the useAlgebra of the algebra of a graph.
+     * The instance is attached to the algebra in the AlgebraRegistry,
+     * so it is shared by all compilations of the same algebra.
+     * Graphs without an algebra name get an own instance.
+     * @param graph The graph, whose algebra definition file is already set by the algebra plugin
+     * @return The useAlgebra instance
+     */
+    public static UseAlgebra getShared(ControlFlowGraph graph) {
+        AlgebraDefinitionFile alFile = graph.getAlgebraDefinitionFile();
+        if (graph.algebraName == null)
+            return new UseAlgebra(alFile);
+
+        try {
+            LoadedAlgebra loadedAlgebra = AlgebraRegistry.getInstance().get(graph.algebraName, graph.algebraBaseDirectory, graph.asRessource);
+            String key = UseAlgebra.class.getName() + ((alFile.isUsePrecalculatedTable()) ? ":table" : ":live");
+            UseAlgebra useAlgebra = (UseAlgebra) loadedAlgebra.getAttachment(key);
+            if (useAlgebra == null)
+                useAlgebra = (UseAlgebra) loadedAlgebra.putAttachmentIfAbsent(key, new UseAlgebra(alFile));
+            return useAlgebra;
+        } catch (IOException ex) {
+            Logger.getLogger(UseAlgebra.class.getName()).log(Level.SEVERE, null, ex);
+        } catch (CodeParserException ex) {
+            Logger.getLogger(UseAlgebra.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        return new UseAlgebra(alFile);
+    }
+
     /**
      * Returns the useAlgebra which represents the calculations in 5d conformal geometric algebra
      * @return The useAlgebra instance
@@ -203,6 +260,26 @@ public class UseAlgebra {
 
     }
 
+    /**
+     * Returns the product of two blades in the sparse representation of SparseMultTable
+     * @param typeProduct The type of the product
+     * @param bladeL The index of the blade of the first factor
+     * @param bladeR The index of the blade of the sectond factor
+     * @return The entries of the product
+     */
+    public int[] getSparseProduct(Products typeProduct, int bladeL, int bladeR) {
+        switch (typeProduct) {
+            case INNER:
+                return sparseInner.getProduct(bladeL, bladeR);
+            case OUTER:
+                return sparseOuter.getProduct(bladeL, bladeR);
+            case GEO:
+                return sparseGeo.getProduct(bladeL, bladeR);
+            default:
+                throw new IllegalArgumentException("Product type is unknown!");
+        }
+    }
+
     public void saveToDir(File dir, int from, int to) throws FileNotFoundException {
 
         //save blade file
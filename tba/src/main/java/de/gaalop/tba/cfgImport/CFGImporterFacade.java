@@ -1,5 +1,6 @@
 package de.gaalop.tba.cfgImport;
 
+import de.gaalop.CompileProfiler;
 import de.gaalop.OptimizationException;
 import de.gaalop.LoggingListener;
 import de.gaalop.LoggingListenerGroup;
@@ -9,11 +10,14 @@ import de.gaalop.cfg.ControlFlowGraph;
 import de.gaalop.dfg.Variable;
 import de.gaalop.tba.Plugin;
 import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.cfgImport.optimization.DefUseOptimization;
 import de.gaalop.tba.cfgImport.optimization.OptConstantPropagation;
 import de.gaalop.tba.cfgImport.optimization.OptMaxima;
 import de.gaalop.tba.cfgImport.optimization.OptOneExpressionsRemoval;
+import de.gaalop.tba.cfgImport.optimization.OptPolynomialSimplification;
 import de.gaalop.tba.cfgImport.optimization.OptimizationStrategyWithModifyFlag;
 import de.gaalop.tba.cfgImport.optimization.OptUnusedAssignmentsRemoval;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaSessionPool;
 import java.util.LinkedList;
 
 /**
@@ -72,8 +76,8 @@ public class CFGImporterFacade {
      */
     public ControlFlowGraph importGraph(ControlFlowGraph graph) throws OptimizationException {
 
-        //load desired algebra
-        usedAlgebra = new UseAlgebra(graph.getAlgebraDefinitionFile());
+        //load desired algebra, shared by all compilations of the same algebra
+        usedAlgebra = UseAlgebra.getShared(graph);
 
         if (ContainsControlFlow.containsControlFlow(graph)) {
             throw new OptimizationException("Due to Control Flow Existence in Source, TBA isn't assigned on graph!", graph);
@@ -99,34 +103,44 @@ public class CFGImporterFacade {
 
 
 
-        CFGImporter builder = new CFGImporter(usedAlgebra, plugin.isScalarFunctions(), graph.getAlgebraDefinitionFile());
-        builder.useSparseExpressions = this.useSparseExpressions;
-        graph.accept(builder);
+        // count the variable references once, so that unreferenced local variables
+        // are removed after each change without traversing the graph again
+        graph.trackVariableReferences();
+        try {
+            CompileProfiler.Phase phase = CompileProfiler.begin("TBA import", graph);
+            CFGImporter builder = new CFGImporter(usedAlgebra, plugin.isScalarFunctions(), graph.getAlgebraDefinitionFile());
+            builder.useSparseExpressions = this.useSparseExpressions;
+            builder.useInternedExpressions = plugin.isUseInternedExpressions();
+            graph.accept(builder);
+            // the optimizations change the expressions in place
+            builder.releaseInternedExpressions();
+            CompileProfiler.end(phase, graph);
 
-        int count = 0;
-        boolean repeat;
-        do {
-            repeat = false;
-            for (OptimizationStrategyWithModifyFlag curOpt : optimizations) {
-                repeat = repeat || curOpt.transform(graph, usedAlgebra, listeners);
-            }
-            count++;
-        } while (repeat);
+            optimize(graph);
 
-        //Use Maxima only once
-        if (graph.globalSettings.isOptMaxima()) {
-            OptMaxima optMaxima = new OptMaxima(graph.globalSettings.getMaximaCommand(), plugin);
-            optMaxima.transform(graph, usedAlgebra, listeners);
-
-            //repeat other optimizations
-            count = 0;
-            do {
-                repeat = false;
-                for (OptimizationStrategyWithModifyFlag curOpt : optimizations) {
-                    repeat = repeat || curOpt.transform(graph, usedAlgebra, listeners);
+            //Simplify the polynomials without Maxima, so that Maxima gets smaller expressions
+            if (plugin.isOptPolynomialSimplification()) {
+                phase = CompileProfiler.begin("Polynomial simplification", graph);
+                boolean simplified = new OptPolynomialSimplification().transform(graph, usedAlgebra, listeners);
+                CompileProfiler.end(phase, graph);
+
+                if (simplified) {
+                    optimize(graph);
                 }
-                count++;
-            } while (repeat);
+            }
+
+            //Use Maxima only once
+            if (graph.globalSettings.isOptMaxima()) {
+                OptMaxima optMaxima = new OptMaxima(MaximaSessionPool.createConnection(graph.globalSettings), plugin);
+                phase = CompileProfiler.begin("Maxima", graph);
+                optMaxima.transform(graph, usedAlgebra, listeners);
+                CompileProfiler.end(phase, graph);
+
+                //repeat other optimizations
+                optimize(graph);
+            }
+        } finally {
+            graph.stopTrackingVariableReferences();
         }
 
         // update variable sets
@@ -139,6 +153,40 @@ public class CFGImporterFacade {
         return graph;
     }
 
+    /**
+     * Applies the optimizations until the graph is not modified anymore.
+     * If the graph is in single assignment form, the optimizations are applied together
+     * by def-use chains, otherwise they are applied repeatedly.
+     * @param graph The graph to be optimized
+     * @throws OptimizationException
+     */
+    private void optimize(ControlFlowGraph graph) throws OptimizationException {
+        CompileProfiler.Phase defUse = CompileProfiler.begin("TBA def-use optimization", graph);
+        DefUseOptimization defUseOptimization = new DefUseOptimization(graph, usedAlgebra);
+        if (defUseOptimization.isApplicable()) {
+            defUseOptimization.optimize(plugin.isOptConstantPropagation(), plugin.isOptOneExpressionRemoval(), plugin.isOptUnusedAssignments());
+            CompileProfiler.end(defUse, graph);
+            return;
+        }
+        CompileProfiler.end(defUse, graph);
+
+        int count = 0;
+        boolean repeat;
+        do {
+            repeat = false;
+            CompileProfiler.Phase iteration = CompileProfiler.begin("TBA iteration " + (count + 1), graph);
+            for (OptimizationStrategyWithModifyFlag curOpt : optimizations) {
+                if (!repeat) {
+                    CompileProfiler.Phase phase = CompileProfiler.begin(curOpt.getClass().getSimpleName(), graph);
+                    repeat = curOpt.transform(graph, usedAlgebra, listeners);
+                    CompileProfiler.end(phase, graph);
+                }
+            }
+            CompileProfiler.end(iteration, graph);
+            count++;
+        } while (repeat);
+    }
+
     public UseAlgebra getUsedAlgebra() {
         return usedAlgebra;
     }
@@ -4,6 +4,7 @@ import de.gaalop.cfg.AlgebraDefinitionFile;
 import de.gaalop.dfg.ExpressionVisitor;
 import de.gaalop.cfg.AssignmentNode;
 import de.gaalop.cfg.EmptyControlFlowVisitor;
+import java.util.Arrays;
 import java.util.HashMap;
 import de.gaalop.dfg.Addition;
 import de.gaalop.dfg.BaseVector;
@@ -12,6 +13,7 @@ import de.gaalop.dfg.Division;
 import de.gaalop.dfg.Equality;
 import de.gaalop.dfg.Exponentiation;
 import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.ExpressionInterner;
 import de.gaalop.dfg.FloatConstant;
 import de.gaalop.dfg.FunctionArgument;
 import de.gaalop.dfg.Inequality;
@@ -31,9 +33,8 @@ import de.gaalop.dfg.Reverse;
 import de.gaalop.dfg.Subtraction;
 import de.gaalop.dfg.UnaryOperation;
 import de.gaalop.dfg.Variable;
-import de.gaalop.tba.Algebra;
-import de.gaalop.tba.Multivector;
 import de.gaalop.tba.Products;
+import de.gaalop.tba.SparseMultTable;
 import de.gaalop.tba.UseAlgebra;
 
 /**
@@ -47,13 +48,20 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
     private int counterMv;
     public int bladeCount;
     private UseAlgebra usedAlgebra;
-    private final double EPSILON = 10E-07;
     private boolean scalarFunctions;
     private Variable curVariable;
     private AlgebraDefinitionFile alFile;
 
     public boolean useSparseExpressions = false;
 
+    /**
+     * If true, all built expressions are interned, so that equal subexpressions are shared
+     * and hashing them takes constant time. The interned expressions are immutable
+     * until releaseInternedExpressions is called.
+     */
+    public boolean useInternedExpressions = false;
+    private ExpressionInterner interner;
+
     public MvExpressionsBuilder(UseAlgebra usedAlgebra, boolean scalarFunctions, AlgebraDefinitionFile alFile) {
         this.scalarFunctions = scalarFunctions;
         this.alFile = alFile;
@@ -123,7 +131,52 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
     }
 
     /**
-     * Calculates the product of two MvExpressions
+     * Sets an expression of a MvExpressions instance, the expression is interned if desired
+     * @param mv The MvExpressions instance
+     * @param blade The index of the blade
+     * @param expression The expression
+     */
+    private void setExpression(MvExpressions mv, int blade, Expression expression) {
+        if (useInternedExpressions) {
+            if (interner == null) {
+                interner = new ExpressionInterner();
+            }
+            expression = interner.intern(expression);
+        }
+        mv.setExpression(blade, expression);
+    }
+
+    /**
+     * Makes the interned expressions mutable again, so that the graph can be optimized in place.
+     * The expressions keep sharing their equal subexpressions.
+     */
+    public void releaseInternedExpressions() {
+        if (interner != null) {
+            interner.release();
+            interner = null;
+        }
+    }
+
+    /**
+     * Returns the indices of all blades of a MvExpressions instance, which are not null
+     * @param mv The MvExpressions instance
+     * @return The indices in ascending order
+     */
+    private int[] getNonNullBlades(MvExpressions mv) {
+        int[] indices = new int[bladeCount];
+        int count = 0;
+        for (int blade = 0; blade < bladeCount; blade++) {
+            if (mv.getExpression(blade) != null) {
+                indices[count++] = blade;
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Calculates the product of two MvExpressions.
+     * Only the non-null blades of both factors are visited,
+     * the products of the blades are taken from the sparse tables of the algebra.
      * @param typeProduct The type of the product
      * @param left The first factor
      * @param right The second factor
@@ -131,34 +184,33 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
      */
     private MvExpressions calculateUsingMultTable(Products typeProduct, MvExpressions left, MvExpressions right) {
         MvExpressions result = createNewMvExpressions();
-        Algebra algebra = usedAlgebra.getAlgebra();
+        int[] bladesL = getNonNullBlades(left);
+        int[] bladesR = getNonNullBlades(right);
         boolean set = false;
-        for (int bladeL = 0; bladeL < bladeCount; bladeL++) {
-            if (left.getExpression(bladeL) != null) {
-                for (int bladeR = 0; bladeR < bladeCount; bladeR++) {
-                    if (right.getExpression(bladeR) != null) {
-                        Expression prodExpr = new Multiplication(left.getExpression(bladeL), right.getExpression(bladeR));
-                        Multivector prodMv = usedAlgebra.getProduct(typeProduct, bladeL, bladeR);
-
-                        byte[] prod = prodMv.getValueArr(algebra);
-
-                        for (int bladeResult = 0; bladeResult < bladeCount; bladeResult++) {
-                            if (Math.abs(prod[bladeResult]) > EPSILON) {
-                                Expression prodExpri = new Multiplication(prodExpr, new FloatConstant(prod[bladeResult]));
-                                if (result.getExpression(bladeResult) == null) {
-                                    set = true; 
-                                   result.setExpression(bladeResult, prodExpri);
-                                } else {
-                                    result.setExpression(bladeResult, new Addition(result.getExpression(bladeResult), prodExpri));
-                                }
-                            }
-                        }
+        for (int bladeL: bladesL) {
+            Expression exprL = left.getExpression(bladeL);
+            for (int bladeR: bladesR) {
+                int[] prod = usedAlgebra.getSparseProduct(typeProduct, bladeL, bladeR);
+                if (prod.length == 0) {
+                    continue;
+                }
+
+                Expression prodExpr = new Multiplication(exprL, right.getExpression(bladeR));
+                for (int entry: prod) {
+                    int bladeResult = SparseMultTable.getIndex(entry);
+                    Expression prodExpri = new Multiplication(prodExpr, new FloatConstant(SparseMultTable.getPrefactor(entry)));
+                    Expression old = result.getExpression(bladeResult);
+                    if (old == null) {
+                        set = true;
+                        setExpression(result, bladeResult, prodExpri);
+                    } else {
+                        setExpression(result, bladeResult, new Addition(old, prodExpri));
                     }
                 }
             }
         }
         if (!set) 
-            result.setExpression(0, new FloatConstant(0)); //Without this, e.g. ?r = sqrt(a.b); fails.
+            setExpression(result, 0, new FloatConstant(0)); //Without this, e.g. ?r = sqrt(a.b); fails.
         return result;
     }
 
@@ -204,13 +256,13 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
             if (left.getExpression(blade) != null) {
                 if (right.getExpression(blade) != null) {
-                    result.setExpression(blade, new Subtraction(left.getExpression(blade), right.getExpression(blade)));
+                    setExpression(result, blade, new Subtraction(left.getExpression(blade), right.getExpression(blade)));
                 } else {
-                    result.setExpression(blade, left.getExpression(blade));
+                    setExpression(result, blade, left.getExpression(blade));
                 }
 
             } else if (right.getExpression(blade) != null) {
-                result.setExpression(blade, new Negation(right.getExpression(blade)));
+                setExpression(result, blade, new Negation(right.getExpression(blade)));
             }
 
         }
@@ -229,13 +281,13 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
             if (left.getExpression(blade) != null) {
                 if (right.getExpression(blade) != null) {
-                    result.setExpression(blade, new Addition(left.getExpression(blade), right.getExpression(blade)));
+                    setExpression(result, blade, new Addition(left.getExpression(blade), right.getExpression(blade)));
                 } else {
-                    result.setExpression(blade, left.getExpression(blade));
+                    setExpression(result, blade, left.getExpression(blade));
                 }
 
             } else if (right.getExpression(blade) != null) {
-                result.setExpression(blade, right.getExpression(blade));
+                setExpression(result, blade, right.getExpression(blade));
             }
 
         }
@@ -256,9 +308,9 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
             if (mv.getExpression(blade) != null) {
                 int k = usedAlgebra.getGrade(blade);
                 if (((k * (k - 1)) / 2) % 2 == 0) {
-                    result.setExpression(blade, mv.getExpression(blade));
+                    setExpression(result, blade, mv.getExpression(blade));
                 } else {
-                    result.setExpression(blade, new Negation(mv.getExpression(blade)));
+                    setExpression(result, blade, new Negation(mv.getExpression(blade)));
                 }
             }
         }
@@ -278,7 +330,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         for (int blade = 0; blade < bladeCount; blade++) {
             if (mv.getExpression(blade) != null) {
-                result.setExpression(blade, new Division(revR.getExpression(blade).copy(), length.getExpression(0)));
+                setExpression(result, blade, new Division(revR.getExpression(blade).copy(), length.getExpression(0)));
             }
         }
 
@@ -338,7 +390,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
                         
                         if (allOthersAreNull) {
                             // scalar not null, all other are null
-                            result.setExpression(0, new MathFunctionCall(op.getExpression(0), MathFunction.ABS));
+                            setExpression(result, 0, new MathFunctionCall(op.getExpression(0), MathFunction.ABS));
                             break;
                         }
                     }
@@ -353,22 +405,22 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
                         i0 = new FloatConstant(0);
                     }
 
-                    result.setExpression(0, new MathFunctionCall(new MathFunctionCall(i0, MathFunction.ABS), MathFunction.SQRT));
+                    setExpression(result, 0, new MathFunctionCall(new MathFunctionCall(i0, MathFunction.ABS), MathFunction.SQRT));
 
                     break;
                 case SQRT:
                     //sqrt(scalar)
-                    result.setExpression(0, new MathFunctionCall(expressions.get(node.getOperand()).getExpression(0), MathFunction.SQRT));
+                    setExpression(result, 0, new MathFunctionCall(expressions.get(node.getOperand()).getExpression(0), MathFunction.SQRT));
                     break;
                 default:
-                    result.setExpression(0, new MathFunctionCall(expressions.get(node.getOperand()).getExpression(0), node.getFunction()));
+                    setExpression(result, 0, new MathFunctionCall(expressions.get(node.getOperand()).getExpression(0), node.getFunction()));
                     System.err.println("Warning: " + node.getFunction().toString() + " is only implemented for scalar inputs!");
                     break;
             }
 
         } else {
             for (int blade = 0; blade < bladeCount; blade++) {
-                result.setExpression(blade, new MultivectorComponent(curVariable.getName(), blade));
+                setExpression(result, blade, new MultivectorComponent(curVariable.getName(), blade));
             }
         }
 
@@ -385,14 +437,14 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
             for (int i = 0; i < bladeCount; i++) {
                 if (variables.get(key).getExpression(i) != null) {
-                    v.setExpression(i, new MultivectorComponent(node.getName(), i));
+                    setExpression(v, i, new MultivectorComponent(node.getName(), i));
                 }
             }
 
         } else {
             //input variable!
             v = createNewMvExpressions();
-            v.setExpression(0, node);
+            setExpression(v, 0, node);
         }
 
         expressions.put(node, v);
@@ -406,7 +458,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
     @Override
     public void visit(FloatConstant node) {
         MvExpressions result = createNewMvExpressions();
-        result.setExpression(0, node);
+        setExpression(result, 0, node);
         expressions.put(node, result);
     }
 
@@ -419,7 +471,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
     @Override
     public void visit(BaseVector node) {
         MvExpressions result = createNewMvExpressions();
-        result.setExpression(alFile.getIndex(node.toString()), new FloatConstant(1));
+        setExpression(result, alFile.getIndex(node.toString()), new FloatConstant(1));
         expressions.put(node, result);
     }
 
@@ -432,7 +484,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         for (int blade = 0; blade < bladeCount; blade++) {
             if (op.getExpression(blade) != null) {
-                result.setExpression(blade, new Negation(op.getExpression(blade)));
+                setExpression(result, blade, new Negation(op.getExpression(blade)));
             }
         }
 
@@ -460,7 +512,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new LogicalOr(l.getExpression(0), r.getExpression(0)));
+        setExpression(result, 0, new LogicalOr(l.getExpression(0), r.getExpression(0)));
 
         expressions.put(node, result);
 
@@ -475,7 +527,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new LogicalAnd(l.getExpression(0), r.getExpression(0)));
+        setExpression(result, 0, new LogicalAnd(l.getExpression(0), r.getExpression(0)));
 
         expressions.put(node, result);
 
@@ -489,7 +541,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new LogicalNegation(op.getExpression(0)));
+        setExpression(result, 0, new LogicalNegation(op.getExpression(0)));
 
         expressions.put(node, result);
 
@@ -504,7 +556,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new Equality(l.getExpression(0), r.getExpression(0)));
+        setExpression(result, 0, new Equality(l.getExpression(0), r.getExpression(0)));
 
         expressions.put(node, result);
 
@@ -519,7 +571,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new Inequality(l.getExpression(0), r.getExpression(0)));
+        setExpression(result, 0, new Inequality(l.getExpression(0), r.getExpression(0)));
 
         expressions.put(node, result);
 
@@ -534,7 +586,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new Relation(l.getExpression(0), r.getExpression(0), node.getType()));
+        setExpression(result, 0, new Relation(l.getExpression(0), r.getExpression(0), node.getType()));
 
         expressions.put(node, result);
 
@@ -549,7 +601,7 @@ public class MvExpressionsBuilder extends EmptyControlFlowVisitor implements Exp
 
         MvExpressions result = createNewMvExpressions();
 
-        result.setExpression(0, new Exponentiation(l.getExpression(0), r.getExpression(0)));
+        setExpression(result, 0, new Exponentiation(l.getExpression(0), r.getExpression(0)));
 
         expressions.put(node, result);
 
@@ -0,0 +1,462 @@
+package de.gaalop.tba.cfgImport.optimization;
+
+import de.gaalop.api.cfg.GetAllOutputBlades;
+import de.gaalop.api.dfg.DFGNodeType;
+import de.gaalop.api.dfg.DFGNodeTypeGetter;
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.BlockEndNode;
+import de.gaalop.cfg.BreakNode;
+import de.gaalop.cfg.ColorNode;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.cfg.ControlFlowVisitor;
+import de.gaalop.cfg.EndNode;
+import de.gaalop.cfg.ExpressionStatement;
+import de.gaalop.cfg.IfThenElseNode;
+import de.gaalop.cfg.LoopNode;
+import de.gaalop.cfg.Macro;
+import de.gaalop.cfg.SequentialNode;
+import de.gaalop.cfg.StartNode;
+import de.gaalop.cfg.StoreResultNode;
+import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.FloatConstant;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Variable;
+import de.gaalop.tba.UseAlgebra;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Set;
+
+/**
+ * Applies the constant propagation and folding, the one expression removal and the unused assignments removal
+ * together, using the def-use chains of the variable components.
+ * <p/>
+ * The graph must be in single assignment form: every variable component is assigned at most once
+ * and the graph contains no control flow. Then a use is reached by the assignment of its component, if the
+ * assignment precedes the use.
+ * <p/>
+ * The nodes are visited once in the order of the graph. All assignments, which reach a node, precede it,
+ * so their values are final, when the node is visited, and constants and copies are propagated transitively.
+ * Afterwards a worklist removes the unused assignments: it starts with the assignments, which reach no use,
+ * and adds the assignment of every component, whose last reached use is removed.
+ * The result is the fixpoint, which the repeated application of the single optimizations computes.
+ */
+public class DefUseOptimization {
+
+    private static final double EPSILON = (double) 10E-10;
+
+    private ControlFlowGraph graph;
+    private UseAlgebra usedAlgebra;
+    private boolean applicable = true;
+    private boolean graphModified = false;
+
+    /** All nodes, which use or define variable components, in the order of the graph */
+    private LinkedList<SequentialNode> nodes = new LinkedList<SequentialNode>();
+    private IdentityHashMap<SequentialNode, Integer> positions = new IdentityHashMap<SequentialNode, Integer>();
+
+    /** The assignment of every variable component, removed assignments are kept for propagating their values */
+    private HashMap<VariableComponent, AssignmentNode> definitions = new HashMap<VariableComponent, AssignmentNode>();
+    /** The number of uses of every variable component, which are reached by its assignment */
+    private HashMap<VariableComponent, Integer> reachedUses = new HashMap<VariableComponent, Integer>();
+    /** The used variable components of every node */
+    private IdentityHashMap<SequentialNode, LinkedList<VariableComponent>> uses = new IdentityHashMap<SequentialNode, LinkedList<VariableComponent>>();
+
+    private Set<SequentialNode> removed = Collections.newSetFromMap(new IdentityHashMap<SequentialNode, Boolean>());
+    /** The removed assignments, which only copy another variable component */
+    private Set<AssignmentNode> copies = Collections.newSetFromMap(new IdentityHashMap<AssignmentNode, Boolean>());
+    /** The worklist of the unused assignments removal */
+    private LinkedList<AssignmentNode> unusedCandidates = new LinkedList<AssignmentNode>();
+
+    private HashMap<String, LinkedList<Integer>> outputBlades = new HashMap<String, LinkedList<Integer>>();
+    private HashSet<VariableComponent> tabuVariables;
+
+    /**
+     * Builds the def-use chains of a graph
+     * @param graph The graph
+     * @param usedAlgebra The used algebra
+     */
+    public DefUseOptimization(ControlFlowGraph graph, UseAlgebra usedAlgebra) {
+        this.graph = graph;
+        this.usedAlgebra = usedAlgebra;
+
+        graph.accept(new NodeCollector());
+        if (!applicable) {
+            return;
+        }
+
+        int position = 0;
+        for (SequentialNode node : nodes) {
+            positions.put(node, position++);
+            if (node instanceof AssignmentNode) {
+                AssignmentNode assignment = (AssignmentNode) node;
+                if (definitions.put(getVariableComponent(assignment.getVariable()), assignment) != null) {
+                    // multiple assignments of a component
+                    applicable = false;
+                    return;
+                }
+            }
+        }
+
+        // the blades, which are outputted by the StoreResultNodes
+        for (String output : graph.getPragmaOutputVariables()) {
+            String[] parts = output.split("\\$");
+            if (!outputBlades.containsKey(parts[0])) {
+                outputBlades.put(parts[0], new LinkedList<Integer>());
+            }
+            outputBlades.get(parts[0]).add(Integer.parseInt(parts[1]));
+        }
+
+        // output and only evaluated components must not be removed as copies
+        tabuVariables = GetAllOutputBlades.getAllOutputBlades(graph, usedAlgebra);
+        int bladeCount = usedAlgebra.getBladeCount();
+        for (String var : graph.getPragmaOnlyEvaluateVariables()) {
+            for (int blade = 0; blade < bladeCount; blade++) {
+                tabuVariables.add(new VariableComponent(var, blade, null));
+            }
+        }
+
+        for (SequentialNode node : nodes) {
+            addUses(node);
+        }
+    }
+
+    /**
+     * Determines, if the graph is in single assignment form and contains no control flow.
+     * Otherwise the single optimizations have to be applied repeatedly.
+     * @return <value>true</value> if the optimization can be applied, <value>false</value> otherwise
+     */
+    public boolean isApplicable() {
+        return applicable;
+    }
+
+    /**
+     * Optimizes the graph in place
+     * @param constantPropagation Propagate constants and fold constant expressions
+     * @param oneExpressionRemoval Remove assignments, which only copy another non-output variable component
+     * @param unusedAssignments Remove assignments, which are not used, and assignments of zero
+     * @return <value>true</value> if the graph has been modified, <value>false</value> otherwise
+     */
+    public boolean optimize(boolean constantPropagation, boolean oneExpressionRemoval, boolean unusedAssignments) {
+        if (!applicable) {
+            throw new IllegalStateException("The graph is not in single assignment form");
+        }
+
+        if (constantPropagation || oneExpressionRemoval) {
+            for (SequentialNode node : nodes) {
+                propagate(node, constantPropagation, oneExpressionRemoval);
+            }
+        }
+
+        if (unusedAssignments) {
+            for (SequentialNode node : nodes) {
+                if (node instanceof AssignmentNode) {
+                    unusedCandidates.add((AssignmentNode) node);
+                }
+            }
+            while (!unusedCandidates.isEmpty()) {
+                AssignmentNode node = unusedCandidates.removeFirst();
+                if (!removed.contains(node) && !isUsed(getVariableComponent(node.getVariable()))) {
+                    remove(node);
+                }
+            }
+
+            // zero assignments need no code
+            for (SequentialNode node : nodes) {
+                if (node instanceof AssignmentNode && !removed.contains(node) && isZero(((AssignmentNode) node).getValue())) {
+                    remove(node);
+                }
+            }
+        }
+
+        UpdateLocalVariableSet.updateVariableSets(graph);
+        return graphModified;
+    }
+
+    /**
+     * Replaces the uses of constant and copied components in the expressions of a node by their values,
+     * folds the expressions and removes the node, if it is a copy itself
+     * @param node The node
+     * @param constantPropagation Propagate constants and fold constant expressions
+     * @param oneExpressionRemoval Propagate and remove copies
+     */
+    private void propagate(SequentialNode node, boolean constantPropagation, boolean oneExpressionRemoval) {
+        if (node instanceof StoreResultNode) {
+            return;
+        }
+
+        Expression[] expressions = getExpressions(node);
+        boolean changed = false;
+        for (int i = 0; i < expressions.length; i++) {
+            if (expressions[i] == null) {
+                continue;
+            }
+            Expression expression = expressions[i];
+
+            DFGVisitorUsedVariables usedVariables = new DFGVisitorUsedVariables();
+            expression.accept(usedVariables);
+            for (VariableComponent component : usedVariables.getVariables()) {
+                AssignmentNode definition = getReachingDefinition(component, node);
+                if (definition != null
+                        && ((constantPropagation && isFloatConstant(definition.getValue()))
+                        || (oneExpressionRemoval && copies.contains(definition)))) {
+                    ExpressionReplacer replacer = new ExpressionReplacer(component.getReferredExpression(), definition.getValue().copy());
+                    expression = replacer.replace(expression);
+                    changed = true;
+                }
+            }
+
+            if (constantPropagation) {
+                // a folding can enable further foldings, e.g. of double negations
+                boolean folded;
+                do {
+                    ConstantFolding constantFolding = new ConstantFolding();
+                    expression.accept(constantFolding);
+                    expression = constantFolding.getResultExpr();
+                    folded = constantFolding.isGraphModified();
+                    changed |= folded;
+                } while (folded);
+            }
+            expressions[i] = expression;
+        }
+
+        if (changed) {
+            setExpressions(node, expressions);
+            removeUses(node);
+            addUses(node);
+            graphModified = true;
+        }
+
+        if (oneExpressionRemoval && node instanceof AssignmentNode && isCopy((AssignmentNode) node)) {
+            copies.add((AssignmentNode) node);
+            remove(node);
+        }
+    }
+
+    /**
+     * Determines, if an assignment only copies another component, which can replace the uses of the assigned component
+     * @param node The assignment
+     * @return <value>true</value> if the assignment is a removable copy, <value>false</value> otherwise
+     */
+    private boolean isCopy(AssignmentNode node) {
+        DFGNodeType type = DFGNodeTypeGetter.getTypeOfDFGNode(node.getValue());
+        if (type != DFGNodeType.MultivectorComponent && type != DFGNodeType.Variable) {
+            return false;
+        }
+        if (tabuVariables.contains(getVariableComponent(node.getVariable()))) {
+            return false;
+        }
+        // the copied component must not be assigned between the copy and its uses
+        AssignmentNode source = definitions.get(getVariableComponent(node.getValue()));
+        return source == null || positions.get(source) < positions.get(node);
+    }
+
+    /**
+     * Removes a node from the graph and adds the assignments, which lost their last reached use, to the worklist
+     * @param node The node to remove
+     */
+    private void remove(SequentialNode node) {
+        graph.removeNode(node);
+        removed.add(node);
+        removeUses(node);
+        graphModified = true;
+    }
+
+    private void addUses(SequentialNode node) {
+        LinkedList<VariableComponent> components = getUsedComponents(node);
+        uses.put(node, components);
+        for (VariableComponent component : components) {
+            if (getReachingDefinition(component, node) != null) {
+                Integer count = reachedUses.get(component);
+                reachedUses.put(component, (count == null) ? 1 : count + 1);
+            }
+        }
+    }
+
+    private void removeUses(SequentialNode node) {
+        LinkedList<VariableComponent> components = uses.remove(node);
+        if (components == null) {
+            return;
+        }
+        for (VariableComponent component : components) {
+            AssignmentNode definition = getReachingDefinition(component, node);
+            if (definition != null) {
+                int count = reachedUses.get(component) - 1;
+                reachedUses.put(component, count);
+                if (count == 0) {
+                    unusedCandidates.add(definition);
+                }
+            }
+        }
+    }
+
+    private boolean isUsed(VariableComponent component) {
+        Integer count = reachedUses.get(component);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Returns the assignment, which reaches a use of a component in a node
+     * @param component The used component
+     * @param node The using node
+     * @return The assignment, null if the component is not assigned before the node
+     */
+    private AssignmentNode getReachingDefinition(VariableComponent component, SequentialNode node) {
+        AssignmentNode definition = definitions.get(component);
+        if (definition != null && positions.get(definition) < positions.get(node)) {
+            return definition;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the variable components, which are used by a node
+     * @param node The node
+     * @return The used components, a component that is used multiple times is contained multiple times
+     */
+    private LinkedList<VariableComponent> getUsedComponents(SequentialNode node) {
+        LinkedList<VariableComponent> components = new LinkedList<VariableComponent>();
+        if (node instanceof StoreResultNode) {
+            Variable variable = ((StoreResultNode) node).getValue();
+            String name = variable.getName();
+            if (outputBlades.containsKey(name)) {
+                // only special blades are outputted
+                for (Integer bladeIndex : outputBlades.get(name)) {
+                    components.add(new VariableComponent(name, bladeIndex, variable));
+                }
+            } else {
+                // all blades are outputted
+                int bladeCount = usedAlgebra.getBladeCount();
+                for (int blade = 0; blade < bladeCount; blade++) {
+                    components.add(new VariableComponent(name, blade, variable));
+                }
+            }
+            return components;
+        }
+
+        DFGVisitorUsedVariables usedVariables = new DFGVisitorUsedVariables();
+        for (Expression expression : getExpressions(node)) {
+            if (expression != null) {
+                expression.accept(usedVariables);
+            }
+        }
+        components.addAll(usedVariables.getVariables());
+        return components;
+    }
+
+    private static Expression[] getExpressions(SequentialNode node) {
+        if (node instanceof AssignmentNode) {
+            return new Expression[]{((AssignmentNode) node).getValue()};
+        }
+        if (node instanceof ExpressionStatement) {
+            return new Expression[]{((ExpressionStatement) node).getExpression()};
+        }
+        if (node instanceof ColorNode) {
+            ColorNode color = (ColorNode) node;
+            return new Expression[]{color.getR(), color.getG(), color.getB(), color.getAlpha()};
+        }
+        return new Expression[0];
+    }
+
+    private static void setExpressions(SequentialNode node, Expression[] expressions) {
+        if (node instanceof AssignmentNode) {
+            ((AssignmentNode) node).setValue(expressions[0]);
+        } else if (node instanceof ExpressionStatement) {
+            ((ExpressionStatement) node).setExpression(expressions[0]);
+        } else if (node instanceof ColorNode) {
+            ColorNode color = (ColorNode) node;
+            color.setR(expressions[0]);
+            color.setG(expressions[1]);
+            color.setB(expressions[2]);
+            color.setAlpha(expressions[3]);
+        }
+    }
+
+    /**
+     * Returns the VariableComponent for a MultivectorComponent or Variable
+     * @param expression The expression
+     * @return The VariableComponent
+     */
+    private static VariableComponent getVariableComponent(Expression expression) {
+        if (expression instanceof MultivectorComponent) {
+            MultivectorComponent comp = (MultivectorComponent) expression;
+            return new VariableComponent(comp.getName(), comp.getBladeIndex(), expression);
+        }
+        Variable comp = (Variable) expression;
+        return new VariableComponent(comp.getName(), 0, expression);
+    }
+
+    private static boolean isFloatConstant(Expression expression) {
+        return DFGNodeTypeGetter.getTypeOfDFGNode(expression) == DFGNodeType.FloatConstant;
+    }
+
+    private static boolean isZero(Expression expression) {
+        return expression instanceof FloatConstant && Math.abs(((FloatConstant) expression).getValue()) <= EPSILON;
+    }
+
+    /**
+     * Collects the nodes in the order of the graph and detects control flow
+     */
+    private class NodeCollector implements ControlFlowVisitor {
+
+        @Override
+        public void visit(StartNode node) {
+            node.getSuccessor().accept(this);
+        }
+
+        @Override
+        public void visit(AssignmentNode node) {
+            nodes.add(node);
+            node.getSuccessor().accept(this);
+        }
+
+        @Override
+        public void visit(StoreResultNode node) {
+            nodes.add(node);
+            node.getSuccessor().accept(this);
+        }
+
+        @Override
+        public void visit(ExpressionStatement node) {
+            nodes.add(node);
+            node.getSuccessor().accept(this);
+        }
+
+        @Override
+        public void visit(ColorNode node) {
+            nodes.add(node);
+            node.getSuccessor().accept(this);
+        }
+
+        @Override
+        public void visit(IfThenElseNode node) {
+            applicable = false;
+        }
+
+        @Override
+        public void visit(BlockEndNode node) {
+            applicable = false;
+        }
+
+        @Override
+        public void visit(LoopNode node) {
+            applicable = false;
+        }
+
+        @Override
+        public void visit(BreakNode node) {
+            applicable = false;
+        }
+
+        @Override
+        public void visit(Macro node) {
+            applicable = false;
+        }
+
+        @Override
+        public void visit(EndNode node) {
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package de.gaalop.tba.cfgImport.optimization;
+
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.api.cfg.AssignmentNodeCollector;
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.dfg.Expression;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.cfgImport.optimization.polynomial.PolynomialConverter;
+
+/**
+ * Simplifies the values of all assignments without an external process by converting them to polynomials in normal form and back.
+ * This is an alternative to the optimization with maxima for polynomial code.
+ */
+public class OptPolynomialSimplification implements OptimizationStrategyWithModifyFlag {
+
+    @Override
+    public boolean transform(ControlFlowGraph graph, UseAlgebra usedAlgebra, LoggingListenerGroup listeners) throws OptimizationException {
+        AssignmentNodeCollector collector = new AssignmentNodeCollector();
+        graph.accept(collector);
+
+        boolean graphModified = false;
+        for (AssignmentNode node : collector.getAssignmentNodes()) {
+            Expression value = node.getValue();
+            Expression simplified = PolynomialConverter.simplify(value);
+            if (simplified != value) {
+                node.setValue(simplified);
+                graphModified = true;
+            }
+        }
+        return graphModified;
+    }
+
+}
@@ -12,11 +12,18 @@ import java.util.LinkedList;
 public class UpdateLocalVariableSet {
 
     /**
-     * Updates the LocalVariable-set in a graph
+     * Updates the LocalVariable-set in a graph.
+     * If the graph tracks the references of its variables, only the variables
+     * whose references were removed since the last update are checked.
      * @param graph The graph
      */
     public static void updateVariableSets(ControlFlowGraph graph) {
 
+        if (graph.isTrackingVariableReferences()) {
+            graph.removeUnreferencedLocalVariables();
+            return;
+        }
+
         VariablesCollector collector = new VariablesCollector();
         graph.accept(collector);
 
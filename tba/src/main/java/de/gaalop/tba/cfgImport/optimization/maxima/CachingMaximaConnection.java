@@ -0,0 +1,226 @@
+package de.gaalop.tba.cfgImport.optimization.maxima;
+
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Implements a Maxima connection, which answers the statements of an input from a result cache
+ * and sends only the missing statements to another connection.
+ * <p/>
+ * The key of a statement is a hash of the version of Maxima, the statement without whitespace, all preceding settings
+ * (e.g. <code>keepfloat:true;</code>) and the keys of the statements, which bound the used variables
+ * with <code>::</code> before. So the same key always denotes the same result.
+ * The missing statements are sent together with the settings and the statements, which bind their variables.
+ * The output of a cached input has the same form as the output of Maxima.
+ */
+public class CachingMaximaConnection implements MaximaConnection {
+
+    /**
+     * The version of the key format, which is part of every key
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final Pattern SETTING = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*:[^:(]*;");
+    private static final Pattern IDENTIFIER = Pattern.compile("%?[A-Za-z_][A-Za-z0-9_]*(?:\\\\\\$[0-9]+)?");
+
+    private static final Logger log = Logger.getLogger(CachingMaximaConnection.class.getName());
+
+    private MaximaConnection connection;
+    private MaximaResultCache cache;
+    private String maximaVersion;
+    private LoggingListenerGroup listeners = new LoggingListenerGroup();
+
+    /**
+     * Creates a caching connection
+     * @param connection The connection, which optimizes the missing statements
+     * @param cache The cache of the results
+     * @param maximaVersion The version of the Maxima, which is used by the connection
+     */
+    public CachingMaximaConnection(MaximaConnection connection, MaximaResultCache cache, String maximaVersion) {
+        this.connection = connection;
+        this.cache = cache;
+        this.maximaVersion = maximaVersion;
+    }
+
+    @Override
+    public void setProgressListeners(LoggingListenerGroup progressListeners) {
+        listeners = progressListeners;
+        connection.setProgressListeners(progressListeners);
+    }
+
+    @Override
+    public MaximaOutput optimizeWithMaxima(MaximaInput input) throws OptimizationException {
+        ArrayList<String> statements = new ArrayList<String>(input.size());
+        for (String statement : input) {
+            if (!statement.trim().equals("quit();")) {
+                statements.add(statement);
+            }
+        }
+
+        int count = statements.size();
+        boolean[] setting = new boolean[count];
+        String[] keys = new String[count];
+        String[] results = new String[count];
+        // the indices of the statements, which bind the variables used by a statement
+        List<List<Integer>> dependencies = new ArrayList<List<Integer>>(count);
+
+        StringBuilder settings = new StringBuilder();
+        HashMap<String, Integer> definitions = new HashMap<String, Integer>();
+        int misses = 0;
+        for (int i = 0; i < count; i++) {
+            String canonical = canonicalize(statements.get(i));
+            LinkedList<Integer> used = new LinkedList<Integer>();
+            dependencies.add(used);
+            if (SETTING.matcher(canonical).matches()) {
+                setting[i] = true;
+                settings.append(canonical);
+                results[i] = canonical.substring(canonical.indexOf(':') + 1, canonical.length() - 1);
+                continue;
+            }
+
+            MessageDigest digest = createDigest();
+            update(digest, "format " + FORMAT_VERSION);
+            update(digest, maximaVersion);
+            update(digest, settings.toString());
+            update(digest, canonical);
+            for (String variable : getIdentifiers(canonical)) {
+                Integer definition = definitions.get(variable);
+                if (definition != null) {
+                    update(digest, variable + "=" + keys[definition]);
+                    used.add(definition);
+                }
+            }
+            keys[i] = toHex(digest.digest());
+
+            int bound = canonical.indexOf("::");
+            if (bound > 0) {
+                definitions.put(canonical.substring(0, bound), i);
+            }
+
+            results[i] = cache.get(keys[i]);
+            if (results[i] == null) {
+                misses++;
+            }
+        }
+
+        if (misses > 0 && !optimizeMisses(statements, setting, keys, results, dependencies)) {
+            log.warning("The output of Maxima does not match the reduced input, the input is optimized without cache");
+            return connection.optimizeWithMaxima(input);
+        }
+        if (misses == 0) {
+            listeners.logNote("Done", 1.0);
+        }
+
+        MaximaOutput output = new MaximaOutput();
+        for (int i = 0; i < count; i++) {
+            output.add("(%i" + (i + 1) + ") " + statements.get(i));
+            output.add("(%o" + (i + 1) + ") " + results[i]);
+        }
+        return output;
+    }
+
+    /**
+     * Sends the missing statements with the settings and the statements they depend on to Maxima
+     * and stores their results
+     * @return <value>false</value>, if the output of Maxima does not match the input
+     */
+    private boolean optimizeMisses(List<String> statements, boolean[] setting, String[] keys, String[] results,
+            List<List<Integer>> dependencies) throws OptimizationException {
+        int count = statements.size();
+        boolean[] needed = new boolean[count];
+        // dependencies precede their users, so one backward pass computes the closure
+        for (int i = count - 1; i >= 0; i--) {
+            needed[i] |= setting[i] || results[i] == null;
+            if (needed[i]) {
+                for (int definition : dependencies.get(i)) {
+                    needed[definition] = true;
+                }
+            }
+        }
+
+        MaximaInput reduced = new MaximaInput();
+        for (int i = 0; i < count; i++) {
+            if (needed[i]) {
+                reduced.add(statements.get(i));
+            }
+        }
+        reduced.add("quit();");
+
+        MaximaOutput output = connection.optimizeWithMaxima(reduced);
+        if (output == null) {
+            return false;
+        }
+        LinkedList<String> connected = new LinkedList<String>();
+        MaximaRoutines.groupMaximaInAndOutputs(connected, output);
+        if (connected.size() < reduced.size() - 1) {
+            return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (needed[i]) {
+                String result = connected.removeFirst();
+                if (!setting[i]) {
+                    if (results[i] == null) {
+                        cache.put(keys[i], result);
+                    }
+                    results[i] = result;
+                }
+            }
+        }
+        cache.evict();
+        return true;
+    }
+
+    private static String canonicalize(String statement) {
+        return statement.replaceAll("\\s+", "");
+    }
+
+    /**
+     * Returns the identifiers of a statement in the order of their first occurrence
+     */
+    private static LinkedHashSet<String> getIdentifiers(String statement) {
+        LinkedHashSet<String> identifiers = new LinkedHashSet<String>();
+        Matcher matcher = IDENTIFIER.matcher(statement);
+        while (matcher.find()) {
+            identifiers.add(matcher.group());
+        }
+        return identifiers;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        byte[] bytes = s.getBytes(Charset.forName("UTF-8"));
+        // the length separates the strings, so that different strings can not result in the same key
+        for (int i = 0; i < 4; i++) {
+            digest.update((byte) (bytes.length >>> (8 * i)));
+        }
+        digest.update(bytes);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+}
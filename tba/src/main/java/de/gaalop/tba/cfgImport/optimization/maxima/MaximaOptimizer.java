@@ -6,11 +6,25 @@ import de.gaalop.LoggingListenerGroup;
 import de.gaalop.api.cfg.AssignmentNodeCollector;
 import de.gaalop.cfg.AssignmentNode;
 import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.dfg.EmptyExpressionVisitor;
 import de.gaalop.dfg.Expression;
 import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Variable;
 import de.gaalop.tba.Plugin;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.ListIterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Defines a facade class for transforming a graph with maxima
@@ -22,12 +36,22 @@ public class MaximaOptimizer {
     private AssignmentNodeCollector assignmentNodeCollector;
     private Plugin plugin;
     private StoreResultNodesCollector collector;
+    private int workers = 1;
 
     public MaximaOptimizer(MaximaConnection connection, Plugin plugin) {
         this.connection = connection;
         this.plugin = plugin;
     }
 
+    /**
+     * Sets the number of Maxima processes, which optimize independent partitions of the assignments concurrently.
+     * The connection must support concurrent requests, if more than one worker is used.
+     * @param workers The number of workers, 1 optimizes all assignments in one batch
+     */
+    public void setWorkers(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
     /**
      * Transforms a given ControlFlowGraph using the maxima optimization
      * @param graph The ControlFlowGraph to be transformed
@@ -37,14 +61,63 @@ public class MaximaOptimizer {
         collector = new StoreResultNodesCollector();
         graph.accept(collector);
 
+        assignmentNodeCollector = new AssignmentNodeCollector();
+        graph.accept(assignmentNodeCollector);
+        ArrayList<AssignmentNode> nodes = new ArrayList<AssignmentNode>(assignmentNodeCollector.getAssignmentNodes());
+
+        ArrayList<String> statements = new ArrayList<String>(nodes.size());
+        ArrayList<String> insertedVariables = new ArrayList<String>(nodes.size());
+        for (AssignmentNode node : nodes) {
+            fillStatement(graph, node, statements, insertedVariables);
+        }
+
+        Expression[] results = new Expression[nodes.size()];
+        List<List<Integer>> partitions = partition(nodes, insertedVariables, workers);
+        if (partitions.size() <= 1) {
+            connection.setProgressListeners(progressLoggers);
+            optimizePartition(statements, range(nodes.size()), results);
+        } else {
+            optimizeConcurrently(statements, partitions, results, progressLoggers);
+        }
+
+        // splice the results in, the graph is only changed by this thread
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                nodes.get(i).setValue(results[i]);
+            }
+        }
+/*
+        if (plugin.isOptInserting() && plugin.isScalarFunctions()) {
+            removeUnusedAssignments(graph, collector.getVariables());
+        }
+*/
+
+    }
+
+    private static List<Integer> range(int size) {
+        ArrayList<Integer> result = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    /**
+     * Optimizes the statements of a partition in one Maxima batch
+     * @param statements The statements of all assignments
+     * @param partition The indices of the assignments of the partition in ascending order
+     * @param results The results of all assignments, the results of the partition are set
+     */
+    private void optimizePartition(List<String> statements, List<Integer> partition, Expression[] results) throws OptimizationException {
         MaximaInput input = new MaximaInput();
         input.add("display2d:false;"); // very important!
         input.add("ratprint:false;"); // very important!
         input.add("keepfloat:true;");
-        fillMaximaInput(graph, input);
+        for (int index : partition) {
+            input.add(statements.get(index));
+        }
         input.add("quit();"); // very important!
 
-        connection.setProgressListeners(progressLoggers);
         MaximaOutput output = connection.optimizeWithMaxima(input);
 
         //connect in and output
@@ -55,67 +128,232 @@ public class MaximaOptimizer {
         connected.removeFirst(); // remove ratsimp
         connected.removeFirst(); // remove keepfloat
 
-        ListIterator<AssignmentNode> listIterator = assignmentNodeCollector.getAssignmentNodes().listIterator();
+        Iterator<Integer> indices = partition.iterator();
         for (String io : connected) {
-            Expression exp = MaximaRoutines.getExpressionFromMaximaOutput(io);
-            listIterator.next().setValue(exp);
-        }
-/*
-        if (plugin.isOptInserting() && plugin.isScalarFunctions()) {
-            removeUnusedAssignments(graph, collector.getVariables());
+            if (!indices.hasNext()) {
+                break;
+            }
+            results[indices.next()] = MaximaRoutines.getExpressionFromMaximaOutput(io);
         }
-*/
-
     }
 
     /**
-     * Fills a given MaximaInput instance with input for maxima, determined from a given graph
-     * @param graph The graph to be transformed in MaximaInput
-     * @param input The MaximaInput instance to be filled
+     * Optimizes the partitions concurrently and reports the progress per finished partition
      */
-    private void fillMaximaInput(ControlFlowGraph graph, MaximaInput input) {
+    private void optimizeConcurrently(final List<String> statements, List<List<Integer>> partitions, final Expression[] results,
+            final LoggingListenerGroup progressLoggers) throws OptimizationException {
+        // the progress of the single batches is not meaningful
+        connection.setProgressListeners(new LoggingListenerGroup());
 
+        final int count = partitions.size();
+        final AtomicInteger finished = new AtomicInteger(0);
+        progressLoggers.logNote("Compiling with Maxima in " + count + " partitions, please wait...", 0.0);
 
-        assignmentNodeCollector = new AssignmentNodeCollector();
-        graph.accept(assignmentNodeCollector);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, count));
+        try {
+            LinkedList<Future<?>> futures = new LinkedList<Future<?>>();
+            for (final List<Integer> partition : partitions) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws OptimizationException {
+                        optimizePartition(statements, partition, results);
+                        int done = finished.incrementAndGet();
+                        synchronized (progressLoggers) {
+                            progressLoggers.logNote("Maxima partition " + done + " of " + count + " done", ((double) done) / count);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof OptimizationException) {
+                        throw (OptimizationException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OptimizationException("Interrupted while waiting for Maxima", null);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        progressLoggers.logNote("Done", 1.0);
+    }
 
-        for (AssignmentNode node : assignmentNodeCollector.getAssignmentNodes()) {
+    /**
+     * Partitions the assignments into groups, which can be optimized independently.
+     * <p/>
+     * An assignment, whose value is inserted by Maxima, binds its variable in the Maxima session,
+     * so it must be optimized in the same batch as the assignments, which use the variable.
+     * The connected components of these dependencies are distributed to the partitions, so that
+     * the partitions contain statements of nearly equal total length.
+     *
+     * @param nodes The assignments in the order of the graph
+     * @param insertedVariables The Maxima variables, which are bound by the assignments, null for the not inserted assignments
+     * @param count The maximum number of partitions
+     * @return The indices of the assignments of every non-empty partition in ascending order
+     */
+    static List<List<Integer>> partition(List<AssignmentNode> nodes, List<String> insertedVariables, int count) {
+        if (count <= 1) {
+            LinkedList<List<Integer>> result = new LinkedList<List<Integer>>();
+            result.add(range(nodes.size()));
+            return result;
+        }
 
-            DFGToMaximaCode dfg = new DFGToMaximaCode();
-            node.getVariable().accept(dfg);
-            String variable = "";
-
-
-
-            //using the store result nodes for marking to evaluate immediately is not possible in all cases,
-            //reason: consider a large cluscript with only one StoreResultNode add the end
-            //all non-marked assignments were inserted in the assignment with the StoreResultNode.getValue() as desitination variable
-            //this expression can be very long. Possible too long for the java code limit per method (65535 bytes)
-            //Splitting isn't trivial except of splitting the methods between two assignments, so the using of store result nodes can be expensive to compile time.
-
-            dfg = new DFGToMaximaCode();
-            node.getValue().accept(dfg);
-            String value = "ratsimp("+dfg.getResultString() + ");";
-            if (plugin.isOptInserting()) {
-                String name = node.getVariable().getName();
-                if (!graph.getPragmaOnlyEvaluateVariables().contains(name) && !collector.containsStoreResultVariableName(name)) { // see comment above
-                    dfg = new DFGToMaximaCode();
-                    node.getVariable().accept(dfg);
-                    variable = dfg.getResultString() + "::";
+        // union find over the assignments
+        final int[] parent = new int[nodes.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        HashMap<String, Integer> definitions = new HashMap<String, Integer>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (insertedVariables.get(i) != null) {
+                definitions.put(insertedVariables.get(i), i);
+            }
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            UsedMaximaVariables used = new UsedMaximaVariables();
+            nodes.get(i).getValue().accept(used);
+            for (String variable : used.variables) {
+                Integer definition = definitions.get(variable);
+                if (definition != null) {
+                    parent[find(parent, i)] = find(parent, definition);
                 }
             }
+        }
 
-            if (!plugin.isScalarFunctions() & !(node.getVariable() instanceof MultivectorComponent)) {
-                variable = "";
+        // the components with their sizes
+        HashMap<Integer, List<Integer>> components = new HashMap<Integer, List<Integer>>();
+        HashMap<Integer, Integer> sizes = new HashMap<Integer, Integer>();
+        for (int i = 0; i < nodes.size(); i++) {
+            int root = find(parent, i);
+            if (!components.containsKey(root)) {
+                components.put(root, new ArrayList<Integer>());
+                sizes.put(root, 0);
             }
+            components.get(root).add(i);
+            sizes.put(root, sizes.get(root) + getSize(nodes.get(i)));
+        }
 
-            if (plugin.isMaximaExpand())
-                input.add(variable + "expand(ratsimp("+value.substring(0, value.length()-1)+"));");
-            else
-                input.add(variable + value);
+        // largest components first to the smallest partition
+        ArrayList<Integer> roots = new ArrayList<Integer>(components.keySet());
+        final HashMap<Integer, Integer> componentSizes = sizes;
+        Collections.sort(roots, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int size = componentSizes.get(b) - componentSizes.get(a);
+                return (size != 0) ? size : a - b;
+            }
+        });
+        int partitionCount = Math.min(count, roots.size());
+        ArrayList<List<Integer>> partitions = new ArrayList<List<Integer>>(partitionCount);
+        long[] loads = new long[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<Integer>());
+        }
+        for (int root : roots) {
+            int smallest = 0;
+            for (int i = 1; i < partitionCount; i++) {
+                if (loads[i] < loads[smallest]) {
+                    smallest = i;
+                }
+            }
+            partitions.get(smallest).addAll(components.get(root));
+            loads[smallest] += componentSizes.get(root);
+        }
+        for (List<Integer> partition : partitions) {
+            Collections.sort(partition);
+        }
+        return partitions;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Returns the estimated effort of optimizing an assignment
+     */
+    private static int getSize(AssignmentNode node) {
+        DFGToMaximaCode dfg = new DFGToMaximaCode();
+        node.getValue().accept(dfg);
+        return dfg.getResultString().length();
+    }
+
+    /**
+     * Collects the Maxima names of the variables, which are used by an expression
+     */
+    private static class UsedMaximaVariables extends EmptyExpressionVisitor {
+
+        private HashSet<String> variables = new HashSet<String>();
+
+        @Override
+        public void visit(Variable node) {
+            add(node);
+        }
+
+        @Override
+        public void visit(MultivectorComponent node) {
+            add(node);
+        }
+
+        private void add(Variable node) {
+            DFGToMaximaCode dfg = new DFGToMaximaCode();
+            node.accept(dfg);
+            variables.add(dfg.getResultString());
+        }
+    }
+
+    /**
+     * Creates the Maxima statement of an assignment
+     * @param graph The graph
+     * @param node The assignment
+     * @param statements The list of statements to be filled
+     * @param insertedVariables The list of the variables, which are bound by inserting, to be filled. null is added, if the value is not inserted.
+     */
+    private void fillStatement(ControlFlowGraph graph, AssignmentNode node, List<String> statements, List<String> insertedVariables) {
+        DFGToMaximaCode dfg = new DFGToMaximaCode();
+        node.getVariable().accept(dfg);
+        String variable = "";
+        String insertedVariable = null;
+
+        //using the store result nodes for marking to evaluate immediately is not possible in all cases,
+        //reason: consider a large cluscript with only one StoreResultNode add the end
+        //all non-marked assignments were inserted in the assignment with the StoreResultNode.getValue() as desitination variable
+        //this expression can be very long. Possible too long for the java code limit per method (65535 bytes)
+        //Splitting isn't trivial except of splitting the methods between two assignments, so the using of store result nodes can be expensive to compile time.
+
+        dfg = new DFGToMaximaCode();
+        node.getValue().accept(dfg);
+        String value = "ratsimp("+dfg.getResultString() + ");";
+        if (plugin.isOptInserting()) {
+            String name = node.getVariable().getName();
+            if (!graph.getPragmaOnlyEvaluateVariables().contains(name) && !collector.containsStoreResultVariableName(name)) { // see comment above
+                dfg = new DFGToMaximaCode();
+                node.getVariable().accept(dfg);
+                insertedVariable = dfg.getResultString();
+                variable = insertedVariable + "::";
+            }
+        }
 
+        if (!plugin.isScalarFunctions() & !(node.getVariable() instanceof MultivectorComponent)) {
+            variable = "";
+            insertedVariable = null;
         }
 
+        if (plugin.isMaximaExpand())
+            statements.add(variable + "expand(ratsimp("+value.substring(0, value.length()-1)+"));");
+        else
+            statements.add(variable + value);
+        insertedVariables.add(insertedVariable);
     }
 
 }
@@ -0,0 +1,172 @@
+package de.gaalop.tba.cfgImport.optimization.maxima;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A persistent cache of the results of single Maxima statements, which is shared by all processes using the same directory.
+ * <p/>
+ * Every entry is stored in its own file, whose name is the key of the statement.
+ * The entries are evicted in least recently used order, if the size of the directory exceeds a limit.
+ * Temporary files, which are left over by terminated processes, are deleted when the cache is opened.
+ * Errors of the cache never fail an optimization, they are logged and treated as cache misses.
+ */
+public class MaximaResultCache {
+
+    private static final String SUFFIX = ".maxima";
+
+    private static final String TEMP_PREFIX = "entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /** Temporary files, which are older than this age, are not written anymore */
+    private static final long STALE_TEMP_AGE = 60 * 60 * 1000;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Logger log = Logger.getLogger(MaximaResultCache.class.getName());
+
+    private final File directory;
+    private final long maxSize;
+
+    /**
+     * Creates a cache
+     * @param directory The directory of the cache entries, which is created if necessary
+     * @param maxSize The maximum size of all entries in bytes
+     */
+    public MaximaResultCache(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        deleteStaleTemporaryFiles();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the result of a statement and marks the entry as recently used
+     * @param key The key of the statement
+     * @return The output of Maxima for the statement, null if the statement is not cached
+     */
+    public String get(String key) {
+        File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            String result = new String(Files.readAllBytes(file.toPath()), UTF8);
+            file.setLastModified(System.currentTimeMillis());
+            return result;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Removing unreadable Maxima cache entry " + file, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the result of a statement. The size limit is enforced by {@link #evict()}.
+     * @param key The key of the statement
+     * @param result The output of Maxima for the statement
+     */
+    public void put(String key, String result) {
+        try {
+            directory.mkdirs();
+            // the entry is written to a temporary file first, so that other processes never read an incomplete entry
+            File temp = File.createTempFile(TEMP_PREFIX, TEMP_SUFFIX, directory);
+            Files.write(temp.toPath(), result.getBytes(UTF8));
+            Files.move(temp.toPath(), getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Unable to store Maxima cache entry " + key, e);
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries, until the size of all entries is not greater than the maximum size
+     */
+    public synchronized void evict() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        List<File> entries = new ArrayList<File>();
+        // the modification times are read once, because they can be changed concurrently
+        final HashMap<File, Long> lastUsed = new HashMap<File, Long>();
+        long size = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(SUFFIX)) {
+                entries.add(file);
+                lastUsed.put(file, file.lastModified());
+                size += file.length();
+            }
+        }
+        if (size <= maxSize) {
+            return;
+        }
+
+        Collections.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return lastUsed.get(f1).compareTo(lastUsed.get(f2));
+            }
+        });
+        for (int i = 0; i < entries.size() && size > maxSize; i++) {
+            long length = entries.get(i).length();
+            if (entries.get(i).delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary files of entries, which have not been completed
+     */
+    private void deleteStaleTemporaryFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        // recent temporary files can be written by other processes at the moment
+        long staleTime = System.currentTimeMillis() - STALE_TEMP_AGE;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX) && file.lastModified() < staleTime) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes all entries
+     */
+    public synchronized void clear() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private File getFile(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+}
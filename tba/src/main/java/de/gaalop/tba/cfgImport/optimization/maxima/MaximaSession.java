@@ -0,0 +1,181 @@
+package de.gaalop.tba.cfgImport.optimization.maxima;
+
+import de.gaalop.LoggingListenerGroup;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a long-lived Maxima process, which executes several requests.
+ * <p/>
+ * A request is a sequence of statements, which is written to the standard input of Maxima
+ * and followed by a statement, that prints a unique end marker.
+ * The response consists of all output lines up to the end marker.
+ * A reader thread collects the output lines, so that requests can time out.
+ * The progress of a request is reported per input line, which Maxima echoes.
+ */
+public class MaximaSession {
+
+    private static final String MARKER = "<<gaalop-request-";
+
+    /** Maxima echoes every input line of a batch file with an input label */
+    private static final Pattern INPUT_LINE = Pattern.compile("[(][%]i\\d*[)].*");
+
+    /** Signals the end of the output of Maxima, compared by identity */
+    private static final String END_OF_OUTPUT = new String("end of output");
+
+    private final Process process;
+    private final PrintWriter writer;
+    private final LinkedBlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+    private int requests = 0;
+    private long lastUsed = System.currentTimeMillis();
+
+    /**
+     * Starts a Maxima process
+     * @param command The command and the arguments to start Maxima
+     * @throws IOException if Maxima can not be started
+     */
+    public MaximaSession(List<String> command) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        process = builder.start();
+        writer = new PrintWriter(process.getOutputStream());
+
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        Thread readerThread = new Thread("Maxima output reader") {
+            @Override
+            public void run() {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                    reader.close();
+                } catch (IOException e) {
+                    // the process has been destroyed
+                }
+                lines.add(END_OF_OUTPUT);
+            }
+        };
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Determines, if the Maxima process is still running
+     * @return <value>true</value> if the process is running, <value>false</value> otherwise
+     */
+    public boolean isAlive() {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns the time of the end of the last request
+     * @return The time in milliseconds
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Executes statements in Maxima
+     * @param statements The statements
+     * @param timeoutMillis The maximum time to wait for the response in milliseconds
+     * @return The output lines of Maxima
+     * @throws IOException if the Maxima process terminated
+     * @throws TimeoutException if Maxima did not respond in time. The session must be closed then.
+     */
+    public List<String> execute(List<String> statements, long timeoutMillis) throws IOException, TimeoutException {
+        return execute(statements, timeoutMillis, new LoggingListenerGroup(), 1);
+    }
+
+    /**
+     * Executes statements in Maxima and reports the progress, while the output lines arrive
+     * @param statements The statements
+     * @param timeoutMillis The maximum time to wait for the response in milliseconds
+     * @param listeners The listeners, which are notified of the progress
+     * @param steps The expected number of input lines in the output
+     * @return The output lines of Maxima
+     * @throws IOException if the Maxima process terminated
+     * @throws TimeoutException if Maxima did not respond in time. The session must be closed then.
+     */
+    public List<String> execute(List<String> statements, long timeoutMillis, LoggingListenerGroup listeners, int steps) throws IOException, TimeoutException {
+        requests++;
+        String marker = MARKER + requests + ">>";
+        for (String statement : statements) {
+            writer.println(statement);
+        }
+        writer.println("print(\"" + marker + "\")$");
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("Maxima does not accept input");
+        }
+
+        LinkedList<String> output = new LinkedList<String>();
+        int progress = 0;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            String line;
+            try {
+                line = lines.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for Maxima");
+            }
+            if (line == null) {
+                throw new TimeoutException("Maxima did not respond within " + timeoutMillis + " ms");
+            }
+            if (line == END_OF_OUTPUT) {
+                lines.add(END_OF_OUTPUT);
+                throw new IOException("Maxima terminated unexpectedly");
+            }
+            if (line.contains(marker)) {
+                lastUsed = System.currentTimeMillis();
+                return output;
+            }
+            if (INPUT_LINE.matcher(line).matches()) {
+                progress++;
+                listeners.logNote("Compiling with Maxima, please wait...", Math.min(1.0, ((double) progress) / steps));
+            }
+            output.add(line);
+        }
+    }
+
+    /**
+     * Checks, if Maxima responds to an empty request
+     * @param timeoutMillis The maximum time to wait for the response in milliseconds
+     * @return <value>true</value> if Maxima responded, <value>false</value> otherwise
+     */
+    public boolean ping(long timeoutMillis) {
+        try {
+            execute(new LinkedList<String>(), timeoutMillis);
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Quits Maxima and terminates the process
+     */
+    public void close() {
+        writer.println("quit();");
+        writer.close();
+        process.destroy();
+    }
+
+}
@@ -0,0 +1,319 @@
+package de.gaalop.tba.cfgImport.optimization.maxima;
+
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.GlobalSettings;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Manages a pool of long-lived Maxima sessions, so that the startup of Maxima is paid only once per session
+ * and parallel compilations do not start more Maxima processes than the pool size.
+ * <p/>
+ * A request borrows a session, executes the input as batch file in it and returns the session afterwards.
+ * Sessions, which have been idle for a while, are checked before their use.
+ * If a session terminates during a request, it is restarted and the request is repeated once.
+ * If a request times out, its session is terminated.
+ */
+public class MaximaSessionPool {
+
+    /** The default time to wait for the response of a request */
+    public static final long DEFAULT_TIMEOUT = 5 * 60 * 1000;
+
+    /** Sessions, which have been idle longer than this time, are checked before their use */
+    private static final long HEALTH_CHECK_INTERVAL = 30 * 1000;
+    private static final long HEALTH_CHECK_TIMEOUT = 10 * 1000;
+
+    private static final HashMap<String, MaximaSessionPool> shared = new HashMap<String, MaximaSessionPool>();
+
+    private static final Logger log = Logger.getLogger(MaximaSessionPool.class.getName());
+
+    private final List<String> command;
+    private final int size;
+    private final long timeoutMillis;
+
+    private final LinkedBlockingQueue<MaximaSession> idle = new LinkedBlockingQueue<MaximaSession>();
+    /** The number of running sessions, including the borrowed ones */
+    private int running = 0;
+    private int started = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates a pool, the sessions are started on demand
+     * @param command The command and the arguments to start Maxima
+     * @param size The maximum number of sessions
+     * @param timeoutMillis The maximum time to wait for the response of a request in milliseconds
+     */
+    public MaximaSessionPool(List<String> command, int size, long timeoutMillis) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The pool needs at least one session");
+        }
+        this.command = command;
+        this.size = size;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Returns the pool for a Maxima command, which is shared by all compilations.
+     * The sessions of the shared pools are terminated, when the virtual machine shuts down.
+     * @param commandMaxima The command to start Maxima
+     * @param size The maximum number of sessions
+     * @return The shared pool
+     */
+    public static MaximaSessionPool getShared(String commandMaxima, int size) {
+        synchronized (shared) {
+            if (shared.isEmpty()) {
+                Runtime.getRuntime().addShutdownHook(new Thread("Maxima session shutdown") {
+                    @Override
+                    public void run() {
+                        synchronized (shared) {
+                            for (MaximaSessionPool pool : shared.values()) {
+                                pool.close();
+                            }
+                        }
+                    }
+                });
+            }
+            String key = size + " " + commandMaxima;
+            MaximaSessionPool pool = shared.get(key);
+            if (pool == null) {
+                pool = new MaximaSessionPool(Arrays.asList(commandMaxima), size, DEFAULT_TIMEOUT);
+                shared.put(key, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Creates the connection to Maxima, which is configured by the global settings
+     * @param settings The global settings with the Maxima command, the number of long-lived Maxima sessions
+     * (0 to start a new Maxima process for every request) and the directory and size of the result cache
+     * @return The connection
+     */
+    public static MaximaConnection createConnection(GlobalSettings settings) {
+        MaximaConnection connection = (settings.getMaximaSessions() <= 0)
+                ? new ProcessBuilderMaximaConnection(settings.getMaximaCommand())
+                : new PooledMaximaConnection(getShared(settings.getMaximaCommand(), settings.getMaximaSessions()));
+
+        String cacheDirectory = settings.getMaximaCacheDirectory();
+        if (cacheDirectory == null || cacheDirectory.trim().isEmpty()) {
+            return connection;
+        }
+        // the results of different Maxima versions can differ, so the version is part of the cache keys
+        String version = settings.getMaximaVersion();
+        if (version == null) {
+            log.warning("The version of Maxima could not be determined, the results of Maxima are not cached");
+            return connection;
+        }
+        MaximaResultCache cache = new MaximaResultCache(new File(cacheDirectory.trim()), settings.getMaximaCacheSize() * 1024L * 1024L);
+        return new CachingMaximaConnection(connection, cache, version);
+    }
+
+    /**
+     * Returns the number of sessions, which have been started by this pool
+     * @return The number of started sessions
+     */
+    public synchronized int getStartedSessions() {
+        return started;
+    }
+
+    /**
+     * Borrows an idle session or starts a new one, if the pool is not exhausted.
+     * Otherwise waits for an idle session.
+     */
+    private MaximaSession borrow() throws OptimizationException {
+        while (true) {
+            MaximaSession session;
+            boolean startSession = false;
+            synchronized (this) {
+                if (closed) {
+                    throw new OptimizationException("The Maxima sessions have been closed", null);
+                }
+                session = idle.poll();
+                if (session == null && running < size) {
+                    running++;
+                    startSession = true;
+                }
+            }
+            if (startSession) {
+                return start();
+            }
+            if (session == null) {
+                // wait for a given back session, discarded sessions free a place for a new one
+                try {
+                    session = idle.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OptimizationException("Interrupted while waiting for a Maxima session", null);
+                }
+                if (session == null) {
+                    continue;
+                }
+            }
+            if (isHealthy(session)) {
+                return session;
+            }
+            discard(session);
+        }
+    }
+
+    private MaximaSession start() throws OptimizationException {
+        try {
+            MaximaSession session = new MaximaSession(command);
+            synchronized (this) {
+                started++;
+            }
+            return session;
+        } catch (IOException e) {
+            synchronized (this) {
+                running--;
+            }
+            throw new OptimizationException("Maxima is not accessible. Please check the Maxima command in the Configurations panel or disable the usage of Maxima.", null);
+        }
+    }
+
+    private boolean isHealthy(MaximaSession session) {
+        if (!session.isAlive()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - session.getLastUsed() < HEALTH_CHECK_INTERVAL) {
+            return true;
+        }
+        return session.ping(HEALTH_CHECK_TIMEOUT);
+    }
+
+    private void giveBack(MaximaSession session) {
+        synchronized (this) {
+            if (!closed) {
+                idle.add(session);
+                return;
+            }
+        }
+        discard(session);
+    }
+
+    private void discard(MaximaSession session) {
+        session.close();
+        synchronized (this) {
+            running--;
+        }
+    }
+
+    /**
+     * Executes the input in a session of this pool.
+     * The input is executed as batch file, so that the output has the same form as the output of a new Maxima process.
+     * A quit statement at the end of the input is ignored, the state of the session is reset before the execution.
+     * @param input The input for Maxima
+     * @return The output of Maxima
+     * @throws OptimizationException if Maxima can not be started, terminates twice or does not respond in time
+     */
+    public MaximaOutput execute(MaximaInput input) throws OptimizationException {
+        return execute(input, new LoggingListenerGroup());
+    }
+
+    /**
+     * Executes the input in a session of this pool and reports the progress per echoed input line
+     * @param input The input for Maxima
+     * @param listeners The listeners, which are notified of the progress
+     * @return The output of Maxima
+     * @throws OptimizationException if Maxima can not be started, terminates twice or does not respond in time
+     */
+    public MaximaOutput execute(MaximaInput input, LoggingListenerGroup listeners) throws OptimizationException {
+        File batchFile = null;
+        try {
+            batchFile = File.createTempFile("tbaMaxima", ".txt");
+            PrintWriter out = new PrintWriter(batchFile);
+            int steps = 1; // the batch statement itself is echoed, too
+            for (String line : input) {
+                if (!line.trim().equals("quit();")) {
+                    out.println(line);
+                    steps++;
+                }
+            }
+            out.close();
+
+            String path = batchFile.getCanonicalPath();
+            if (File.separatorChar == '\\') {
+                path = path.replaceAll("\\\\", "\\\\\\\\");
+            }
+            LinkedList<String> statements = new LinkedList<String>();
+            statements.add("kill(all)$");
+            statements.add("batch(\"" + path + "\")$");
+
+            return execute(statements, listeners, steps, true);
+        } catch (IOException e) {
+            throw new OptimizationException("The input for Maxima could not be written: " + e.getMessage(), null);
+        } finally {
+            if (batchFile != null) {
+                batchFile.delete();
+            }
+        }
+    }
+
+    private MaximaOutput execute(List<String> statements, LoggingListenerGroup listeners, int steps, boolean retry) throws OptimizationException {
+        MaximaSession session = borrow();
+        try {
+            List<String> lines = session.execute(statements, timeoutMillis, listeners, steps);
+            giveBack(session);
+            MaximaOutput output = new MaximaOutput();
+            output.addAll(lines);
+            return output;
+        } catch (IOException e) {
+            // the session crashed, restart it once
+            discard(session);
+            if (retry) {
+                return execute(statements, listeners, steps, false);
+            }
+            throw new OptimizationException("Maxima terminated unexpectedly", null);
+        } catch (TimeoutException e) {
+            discard(session);
+            throw new OptimizationException(e.getMessage(), null);
+        } catch (RuntimeException e) {
+            discard(session);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks all idle sessions and terminates the sessions, which do not respond
+     * @return The number of responding idle sessions
+     */
+    public int checkHealth() {
+        LinkedList<MaximaSession> sessions = new LinkedList<MaximaSession>();
+        idle.drainTo(sessions);
+        int healthy = 0;
+        for (MaximaSession session : sessions) {
+            if (session.isAlive() && session.ping(HEALTH_CHECK_TIMEOUT)) {
+                healthy++;
+                giveBack(session);
+            } else {
+                discard(session);
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * Terminates all idle sessions, borrowed sessions are terminated, when they are given back
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        LinkedList<MaximaSession> sessions = new LinkedList<MaximaSession>();
+        idle.drainTo(sessions);
+        for (MaximaSession session : sessions) {
+            discard(session);
+        }
+    }
+
+}
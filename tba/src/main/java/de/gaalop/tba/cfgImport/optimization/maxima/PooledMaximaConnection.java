@@ -0,0 +1,31 @@
+package de.gaalop.tba.cfgImport.optimization.maxima;
+
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+
+/**
+ * Implements the Maxima connection using a pool of long-lived Maxima sessions
+ */
+public class PooledMaximaConnection implements MaximaConnection {
+
+    private MaximaSessionPool pool;
+    private LoggingListenerGroup listeners = new LoggingListenerGroup();
+
+    public PooledMaximaConnection(MaximaSessionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void setProgressListeners(LoggingListenerGroup progressListeners) {
+        listeners = progressListeners;
+    }
+
+    @Override
+    public MaximaOutput optimizeWithMaxima(MaximaInput input) throws OptimizationException {
+        listeners.logNote("Compiling with Maxima, please wait...", 0.0);
+        MaximaOutput output = pool.execute(input, listeners);
+        listeners.logNote("Done", 1.0);
+        return output;
+    }
+
+}
@@ -0,0 +1,171 @@
+package de.gaalop.tba.cfgImport.optimization.polynomial;
+
+/**
+ * An open addressing hash map from the exponent vectors of monomials to their coefficients.
+ * <p/>
+ * The map uses linear probing. Coefficients, which cancel out, keep their slot with a zero coefficient
+ * until the next rehash, so that no entries have to be removed from a probe sequence.
+ */
+final class MonomialMap {
+
+    /** Coefficients, whose absolute value is smaller than this fraction of the summands, are cancelled out */
+    private static final double CANCELLATION = 1E-12;
+
+    private int[][] keys;
+    private double[] coefficients;
+    private int[] hashes;
+    /** The number of occupied slots, including the slots of cancelled coefficients */
+    private int occupied;
+    /** The number of non-zero coefficients */
+    private int size;
+
+    MonomialMap(int expectedSize) {
+        int capacity = 4;
+        while (capacity < 2 * expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity][];
+        coefficients = new double[capacity];
+        hashes = new int[capacity];
+        occupied = 0;
+        size = 0;
+    }
+
+    private static int hash(int[] exponents) {
+        int h = 1;
+        for (int exponent : exponents) {
+            h = 31 * h + exponent;
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equalExponents(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the slot of an exponent vector or the free slot, where it has to be inserted
+     */
+    private int find(int[] exponents, int hash) {
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null && (hashes[slot] != hash || !equalExponents(keys[slot], exponents))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Adds a coefficient to the coefficient of a monomial.
+     * The exponent vector is stored without copying, so it must not be changed afterwards.
+     *
+     * @param exponents The exponent vector of the monomial
+     * @param coefficient The coefficient to add
+     */
+    void add(int[] exponents, double coefficient) {
+        if (coefficient == 0) {
+            return;
+        }
+        int hash = hash(exponents);
+        int slot = find(exponents, hash);
+        if (keys[slot] == null) {
+            keys[slot] = exponents;
+            hashes[slot] = hash;
+            coefficients[slot] = coefficient;
+            occupied++;
+            size++;
+            if (2 * occupied > keys.length) {
+                rehash();
+            }
+            return;
+        }
+
+        double old = coefficients[slot];
+        double sum = old + coefficient;
+        if (Math.abs(sum) <= CANCELLATION * Math.max(Math.abs(old), Math.abs(coefficient))) {
+            sum = 0;
+        }
+        if (old != 0 && sum == 0) {
+            size--;
+        } else if (old == 0 && sum != 0) {
+            size++;
+        }
+        coefficients[slot] = sum;
+    }
+
+    private void rehash() {
+        int[][] oldKeys = keys;
+        double[] oldCoefficients = coefficients;
+        int[] oldHashes = hashes;
+        int capacity = keys.length;
+        while (capacity < 4 * size) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != null && oldCoefficients[slot] != 0) {
+                int newSlot = find(oldKeys[slot], oldHashes[slot]);
+                keys[newSlot] = oldKeys[slot];
+                hashes[newSlot] = oldHashes[slot];
+                coefficients[newSlot] = oldCoefficients[slot];
+                occupied++;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Returns the coefficient of a monomial
+     * @param exponents The exponent vector of the monomial
+     * @return The coefficient, 0 if the monomial is not contained
+     */
+    double get(int[] exponents) {
+        int slot = find(exponents, hash(exponents));
+        return (keys[slot] == null) ? 0 : coefficients[slot];
+    }
+
+    /**
+     * Returns the number of monomials with a non-zero coefficient
+     * @return The number of monomials
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots, which can be iterated with getExponents and getCoefficient
+     * @return The number of slots
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the exponent vector in a slot
+     * @param slot The slot
+     * @return The exponent vector, null if the slot is free
+     */
+    int[] getExponents(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the coefficient in a slot
+     * @param slot The slot
+     * @return The coefficient, 0 if the slot is free or the coefficient has been cancelled out
+     */
+    double getCoefficient(int slot) {
+        return coefficients[slot];
+    }
+
+}
@@ -0,0 +1,76 @@
+package de.gaalop.tba.cfgImport.optimization.polynomial;
+
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.Division;
+import de.gaalop.dfg.EmptyExpressionVisitor;
+import de.gaalop.dfg.Exponentiation;
+import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.MathFunctionCall;
+import de.gaalop.dfg.Multiplication;
+import de.gaalop.dfg.Negation;
+import de.gaalop.dfg.Subtraction;
+
+/**
+ * Counts the arithmetic operations of a scalar expression
+ */
+public final class OperationCounter extends EmptyExpressionVisitor {
+
+    private int count = 0;
+
+    private OperationCounter() {
+    }
+
+    /**
+     * Returns the number of arithmetic operations and math function calls of an expression
+     * @param expression The expression
+     * @return The number of operations
+     */
+    public static int count(Expression expression) {
+        OperationCounter counter = new OperationCounter();
+        expression.accept(counter);
+        return counter.count;
+    }
+
+    @Override
+    public void visit(Subtraction node) {
+        count++;
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(Addition node) {
+        count++;
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(Division node) {
+        count++;
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(Multiplication node) {
+        count++;
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(MathFunctionCall node) {
+        count++;
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(Exponentiation node) {
+        count++;
+        super.visit(node);
+    }
+
+    @Override
+    public void visit(Negation node) {
+        count++;
+        super.visit(node);
+    }
+
+}
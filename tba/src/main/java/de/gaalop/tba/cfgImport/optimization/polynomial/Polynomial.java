@@ -0,0 +1,335 @@
+package de.gaalop.tba.cfgImport.optimization.polynomial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Represents a sparse multivariate polynomial in expanded normal form, i.e. as sum of monomials with double coefficients.
+ * <p/>
+ * A monomial is stored as primitive exponent vector over a fixed number of variables.
+ * The variables are only referred by their index, the PolynomialConverter maps them to expressions.
+ * Polynomials are immutable, every operation returns a new polynomial, which is expanded and collected:
+ * every monomial is contained at most once and monomials with a zero coefficient are dropped.
+ */
+public final class Polynomial {
+
+    /**
+     * Orders monomials by their total degree descending and then lexicographically by their exponents descending
+     */
+    private static final Comparator<int[]> MONOMIAL_ORDER = new Comparator<int[]>() {
+        @Override
+        public int compare(int[] a, int[] b) {
+            int degree = degree(b) - degree(a);
+            if (degree != 0) {
+                return degree;
+            }
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != b[i]) {
+                    return b[i] - a[i];
+                }
+            }
+            return 0;
+        }
+    };
+
+    private final int dimension;
+    private final MonomialMap terms;
+
+    private Polynomial(int dimension, int expectedSize) {
+        this.dimension = dimension;
+        this.terms = new MonomialMap(expectedSize);
+    }
+
+    /**
+     * Creates the zero polynomial
+     * @param dimension The number of variables
+     */
+    public Polynomial(int dimension) {
+        this(dimension, 0);
+    }
+
+    /**
+     * Creates a constant polynomial
+     * @param dimension The number of variables
+     * @param value The constant
+     * @return The polynomial
+     */
+    public static Polynomial constant(int dimension, double value) {
+        Polynomial result = new Polynomial(dimension, 1);
+        result.terms.add(new int[dimension], value);
+        return result;
+    }
+
+    /**
+     * Creates the polynomial, which consists of a single variable
+     * @param dimension The number of variables
+     * @param variable The index of the variable
+     * @return The polynomial
+     */
+    public static Polynomial variable(int dimension, int variable) {
+        Polynomial result = new Polynomial(dimension, 1);
+        int[] exponents = new int[dimension];
+        exponents[variable] = 1;
+        result.terms.add(exponents, 1);
+        return result;
+    }
+
+    private static int degree(int[] exponents) {
+        int degree = 0;
+        for (int exponent : exponents) {
+            degree += exponent;
+        }
+        return degree;
+    }
+
+    private void checkDimension(Polynomial other) {
+        if (other.dimension != dimension) {
+            throw new IllegalArgumentException("The polynomials have a different number of variables");
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the number of monomials
+     * @return The number of monomials
+     */
+    public int size() {
+        return terms.size();
+    }
+
+    public boolean isZero() {
+        return terms.size() == 0;
+    }
+
+    /**
+     * Determines, if this polynomial contains no variables
+     * @return <value>true</value> if this polynomial is constant, <value>false</value> otherwise
+     */
+    public boolean isConstant() {
+        return terms.size() == 0 || (terms.size() == 1 && terms.get(new int[dimension]) != 0);
+    }
+
+    /**
+     * Returns the coefficient of a monomial
+     * @param exponents The exponent vector of the monomial
+     * @return The coefficient, 0 if the monomial is not contained
+     */
+    public double getCoefficient(int[] exponents) {
+        if (exponents.length != dimension) {
+            throw new IllegalArgumentException("The exponent vector has a wrong number of variables");
+        }
+        return terms.get(exponents);
+    }
+
+    /**
+     * Returns the exponent vectors of all monomials, ordered by their total degree descending.
+     * The returned vectors must not be changed.
+     * @return The exponent vectors
+     */
+    public List<int[]> getMonomials() {
+        ArrayList<int[]> result = new ArrayList<int[]>(terms.size());
+        for (int slot = 0; slot < terms.capacity(); slot++) {
+            if (terms.getCoefficient(slot) != 0) {
+                result.add(terms.getExponents(slot));
+            }
+        }
+        Collections.sort(result, MONOMIAL_ORDER);
+        return result;
+    }
+
+    public Polynomial add(Polynomial other) {
+        checkDimension(other);
+        Polynomial result = new Polynomial(dimension, size() + other.size());
+        result.addTerms(this, 1);
+        result.addTerms(other, 1);
+        return result;
+    }
+
+    public Polynomial subtract(Polynomial other) {
+        checkDimension(other);
+        Polynomial result = new Polynomial(dimension, size() + other.size());
+        result.addTerms(this, 1);
+        result.addTerms(other, -1);
+        return result;
+    }
+
+    public Polynomial negate() {
+        return scale(-1);
+    }
+
+    public Polynomial scale(double factor) {
+        Polynomial result = new Polynomial(dimension, size());
+        if (factor != 0) {
+            result.addTerms(this, factor);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the scaled monomials of a polynomial to this polynomial, which must not be visible to others yet
+     */
+    private void addTerms(Polynomial other, double factor) {
+        for (int slot = 0; slot < other.terms.capacity(); slot++) {
+            double coefficient = other.terms.getCoefficient(slot);
+            if (coefficient != 0) {
+                terms.add(other.terms.getExponents(slot), coefficient * factor);
+            }
+        }
+    }
+
+    /**
+     * Multiplies two polynomials and expands the product
+     * @param other The other factor
+     * @return The expanded product
+     */
+    public Polynomial multiply(Polynomial other) {
+        checkDimension(other);
+        Polynomial result = new Polynomial(dimension, size() * other.size());
+        for (int slot = 0; slot < terms.capacity(); slot++) {
+            double coefficient = terms.getCoefficient(slot);
+            if (coefficient == 0) {
+                continue;
+            }
+            int[] exponents = terms.getExponents(slot);
+            for (int otherSlot = 0; otherSlot < other.terms.capacity(); otherSlot++) {
+                double otherCoefficient = other.terms.getCoefficient(otherSlot);
+                if (otherCoefficient == 0) {
+                    continue;
+                }
+                int[] otherExponents = other.terms.getExponents(otherSlot);
+                int[] product = new int[dimension];
+                for (int i = 0; i < dimension; i++) {
+                    product[i] = exponents[i] + otherExponents[i];
+                }
+                result.terms.add(product, coefficient * otherCoefficient);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes a non-negative integer power of this polynomial by repeated squaring
+     * @param exponent The exponent
+     * @return The expanded power
+     */
+    public Polynomial pow(int exponent) {
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Negative exponents are no polynomials");
+        }
+        Polynomial result = constant(dimension, 1);
+        Polynomial base = this;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = result.multiply(base);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                base = base.multiply(base);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of monomials, which contain a variable
+     * @param variable The index of the variable
+     * @return The number of monomials
+     */
+    public int countOccurrences(int variable) {
+        int count = 0;
+        for (int slot = 0; slot < terms.capacity(); slot++) {
+            if (terms.getCoefficient(slot) != 0 && terms.getExponents(slot)[variable] > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Collects the monomials with respect to a variable x, i.e. returns the polynomials q and r with
+     * this = x*q + r, where r does not contain x.
+     * @param variable The index of the variable x
+     * @return The array {q, r}
+     */
+    public Polynomial[] collect(int variable) {
+        int occurrences = countOccurrences(variable);
+        Polynomial quotient = new Polynomial(dimension, occurrences);
+        Polynomial remainder = new Polynomial(dimension, size() - occurrences);
+        for (int slot = 0; slot < terms.capacity(); slot++) {
+            double coefficient = terms.getCoefficient(slot);
+            if (coefficient == 0) {
+                continue;
+            }
+            int[] exponents = terms.getExponents(slot);
+            if (exponents[variable] > 0) {
+                int[] reduced = exponents.clone();
+                reduced[variable]--;
+                quotient.terms.add(reduced, coefficient);
+            } else {
+                remainder.terms.add(exponents, coefficient);
+            }
+        }
+        return new Polynomial[]{quotient, remainder};
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Polynomial)) return false;
+
+        Polynomial other = (Polynomial) o;
+        if (dimension != other.dimension || size() != other.size()) return false;
+        for (int slot = 0; slot < terms.capacity(); slot++) {
+            double coefficient = terms.getCoefficient(slot);
+            if (coefficient != 0 && other.terms.get(terms.getExponents(slot)) != coefficient) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // independent of the order of the slots
+        int result = dimension;
+        for (int slot = 0; slot < terms.capacity(); slot++) {
+            double coefficient = terms.getCoefficient(slot);
+            if (coefficient != 0) {
+                long bits = Double.doubleToLongBits(coefficient);
+                int exponentsHash = Arrays.hashCode(terms.getExponents(slot));
+                result += exponentsHash ^ (int) (bits ^ (bits >>> 32));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (isZero()) {
+            return "0";
+        }
+        StringBuilder result = new StringBuilder();
+        for (int[] exponents : getMonomials()) {
+            if (result.length() > 0) {
+                result.append(" + ");
+            }
+            result.append(terms.get(exponents));
+            for (int i = 0; i < dimension; i++) {
+                if (exponents[i] > 0) {
+                    result.append("*x").append(i);
+                    if (exponents[i] > 1) {
+                        result.append('^').append(exponents[i]);
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
+
+}
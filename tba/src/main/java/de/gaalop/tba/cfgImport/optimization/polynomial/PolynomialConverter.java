@@ -0,0 +1,545 @@
+package de.gaalop.tba.cfgImport.optimization.polynomial;
+
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.BaseVector;
+import de.gaalop.dfg.Division;
+import de.gaalop.dfg.Equality;
+import de.gaalop.dfg.Exponentiation;
+import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.ExpressionVisitor;
+import de.gaalop.dfg.FloatConstant;
+import de.gaalop.dfg.FunctionArgument;
+import de.gaalop.dfg.Inequality;
+import de.gaalop.dfg.InnerProduct;
+import de.gaalop.dfg.LogicalAnd;
+import de.gaalop.dfg.LogicalNegation;
+import de.gaalop.dfg.LogicalOr;
+import de.gaalop.dfg.MacroCall;
+import de.gaalop.dfg.MathFunctionCall;
+import de.gaalop.dfg.Multiplication;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Negation;
+import de.gaalop.dfg.OuterProduct;
+import de.gaalop.dfg.Relation;
+import de.gaalop.dfg.Reverse;
+import de.gaalop.dfg.Subtraction;
+import de.gaalop.dfg.Variable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Converts scalar expressions to polynomials and back.
+ * <p/>
+ * The variables of the polynomials are the variables and multivector components of the expression
+ * and all subexpressions, which are no polynomials, e.g. calls of math functions and divisions by non-constant expressions.
+ * The operands of these subexpressions are simplified separately, when the polynomial is converted back.
+ * <p/>
+ * An expression is converted back by collecting the variable, which occurs in the most monomials, recursively
+ * (a multivariate Horner scheme), so that the resulting expression contains only few multiplications.
+ */
+public class PolynomialConverter implements ExpressionVisitor {
+
+    /** The maximum number of monomials of a polynomial, larger expansions are cancelled */
+    public static final int MAX_SIZE = 4096;
+
+    private ArrayList<Expression> variables = new ArrayList<Expression>();
+    private HashMap<Expression, Integer> indices = new HashMap<Expression, Integer>();
+    private int dimension;
+
+    private Polynomial result;
+    private boolean convertible;
+
+    /**
+     * Simplifies an expression by converting it to a polynomial and back
+     * @param expression The expression
+     * @return The simplified expression or the given expression, if it is not smaller
+     */
+    public static Expression simplify(Expression expression) {
+        PolynomialConverter converter = new PolynomialConverter();
+        Polynomial polynomial = converter.toPolynomial(expression);
+        if (polynomial == null) {
+            return expression;
+        }
+        Expression simplified = converter.toExpression(polynomial);
+        return (OperationCounter.count(simplified) < OperationCounter.count(expression)) ? simplified : expression;
+    }
+
+    /**
+     * Returns the expressions, which are represented by the variables of the polynomials
+     * @return The expressions, the index of an expression is the index of its variable
+     */
+    public List<Expression> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Converts an expression to a polynomial.
+     * The variables of the expression are added to the variables of this converter.
+     * @param expression The expression
+     * @return The polynomial, null if the expression contains non-scalar operations or is too large to be expanded
+     */
+    public Polynomial toPolynomial(Expression expression) {
+        convertible = true;
+        new VariableCollector().collect(expression);
+        if (!convertible) {
+            return null;
+        }
+        dimension = variables.size();
+        expression.accept(this);
+        return convertible ? result : null;
+    }
+
+    /**
+     * Converts a polynomial, which was created by this converter, back to an expression
+     * @param polynomial The polynomial
+     * @return The expression
+     */
+    public Expression toExpression(Polynomial polynomial) {
+        if (polynomial.getDimension() != dimension) {
+            throw new IllegalArgumentException("The polynomial was not created by this converter");
+        }
+        Term term = toTerm(polynomial);
+        return term.negative ? new Negation(term.expression) : term.expression;
+    }
+
+    /**
+     * An expression with a separate sign, so that negative summands can be subtracted
+     */
+    private static class Term {
+        private Expression expression;
+        private boolean negative;
+
+        private Term(Expression expression, boolean negative) {
+            this.expression = expression;
+            this.negative = negative;
+        }
+    }
+
+    private Term toTerm(Polynomial polynomial) {
+        if (polynomial.isZero()) {
+            return new Term(new FloatConstant(0), false);
+        }
+
+        // collect the variable, which occurs in the most monomials
+        int best = -1;
+        int bestCount = 1;
+        for (int variable = 0; variable < dimension; variable++) {
+            int count = polynomial.countOccurrences(variable);
+            if (count > bestCount) {
+                best = variable;
+                bestCount = count;
+            }
+        }
+
+        if (best == -1) {
+            // no variable occurs in two monomials
+            ArrayList<Term> summands = new ArrayList<Term>();
+            for (int[] exponents : polynomial.getMonomials()) {
+                summands.add(toTerm(exponents, polynomial.getCoefficient(exponents)));
+            }
+            return sum(summands);
+        }
+
+        Polynomial[] collected = polynomial.collect(best);
+        Term quotient = toTerm(collected[0]);
+        Term product = new Term(multiply(createVariable(best), quotient.expression), quotient.negative);
+        if (collected[1].isZero()) {
+            return product;
+        }
+        ArrayList<Term> summands = new ArrayList<Term>();
+        summands.add(product);
+        summands.add(toTerm(collected[1]));
+        return sum(summands);
+    }
+
+    /**
+     * Adds terms, the positive terms are added first, so that the negative terms can be subtracted
+     */
+    private static Term sum(List<Term> summands) {
+        Term first = null;
+        for (Term summand : summands) {
+            if (!summand.negative) {
+                first = summand;
+                break;
+            }
+        }
+        boolean negative = first == null;
+        if (negative) {
+            first = summands.get(0);
+        }
+
+        Expression result = first.expression;
+        for (Term summand : summands) {
+            if (summand == first) {
+                continue;
+            }
+            if (summand.negative == negative) {
+                result = new Addition(result, summand.expression);
+            } else {
+                result = new Subtraction(result, summand.expression);
+            }
+        }
+        return new Term(result, negative);
+    }
+
+    private Term toTerm(int[] exponents, double coefficient) {
+        Expression result = null;
+        double magnitude = Math.abs(coefficient);
+        if (magnitude != 1) {
+            result = new FloatConstant(magnitude);
+        }
+        for (int variable = 0; variable < dimension; variable++) {
+            for (int i = 0; i < exponents[variable]; i++) {
+                result = multiply(result, createVariable(variable));
+            }
+        }
+        if (result == null) {
+            result = new FloatConstant(1);
+        }
+        return new Term(result, coefficient < 0);
+    }
+
+    private static Expression multiply(Expression left, Expression right) {
+        if (left == null || isOne(left)) {
+            return right;
+        }
+        if (isOne(right)) {
+            return left;
+        }
+        return new Multiplication(left, right);
+    }
+
+    private static boolean isOne(Expression expression) {
+        return expression instanceof FloatConstant && ((FloatConstant) expression).getValue() == 1;
+    }
+
+    /**
+     * Creates the expression of a variable, the operands of non-polynomial subexpressions are simplified
+     */
+    private Expression createVariable(int index) {
+        Expression variable = variables.get(index);
+        if (variable instanceof MathFunctionCall) {
+            MathFunctionCall call = (MathFunctionCall) variable;
+            return new MathFunctionCall(simplify(call.getOperand().copy()), call.getFunction());
+        }
+        if (variable instanceof Division) {
+            Division division = (Division) variable;
+            return new Division(simplify(division.getLeft().copy()), simplify(division.getRight().copy()));
+        }
+        if (variable instanceof Exponentiation) {
+            Exponentiation exponentiation = (Exponentiation) variable;
+            return new Exponentiation(simplify(exponentiation.getLeft().copy()), exponentiation.getRight().copy());
+        }
+        return variable.copy();
+    }
+
+    private static boolean isConstant(Expression expression) {
+        return expression instanceof FloatConstant;
+    }
+
+    /**
+     * Returns the exponent of an exponentiation, if it is a small non-negative integer, otherwise -1
+     */
+    private static int getIntegerExponent(Exponentiation node) {
+        if (!isConstant(node.getRight())) {
+            return -1;
+        }
+        double exponent = ((FloatConstant) node.getRight()).getValue();
+        if (exponent < 0 || exponent > 16 || exponent != Math.rint(exponent)) {
+            return -1;
+        }
+        return (int) exponent;
+    }
+
+    /**
+     * Collects the variables of an expression
+     */
+    private class VariableCollector implements ExpressionVisitor {
+
+        private void collect(Expression expression) {
+            expression.accept(this);
+        }
+
+        private void addVariable(Expression expression) {
+            if (!indices.containsKey(expression)) {
+                indices.put(expression, variables.size());
+                variables.add(expression);
+            }
+        }
+
+        @Override
+        public void visit(Subtraction node) {
+            collect(node.getLeft());
+            collect(node.getRight());
+        }
+
+        @Override
+        public void visit(Addition node) {
+            collect(node.getLeft());
+            collect(node.getRight());
+        }
+
+        @Override
+        public void visit(Division node) {
+            if (isConstant(node.getRight()) && ((FloatConstant) node.getRight()).getValue() != 0) {
+                collect(node.getLeft());
+            } else {
+                addVariable(node);
+            }
+        }
+
+        @Override
+        public void visit(Multiplication node) {
+            collect(node.getLeft());
+            collect(node.getRight());
+        }
+
+        @Override
+        public void visit(MathFunctionCall node) {
+            addVariable(node);
+        }
+
+        @Override
+        public void visit(Variable node) {
+            addVariable(node);
+        }
+
+        @Override
+        public void visit(MultivectorComponent node) {
+            addVariable(node);
+        }
+
+        @Override
+        public void visit(Exponentiation node) {
+            if (getIntegerExponent(node) >= 0) {
+                collect(node.getLeft());
+            } else {
+                addVariable(node);
+            }
+        }
+
+        @Override
+        public void visit(FloatConstant node) {
+        }
+
+        @Override
+        public void visit(Negation node) {
+            collect(node.getOperand());
+        }
+
+        @Override
+        public void visit(InnerProduct node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(OuterProduct node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(BaseVector node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(Reverse node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(LogicalOr node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(LogicalAnd node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(LogicalNegation node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(Equality node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(Inequality node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(Relation relation) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(FunctionArgument node) {
+            convertible = false;
+        }
+
+        @Override
+        public void visit(MacroCall node) {
+            convertible = false;
+        }
+    }
+
+    private Polynomial convert(Expression expression) {
+        expression.accept(this);
+        return result;
+    }
+
+    private void checkSize(Polynomial polynomial) {
+        if (polynomial.size() > MAX_SIZE) {
+            convertible = false;
+        }
+    }
+
+    private void visitVariable(Expression node) {
+        result = Polynomial.variable(dimension, indices.get(node));
+    }
+
+    @Override
+    public void visit(Subtraction node) {
+        Polynomial left = convert(node.getLeft());
+        Polynomial right = convert(node.getRight());
+        result = left.subtract(right);
+    }
+
+    @Override
+    public void visit(Addition node) {
+        Polynomial left = convert(node.getLeft());
+        Polynomial right = convert(node.getRight());
+        result = left.add(right);
+    }
+
+    @Override
+    public void visit(Division node) {
+        if (indices.containsKey(node)) {
+            visitVariable(node);
+        } else {
+            result = convert(node.getLeft()).scale(1 / ((FloatConstant) node.getRight()).getValue());
+        }
+    }
+
+    @Override
+    public void visit(Multiplication node) {
+        Polynomial left = convert(node.getLeft());
+        Polynomial right = convert(node.getRight());
+        if (!convertible || (long) left.size() * right.size() > MAX_SIZE) {
+            // the expansion would be too large
+            convertible = false;
+            result = left;
+            return;
+        }
+        result = left.multiply(right);
+    }
+
+    @Override
+    public void visit(MathFunctionCall node) {
+        visitVariable(node);
+    }
+
+    @Override
+    public void visit(Variable node) {
+        visitVariable(node);
+    }
+
+    @Override
+    public void visit(MultivectorComponent node) {
+        visitVariable(node);
+    }
+
+    @Override
+    public void visit(Exponentiation node) {
+        if (indices.containsKey(node)) {
+            visitVariable(node);
+            return;
+        }
+        Polynomial base = convert(node.getLeft());
+        if (!convertible || Math.pow(base.size(), getIntegerExponent(node)) > MAX_SIZE) {
+            convertible = false;
+            return;
+        }
+        result = base.pow(getIntegerExponent(node));
+        checkSize(result);
+    }
+
+    @Override
+    public void visit(FloatConstant node) {
+        result = Polynomial.constant(dimension, node.getValue());
+    }
+
+    @Override
+    public void visit(Negation node) {
+        result = convert(node.getOperand()).negate();
+    }
+
+    // the following nodes are rejected by the VariableCollector
+
+    @Override
+    public void visit(InnerProduct node) {
+        throw new IllegalArgumentException("Inner products are not scalar");
+    }
+
+    @Override
+    public void visit(OuterProduct node) {
+        throw new IllegalArgumentException("Outer products are not scalar");
+    }
+
+    @Override
+    public void visit(BaseVector node) {
+        throw new IllegalArgumentException("Base vectors are not scalar");
+    }
+
+    @Override
+    public void visit(Reverse node) {
+        throw new IllegalArgumentException("Reverses are not scalar");
+    }
+
+    @Override
+    public void visit(LogicalOr node) {
+        throw new IllegalArgumentException("Logical expressions are no polynomials");
+    }
+
+    @Override
+    public void visit(LogicalAnd node) {
+        throw new IllegalArgumentException("Logical expressions are no polynomials");
+    }
+
+    @Override
+    public void visit(LogicalNegation node) {
+        throw new IllegalArgumentException("Logical expressions are no polynomials");
+    }
+
+    @Override
+    public void visit(Equality node) {
+        throw new IllegalArgumentException("Logical expressions are no polynomials");
+    }
+
+    @Override
+    public void visit(Inequality node) {
+        throw new IllegalArgumentException("Logical expressions are no polynomials");
+    }
+
+    @Override
+    public void visit(Relation relation) {
+        throw new IllegalArgumentException("Logical expressions are no polynomials");
+    }
+
+    @Override
+    public void visit(FunctionArgument node) {
+        throw new IllegalArgumentException("Function arguments are no polynomials");
+    }
+
+    @Override
+    public void visit(MacroCall node) {
+        throw new IllegalArgumentException("Macro calls are no polynomials");
+    }
+
+}
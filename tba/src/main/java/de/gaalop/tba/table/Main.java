@@ -9,13 +9,17 @@ import de.gaalop.tba.IMultTable;
 import de.gaalop.tba.MultTableAbsDirectComputer;
 import de.gaalop.tba.MultTableImpl;
 import de.gaalop.tba.Multivector;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.Vector;
 import javax.swing.JFileChooser;
 
@@ -25,8 +29,8 @@ import javax.swing.JFileChooser;
  */
 public class Main {
 
-    private static void createFromDir(File dir, int format) throws FileNotFoundException, IOException {
-        System.out.print(dir.getName()+":");
+    private static void createFromDir(File dir, int threads, int format, boolean verify) throws FileNotFoundException, IOException {
+        System.out.print(dir.getName()+": ");
         if (!dir.exists()) {
             System.out.println("The given first parameter, is not the path of an existing directory!");
             System.exit(2);
@@ -40,68 +44,108 @@ public class Main {
         FileInputStream inputStream = new FileInputStream(definitionFile);
         alFile.loadFromFile(inputStream);
         inputStream.close();
-        IMultTable inner = new MultTableAbsDirectComputer(alFile, new InnerProductCalculator());
-        IMultTable outer = new MultTableAbsDirectComputer(alFile, new OuterProductCalculator());
-        IMultTable geo = new MultTableAbsDirectComputer(alFile, new GeoProductCalculator());
-        
-        int dimension = alFile.base.length-1;
-        TableFormat.writeToFile((int) Math.pow(2,dimension), dimension, inner, outer, geo, new FileOutputStream(new File(dir, "products.csv")),format);
-        
+
+        ParallelTableGenerator generator = new ParallelTableGenerator(alFile, threads);
+        generator.compute();
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(new File(dir, "products.csv")));
+        try {
+            generator.write(outputStream, format);
+        } finally {
+            outputStream.close();
+        }
+        System.out.println(generator.getReport());
+
+        if (!verify) return;
+
         System.out.println("Verify created file");
-        
-        int bladeCount = (int) Math.pow(2, dimension);
-        
+
+        int dimension = generator.getDimension();
+        int bladeCount = generator.getBladeCount();
+
         IMultTable innerStored = new MultTableImpl();
         innerStored.createTable(bladeCount);
         IMultTable outerStored = new MultTableImpl();
         outerStored.createTable(bladeCount);
         IMultTable geoStored = new MultTableImpl();
         geoStored.createTable(bladeCount);
-        TableFormat.readFromFile(new FileInputStream(new File(dir, "products.csv")), innerStored, outerStored, geoStored);
-        
-        testEqual(innerStored, inner, dimension);
-        testEqual(outerStored, outer, dimension);
-        testEqual(geoStored, geo, dimension);
+        TableFormat.readFromFile(new BufferedInputStream(new FileInputStream(new File(dir, "products.csv"))), innerStored, outerStored, geoStored);
+
+        testEqual(innerStored, new MultTableAbsDirectComputer(alFile, new InnerProductCalculator(), null), dimension);
+        testEqual(outerStored, new MultTableAbsDirectComputer(alFile, new OuterProductCalculator(), null), dimension);
+        testEqual(geoStored, new MultTableAbsDirectComputer(alFile, new GeoProductCalculator(), null), dimension);
     }
-    
-    private static void gui(String[] args) throws FileNotFoundException, IOException {
-        File dir = null;
-
-        if (args.length == 0) {
-            JFileChooser jFC = new JFileChooser("D:\\BscMsc\\Gaalop\\algebra\\src\\main\\resources\\de\\gaalop\\algebra\\algebra");
-            jFC.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
-            if (jFC.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
-                dir = jFC.getSelectedFile();
-                System.out.println(dir.getCanonicalPath());
-            } else {
-                System.out.println("No directory chosen!");
-                System.exit(1);
-            }
-        } else 
-            dir = new File(args[0]);
+
+    private static File chooseDirectory() throws IOException {
+        JFileChooser jFC = new JFileChooser();
+        jFC.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (jFC.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
+            File dir = jFC.getSelectedFile();
+            System.out.println(dir.getCanonicalPath());
+            return dir;
+        }
+        System.out.println("No directory chosen!");
+        System.exit(1);
+        return null;
     }
-    
-    private static void createAll() throws FileNotFoundException, IOException {
-        File directory = new File("D:\\BscMsc\\Gaalop\\algebra\\src\\main\\resources\\de\\gaalop\\algebra\\algebra");
+
+    private static File[] getAlgebraDirectories(File directory) {
         File[] dirs = directory.listFiles(new FileFilter() {
 
                                @Override
                                public boolean accept(File pathname) {
-                                   return pathname.isDirectory();
+                                   return pathname.isDirectory() && new File(pathname, "definition.csv").exists();
                                }
                            });
+        if (dirs == null) return new File[0];
         Arrays.sort(dirs);
-        for (File dir: dirs)
-            createFromDir(dir,TableFormat.TABLE_COMPRESSED_MAX);
+        return dirs;
     }
-    
+
+    private static void printUsage() {
+        System.out.println("Usage: Main [-threads <n>] [-format <format>] [-verify] [-all <algebras directory>] [<algebra directory> ...]");
+        System.out.println("  Creates the products.csv file of each given algebra directory, which contains a definition.csv file.");
+        System.out.println("  -threads <n>  number of threads to be used, default: number of available processors");
+        System.out.println("  -format <f>   format of the created files: compressed (default) or mapped");
+        System.out.println("  -verify       reads the created file and compares it with the computed products");
+        System.out.println("  -all <dir>    creates the products.csv files of all algebras in the directory");
+        System.out.println("  Without directories, a directory chooser is shown.");
+    }
+
     /**
-     * @param args the command line arguments:
-     * 0: directory path
+     * @param args the command line arguments, see printUsage
      */
     public static void main(String[] args) throws FileNotFoundException, IOException {
-        //gui(args);
-        createAll(); 
+        int threads = Runtime.getRuntime().availableProcessors();
+        int format = TableFormat.TABLE_COMPRESSED_MAX;
+        boolean verify = false;
+        LinkedList<File> dirs = new LinkedList<File>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads") && i+1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("-format") && i+1 < args.length) {
+                format = TableFormat.getFormat(args[++i]);
+                if (format == TableFormat.TABLE_HUMAN_READABLE) {
+                    printUsage();
+                    return;
+                }
+            } else if (args[i].equals("-verify")) {
+                verify = true;
+            } else if (args[i].equals("-all") && i+1 < args.length) {
+                dirs.addAll(Arrays.asList(getAlgebraDirectories(new File(args[++i]))));
+            } else if (args[i].equals("-help") || args[i].startsWith("-")) {
+                printUsage();
+                return;
+            } else {
+                dirs.add(new File(args[i]));
+            }
+        }
+
+        if (args.length == 0)
+            dirs.add(chooseDirectory());
+
+        for (File dir: dirs)
+            createFromDir(dir, threads, format, verify);
     }
 
     private static void testEqual(IMultTable t1, IMultTable t2, int dimension) {
@@ -0,0 +1,293 @@
+package de.gaalop.tba.table;
+
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.productComputer.GeoProductCalculator;
+import de.gaalop.productComputer.InnerProductCalculator;
+import de.gaalop.productComputer.OuterProductCalculator;
+import de.gaalop.tba.BladeRef;
+import de.gaalop.tba.IMultTable;
+import de.gaalop.tba.MultTableAbsDirectComputer;
+import de.gaalop.tba.Multivector;
+import de.gaalop.tba.table.BitIO.AbsBitWriter;
+import de.gaalop.tba.table.BitIO.MaxWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the product tables of an algebra in parallel and writes them in the TABLE_COMPRESSED_MAX
+ * or in the TABLE_MAPPED format.
+ *
+ * The rows of the tables are computed by a fork-join pool.
+ * Each row is stored encoded until all rows are computed,
+ * since the bit width of the product sizes, which is determined in the same pass, is written first.
+ */
+public class ParallelTableGenerator {
+
+    /**
+     * The number of rows, which are computed by one task without forking
+     */
+    private static final int ROWS_PER_TASK = 4;
+
+    private AlgebraDefinitionFile alFile;
+    private int parallelism;
+
+    private int dimension;
+    private int bladeCount;
+    private int[][] rows;
+    private int maxSize;
+    private long productCount;
+    private long computeTime;
+    private long writeTime;
+
+    /**
+     * Creates a generator
+     * @param alFile The definition of the algebra
+     * @param parallelism The number of threads to be used
+     */
+    public ParallelTableGenerator(AlgebraDefinitionFile alFile, int parallelism) {
+        this.alFile = alFile;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Computes all rows of the product tables
+     */
+    public void compute() {
+        long start = System.currentTimeMillis();
+        dimension = alFile.base.length-1;
+        bladeCount = 1 << dimension;
+        rows = new int[bladeCount][];
+
+        // no cache, every product is needed exactly once
+        IMultTable inner = new MultTableAbsDirectComputer(alFile, new InnerProductCalculator(), null);
+        IMultTable outer = new MultTableAbsDirectComputer(alFile, new OuterProductCalculator(), null);
+        IMultTable geo = new MultTableAbsDirectComputer(alFile, new GeoProductCalculator(), null);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            maxSize = pool.invoke(new RowsTask(inner, outer, geo, 0, bladeCount));
+        } finally {
+            pool.shutdown();
+        }
+        productCount = 3L * bladeCount * bladeCount;
+        computeTime = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Computes rows of the product tables and returns the maximum size of the products of these rows
+     */
+    private class RowsTask extends RecursiveTask<Integer> {
+
+        private IMultTable inner;
+        private IMultTable outer;
+        private IMultTable geo;
+        private int from;
+        private int to;
+
+        public RowsTask(IMultTable inner, IMultTable outer, IMultTable geo, int from, int to) {
+            this.inner = inner;
+            this.outer = outer;
+            this.geo = geo;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                int max = 0;
+                for (int i = from; i < to; i++)
+                    max = Math.max(max, computeRow(inner, outer, geo, i));
+                return max;
+            }
+            int middle = (from + to) >>> 1;
+            RowsTask left = new RowsTask(inner, outer, geo, from, middle);
+            left.fork();
+            int right = new RowsTask(inner, outer, geo, middle, to).compute();
+            return Math.max(left.join(), right);
+        }
+    }
+
+    /**
+     * Computes a row of the product tables and stores it encoded:
+     * for each product in the order inner, outer, geo its size,
+     * followed by its blades, each as sign bit above the index bits
+     * @param inner The inner product table
+     * @param outer The outer product table
+     * @param geo The geo product table
+     * @param i The index of the row
+     * @return The maximum size of the products in the row
+     */
+    private int computeRow(IMultTable inner, IMultTable outer, IMultTable geo, int i) {
+        int[] row = new int[6 * bladeCount];
+        int pos = 0;
+        int max = 0;
+        for (int j = 0; j < bladeCount; j++) {
+            for (int t = 0; t < 3; t++) {
+                Multivector product = ((t == 0) ? inner : (t == 1) ? outer : geo).getProduct(i, j);
+                int size = product.getBlades().size();
+                max = Math.max(max, size);
+                if (pos + size + 1 > row.length) {
+                    int[] newRow = new int[Math.max(2 * row.length, pos + size + 1)];
+                    System.arraycopy(row, 0, newRow, 0, pos);
+                    row = newRow;
+                }
+                row[pos++] = size;
+                for (BladeRef ref: product.getBlades())
+                    row[pos++] = ((ref.getPrefactor() < 0) ? 1 << dimension : 0) | ref.getIndex();
+            }
+        }
+        int[] trimmed = new int[pos];
+        System.arraycopy(row, 0, trimmed, 0, pos);
+        rows[i] = trimmed;
+        return max;
+    }
+
+    /**
+     * Writes the computed tables in the TABLE_COMPRESSED_MAX format
+     * @param outputStream The stream to write to
+     * @throws IOException
+     */
+    public void write(OutputStream outputStream) throws IOException {
+        write(outputStream, TableFormat.TABLE_COMPRESSED_MAX);
+    }
+
+    /**
+     * Writes the computed tables
+     * @param outputStream The stream to write to
+     * @param format The format, TableFormat.TABLE_COMPRESSED_MAX or TableFormat.TABLE_MAPPED
+     * @throws IOException
+     */
+    public void write(OutputStream outputStream, int format) throws IOException {
+        long start = System.currentTimeMillis();
+        DataOutputStream out = new DataOutputStream(outputStream);
+        switch (format) {
+            case TableFormat.TABLE_COMPRESSED_MAX:
+                writeCompressed(out);
+                break;
+            case TableFormat.TABLE_MAPPED:
+                writeMapped(out);
+                break;
+            default:
+                throw new IllegalArgumentException("The format "+format+" is not supported by the generator");
+        }
+        out.flush();
+        writeTime = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Writes the computed tables in the TABLE_COMPRESSED_MAX format
+     * @param out The stream to write to
+     * @throws IOException
+     */
+    private void writeCompressed(DataOutputStream out) throws IOException {
+        out.writeByte(TableFormat.TABLE_COMPRESSED_MAX);
+        out.writeByte(dimension);
+        int bitCount = TableCompressed.getSizeBitCount(maxSize);
+        out.writeByte(bitCount);
+
+        AbsBitWriter writer = new MaxWriter();
+        writer.setDataOutputStream(out);
+        int signBit = 1 << dimension;
+        for (int[] row: rows) {
+            int pos = 0;
+            while (pos < row.length) {
+                int size = row[pos++];
+                writer.write(size, bitCount);
+                for (int k = 0; k < size; k++) {
+                    int blade = row[pos++];
+                    writer.write(((blade & signBit) != 0) ? 1 : 0, 1);
+                    writer.write(blade & (signBit - 1), dimension);
+                }
+            }
+        }
+        writer.finish();
+    }
+
+    /**
+     * Writes the computed tables in the TABLE_MAPPED format, see TableMapped
+     * @param out The stream to write to
+     * @throws IOException
+     */
+    private void writeMapped(DataOutputStream out) throws IOException {
+        if (dimension > 15)
+            throw new IOException("The mapped format supports algebras with up to 15 dimensions");
+        out.writeByte(TableFormat.TABLE_MAPPED);
+        out.writeByte(dimension);
+
+        // the rows of each table are written one after another, so the offsets are known in advance
+        long rowOffset = TableMapped.HEADER_SIZE + 3L * bladeCount * 4;
+        for (int table = TableMapped.INNER; table <= TableMapped.GEO; table++)
+            for (int[] row: rows) {
+                if (rowOffset > Integer.MAX_VALUE)
+                    throw new IOException("The tables are too large for the mapped format");
+                out.writeInt((int) rowOffset);
+                int[] positions = getProductPositions(row);
+                long entryCount = 0;
+                for (int j = 0; j < bladeCount; j++)
+                    entryCount += row[positions[3 * j + table]];
+                rowOffset += 4L * (bladeCount + 1) + 2 * entryCount;
+            }
+
+        int signBit = 1 << dimension;
+        for (int table = TableMapped.INNER; table <= TableMapped.GEO; table++)
+            for (int[] row: rows) {
+                int[] positions = getProductPositions(row);
+                int start = 0;
+                for (int j = 0; j < bladeCount; j++) {
+                    out.writeInt(start);
+                    start += row[positions[3 * j + table]];
+                }
+                out.writeInt(start);
+                for (int j = 0; j < bladeCount; j++) {
+                    int pos = positions[3 * j + table];
+                    int size = row[pos++];
+                    for (int k = 0; k < size; k++) {
+                        int blade = row[pos++];
+                        out.writeChar(((blade & signBit) != 0) ? (blade & (signBit - 1)) | TableMapped.NEGATIVE : blade);
+                    }
+                }
+            }
+    }
+
+    /**
+     * Returns the positions of the products in an encoded row
+     * @param row The encoded row
+     * @return The position of the size of each product, the product of table t with blade j is at index 3*j+t
+     */
+    private int[] getProductPositions(int[] row) {
+        int[] positions = new int[3 * bladeCount];
+        int pos = 0;
+        for (int k = 0; k < positions.length; k++) {
+            positions[k] = pos;
+            pos += row[pos] + 1;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns a report of the throughput of the last computation and writing
+     * @return The report
+     */
+    public String getReport() {
+        double seconds = Math.max(computeTime, 1) / 1000.0;
+        return String.format("%d products (max. size %d) computed in %.3f s with %d threads (%.0f products/s), written in %.3f s",
+                productCount, maxSize, seconds, parallelism, productCount / seconds, writeTime / 1000.0);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getBladeCount() {
+        return bladeCount;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+}
@@ -6,9 +6,6 @@ import de.gaalop.tba.Multivector;
 import de.gaalop.tba.table.BitIO.*;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -85,67 +82,47 @@ public class TableCompressed implements TableReaderIO {
         }
     }
 
+    /**
+     * Returns the number of bits, which are needed to store the sizes of the products
+     * @param maxSize The maximum number of blades in a product
+     * @return The number of bits
+     */
+    static int getSizeBitCount(int maxSize) {
+        int number = 2;
+        int bitCount = 1;
+        while (number < maxSize+1) {
+            bitCount++;
+            number *= 2;
+        }
+        return bitCount;
+    }
+
     @Override
     public void writeFromInputStream(int bladeCount, int dimension, IMultTable innerTable, IMultTable outerTable, IMultTable geoTable, DataOutputStream out) {
         try {
-            AbsBitWriter w = new SimpleBitWriter();
-
-            int bitCount = 32;
-            File tempFile = File.createTempFile("TableCreator", "txt");
-            DataOutputStream out1 = new DataOutputStream(new FileOutputStream(tempFile));
-
-            w.setDataOutputStream(out1);
-
             int maxNumber = 0;
-
             for (int i=0;i<bladeCount;i++)
                 for (int j=0;j<bladeCount;j++) {
-                    Multivector innerM = innerTable.getProduct(i, j);
-                    Multivector outerM = outerTable.getProduct(i, j);
-                    Multivector geoM = geoTable.getProduct(i, j);
-
-                    maxNumber = Math.max(maxNumber, innerM.getBlades().size());
-                    maxNumber = Math.max(maxNumber, outerM.getBlades().size());
-                    maxNumber = Math.max(maxNumber, geoM.getBlades().size());
-
-                    writeMultivector(innerM, dimension, w, bitCount);
-                    writeMultivector(outerM, dimension, w, bitCount);
-                    writeMultivector(geoM, dimension, w, bitCount);
+                    maxNumber = Math.max(maxNumber, innerTable.getProduct(i, j).getBlades().size());
+                    maxNumber = Math.max(maxNumber, outerTable.getProduct(i, j).getBlades().size());
+                    maxNumber = Math.max(maxNumber, geoTable.getProduct(i, j).getBlades().size());
                 }
 
-            w.finish();
-            out1.close();
-
-            // ===== 
-
-            DataInputStream in = new DataInputStream(new FileInputStream(tempFile));
-
-            AbsBitReader r = new SimpleBitReader();
-            r.setDataInputStream(in);
-
-
-            int number = 2;
-            int bitCount2 = 1;
-            while (number < maxNumber+1) {
-                bitCount2++;
-                number *= 2;
-            }
+            int bitCount = getSizeBitCount(maxNumber);
 
             out.writeByte(dimension); //dimension
-            out.writeByte(bitCount2);
+            out.writeByte(bitCount);
 
             writer.setDataOutputStream(out);
 
-           for (int i=0;i<bladeCount;i++)
+            for (int i=0;i<bladeCount;i++)
                 for (int j=0;j<bladeCount;j++) {
-                    writeMultivector(readMultivector(r, dimension, bitCount), dimension, writer, bitCount2);
-                    writeMultivector(readMultivector(r, dimension, bitCount), dimension, writer, bitCount2);
-                    writeMultivector(readMultivector(r, dimension, bitCount), dimension, writer, bitCount2);
+                    writeMultivector(innerTable.getProduct(i, j), dimension, writer, bitCount);
+                    writeMultivector(outerTable.getProduct(i, j), dimension, writer, bitCount);
+                    writeMultivector(geoTable.getProduct(i, j), dimension, writer, bitCount);
                 }
 
             writer.finish();
-            in.close();
-            tempFile.delete();
 
         } catch (IOException ex) {
             Logger.getLogger(TableCompressed.class.getName()).log(Level.SEVERE, null, ex);
@@ -15,6 +15,7 @@ import java.io.OutputStream;
 public class TableFormat {
     
     public static final int TABLE_COMPRESSED_MAX       = 1;
+    public static final int TABLE_MAPPED               = 2;
     public static final int TABLE_HUMAN_READABLE       = 69;
 
     /**
@@ -29,6 +30,8 @@ public class TableFormat {
             if (reader instanceof MaxReader) 
                 return TABLE_COMPRESSED_MAX;
         }
+        if (tableReaderIO instanceof TableMapped) 
+            return TABLE_MAPPED;
         if (tableReaderIO instanceof TableHumanReadable) 
             return TABLE_HUMAN_READABLE;
         
@@ -44,6 +47,8 @@ public class TableFormat {
         switch (byteFormat) {
             case TABLE_COMPRESSED_MAX:
                 return new TableCompressed(new MaxReader(), new MaxWriter());
+            case TABLE_MAPPED:
+                return new TableMapped();
             case TABLE_HUMAN_READABLE:
                 return new TableHumanReadable();
             default:
@@ -51,6 +56,22 @@ public class TableFormat {
         }
     }
 
+    /**
+     * Returns the format for a name given on the command line
+     * @param name The name: compressed, mapped or readable
+     * @return The format
+     */
+    public static int getFormat(String name) {
+        if (name.equals("compressed"))
+            return TABLE_COMPRESSED_MAX;
+        if (name.equals("mapped"))
+            return TABLE_MAPPED;
+        if (name.equals("readable"))
+            return TABLE_HUMAN_READABLE;
+
+        throw new IllegalArgumentException("Unknown products file format: "+name);
+    }
+
     public static void readFromFile(InputStream filestream, IMultTable innerTable, IMultTable outerTable, IMultTable geoTable) throws IOException {
         DataInputStream in = new DataInputStream(filestream);
         byte format = in.readByte();
@@ -0,0 +1,178 @@
+package de.gaalop.tba.table;
+
+import de.gaalop.tba.BladeRef;
+import de.gaalop.tba.IMultTable;
+import de.gaalop.tba.MultTableMapped;
+import de.gaalop.tba.Multivector;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores the product tables in a format, which can be memory-mapped
+ * and decoded product by product.
+ *
+ * Layout of the file (big endian):
+ * <pre>
+ * byte  format (TableFormat.TABLE_MAPPED)
+ * byte  dimension
+ * int   rowOffsets[3][bladeCount]   absolute file positions of the rows of the inner, outer and geo table
+ * rows:
+ *   int  starts[bladeCount+1]       position of the first entry of every product, relative to the row entries
+ *   char entries[]                  one entry per blade: bit 15 is set for a negative prefactor, bits 0-14 hold the index
+ * </pre>
+ */
+public class TableMapped implements TableReaderIO {
+
+    public static final int INNER = 0;
+    public static final int OUTER = 1;
+    public static final int GEO = 2;
+
+    static final int HEADER_SIZE = 2;
+    static final int NEGATIVE = 0x8000;
+
+    @Override
+    public void readFromInputStream(DataInputStream in, IMultTable innerTable, IMultTable outerTable, IMultTable geoTable) {
+        try {
+            ByteBuffer buffer = readBuffer(in, TableFormat.TABLE_MAPPED);
+            in.close();
+
+            IMultTable[] source = createTables(buffer);
+            IMultTable[] dest = new IMultTable[] {innerTable, outerTable, geoTable};
+            int bladeCount = getBladeCount(buffer);
+            for (int table = INNER; table <= GEO; table++)
+                for (int i = 0; i < bladeCount; i++)
+                    for (int j = 0; j < bladeCount; j++)
+                        dest[table].setProduct(i, j, source[table].getProduct(i, j));
+        } catch (IOException ex) {
+            Logger.getLogger(TableMapped.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    @Override
+    public void writeFromInputStream(int bladeCount, int dimension, IMultTable innerTable, IMultTable outerTable, IMultTable geoTable, DataOutputStream out) {
+        try {
+            IMultTable[] tables = new IMultTable[] {innerTable, outerTable, geoTable};
+
+            ByteArrayOutputStream rows = new ByteArrayOutputStream();
+            DataOutputStream rowsOut = new DataOutputStream(rows);
+            int dataStart = HEADER_SIZE + 3 * bladeCount * 4;
+            int[] rowOffsets = new int[3 * bladeCount];
+
+            for (int table = INNER; table <= GEO; table++)
+                for (int i = 0; i < bladeCount; i++) {
+                    rowOffsets[table * bladeCount + i] = dataStart + rowsOut.size();
+                    Multivector[] row = new Multivector[bladeCount];
+                    int start = 0;
+                    for (int j = 0; j < bladeCount; j++) {
+                        row[j] = tables[table].getProduct(i, j);
+                        rowsOut.writeInt(start);
+                        start += row[j].getBlades().size();
+                    }
+                    rowsOut.writeInt(start);
+                    for (Multivector product: row)
+                        for (BladeRef ref: product.getBlades())
+                            rowsOut.writeChar((ref.getPrefactor() < 0) ? ref.getIndex() | NEGATIVE : ref.getIndex());
+                }
+            rowsOut.flush();
+
+            out.writeByte(dimension);
+            for (int rowOffset: rowOffsets)
+                out.writeInt(rowOffset);
+            rows.writeTo(out);
+            out.close();
+        } catch (IOException ex) {
+            Logger.getLogger(TableMapped.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Maps a products file of this format into memory
+     * @param file The file
+     * @return The read-only buffer of the whole file
+     * @throws IOException
+     */
+    public static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads the rest of a products file into a buffer.
+     * This is used, if only a stream of the file is available.
+     * @param in The stream, whose format byte is already read
+     * @param format The format byte, which is put in front of the buffer
+     * @return The buffer of the whole file
+     * @throws IOException
+     */
+    public static ByteBuffer readBuffer(InputStream in, int format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(format);
+        byte[] chunk = new byte[65536];
+        int read;
+        while ((read = in.read(chunk)) != -1)
+            bytes.write(chunk, 0, read);
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    /**
+     * Creates the inner, outer and geo table, which decode their products lazily from a buffer
+     * @param buffer The buffer of the whole file
+     * @return The three tables
+     */
+    public static IMultTable[] createTables(ByteBuffer buffer) {
+        int bladeCount = getBladeCount(buffer);
+        return new IMultTable[] {
+            new MultTableMapped(buffer, INNER, bladeCount),
+            new MultTableMapped(buffer, OUTER, bladeCount),
+            new MultTableMapped(buffer, GEO, bladeCount)
+        };
+    }
+
+    /**
+     * Returns the number of blades of a table in a buffer
+     * @param buffer The buffer of the whole file
+     * @return The number of blades
+     */
+    public static int getBladeCount(ByteBuffer buffer) {
+        return 1 << buffer.get(1);
+    }
+
+    /**
+     * Decodes the product of two blades from a buffer
+     * @param buffer The buffer of the whole file
+     * @param table The table number (INNER, OUTER or GEO)
+     * @param bladeCount The number of blades
+     * @param factor1 The index of the blade of the first factor
+     * @param factor2 The index of the blade of the second factor
+     * @return The decoded product
+     */
+    public static Multivector decodeProduct(ByteBuffer buffer, int table, int bladeCount, int factor1, int factor2) {
+        int rowOffset = buffer.getInt(HEADER_SIZE + 4 * (table * bladeCount + factor1));
+        int start = buffer.getInt(rowOffset + 4 * factor2);
+        int end = buffer.getInt(rowOffset + 4 * (factor2 + 1));
+        int entries = rowOffset + 4 * (bladeCount + 1);
+
+        Multivector result = new Multivector();
+        for (int k = start; k < end; k++) {
+            char entry = buffer.getChar(entries + 2 * k);
+            byte prefactor = ((entry & NEGATIVE) != 0) ? (byte) -1 : (byte) 1;
+            result.addBlade(new BladeRef(prefactor, entry & ~NEGATIVE));
+        }
+        return result;
+    }
+
+}
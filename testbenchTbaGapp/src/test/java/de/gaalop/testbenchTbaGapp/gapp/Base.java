@@ -8,6 +8,9 @@ import de.gaalop.CodeParser;
 import de.gaalop.CodeParserException;
 import de.gaalop.InputFile;
 import de.gaalop.gapp.executer.Executer;
+import de.gaalop.gapp.executer.GAPPLinker;
+import de.gaalop.gapp.executer.LinkedProgram;
+import java.util.Arrays;
 import java.util.HashMap;
 import de.gaalop.OptimizationException;
 import de.gaalop.OutputFile;
@@ -19,6 +22,8 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.junit.Assert.*;
+
 /**
  * Provides methods for testing the GAPP importing pass with a GAPPTestable object
  * @author Christian Steinmetz
@@ -34,6 +39,54 @@ public class Base {
      * @throws CodeParserException
      */
     protected Executer executeProgram(GAPPTestable testable, String cluName) throws OptimizationException, CodeParserException {
+        ControlFlowGraph graph = createGraph(testable, cluName);
+
+        //Evaluate!
+        HashMap<String, Double> inputValues = testable.getInputs();
+        Executer executer = new Executer(inputValues);
+        graph.accept(executer);
+
+        // The linked program must compute the same values
+        LinkedProgram program = GAPPLinker.link(graph);
+        double[] registers = program.createRegisters();
+        program.execute(program.createInputs(inputValues), registers);
+        assertEquals(executer.getValues().keySet(), program.getNames());
+        for (String name : program.getNames()) {
+            assertTrue(name, Arrays.equals(executer.getValue(name).getEntries(), program.getValue(registers, name).getEntries()));
+        }
+        return executer;
+    }
+
+    /**
+     * Compiles a program, defined in a given GAPPTestable object, to a graph decorated with GAPP instructions
+     * @param testable The GAPPTestable object which defines the program to be compiled
+     * @param cluName The name of the clucalc script to be compiled
+     * @return The decorated graph
+     * @throws OptimizationException
+     * @throws CodeParserException
+     */
+    protected ControlFlowGraph createGraph(GAPPTestable testable, String cluName) throws OptimizationException, CodeParserException {
+        ControlFlowGraph graph = decorateGraph(testable, cluName, true);
+
+        outputPlugin(new de.gaalop.codegenGapp.Plugin(), graph);
+        outputPlugin(new de.gaalop.clucalc.output.Plugin(), graph);
+
+        //printStatistics(graph);
+
+        return graph;
+    }
+
+    /**
+     * Compiles a program, defined in a given GAPPTestable object, to a graph decorated with GAPP instructions
+     * without writing any output files
+     * @param testable The GAPPTestable object which defines the program to be compiled
+     * @param cluName The name of the clucalc script to be compiled
+     * @param reuseBuffers Should temporaries with disjoint live ranges share their buffers?
+     * @return The decorated graph
+     * @throws OptimizationException
+     * @throws CodeParserException
+     */
+    protected ControlFlowGraph decorateGraph(GAPPTestable testable, String cluName, boolean reuseBuffers) throws OptimizationException, CodeParserException {
         CodeParser parser = (new de.gaalop.clucalc.input.Plugin()).createCodeParser();
         ControlFlowGraph graph = parser.parseFile(new InputFile(cluName, testable.getSource()));
         graph.algebraName = "5d";
@@ -46,20 +99,12 @@ public class Base {
         
         de.gaalop.gapp.Plugin gappPlugin = new de.gaalop.gapp.Plugin();
         gappPlugin.useScalarFunctions = true;
+        gappPlugin.reuseBuffers = reuseBuffers;
 
         GAPPDecoratingMain importer = new GAPPDecoratingMain(gappPlugin);
         importer.decorateGraph(graph);
 
-        outputPlugin(new de.gaalop.codegenGapp.Plugin(), graph);
-        outputPlugin(new de.gaalop.clucalc.output.Plugin(), graph);
-
-        //printStatistics(graph);
-
-        //Evaluate!
-        HashMap<String, Double> inputValues = testable.getInputs();
-        Executer executer = new Executer(inputValues);
-        graph.accept(executer);
-        return executer;
+        return graph;
     }
 
     /**
@@ -0,0 +1,105 @@
+package de.gaalop.testbenchTbaGapp.gapp;
+
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.CodeParserException;
+import de.gaalop.OptimizationException;
+import de.gaalop.OutputFile;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.dfg.Variable;
+import de.gaalop.gapp.executer.Executer;
+import de.gaalop.gapp.instructionSet.GAPPResetMv;
+import de.gaalop.gapp.instructionSet.GAPPSetVector;
+import de.gaalop.gapp.visitor.EmptyCFGGAPPVisitor;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if temporaries with disjoint live ranges share their buffers
+ * without changing the computed values, and if the OpenCL code generator declares every buffer once
+ */
+public class BufferReuseTest extends Base {
+
+    /**
+     * Returns the names of all defined multivectors and vectors of a graph
+     */
+    private HashSet<String> getDefinedNames(ControlFlowGraph graph) {
+        final HashSet<String> names = new HashSet<String>();
+        graph.accept(new EmptyCFGGAPPVisitor() {
+            @Override
+            public Object visitResetMv(GAPPResetMv gappResetMv, Object arg) {
+                names.add(gappResetMv.getDestination().getName());
+                return null;
+            }
+
+            @Override
+            public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+                names.add(gappSetVector.getDestination().getName());
+                return null;
+            }
+        });
+        return names;
+    }
+
+    @Test
+    public void sharedBuffersComputeSameValues() throws OptimizationException, CodeParserException {
+        GPS gps = new GPS();
+        ControlFlowGraph separate = decorateGraph(gps, "GPS", false);
+        ControlFlowGraph shared = decorateGraph(gps, "GPS", true);
+
+        HashSet<String> separateNames = getDefinedNames(separate);
+        HashSet<String> sharedNames = getDefinedNames(shared);
+        assertTrue(sharedNames.size() < separateNames.size());
+        assertTrue(separateNames.containsAll(sharedNames));
+
+        Executer separateExecuter = new Executer(gps.getInputs());
+        separate.accept(separateExecuter);
+        Executer sharedExecuter = new Executer(gps.getInputs());
+        shared.accept(sharedExecuter);
+        for (Variable variable : shared.getLocalVariables()) {
+            String name = variable.getName();
+            assertTrue(name, Arrays.equals(separateExecuter.getValue(name).getEntries(), sharedExecuter.getValue(name).getEntries()));
+        }
+
+        // the linked program of the shared graph must compute the same values, too
+        executeProgram(gps, "GPS");
+    }
+
+    @Test
+    public void openCLDeclaresBuffersOnce() throws OptimizationException, CodeParserException, CodeGeneratorException {
+        ControlFlowGraph graph = decorateGraph(new GPS(), "GPS", true);
+
+        de.gaalop.gappopencl.Plugin plugin = new de.gaalop.gappopencl.Plugin();
+        final LinkedList<Object> errors = new LinkedList<Object>();
+        plugin.addObserver(new Observer() {
+            @Override
+            public void update(Observable o, Object arg) {
+                errors.add(arg);
+            }
+        });
+        String code = "";
+        for (OutputFile outputFile : plugin.createCodeGenerator().generate(graph)) {
+            code = outputFile.getContent();
+        }
+        assertTrue(errors.isEmpty());
+
+        HashSet<String> declared = new HashSet<String>();
+        Matcher matcher = Pattern.compile("^float\\d* (\\w+)", Pattern.MULTILINE).matcher(code);
+        int declarations = 0;
+        while (matcher.find()) {
+            assertTrue(matcher.group(1), declared.add(matcher.group(1)));
+            declarations++;
+        }
+        assertTrue(declarations > 0);
+        // shared vector buffers are assigned without a declaration
+        assertTrue(Pattern.compile("^ve\\d+_0 = ", Pattern.MULTILINE).matcher(code).find());
+    }
+
+}
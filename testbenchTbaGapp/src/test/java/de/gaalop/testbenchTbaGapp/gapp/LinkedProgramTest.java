@@ -0,0 +1,117 @@
+package de.gaalop.testbenchTbaGapp.gapp;
+
+import de.gaalop.CodeParserException;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.gapp.executer.Executer;
+import de.gaalop.gapp.executer.GAPPLinker;
+import de.gaalop.gapp.executer.LinkedProgram;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if a linked program computes the same values as the Executer,
+ * when its register file is reused for several executions,
+ * and if the batch execution computes the same values as single executions
+ */
+public class LinkedProgramTest extends Base {
+
+    @Test
+    public void reuseRegisters() throws OptimizationException, CodeParserException {
+        Circle circle = new Circle();
+        ControlFlowGraph graph = createGraph(circle, "Circle");
+        LinkedProgram program = GAPPLinker.link(graph);
+        double[] registers = program.createRegisters();
+        assertEquals(program.getRegisterCount(), registers.length);
+
+        Random random = new Random(5);
+        for (int run = 0; run < 10; run++) {
+            HashMap<String, Double> inputValues = new HashMap<String, Double>();
+            for (String name : circle.getInputs().keySet()) {
+                inputValues.put(name, random.nextDouble() * 20 - 10);
+            }
+
+            Executer executer = new Executer(inputValues);
+            graph.accept(executer);
+            program.execute(program.createInputs(inputValues), registers);
+
+            for (String name : program.getNames()) {
+                assertTrue(name, Arrays.equals(executer.getValue(name).getEntries(), program.getValue(registers, name).getEntries()));
+            }
+        }
+    }
+
+    @Test
+    public void batchEqualsSingleExecutions() throws OptimizationException, CodeParserException {
+        GPS gps = new GPS();
+        LinkedProgram program = GAPPLinker.link(createGraph(gps, "GPS"));
+
+        // larger than one chunk, so that the pool splits the batch
+        int count = 10007;
+        Random random = new Random(7);
+        List<HashMap<String, Double>> inputValues = new ArrayList<HashMap<String, Double>>();
+        for (int i = 0; i < count; i++) {
+            HashMap<String, Double> element = new HashMap<String, Double>();
+            for (Map.Entry<String, Double> input : gps.getInputs().entrySet()) {
+                element.put(input.getKey(), input.getValue() * (0.5 + random.nextDouble()));
+            }
+            inputValues.add(element);
+        }
+        double[] inputs = program.createBatchInputs(inputValues);
+
+        double[] sequential = program.createBatchRegisters(count);
+        program.executeBatch(inputs, sequential, count);
+        double[] parallel = program.createBatchRegisters(count);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            program.executeBatch(inputs, parallel, count, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        double[] registers = program.createRegisters();
+        for (int i = 0; i < count; i += 13) {
+            program.execute(program.createInputs(inputValues.get(i)), registers);
+            for (String name : program.getNames()) {
+                double[] expected = program.getValue(registers, name).getEntries();
+                assertTrue(name, Arrays.equals(expected, program.getBatchValue(sequential, count, i, name).getEntries()));
+                assertTrue(name, Arrays.equals(expected, program.getBatchValue(parallel, count, i, name).getEntries()));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingInput() throws OptimizationException, CodeParserException {
+        LinkedProgram program = GAPPLinker.link(createGraph(new Circle(), "Circle"));
+        assertEquals(6, program.getInputNames().length);
+        program.createInputs(new HashMap<String, Double>());
+    }
+
+    @Test
+    public void oversizedBatch() throws OptimizationException, CodeParserException {
+        LinkedProgram program = GAPPLinker.link(createGraph(new Circle(), "Circle"));
+        // the size of the register file overflows an int
+        int count = Integer.MAX_VALUE / program.getRegisterCount() + 1;
+        try {
+            program.createBatchRegisters(count);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            program.executeBatch(new double[0], new double[0], count);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package de.gaalop.testbenchTbaGapp.gapp;
+
+import de.gaalop.CodeParserException;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.gapp.ConstantSetVectorArgument;
+import de.gaalop.gapp.PairSetOfVariablesAndIndices;
+import de.gaalop.gapp.Selector;
+import de.gaalop.gapp.SetVectorArgument;
+import de.gaalop.gapp.instructionSet.GAPPDotVectors;
+import de.gaalop.gapp.instructionSet.GAPPSetVector;
+import de.gaalop.gapp.variables.GAPPVector;
+import de.gaalop.gapp.visitor.EmptyCFGGAPPVisitor;
+import java.util.HashSet;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the vectors of dot products are assembled only once per basic block
+ */
+public class SetVectorReuseTest extends Base {
+
+    @Test
+    public void sameEntriesAreGatheredOnce() throws OptimizationException, CodeParserException {
+        ControlFlowGraph graph = decorateGraph(new Circle(), "Circle", false);
+
+        final HashSet<String> entries = new HashSet<String>();
+        final HashSet<String> defined = new HashSet<String>();
+        final int[] repeatedParts = new int[1];
+        graph.accept(new EmptyCFGGAPPVisitor() {
+            @Override
+            public Object visitSetVector(GAPPSetVector gappSetVector, Object arg) {
+                StringBuilder key = new StringBuilder();
+                for (SetVectorArgument curArg : gappSetVector.getEntries()) {
+                    if (curArg.isConstant()) {
+                        key.append(((ConstantSetVectorArgument) curArg).getValue());
+                    } else {
+                        PairSetOfVariablesAndIndices pair = (PairSetOfVariablesAndIndices) curArg;
+                        key.append(pair.getSetOfVariable().getName());
+                        for (Selector sel : pair.getSelectors()) {
+                            key.append(sel.getSign() < 0 ? " -" : " ").append(sel.getIndex());
+                        }
+                    }
+                    key.append(';');
+                }
+                // Circle has no control flow and its temporaries are not shared, so every vector is gathered once
+                assertTrue(key.toString(), entries.add(key.toString()));
+                defined.add(gappSetVector.getDestination().getName());
+                return null;
+            }
+
+            @Override
+            public Object visitDotVectors(GAPPDotVectors gappDotVectors, Object arg) {
+                HashSet<String> parts = new HashSet<String>();
+                for (GAPPVector part : gappDotVectors.getParts()) {
+                    assertTrue(part.getName(), defined.contains(part.getName()));
+                    if (!parts.add(part.getName())) {
+                        repeatedParts[0]++;
+                    }
+                }
+                return null;
+            }
+        });
+        assertTrue(repeatedParts[0] > 0);
+
+        Circle circle = new Circle();
+        circle.testOutput(executeProgram(circle, "Circle"));
+    }
+
+}
@@ -0,0 +1,73 @@
+package de.gaalop.testbenchTbaGapp.productComputer;
+
+import de.gaalop.algebra.AlStrategy;
+import de.gaalop.algebra.BladeArrayRoutines;
+import de.gaalop.algebra.TCBlade;
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.dfg.Expression;
+import de.gaalop.productComputer.GeoProductCalculator;
+import de.gaalop.productComputer.InnerProductCalculator;
+import de.gaalop.productComputer.OuterProductCalculator;
+import de.gaalop.tba.IMultTable;
+import de.gaalop.tba.MultTableAbsDirectComputer;
+import de.gaalop.tba.MultTableMapped;
+import de.gaalop.tba.UseAlgebra;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the bundled 8d algebra is loaded through the memory-mapped tables with correct products
+ */
+public class BundledMappedTableTest extends ProductTes {
+
+    private static AlgebraDefinitionFile alFile;
+    private static BundledMappedTableTest test;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        alFile = new AlgebraDefinitionFile();
+        InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/8d/definition.csv");
+        alFile.loadFromFile(inputStream);
+        inputStream.close();
+        alFile.setProductsFilePath("algebra/8d/products.csv");
+        alFile.setUseAsRessource(true);
+        alFile.setUsePrecalculatedTable(true);
+
+        TCBlade[] blades = BladeArrayRoutines.createBlades(Arrays.copyOfRange(alFile.base, 1, alFile.base.length));
+        alFile.blades = new Expression[blades.length];
+        for (int i = 0; i < blades.length; i++)
+            alFile.blades[i] = blades[i].toExpression();
+
+        test = new BundledMappedTableTest();
+        test.useAlgebraClu = new UseAlgebra(alFile);
+        test.algebra = test.useAlgebraClu.getAlgebra();
+    }
+
+    private void compareAll(IMultTable mapped, IMultTable computed) {
+        assertTrue(mapped instanceof MultTableMapped);
+        for (int gr1 = 0; gr1 <= 8; gr1++)
+            for (int gr2 = 0; gr2 <= 8; gr2++)
+                test.dummy(mapped, computed, gr1, gr2);
+    }
+
+    @Test
+    public void inner() {
+        compareAll(test.useAlgebraClu.getTableInner(), new MultTableAbsDirectComputer(alFile, new InnerProductCalculator(), null));
+    }
+
+    @Test
+    public void outer() {
+        compareAll(test.useAlgebraClu.getTableOuter(), new MultTableAbsDirectComputer(alFile, new OuterProductCalculator(), null));
+    }
+
+    @Test
+    public void geo() {
+        compareAll(test.useAlgebraClu.getTableGeo(), new MultTableAbsDirectComputer(alFile, new GeoProductCalculator(), null));
+    }
+
+}
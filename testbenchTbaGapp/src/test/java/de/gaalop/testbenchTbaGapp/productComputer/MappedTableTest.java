@@ -0,0 +1,66 @@
+package de.gaalop.testbenchTbaGapp.productComputer;
+
+import de.gaalop.tba.IMultTable;
+import de.gaalop.tba.MultTableMapped;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.table.TableFormat;
+import de.gaalop.tba.table.TableMapped;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if a table written in the mapped format is read back lazily with equal products
+ */
+public class MappedTableTest extends ProductTes {
+
+    private static File file;
+    private static IMultTable[] mapped;
+    private static MappedTableTest test;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        test = new MappedTableTest();
+        test.useAlgebraClu = UseAlgebra.get5dConformalGATable();
+        test.algebra = test.useAlgebraClu.getAlgebra();
+
+        file = File.createTempFile("products", ".mapped");
+        TableFormat.writeToFile(test.algebra.getBladeCount(), 5,
+                test.useAlgebraClu.getTableInner(), test.useAlgebraClu.getTableOuter(), test.useAlgebraClu.getTableGeo(),
+                new FileOutputStream(file), TableFormat.TABLE_MAPPED);
+        mapped = TableMapped.createTables(TableMapped.map(file));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        file.delete();
+    }
+
+    private void compareAll(IMultTable table1, IMultTable table2) {
+        for (int gr1 = 0; gr1 <= 5; gr1++)
+            for (int gr2 = 0; gr2 <= 5; gr2++)
+                test.dummy(table1, table2, gr1, gr2);
+    }
+
+    @Test
+    public void inner() {
+        assertTrue(mapped[TableMapped.INNER] instanceof MultTableMapped);
+        compareAll(mapped[TableMapped.INNER], test.useAlgebraClu.getTableInner());
+    }
+
+    @Test
+    public void outer() {
+        compareAll(mapped[TableMapped.OUTER], test.useAlgebraClu.getTableOuter());
+    }
+
+    @Test
+    public void geo() {
+        compareAll(mapped[TableMapped.GEO], test.useAlgebraClu.getTableGeo());
+    }
+
+}
@@ -0,0 +1,87 @@
+package de.gaalop.testbenchTbaGapp.productComputer;
+
+import de.gaalop.algebra.AlStrategy;
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.productComputer.AlgebraPC;
+import de.gaalop.productComputer.GeoProductCalculator;
+import de.gaalop.productComputer.InnerProductCalculator;
+import de.gaalop.productComputer.MaskProductComputer;
+import de.gaalop.productComputer.OuterProductCalculator;
+import de.gaalop.productComputer.ProductCalculator;
+import de.gaalop.productComputer.ProductComputer;
+import de.gaalop.tba.BladeRef;
+import de.gaalop.tba.Multivector;
+import de.gaalop.tba.Products;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the MaskProductComputer computes the same products as the ProductComputer
+ */
+public class MaskProductTest {
+
+    private static byte[] toArray(Multivector product, int bladeCount) {
+        byte[] result = new byte[bladeCount];
+        for (BladeRef ref: product.getBlades())
+            result[ref.getIndex()] += ref.getPrefactor();
+        return result;
+    }
+
+    private void compare(String algebraName) throws IOException {
+        InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/"+algebraName+"/definition.csv");
+        AlgebraDefinitionFile alFile = new AlgebraDefinitionFile();
+        alFile.loadFromFile(inputStream);
+        inputStream.close();
+        AlgebraPC algebraPC = new AlgebraPC(alFile);
+
+        ProductComputer computer = new ProductComputer();
+        computer.initialize(algebraPC);
+        MaskProductComputer maskComputer = new MaskProductComputer();
+        maskComputer.initialize(algebraPC);
+
+        Products[] types = new Products[] {Products.INNER, Products.OUTER, Products.GEO};
+        ProductCalculator[] calculators = new ProductCalculator[] {new InnerProductCalculator(), new OuterProductCalculator(), new GeoProductCalculator()};
+
+        int bladeCount = 1 << algebraPC.base.length;
+        for (int t=0;t<types.length;t++)
+            for (int i=0;i<bladeCount;i++)
+                for (int j=0;j<bladeCount;j++)
+                    assertArrayEquals(algebraName+" "+types[t]+" E"+i+",E"+j,
+                            toArray(computer.calcProduct(i, j, calculators[t]), bladeCount),
+                            toArray(maskComputer.calcProduct(i, j, types[t]), bladeCount));
+    }
+
+    @Test
+    public void algebra3d() throws IOException {
+        compare("3d");
+    }
+
+    @Test
+    public void algebra5d() throws IOException {
+        compare("5d");
+    }
+
+    @Test
+    public void algebraCr4d() throws IOException {
+        compare("cr4d");
+    }
+
+    @Test
+    public void algebraPr4d() throws IOException {
+        compare("pr4d");
+    }
+
+    @Test
+    public void algebraSt4d() throws IOException {
+        compare("st4d");
+    }
+
+    @Test
+    public void algebra6d() throws IOException {
+        compare("6d");
+    }
+
+}
@@ -0,0 +1,73 @@
+package de.gaalop.testbenchTbaGapp.productComputer;
+
+import de.gaalop.algebra.AlStrategy;
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.tba.IMultTable;
+import de.gaalop.tba.MultTableImpl;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.table.ParallelTableGenerator;
+import de.gaalop.tba.table.TableFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the tables of the ParallelTableGenerator are read back with equal products
+ */
+public class ParallelTableGeneratorTest extends ProductTes {
+
+    private static IMultTable[] generated;
+    private static ParallelTableGeneratorTest test;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        test = new ParallelTableGeneratorTest();
+        test.useAlgebraClu = UseAlgebra.get5dConformalGATable();
+        test.algebra = test.useAlgebraClu.getAlgebra();
+
+        InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/5d/definition.csv");
+        AlgebraDefinitionFile alFile = new AlgebraDefinitionFile();
+        alFile.loadFromFile(inputStream);
+        inputStream.close();
+
+        ParallelTableGenerator generator = new ParallelTableGenerator(alFile, 3);
+        generator.compute();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.write(out);
+        assertEquals(test.algebra.getBladeCount(), generator.getBladeCount());
+
+        generated = new IMultTable[3];
+        for (int i = 0; i < 3; i++) {
+            generated[i] = new MultTableImpl();
+            generated[i].createTable(generator.getBladeCount());
+        }
+        TableFormat.readFromFile(new ByteArrayInputStream(out.toByteArray()), generated[0], generated[1], generated[2]);
+    }
+
+    private void compareAll(IMultTable table1, IMultTable table2) {
+        for (int gr1 = 0; gr1 <= 5; gr1++)
+            for (int gr2 = 0; gr2 <= 5; gr2++)
+                test.dummy(table1, table2, gr1, gr2);
+    }
+
+    @Test
+    public void inner() {
+        compareAll(generated[0], test.useAlgebraClu.getTableInner());
+    }
+
+    @Test
+    public void outer() {
+        compareAll(generated[1], test.useAlgebraClu.getTableOuter());
+    }
+
+    @Test
+    public void geo() {
+        compareAll(generated[2], test.useAlgebraClu.getTableGeo());
+    }
+
+}
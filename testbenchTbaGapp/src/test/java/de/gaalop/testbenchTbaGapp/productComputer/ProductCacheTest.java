@@ -0,0 +1,95 @@
+package de.gaalop.testbenchTbaGapp.productComputer;
+
+import de.gaalop.algebra.AlStrategy;
+import de.gaalop.cfg.AlgebraDefinitionFile;
+import de.gaalop.productComputer.AlgebraPC;
+import de.gaalop.productComputer.GeoProductCalculator;
+import de.gaalop.productComputer.InnerProductCalculator;
+import de.gaalop.productComputer.OuterProductCalculator;
+import de.gaalop.productComputer.ProductCalculator;
+import de.gaalop.tba.BladeRef;
+import de.gaalop.tba.MultTableAbsDirectComputer;
+import de.gaalop.tba.Multivector;
+import de.gaalop.tba.ProductCache;
+import de.gaalop.tba.Products;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the ProductCache returns the computed products, is shared per algebra and stays bounded
+ */
+public class ProductCacheTest {
+
+    private static AlgebraDefinitionFile load(String algebraName) throws IOException {
+        InputStream inputStream = AlStrategy.class.getResourceAsStream("algebra/"+algebraName+"/definition.csv");
+        AlgebraDefinitionFile alFile = new AlgebraDefinitionFile();
+        alFile.loadFromFile(inputStream);
+        inputStream.close();
+        return alFile;
+    }
+
+    private static byte[] toArray(Multivector product, int bladeCount) {
+        byte[] result = new byte[bladeCount];
+        for (BladeRef ref: product.getBlades())
+            result[ref.getIndex()] += ref.getPrefactor();
+        return result;
+    }
+
+    private void compare(ProductCalculator calculator) throws IOException {
+        AlgebraDefinitionFile alFile = load("5d");
+        int bladeCount = 1 << new AlgebraPC(alFile).base.length;
+        MultTableAbsDirectComputer uncached = new MultTableAbsDirectComputer(alFile, calculator, null);
+        ProductCache cache = new ProductCache(ProductCache.DEFAULT_CAPACITY);
+        MultTableAbsDirectComputer cached = new MultTableAbsDirectComputer(alFile, calculator, cache);
+
+        // the first round fills the cache, the second one reads from it
+        for (int round=0;round<2;round++)
+            for (int i=0;i<bladeCount;i++)
+                for (int j=0;j<bladeCount;j++)
+                    assertArrayEquals(calculator.getClass().getSimpleName()+" E"+i+",E"+j,
+                            toArray(uncached.getProduct(i, j), bladeCount),
+                            toArray(cached.getProduct(i, j), bladeCount));
+        assertEquals(bladeCount*bladeCount, cache.getSize());
+        assertEquals(bladeCount*bladeCount, cache.getMisses());
+        assertEquals(bladeCount*bladeCount, cache.getHits());
+    }
+
+    @Test
+    public void inner() throws IOException {
+        compare(new InnerProductCalculator());
+    }
+
+    @Test
+    public void outer() throws IOException {
+        compare(new OuterProductCalculator());
+    }
+
+    @Test
+    public void geo() throws IOException {
+        compare(new GeoProductCalculator());
+    }
+
+    @Test
+    public void shared() throws IOException {
+        ProductCache cache5d = ProductCache.getShared(load("5d"));
+        assertSame(cache5d, ProductCache.getShared(load("5d")));
+        assertNotSame(cache5d, ProductCache.getShared(load("3d")));
+        assertNotSame(cache5d, ProductCache.getShared(load("cr4d")));
+    }
+
+    @Test
+    public void bounded() {
+        ProductCache cache = new ProductCache(10);
+        Multivector product = new Multivector();
+        for (int i=0;i<100;i++) {
+            cache.put(Products.GEO, i, i+1, product);
+            assertTrue(cache.getSize() <= cache.getCapacity());
+        }
+        assertEquals(10, cache.getSize());
+        assertSame(product, cache.get(Products.GEO, 99, 100));
+    }
+
+}
@@ -0,0 +1,54 @@
+package de.gaalop.testbenchTbaGapp.productComputer;
+
+import de.gaalop.tba.Algebra;
+import de.gaalop.tba.Products;
+import de.gaalop.tba.SparseMultTable;
+import de.gaalop.tba.UseAlgebra;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the sparse products equal the dense products of the tables
+ */
+public class SparseProductTest {
+
+    private static UseAlgebra useAlgebra;
+
+    @BeforeClass
+    public static void setUp() {
+        useAlgebra = UseAlgebra.get5dConformalGATable();
+    }
+
+    private void compare(Products typeProduct) {
+        Algebra algebra = useAlgebra.getAlgebra();
+        int bladeCount = algebra.getBladeCount();
+        for (int i=0;i<bladeCount;i++)
+            for (int j=0;j<bladeCount;j++) {
+                byte[] dense = useAlgebra.getProduct(typeProduct, i, j).getValueArr(algebra);
+                byte[] sparse = new byte[bladeCount];
+                for (int entry: useAlgebra.getSparseProduct(typeProduct, i, j)) {
+                    assertEquals(0, sparse[SparseMultTable.getIndex(entry)]);
+                    sparse[SparseMultTable.getIndex(entry)] = SparseMultTable.getPrefactor(entry);
+                }
+                assertArrayEquals(typeProduct+" E"+i+",E"+j, dense, sparse);
+            }
+    }
+
+    @Test
+    public void inner() {
+        compare(Products.INNER);
+    }
+
+    @Test
+    public void outer() {
+        compare(Products.OUTER);
+    }
+
+    @Test
+    public void geo() {
+        compare(Products.GEO);
+    }
+
+}
@@ -0,0 +1,137 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CodeGenerator;
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.CompilationCache;
+import de.gaalop.CompilationException;
+import de.gaalop.CompilerFacade;
+import de.gaalop.InputFile;
+import de.gaalop.OutputFile;
+import de.gaalop.Plugin;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.cfg.GlobalSettings;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the CompilationCache returns the stored results and evicts the least recently used entries
+ */
+public class CompilationCacheTest {
+
+    private static final String SOURCE = "a = e1^e2;\n?b = a*e3;\n";
+
+    private File directory;
+    private int generated;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("gaalopCache", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        new CompilationCache(directory, 0).clear();
+        directory.delete();
+    }
+
+    private CompilerFacade createCompiler(de.gaalop.tba.Plugin tbaPlugin, CompilationCache cache) {
+        final CodeGenerator generator = new de.gaalop.clucalc.output.Plugin().createCodeGenerator();
+        CompilerFacade facade = TestDummy.createFacade(tbaPlugin, new CodeGenerator() {
+            @Override
+            public Set<OutputFile> generate(ControlFlowGraph in) throws CodeGeneratorException {
+                generated++;
+                return generator.generate(in);
+            }
+        });
+        facade.setCache(cache, Arrays.<Plugin>asList(tbaPlugin));
+        return facade;
+    }
+
+    @Test
+    public void hitAndMiss() throws CompilationException {
+        CompilationCache cache = new CompilationCache(directory, 1024 * 1024);
+        de.gaalop.tba.Plugin tbaPlugin = new de.gaalop.tba.Plugin();
+
+        Set<OutputFile> first = createCompiler(tbaPlugin, cache).compile(new InputFile("Cache", SOURCE));
+        Set<OutputFile> second = createCompiler(tbaPlugin, cache).compile(new InputFile("Cache", SOURCE));
+        assertEquals(1, generated);
+        assertEquals(first, second);
+
+        // a changed input and a changed configuration property are cache misses
+        createCompiler(tbaPlugin, cache).compile(new InputFile("Cache", SOURCE + "?c = a;\n"));
+        assertEquals(2, generated);
+        tbaPlugin.setOptConstantPropagation(false);
+        createCompiler(tbaPlugin, cache).compile(new InputFile("Cache", SOURCE));
+        assertEquals(3, generated);
+    }
+
+    @Test
+    public void maximaVersionIsPartOfTheKey() throws IOException {
+        InputFile input = new InputFile("Cache", SOURCE);
+        List<Plugin> plugins = Arrays.<Plugin>asList(new de.gaalop.tba.Plugin());
+        GlobalSettings settings = new GlobalSettings();
+        String withoutSettings = CompilationCache.computeKey(input, "5d", true, "", plugins, null);
+        assertEquals(withoutSettings, CompilationCache.computeKey(input, "5d", true, "", plugins, settings));
+
+        // the java launcher prints its version like Maxima
+        settings.optMaxima = true;
+        settings.maximaCommand = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        assertNotNull(settings.getMaximaVersion());
+        String withMaxima = CompilationCache.computeKey(input, "5d", true, "", plugins, settings);
+        assertFalse(withoutSettings.equals(withMaxima));
+        assertEquals(withMaxima, CompilationCache.computeKey(input, "5d", true, "", plugins, settings));
+
+        // without a version nothing is cached
+        settings.maximaCommand = new File(directory, "missingMaxima").getPath();
+        try {
+            CompilationCache.computeKey(input, "5d", true, "", plugins, settings);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void eviction() {
+        Set<OutputFile> outputFiles = Collections.singleton(new OutputFile("out.clu", new String(new char[1000]).replace('\0', 'x'), Charset.forName("UTF-8")));
+        CompilationCache cache = new CompilationCache(directory, 2500);
+        cache.put("a", outputFiles);
+        cache.put("b", outputFiles);
+        new File(directory, "a.cache").setLastModified(System.currentTimeMillis() - 20000);
+        new File(directory, "b.cache").setLastModified(System.currentTimeMillis() - 10000);
+
+        // reading a marks it as recently used, so that b is evicted
+        assertEquals(outputFiles, cache.get("a"));
+        cache.put("c", outputFiles);
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void staleTemporaryFiles() throws IOException {
+        File stale = File.createTempFile("entry", ".tmp", directory);
+        stale.setLastModified(System.currentTimeMillis() - 2 * 60 * 60 * 1000);
+        File recent = File.createTempFile("entry", ".tmp", directory);
+
+        // opening the cache deletes only the temporary files, which are not written anymore
+        new CompilationCache(directory, 1024 * 1024);
+        assertFalse(stale.exists());
+        assertTrue(recent.exists());
+        recent.delete();
+    }
+
+}
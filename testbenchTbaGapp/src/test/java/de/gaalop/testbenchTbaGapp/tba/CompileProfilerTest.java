@@ -0,0 +1,44 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CompilationException;
+import de.gaalop.CompileProfiler;
+import de.gaalop.CompilerFacade;
+import de.gaalop.InputFile;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.util.HashMap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the CompileProfiler records the phases of a compilation
+ */
+public class CompileProfilerTest {
+
+    @Test
+    public void phases() throws CompilationException {
+        CompilerFacade facade = TestDummy.createFacade(new de.gaalop.tba.Plugin(), new de.gaalop.clucalc.output.Plugin().createCodeGenerator());
+        CompileProfiler profiler = new CompileProfiler();
+        facade.setProfiler(profiler);
+        facade.compile(new InputFile("Profile", "a = e1^e2;\n?b = a*e3;\n"));
+
+        assertNull(CompileProfiler.getCurrent());
+
+        HashMap<String, CompileProfiler.Phase> phases = new HashMap<String, CompileProfiler.Phase>();
+        for (CompileProfiler.Phase phase : profiler.getPhases()) {
+            assertTrue(phase.getName(), phase.getWallNanos() >= 0);
+            phases.put(phase.getName(), phase);
+        }
+
+        for (String name : new String[] {"Compilation", "Parsing", "Algebra", "Macro inlining", "Optimization", "TBA import", "TBA def-use optimization", "Code generation"})
+            assertTrue(name, phases.containsKey(name));
+
+        assertEquals(0, phases.get("Compilation").getDepth());
+        assertEquals(1, phases.get("Optimization").getDepth());
+        assertEquals(2, phases.get("TBA import").getDepth());
+        assertEquals(phases.get("Parsing").getNodesAfter(), phases.get("Global settings").getNodesBefore());
+        assertTrue(phases.get("Optimization").getExpressionsAfter() > 0);
+        assertTrue(profiler.toJson().contains("\"name\": \"TBA import\""));
+    }
+
+}
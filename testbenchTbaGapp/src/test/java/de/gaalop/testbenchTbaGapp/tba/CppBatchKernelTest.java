@@ -0,0 +1,92 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CompilationException;
+import de.gaalop.CompilerFacade;
+import de.gaalop.InputFile;
+import de.gaalop.OutputFile;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.util.HashMap;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the structure of the batched C/C++ kernel and the benchmark harness
+ */
+public class CppBatchKernelTest {
+
+    private static final String SOURCE = "P = createPoint(x, y, z);\nS = P - 0.5*r*r*einf;\n?d = sqrt(abs(S.P));\n";
+
+    /**
+     * Generates the C/C++ code of a script and returns the contents of the output files by file name
+     */
+    private HashMap<String, String> generate(String source, boolean intrinsics, boolean harness) throws CompilationException {
+        de.gaalop.cpp.Plugin cppPlugin = new de.gaalop.cpp.Plugin();
+        cppPlugin.setBatchKernel(true);
+        cppPlugin.setSimdIntrinsics(intrinsics);
+        cppPlugin.setBenchmarkHarness(harness);
+        CompilerFacade facade = TestDummy.createFacade(new de.gaalop.tba.Plugin(), cppPlugin.createCodeGenerator());
+        Set<OutputFile> outputFiles = facade.compile(new InputFile("Batch.clu", source));
+        HashMap<String, String> contents = new HashMap<String, String>();
+        for (OutputFile outputFile : outputFiles) {
+            contents.put(outputFile.getName(), outputFile.getContent());
+        }
+        return contents;
+    }
+
+    @Test
+    public void structureOfArrays() throws CompilationException {
+        HashMap<String, String> contents = generate(SOURCE, false, false);
+        assertEquals(2, contents.size());
+        assertTrue(contents.containsKey("Batch.c"));
+        String code = contents.get("Batch_batch.c");
+        assertNotNull(code);
+
+        assertTrue(code.contains("void calculate_batch(const float* const in[], float* const out[], size_t n) {"));
+        // inputs and multivectors are sorted by name
+        assertTrue(code.contains("const float* __restrict in_r = in[0];"));
+        assertTrue(code.contains("const float* __restrict in_z = in[3];"));
+        assertTrue(code.contains("float* __restrict out_d = out[0];"));
+        assertTrue(code.contains("float* __restrict out_S = out[2];"));
+        assertTrue(code.contains("#pragma omp simd\n\tfor (size_t i = 0; i < n; ++i) {"));
+        assertTrue(code.contains("out_d[0 * n + i] = d_0;"));
+        assertFalse(code.contains("immintrin.h"));
+        // the components are held in scalars instead of arrays
+        assertFalse(code.contains(" P[4]"));
+        assertTrue(code.contains("P_4 = "));
+    }
+
+    @Test
+    public void intrinsics() throws CompilationException {
+        String code = generate(SOURCE, true, false).get("Batch_batch.c");
+        assertTrue(code.contains("#if defined(__AVX512F__) || defined(__AVX2__)\n#include <immintrin.h>"));
+        assertTrue(code.contains("for (; vectorized + 16 <= n; vectorized += 16) {"));
+        assertTrue(code.contains("for (; vectorized + 8 <= n; vectorized += 8) {"));
+        assertTrue(code.contains("_mm512_sqrt_ps(_mm512_abs_ps("));
+        assertTrue(code.contains("_mm256_storeu_ps(out_d + 0 * n + vectorized, d_0);"));
+        assertTrue(code.contains("for (size_t i = vectorized; i < n; ++i) {"));
+    }
+
+    @Test
+    public void unsupportedFunctionDisablesIntrinsics() throws CompilationException {
+        String code = generate("P = createPoint(x, y, z);\n?e = exp(x)*P;\n", true, false).get("Batch_batch.c");
+        assertFalse(code.contains("immintrin.h"));
+        assertFalse(code.contains("vectorized"));
+        assertTrue(code.contains("#pragma omp simd\n\tfor (size_t i = 0; i < n; ++i) {"));
+    }
+
+    @Test
+    public void benchmarkHarness() throws CompilationException {
+        HashMap<String, String> contents = generate(SOURCE, false, true);
+        assertEquals(3, contents.size());
+        String code = contents.get("Batch_benchmark.cpp");
+        assertNotNull(code);
+        assertTrue(code.contains("#include \"Batch.c\""));
+        assertTrue(code.contains("#include \"Batch_batch.c\""));
+        assertTrue(code.contains("const size_t inputCount = 4;"));
+        assertTrue(code.contains("calculate_batch(in.data(), out.data(), n);"));
+        assertTrue(code.contains("calculate(inputs[0][i], inputs[1][i], inputs[2][i], inputs[3][i], d, P, S);"));
+    }
+
+}
@@ -0,0 +1,76 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.CompilationException;
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.tba.UseAlgebra;
+import de.gaalop.tba.cfgImport.optimization.DefUseOptimization;
+import de.gaalop.tba.cfgImport.optimization.OptConstantPropagation;
+import de.gaalop.tba.cfgImport.optimization.OptOneExpressionsRemoval;
+import de.gaalop.tba.cfgImport.optimization.OptUnusedAssignmentsRemoval;
+import de.gaalop.tba.cfgImport.optimization.OptimizationStrategyWithModifyFlag;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the DefUseOptimization computes the same graph as the repeated application of the single optimizations
+ */
+public class DefUseOptimizationTest {
+
+    private static final String[] SOURCES = {
+        "a = 3;\nb = a*x + 0*y;\nc = b;\nd = c + e1*a;\nf = d^e2;\ng = f;\n?h = g*g;\n?k = c;\n",
+        "a = 0;\nb = a + z;\nc = b*b - z*z;\n?d = c + b;\ne = d;\n?f = e*e1;\n",
+        "v1 = x*e1 + y*e2 + z*e3;\nv2 = v1;\nv3 = v2;\nn = sqrt(v3.v3);\nw = v3/n;\n?r = w^v1;\n?s = n;\n",
+        "a = x;\nb = a;\nc = b*1;\n?d = c + 0;\n?e = 2*3*c - c;\n"
+    };
+
+    /**
+     * Imports a source with the table based approach without optimizing it
+     * @param source The source
+     * @return The imported graph
+     */
+    private ControlFlowGraph importGraph(String source) throws CompilationException {
+        de.gaalop.tba.Plugin tbaPlugin = new de.gaalop.tba.Plugin();
+        tbaPlugin.setOptConstantPropagation(false);
+        tbaPlugin.setOptUnusedAssignments(false);
+        tbaPlugin.setOptOneExpressionRemoval(false);
+        return TestDummy.optimizeGraph(tbaPlugin, "DefUse", source);
+    }
+
+    private static String generate(ControlFlowGraph graph) throws CodeGeneratorException {
+        return new de.gaalop.clucalc.output.Plugin().createCodeGenerator().generate(graph).iterator().next().getContent();
+    }
+
+    @Test
+    public void sameAsFixpointIteration() throws CompilationException, OptimizationException {
+        LoggingListenerGroup listeners = new LoggingListenerGroup();
+        for (String source : SOURCES) {
+            ControlFlowGraph iterated = importGraph(source);
+            UseAlgebra usedAlgebra = UseAlgebra.getShared(iterated);
+            OptimizationStrategyWithModifyFlag[] optimizations = {
+                new OptConstantPropagation(), new OptUnusedAssignmentsRemoval(), new OptOneExpressionsRemoval()
+            };
+            boolean repeat;
+            do {
+                repeat = false;
+                for (OptimizationStrategyWithModifyFlag optimization : optimizations) {
+                    repeat |= optimization.transform(iterated, usedAlgebra, listeners);
+                }
+            } while (repeat);
+
+            ControlFlowGraph graph = importGraph(source);
+            DefUseOptimization optimization = new DefUseOptimization(graph, usedAlgebra);
+            assertTrue(optimization.isApplicable());
+            assertTrue(optimization.optimize(true, true, true));
+            assertEquals(source, generate(iterated), generate(graph));
+
+            // the result is a fixpoint
+            assertFalse(new DefUseOptimization(graph, usedAlgebra).optimize(true, true, true));
+        }
+    }
+
+}
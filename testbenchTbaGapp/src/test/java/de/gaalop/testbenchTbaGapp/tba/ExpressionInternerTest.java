@@ -0,0 +1,92 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CompilationException;
+import de.gaalop.CompilerFacade;
+import de.gaalop.InputFile;
+import de.gaalop.OutputFile;
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.ExpressionInterner;
+import de.gaalop.dfg.FloatConstant;
+import de.gaalop.dfg.MathFunction;
+import de.gaalop.dfg.MathFunctionCall;
+import de.gaalop.dfg.Multiplication;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Variable;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the ExpressionInterner shares equal expressions and if interning keeps the results of the TBA
+ */
+public class ExpressionInternerTest {
+
+    private static Expression createExpression() {
+        return new Addition(
+                new Multiplication(new MultivectorComponent("a", 1), new Variable("x")),
+                new MathFunctionCall(new Multiplication(new MultivectorComponent("a", 1), new Variable("x")), MathFunction.SQRT));
+    }
+
+    @Test
+    public void sharing() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Expression first = interner.intern(createExpression());
+        Expression second = interner.intern(createExpression());
+
+        assertSame(first, second);
+        assertTrue(first.isInterned());
+        Addition addition = (Addition) first;
+        assertSame(addition.getLeft(), ((MathFunctionCall) addition.getRight()).getOperand());
+        // a, x, a*x, sqrt(a*x) and the sum
+        assertEquals(5, interner.size());
+
+        // the interned hash code is the structural one
+        assertEquals(createExpression().hashCode(), first.hashCode());
+        assertEquals(createExpression(), first);
+        assertFalse(interner.intern(new FloatConstant(2)).equals(interner.intern(new FloatConstant(3))));
+    }
+
+    @Test
+    public void immutability() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Addition addition = (Addition) interner.intern(createExpression());
+        try {
+            addition.setLeft(new FloatConstant(1));
+            fail("An interned expression was changed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        interner.release();
+        assertFalse(addition.isInterned());
+        addition.setLeft(new FloatConstant(1));
+        assertEquals(new FloatConstant(1), addition.getLeft());
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void variablesWithRange() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Variable variable = new Variable("x");
+        variable.setMinValue("0");
+        Expression expression = interner.intern(new Multiplication(variable, new FloatConstant(2)));
+        assertFalse(expression.isInterned());
+    }
+
+    private static Set<OutputFile> compile(boolean useInternedExpressions) throws CompilationException {
+        de.gaalop.tba.Plugin tbaPlugin = new de.gaalop.tba.Plugin();
+        tbaPlugin.setUseInternedExpressions(useInternedExpressions);
+        CompilerFacade facade = TestDummy.createFacade(tbaPlugin, new de.gaalop.clucalc.output.Plugin().createCodeGenerator());
+        return facade.compile(new InputFile("Interned",
+                "P = createPoint(x, y, z);\nS = P - 0.5*r*r*einf;\nT = S*P*S;\n?R = T^(P + e1);\n?d = abs(S.P);\n"));
+    }
+
+    @Test
+    public void sameResults() throws CompilationException {
+        assertEquals(compile(false), compile(true));
+    }
+
+}
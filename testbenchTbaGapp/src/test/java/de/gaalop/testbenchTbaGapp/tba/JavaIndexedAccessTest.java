@@ -0,0 +1,136 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CompilationException;
+import de.gaalop.CompilerFacade;
+import de.gaalop.InputFile;
+import de.gaalop.OutputFile;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the indexed access and the batched calculation of the generated Java code
+ * give the same results as the access by variable name
+ */
+public class JavaIndexedAccessTest {
+
+    private static final String SOURCE = "P = createPoint(x, y, z);\nS = P - 0.5*r*r*einf;\n?T = S*P*S;\n?d = sqrt(abs(S.P));\n";
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("gaalopJava", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * Generates and compiles the Java code of the script and returns the generated class
+     */
+    private Class<?> compile(boolean indexedAccess) throws CompilationException, IOException, ClassNotFoundException {
+        de.gaalop.java.Plugin javaPlugin = new de.gaalop.java.Plugin();
+        javaPlugin.setIndexedAccess(indexedAccess);
+        CompilerFacade facade = TestDummy.createFacade(new de.gaalop.tba.Plugin(), javaPlugin.createCodeGenerator());
+        Set<OutputFile> outputFiles = facade.compile(new InputFile("Indexed.clu", SOURCE));
+        assertEquals(indexedAccess ? 3 : 2, outputFiles.size());
+
+        List<String> arguments = new LinkedList<String>();
+        arguments.add("-nowarn");
+        for (OutputFile outputFile : outputFiles) {
+            File file = new File(directory, outputFile.getName());
+            Files.write(file.toPath(), outputFile.getContent().getBytes(outputFile.getEncoding()));
+            arguments.add(file.getPath());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{directory.toURI().toURL()}, getClass().getClassLoader());
+        return loader.loadClass("Indexed");
+    }
+
+    private static String[] getNames(Class<?> c, String prefix, String countField) throws Exception {
+        String[] names = new String[c.getField(countField).getInt(null)];
+        for (Field field : c.getFields()) {
+            if (field.getName().startsWith(prefix)) {
+                names[field.getInt(null)] = field.getName().substring(prefix.length());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void batchEqualsSingleCalculations() throws Exception {
+        Class<?> indexed = compile(true);
+        Class<?> named = compile(false);
+        String[] inputs = getNames(indexed, "IN_", "INPUT_COUNT");
+        String[] outputs = getNames(indexed, "OUT_", "OUTPUT_COUNT");
+        assertEquals(4, inputs.length);
+        assertTrue(outputs.length > 1);
+
+        int count = 100;
+        Random random = new Random(17);
+        double[] in = new double[inputs.length * count];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = random.nextDouble() * 4 - 2;
+        }
+        double[] out = new double[outputs.length * count];
+        Object batch = indexed.getDeclaredConstructor().newInstance();
+        indexed.getMethod("calculateBatch", double[].class, double[].class, int.class).invoke(batch, in, out, count);
+
+        Object single = indexed.getDeclaredConstructor().newInstance();
+        Method setInputs = indexed.getMethod("setInputs", double[].class);
+        Method getOutputs = indexed.getMethod("getOutputs", double[].class);
+        Method calculate = indexed.getMethod("calculate");
+
+        Object reference = named.getDeclaredConstructor().newInstance();
+        Method setValue = named.getMethod("setValue", String.class, double.class);
+        Method getValue = named.getMethod("getValue", String.class);
+        Method calculateReference = named.getMethod("calculate");
+
+        for (int i = 0; i < count; i++) {
+            double[] element = new double[inputs.length];
+            for (int k = 0; k < inputs.length; k++) {
+                element[k] = in[k * count + i];
+                assertEquals(true, setValue.invoke(reference, inputs[k], element[k]));
+            }
+            calculateReference.invoke(reference);
+
+            setInputs.invoke(single, element);
+            calculate.invoke(single);
+            double[] result = new double[outputs.length];
+            getOutputs.invoke(single, result);
+
+            for (int k = 0; k < outputs.length; k++) {
+                double expected = (Double) getValue.invoke(reference, outputs[k]);
+                assertEquals(expected, result[k], 0);
+                assertEquals(expected, out[k * count + i], 0);
+            }
+        }
+    }
+
+}
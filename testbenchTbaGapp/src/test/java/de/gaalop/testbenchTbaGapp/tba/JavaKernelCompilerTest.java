@@ -0,0 +1,66 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CompilationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.java.GAKernel;
+import de.gaalop.java.JavaKernelCompiler;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the compilation of control flow graphs to kernels at runtime
+ */
+public class JavaKernelCompilerTest {
+
+    private ControlFlowGraph importGraph(String source) throws CompilationException {
+        return TestDummy.optimizeGraph(new de.gaalop.tba.Plugin(), "Kernel", source);
+    }
+
+    @Test
+    public void distanceKernel() throws CompilationException {
+        ControlFlowGraph graph = importGraph("P = createPoint(x1, y1, z1);\nQ = createPoint(x2, y2, z2);\n?d = -2*(P.Q);\n");
+        GAKernel kernel = new JavaKernelCompiler().compile(graph);
+
+        assertEquals(Arrays.asList("x1$0", "x2$0", "y1$0", "y2$0", "z1$0", "z2$0"), Arrays.asList(kernel.getInputNames()));
+        assertEquals(Arrays.asList("d$0"), Arrays.asList(kernel.getOutputNames()));
+
+        // by name
+        assertTrue(kernel.setValue("x1$0", 1));
+        assertTrue(kernel.setValue("y1$0", 2));
+        assertTrue(kernel.setValue("z1$0", 3));
+        assertTrue(kernel.setValue("x2$0", 4));
+        assertTrue(kernel.setValue("y2$0", 6));
+        assertTrue(kernel.setValue("z2$0", 3));
+        kernel.calculate();
+        assertEquals(25, kernel.getValue("d$0"), 1E-9);
+
+        // by index
+        double[] out = new double[1];
+        kernel.setInputs(new double[]{0, 1, 0, 1, 0, 1});
+        kernel.calculate();
+        kernel.getOutputs(out);
+        assertEquals(3, out[0], 1E-9);
+
+        // batched, the second element is the first one translated
+        double[] in = {1, 2, 4, 5, 2, 3, 6, 7, 3, 4, 3, 4};
+        double[] batch = new double[2];
+        kernel.calculateBatch(in, batch, 2);
+        assertEquals(25, batch[0], 1E-9);
+        assertEquals(25, batch[1], 1E-9);
+    }
+
+    @Test
+    public void separateClasses() throws CompilationException {
+        JavaKernelCompiler compiler = new JavaKernelCompiler();
+        ControlFlowGraph graph = importGraph("?a = x*y;\n");
+        Class<? extends GAKernel> first = compiler.compileClass(graph);
+        Class<? extends GAKernel> second = compiler.compileClass(graph);
+        assertNotSame(first.getClassLoader(), second.getClassLoader());
+        assertNotSame(GAKernel.class.getClassLoader(), first.getClassLoader());
+        assertSame(GAKernel.class.getClassLoader(), first.getClassLoader().getParent());
+    }
+
+}
@@ -0,0 +1,185 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.CompilationException;
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.tba.cfgImport.optimization.maxima.CachingMaximaConnection;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaConnection;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaInput;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaOptimizer;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaOutput;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaResultCache;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaRoutines;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaSessionPool;
+import de.gaalop.tba.cfgImport.optimization.maxima.PooledMaximaConnection;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the cache of Maxima results answers repeated optimizations without Maxima
+ * and gives the same results as Maxima
+ */
+public class MaximaCacheTest {
+
+    private static final String VERSION = "Maxima stub";
+
+    private static final String SOURCE = "P = createPoint(x, y, z);\nS = P - 0.5*r*r*einf;\n?d = S.P;\nQ = createPoint(u, v, w);\n?e = Q.Q;\n";
+
+    /**
+     * Records the inputs of all requests
+     */
+    private static class RecordingConnection implements MaximaConnection {
+
+        private MaximaConnection connection;
+        private List<MaximaInput> inputs = new LinkedList<MaximaInput>();
+
+        private RecordingConnection(MaximaConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public MaximaOutput optimizeWithMaxima(MaximaInput input) throws OptimizationException {
+            inputs.add(input);
+            return connection.optimizeWithMaxima(input);
+        }
+
+        @Override
+        public void setProgressListeners(LoggingListenerGroup progressLogger) {
+            connection.setProgressListeners(progressLogger);
+        }
+    }
+
+    private File directory;
+    private MaximaSessionPool pool;
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("gaalopMaximaCache", "");
+        directory.delete();
+        directory.mkdirs();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        pool = new MaximaSessionPool(Arrays.asList(java, "-cp", System.getProperty("java.class.path"), StubMaxima.class.getName()),
+                1, MaximaSessionPool.DEFAULT_TIMEOUT);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        new MaximaResultCache(directory, 0).clear();
+        directory.delete();
+    }
+
+    private ControlFlowGraph importGraph(String source) throws CompilationException {
+        return TestDummy.optimizeGraph(new de.gaalop.tba.Plugin(), "Cache", source);
+    }
+
+    /**
+     * Optimizes a script with Maxima and returns the generated CluCalc code
+     */
+    private String optimize(String source, MaximaConnection connection, boolean optInserting) throws CompilationException, CodeGeneratorException {
+        de.gaalop.tba.Plugin plugin = new de.gaalop.tba.Plugin();
+        plugin.setOptInserting(optInserting);
+        ControlFlowGraph graph = importGraph(source);
+        new MaximaOptimizer(connection, plugin).transformGraph(graph, new LoggingListenerGroup());
+        return new de.gaalop.clucalc.output.Plugin().createCodeGenerator().generate(graph).iterator().next().getContent();
+    }
+
+    @Test
+    public void warmOptimization() throws CompilationException, CodeGeneratorException {
+        for (boolean optInserting : new boolean[]{true, false}) {
+            new MaximaResultCache(directory, 0).clear();
+            String uncached = optimize(SOURCE, new PooledMaximaConnection(pool), optInserting);
+
+            RecordingConnection cold = new RecordingConnection(new PooledMaximaConnection(pool));
+            assertEquals(uncached, optimize(SOURCE, new CachingMaximaConnection(cold, new MaximaResultCache(directory, 1024 * 1024), VERSION), optInserting));
+            assertEquals(1, cold.inputs.size());
+
+            RecordingConnection warm = new RecordingConnection(new PooledMaximaConnection(pool));
+            assertEquals(uncached, optimize(SOURCE, new CachingMaximaConnection(warm, new MaximaResultCache(directory, 1024 * 1024), VERSION), optInserting));
+            assertEquals(0, warm.inputs.size());
+        }
+    }
+
+    @Test
+    public void changedStatement() throws CompilationException, CodeGeneratorException {
+        MaximaResultCache cache = new MaximaResultCache(directory, 1024 * 1024);
+        RecordingConnection recording = new RecordingConnection(new PooledMaximaConnection(pool));
+        optimize(SOURCE, new CachingMaximaConnection(recording, cache, VERSION), true);
+        int full = recording.inputs.get(0).size();
+
+        String changed = SOURCE.replace("?e = Q.Q;", "?e = Q.S;");
+        String uncached = optimize(changed, new PooledMaximaConnection(pool), true);
+        assertEquals(uncached, optimize(changed, new CachingMaximaConnection(recording, cache, VERSION), true));
+
+        // only the changed statement with the settings and the statements, which bind its variables, is sent to Maxima
+        assertEquals(2, recording.inputs.size());
+        MaximaInput reduced = recording.inputs.get(1);
+        assertTrue(reduced.size() < full);
+        assertTrue(reduced.contains("keepfloat:true;"));
+    }
+
+    @Test
+    public void settingsArePartOfTheKey() throws OptimizationException {
+        RecordingConnection recording = new RecordingConnection(new PooledMaximaConnection(pool));
+        CachingMaximaConnection connection = new CachingMaximaConnection(recording, new MaximaResultCache(directory, 1024 * 1024), VERSION);
+        for (String keepfloat : new String[]{"true", "false", "true"}) {
+            MaximaInput input = new MaximaInput();
+            input.add("display2d:false;");
+            input.add("keepfloat:" + keepfloat + ";");
+            input.add("ratsimp(0.5*x+y);");
+            input.add("quit();");
+
+            LinkedList<String> connected = new LinkedList<String>();
+            MaximaRoutines.groupMaximaInAndOutputs(connected, connection.optimizeWithMaxima(input));
+            assertEquals(Arrays.asList("false", keepfloat, "0.5*x+y"), connected);
+        }
+        assertEquals(2, recording.inputs.size());
+    }
+
+    @Test
+    public void versionIsPartOfTheKey() throws OptimizationException {
+        RecordingConnection recording = new RecordingConnection(new PooledMaximaConnection(pool));
+        MaximaResultCache cache = new MaximaResultCache(directory, 1024 * 1024);
+        for (String version : new String[]{VERSION, "Maxima stub 2", VERSION}) {
+            MaximaInput input = new MaximaInput();
+            input.add("ratsimp(x+y);");
+            input.add("quit();");
+            new CachingMaximaConnection(recording, cache, version).optimizeWithMaxima(input);
+        }
+        assertEquals(2, recording.inputs.size());
+    }
+
+    @Test
+    public void staleTemporaryFiles() throws IOException {
+        File stale = File.createTempFile("entry", ".tmp", directory);
+        stale.setLastModified(System.currentTimeMillis() - 2 * 60 * 60 * 1000);
+        File recent = File.createTempFile("entry", ".tmp", directory);
+
+        // opening the cache deletes only the temporary files, which are not written anymore
+        new MaximaResultCache(directory, 1024 * 1024);
+        assertFalse(stale.exists());
+        assertTrue(recent.exists());
+        recent.delete();
+    }
+
+    @Test
+    public void eviction() throws CompilationException, CodeGeneratorException {
+        RecordingConnection recording = new RecordingConnection(new PooledMaximaConnection(pool));
+        MaximaResultCache cache = new MaximaResultCache(directory, 0);
+        optimize(SOURCE, new CachingMaximaConnection(recording, cache, VERSION), false);
+        assertEquals(0, directory.listFiles().length);
+        optimize(SOURCE, new CachingMaximaConnection(recording, cache, VERSION), false);
+        assertEquals(2, recording.inputs.size());
+    }
+
+}
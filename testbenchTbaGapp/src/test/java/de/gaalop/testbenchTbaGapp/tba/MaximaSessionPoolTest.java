@@ -0,0 +1,177 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.LoggingListener;
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.Multiplication;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Variable;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaInput;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaOutput;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaRoutines;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaSessionPool;
+import de.gaalop.tba.cfgImport.optimization.maxima.PooledMaximaConnection;
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the pool of Maxima sessions with a stand-in for Maxima
+ */
+public class MaximaSessionPoolTest {
+
+    private static List<String> getStubCommand() {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        return Arrays.asList(java, "-cp", System.getProperty("java.class.path"), StubMaxima.class.getName());
+    }
+
+    private static MaximaInput createInput(String... statements) {
+        MaximaInput input = new MaximaInput();
+        input.add("display2d:false;");
+        input.add("ratprint:false;");
+        input.add("keepfloat:true;");
+        input.addAll(Arrays.asList(statements));
+        input.add("quit();");
+        return input;
+    }
+
+    /**
+     * Returns the outputs of the statements after the three settings
+     */
+    private static LinkedList<String> getResults(MaximaOutput output) {
+        LinkedList<String> connected = new LinkedList<String>();
+        MaximaRoutines.groupMaximaInAndOutputs(connected, output);
+        connected.removeFirst();
+        connected.removeFirst();
+        connected.removeFirst();
+        return connected;
+    }
+
+    @Test
+    public void reuseSessions() throws OptimizationException {
+        MaximaSessionPool pool = new MaximaSessionPool(getStubCommand(), 1, MaximaSessionPool.DEFAULT_TIMEOUT);
+        try {
+            PooledMaximaConnection connection = new PooledMaximaConnection(pool);
+            for (int i = 0; i < 3; i++) {
+                MaximaOutput output = connection.optimizeWithMaxima(createInput("a\\$1::ratsimp(x*y+a\\$0);", "ratsimp(x+" + i + ");"));
+                LinkedList<String> results = getResults(output);
+                assertEquals(2, results.size());
+                assertEquals(new Addition(new Multiplication(new Variable("x"), new Variable("y")), new MultivectorComponent("a", 0)),
+                        MaximaRoutines.getExpressionFromMaximaOutput(results.get(0)));
+                assertEquals("x+" + i, results.get(1));
+            }
+            assertEquals(1, pool.getStartedSessions());
+            assertEquals(1, pool.checkHealth());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void progress() throws OptimizationException {
+        MaximaSessionPool pool = new MaximaSessionPool(getStubCommand(), 1, MaximaSessionPool.DEFAULT_TIMEOUT);
+        try {
+            final List<Double> progress = new LinkedList<Double>();
+            LoggingListenerGroup listeners = new LoggingListenerGroup();
+            listeners.add(new LoggingListener() {
+                @Override
+                public void logNote(String topic, Object args) {
+                    progress.add((Double) args);
+                }
+            });
+            PooledMaximaConnection connection = new PooledMaximaConnection(pool);
+            connection.setProgressListeners(listeners);
+            connection.optimizeWithMaxima(createInput("ratsimp(x);", "ratsimp(y);", "ratsimp(z);"));
+
+            // the start, one step per echoed input line and the end
+            assertTrue(progress.size() > 3);
+            assertEquals(0.0, progress.get(0), 0);
+            for (int i = 1; i < progress.size(); i++) {
+                assertTrue(progress.get(i - 1) <= progress.get(i));
+            }
+            assertTrue(progress.get(progress.size() - 2) > 0.0);
+            assertEquals(1.0, progress.get(progress.size() - 1), 0);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void restartAfterCrash() throws OptimizationException {
+        MaximaSessionPool pool = new MaximaSessionPool(getStubCommand(), 1, MaximaSessionPool.DEFAULT_TIMEOUT);
+        try {
+            try {
+                pool.execute(createInput("crash();"));
+                fail("The crash was not reported");
+            } catch (OptimizationException e) {
+                // expected after the second crash
+            }
+            // the request was repeated once in a new session
+            assertEquals(2, pool.getStartedSessions());
+
+            assertEquals("x", getResults(pool.execute(createInput("ratsimp(x);"))).getFirst());
+            assertEquals(3, pool.getStartedSessions());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void timeout() throws OptimizationException {
+        MaximaSessionPool pool = new MaximaSessionPool(getStubCommand(), 1, 3000);
+        try {
+            try {
+                pool.execute(createInput("hang();"));
+                fail("The timeout was not reported");
+            } catch (OptimizationException e) {
+                assertTrue(e.getMessage().contains("3000 ms"));
+            }
+            assertEquals("x", getResults(pool.execute(createInput("ratsimp(x);"))).getFirst());
+            assertEquals(2, pool.getStartedSessions());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void parallelRequests() throws InterruptedException {
+        final MaximaSessionPool pool = new MaximaSessionPool(getStubCommand(), 2, MaximaSessionPool.DEFAULT_TIMEOUT);
+        final List<String> results = new LinkedList<String>();
+        try {
+            Thread[] threads = new Thread[6];
+            for (int i = 0; i < threads.length; i++) {
+                final int index = i;
+                threads[i] = new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            String result = getResults(pool.execute(createInput("ratsimp(x" + index + ");"))).getFirst();
+                            synchronized (results) {
+                                results.add(result);
+                            }
+                        } catch (OptimizationException e) {
+                            // detected by the missing result
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(threads.length, results.size());
+            for (int i = 0; i < threads.length; i++) {
+                assertTrue(results.contains("x" + i));
+            }
+            assertTrue(pool.getStartedSessions() <= 2);
+        } finally {
+            pool.close();
+        }
+    }
+
+}
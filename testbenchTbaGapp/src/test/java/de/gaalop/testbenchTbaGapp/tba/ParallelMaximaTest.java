@@ -0,0 +1,132 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CodeGeneratorException;
+import de.gaalop.CompilationException;
+import de.gaalop.LoggingListener;
+import de.gaalop.LoggingListenerGroup;
+import de.gaalop.OptimizationException;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaConnection;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaInput;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaOptimizer;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaOutput;
+import de.gaalop.tba.cfgImport.optimization.maxima.MaximaSessionPool;
+import de.gaalop.tba.cfgImport.optimization.maxima.PooledMaximaConnection;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the partitioned optimization with several Maxima workers computes the same graph as one batch
+ */
+public class ParallelMaximaTest {
+
+    /**
+     * Records the inputs of all requests
+     */
+    private static class RecordingConnection implements MaximaConnection {
+
+        private MaximaConnection connection;
+        private List<MaximaInput> inputs = Collections.synchronizedList(new LinkedList<MaximaInput>());
+
+        private RecordingConnection(MaximaConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public MaximaOutput optimizeWithMaxima(MaximaInput input) throws OptimizationException {
+            inputs.add(input);
+            return connection.optimizeWithMaxima(input);
+        }
+
+        @Override
+        public void setProgressListeners(LoggingListenerGroup progressLogger) {
+            connection.setProgressListeners(progressLogger);
+        }
+    }
+
+    private ControlFlowGraph importGraph() throws CompilationException {
+        return TestDummy.optimizeGraph(new de.gaalop.tba.Plugin(), "Parallel", "P = createPoint(x, y, z);\nS = P - 0.5*r*r*einf;\nT = S*P*S;\n?R = T^(P + e1);\n?d = S.P;\nQ = createPoint(u, v, w);\n?e = Q.Q;\n");
+    }
+
+    private static String generate(ControlFlowGraph graph) throws CodeGeneratorException {
+        return new de.gaalop.clucalc.output.Plugin().createCodeGenerator().generate(graph).iterator().next().getContent();
+    }
+
+    private static Set<String> getInsertedVariables(MaximaInput input) {
+        HashSet<String> variables = new HashSet<String>();
+        for (String statement : input) {
+            if (statement.contains("::")) {
+                variables.add(statement.substring(0, statement.indexOf("::")));
+            }
+        }
+        return variables;
+    }
+
+    @Test
+    public void sameAsOneBatch() throws CompilationException, OptimizationException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        MaximaSessionPool pool = new MaximaSessionPool(
+                Arrays.asList(java, "-cp", System.getProperty("java.class.path"), StubMaxima.class.getName()),
+                4, MaximaSessionPool.DEFAULT_TIMEOUT);
+        try {
+            for (boolean optInserting : new boolean[]{true, false}) {
+                de.gaalop.tba.Plugin plugin = new de.gaalop.tba.Plugin();
+                plugin.setOptInserting(optInserting);
+
+                ControlFlowGraph serialGraph = importGraph();
+                RecordingConnection serial = new RecordingConnection(new PooledMaximaConnection(pool));
+                new MaximaOptimizer(serial, plugin).transformGraph(serialGraph, new LoggingListenerGroup());
+                assertEquals(1, serial.inputs.size());
+
+                ControlFlowGraph parallelGraph = importGraph();
+                RecordingConnection parallel = new RecordingConnection(new PooledMaximaConnection(pool));
+                MaximaOptimizer optimizer = new MaximaOptimizer(parallel, plugin);
+                optimizer.setWorkers(4);
+                final List<Object> progress = Collections.synchronizedList(new LinkedList<Object>());
+                LoggingListenerGroup listeners = new LoggingListenerGroup();
+                listeners.add(new LoggingListener() {
+                    @Override
+                    public void logNote(String topic, Object args) {
+                        if (topic.startsWith("Maxima partition")) {
+                            progress.add(args);
+                        }
+                    }
+                });
+                optimizer.transformGraph(parallelGraph, listeners);
+
+                assertEquals(generate(serialGraph), generate(parallelGraph));
+                // the point P with its dependents and the point Q, otherwise every assignment is independent
+                assertEquals(optInserting ? 2 : 4, parallel.inputs.size());
+                assertEquals(parallel.inputs.size(), progress.size());
+                assertTrue(progress.contains(1.0));
+
+                // the variables, which are bound by a batch, are not used by the other batches
+                for (MaximaInput input : parallel.inputs) {
+                    for (String variable : getInsertedVariables(input)) {
+                        Pattern use = Pattern.compile("(?<![A-Za-z0-9_])" + Pattern.quote(variable) + "(?![0-9])");
+                        for (MaximaInput other : parallel.inputs) {
+                            if (other != input) {
+                                for (String statement : other) {
+                                    assertFalse(statement, use.matcher(statement).find());
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.CompilationException;
+import de.gaalop.api.cfg.AssignmentNodeCollector;
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.BinaryOperation;
+import de.gaalop.dfg.Division;
+import de.gaalop.dfg.Expression;
+import de.gaalop.dfg.FloatConstant;
+import de.gaalop.dfg.MathFunction;
+import de.gaalop.dfg.MathFunctionCall;
+import de.gaalop.dfg.Multiplication;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Negation;
+import de.gaalop.dfg.Subtraction;
+import de.gaalop.dfg.Variable;
+import de.gaalop.tba.cfgImport.optimization.polynomial.OperationCounter;
+import de.gaalop.tba.cfgImport.optimization.polynomial.Polynomial;
+import de.gaalop.tba.cfgImport.optimization.polynomial.PolynomialConverter;
+import de.gaalop.testbenchTbaGapp.tba.framework.TestDummy;
+import java.util.HashMap;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the polynomial normal form and the simplification of expressions with it
+ */
+public class PolynomialTest {
+
+    @Test
+    public void arithmetic() {
+        Polynomial x = Polynomial.variable(2, 0);
+        Polynomial y = Polynomial.variable(2, 1);
+
+        // (x+y)^2 - x^2 - y^2 = 2xy
+        Polynomial p = x.add(y).pow(2).subtract(x.multiply(x)).subtract(y.multiply(y));
+        assertEquals(1, p.size());
+        assertEquals(2, p.getCoefficient(new int[]{1, 1}), 0);
+        assertEquals(x.multiply(y).scale(2), p);
+        assertEquals(x.multiply(y).scale(2).hashCode(), p.hashCode());
+
+        // (x+y)*(x-y) + y^2 - x^2 = 0
+        assertTrue(x.add(y).multiply(x.subtract(y)).add(y.pow(2)).subtract(x.pow(2)).isZero());
+        assertTrue(Polynomial.constant(2, 3).isConstant());
+        assertFalse(p.isConstant());
+
+        // x^2*y + x*y + 3 = x*(x*y + y) + 3
+        Polynomial q = x.pow(2).multiply(y).add(x.multiply(y)).add(Polynomial.constant(2, 3));
+        Polynomial[] collected = q.collect(0);
+        assertEquals(x.multiply(y).add(y), collected[0]);
+        assertEquals(Polynomial.constant(2, 3), collected[1]);
+        assertEquals(2, q.countOccurrences(0));
+    }
+
+    @Test
+    public void manyMonomials() {
+        // (1 + x + y + z)^12 has binomial(15, 3) = 455 monomials
+        Polynomial sum = Polynomial.constant(3, 1);
+        for (int i = 0; i < 3; i++) {
+            sum = sum.add(Polynomial.variable(3, i));
+        }
+        Polynomial power = sum.pow(12);
+        assertEquals(455, power.size());
+        assertEquals(479001600.0 / (24 * 24 * 24), power.getCoefficient(new int[]{4, 4, 4}), 1E-6);
+        assertEquals(power.size(), power.getMonomials().size());
+        assertTrue(power.subtract(sum.pow(6).multiply(sum.pow(6))).isZero());
+    }
+
+    @Test
+    public void simplification() {
+        Expression a = new MultivectorComponent("a", 1);
+        Expression x = new Variable("x");
+        // a*x + a*x*(-1) + a*(x + 2) - 2*a + sqrt(x*x - x*x + a)
+        Expression expression = new Addition(
+                new Addition(new Multiplication(a.copy(), x.copy()), new Multiplication(new Multiplication(a.copy(), x.copy()), new FloatConstant(-1))),
+                new Addition(
+                        new Subtraction(new Multiplication(a.copy(), new Addition(x.copy(), new FloatConstant(2))), new Multiplication(new FloatConstant(2), a.copy())),
+                        new MathFunctionCall(new Addition(new Subtraction(new Multiplication(x.copy(), x.copy()), new Multiplication(x.copy(), x.copy())), a.copy()), MathFunction.SQRT)));
+
+        Expression simplified = PolynomialConverter.simplify(expression);
+        assertTrue(OperationCounter.count(simplified) < OperationCounter.count(expression));
+        assertEquals(new Addition(new Multiplication(a, x), new MathFunctionCall(a, MathFunction.SQRT)), simplified);
+
+        // a negation is not simplified
+        Expression negation = new Negation(x);
+        assertSame(negation, PolynomialConverter.simplify(negation));
+    }
+
+    private ControlFlowGraph compile(boolean optPolynomialSimplification) throws CompilationException {
+        de.gaalop.tba.Plugin tbaPlugin = new de.gaalop.tba.Plugin();
+        tbaPlugin.setOptPolynomialSimplification(optPolynomialSimplification);
+        return TestDummy.optimizeGraph(tbaPlugin, "Polynomial", "P = createPoint(x, y, z);\nS = P - 0.5*r*r*einf;\nT = S*P*S;\n?R = T^(P + e1);\n?d = S.P;\n");
+    }
+
+    /**
+     * Evaluates a scalar expression
+     * @param expression The expression
+     * @param values The values of the variables and multivector components
+     * @return The value of the expression
+     */
+    private static double evaluate(Expression expression, HashMap<String, Double> values) {
+        if (expression instanceof FloatConstant) {
+            return ((FloatConstant) expression).getValue();
+        }
+        if (expression instanceof Variable) {
+            return values.get(expression.toString());
+        }
+        if (expression instanceof Negation) {
+            return -evaluate(((Negation) expression).getOperand(), values);
+        }
+        if (expression instanceof MathFunctionCall) {
+            assertEquals(MathFunction.SQRT, ((MathFunctionCall) expression).getFunction());
+            return Math.sqrt(evaluate(((MathFunctionCall) expression).getOperand(), values));
+        }
+        BinaryOperation operation = (BinaryOperation) expression;
+        double left = evaluate(operation.getLeft(), values);
+        double right = evaluate(operation.getRight(), values);
+        if (operation instanceof Addition) {
+            return left + right;
+        }
+        if (operation instanceof Subtraction) {
+            return left - right;
+        }
+        if (operation instanceof Multiplication) {
+            return left * right;
+        }
+        assertTrue(operation instanceof Division);
+        return left / right;
+    }
+
+    /**
+     * Executes the assignments of a graph
+     * @param graph The graph
+     * @return The values of all variables and multivector components
+     */
+    private static HashMap<String, Double> execute(ControlFlowGraph graph) {
+        HashMap<String, Double> values = new HashMap<String, Double>();
+        values.put("x", 0.3);
+        values.put("y", -1.7);
+        values.put("z", 2.1);
+        values.put("r", 0.9);
+        AssignmentNodeCollector collector = new AssignmentNodeCollector();
+        graph.accept(collector);
+        for (AssignmentNode node : collector.getAssignmentNodes()) {
+            values.put(node.getVariable().toString(), evaluate(node.getValue(), values));
+        }
+        return values;
+    }
+
+    private static int countOperations(ControlFlowGraph graph) {
+        AssignmentNodeCollector collector = new AssignmentNodeCollector();
+        graph.accept(collector);
+        int count = 0;
+        for (AssignmentNode node : collector.getAssignmentNodes()) {
+            count += OperationCounter.count(node.getValue());
+        }
+        return count;
+    }
+
+    @Test
+    public void sameResults() throws CompilationException {
+        ControlFlowGraph graph = compile(false);
+        ControlFlowGraph simplifiedGraph = compile(true);
+        assertTrue(countOperations(simplifiedGraph) < countOperations(graph));
+
+        HashMap<String, Double> values = execute(graph);
+        HashMap<String, Double> simplifiedValues = execute(simplifiedGraph);
+        for (String variable : values.keySet()) {
+            if (variable.startsWith("R[") || variable.startsWith("d[")) {
+                // zero assignments are removed
+                double simplified = simplifiedValues.containsKey(variable) ? simplifiedValues.get(variable) : 0;
+                assertEquals(variable, values.get(variable), simplified, 1E-9 * Math.max(1, Math.abs(simplified)));
+            }
+        }
+    }
+
+}
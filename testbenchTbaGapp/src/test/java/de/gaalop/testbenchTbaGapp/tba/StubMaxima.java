@@ -0,0 +1,83 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+/**
+ * A stand-in for Maxima, which can be started as process in tests without a Maxima installation.
+ * <p/>
+ * It reads one statement per line and prints the prompts and the batch output in the form of Maxima.
+ * The simplification functions return their argument unchanged.
+ * The statements <code>crash();</code> and <code>hang();</code> simulate a crashing and a hanging Maxima.
+ */
+public class StubMaxima {
+
+    private static PrintStream out = System.out;
+    private static int label = 1;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        out.print("Maxima stub\n");
+        while (true) {
+            out.print("(%i" + label + ") ");
+            out.flush();
+            String statement = in.readLine();
+            if (statement == null || statement.equals("quit();")) {
+                return;
+            }
+            execute(statement.trim());
+        }
+    }
+
+    private static void execute(String statement) throws IOException, InterruptedException {
+        if (statement.equals("kill(all)$")) {
+            label = 1;
+        } else if (statement.startsWith("print(\"")) {
+            out.print(statement.substring(7, statement.indexOf('"', 7)) + "\n");
+        } else if (statement.startsWith("batch(\"")) {
+            String path = statement.substring(7, statement.lastIndexOf('"'));
+            label++;
+            out.print("\nread and interpret " + path + "\n");
+            BufferedReader file = new BufferedReader(new FileReader(path));
+            String line;
+            while ((line = file.readLine()) != null) {
+                evaluate(line.trim());
+            }
+            file.close();
+        } else {
+            evaluate(statement);
+        }
+        out.flush();
+    }
+
+    private static void evaluate(String statement) throws InterruptedException {
+        if (statement.equals("crash();")) {
+            System.exit(1);
+        }
+        if (statement.equals("hang();")) {
+            Thread.sleep(Long.MAX_VALUE);
+        }
+        out.print("(%i" + label + ") " + statement + "\n");
+        out.print("(%o" + label + ") " + simplify(statement.substring(0, statement.length() - 1)) + "\n");
+        label++;
+    }
+
+    private static String simplify(String expression) {
+        if (expression.contains("::")) {
+            return simplify(expression.substring(expression.indexOf("::") + 2));
+        }
+        if (expression.contains(":")) {
+            return expression.substring(expression.indexOf(':') + 1);
+        }
+        for (String function : new String[]{"expand(", "ratsimp("}) {
+            if (expression.startsWith(function) && expression.endsWith(")")) {
+                return simplify(expression.substring(function.length(), expression.length() - 1));
+            }
+        }
+        return expression;
+    }
+
+}
@@ -0,0 +1,64 @@
+package de.gaalop.testbenchTbaGapp.tba;
+
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.cfg.ControlFlowGraph;
+import de.gaalop.dfg.Addition;
+import de.gaalop.dfg.FloatConstant;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.dfg.Variable;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the ControlFlowGraph updates the references of its variables incrementally
+ */
+public class VariableReferencesTest {
+
+    @Test
+    public void incrementalUpdates() {
+        ControlFlowGraph graph = new ControlFlowGraph();
+        AssignmentNode a = new AssignmentNode(graph, new MultivectorComponent("a", 0), new Variable("x"));
+        graph.getStartNode().insertAfter(a);
+        graph.addLocalVariable(new Variable("a"));
+        graph.addLocalVariable(new Variable("b"));
+        graph.addLocalVariable(new Variable("unused"));
+
+        graph.trackVariableReferences();
+        assertEquals(1, graph.getVariableReferenceCount("a"));
+        assertEquals(1, graph.getVariableReferenceCount("x"));
+
+        // insertions
+        AssignmentNode b = new AssignmentNode(graph, new MultivectorComponent("b", 0), new Addition(new MultivectorComponent("a", 0), new Variable("x")));
+        a.insertAfter(b);
+        AssignmentNode c = new AssignmentNode(graph, new MultivectorComponent("c", 0), new MultivectorComponent("b", 0));
+        graph.getEndNode().insertBefore(c);
+        assertEquals(2, graph.getVariableReferenceCount("a"));
+        assertEquals(2, graph.getVariableReferenceCount("b"));
+        assertEquals(2, graph.getVariableReferenceCount("x"));
+
+        // the initially unreferenced local variable is removed
+        graph.removeUnreferencedLocalVariables();
+        assertFalse(graph.containsLocalVariable("unused"));
+        assertTrue(graph.containsLocalVariable("a"));
+
+        // changes of values and removals
+        b.setValue(new FloatConstant(1));
+        assertEquals(1, graph.getVariableReferenceCount("a"));
+        assertEquals(1, graph.getVariableReferenceCount("x"));
+        graph.removeNode(c);
+        graph.removeNode(b);
+        assertEquals(0, graph.getVariableReferenceCount("b"));
+        graph.removeUnreferencedLocalVariables();
+        assertFalse(graph.containsLocalVariable("b"));
+        assertTrue(graph.containsLocalVariable("a"));
+
+        // detached nodes are not counted
+        b.setValue(new Variable("x"));
+        assertEquals(1, graph.getVariableReferenceCount("x"));
+
+        graph.stopTrackingVariableReferences();
+        assertFalse(graph.isTrackingVariableReferences());
+    }
+
+}
@@ -3,11 +3,13 @@ package de.gaalop.testbenchTbaGapp.tba.framework;
 
 
 import de.gaalop.*;
+import de.gaalop.cfg.ControlFlowGraph;
 import de.gaalop.dfg.MultivectorComponent;
 import de.gaalop.dfg.Variable;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Set;
@@ -23,6 +25,45 @@ import java.util.logging.Logger;
  */
 public class TestDummy {
 
+    /**
+     * Creates a compiler for the 5d algebra, which uses the CluCalc parser and the default global settings,
+     * visualizer and algebra strategies
+     * @param tbaPlugin The configured TBA plugin, which creates the optimization strategy
+     * @param codeGenerator The code generator
+     * @return The compiler
+     */
+    public static CompilerFacade createFacade(de.gaalop.tba.Plugin tbaPlugin, CodeGenerator codeGenerator) {
+        return new CompilerFacade(
+                new de.gaalop.clucalc.input.Plugin().createCodeParser(),
+                new de.gaalop.globalSettings.Plugin().createGlobalSettingsStrategy(),
+                new de.gaalop.visualCodeInserter.Plugin().createVisualCodeInserterStrategy(),
+                new de.gaalop.algebra.Plugin().createAlgebraStrategy(),
+                tbaPlugin.createOptimizationStrategy(),
+                codeGenerator,
+                "5d",
+                true,
+                "");
+    }
+
+    /**
+     * Compiles a script with a compiler of createFacade and returns the graph, which is passed to the code generator
+     * @param tbaPlugin The configured TBA plugin, which creates the optimization strategy
+     * @param name The name of the input file
+     * @param source The CLU script
+     * @return The optimized graph
+     */
+    public static ControlFlowGraph optimizeGraph(de.gaalop.tba.Plugin tbaPlugin, String name, String source) throws CompilationException {
+        final ControlFlowGraph[] optimized = new ControlFlowGraph[1];
+        createFacade(tbaPlugin, new CodeGenerator() {
+            @Override
+            public Set<OutputFile> generate(ControlFlowGraph in) {
+                optimized[0] = in;
+                return Collections.emptySet();
+            }
+        }).compile(new InputFile(name, source));
+        return optimized[0];
+    }
+
     /**
      * Uses a TBATestCase to run Gaalop once
      * @param tBATestCase the test case implementation to provide
@@ -0,0 +1,69 @@
+package de.gaalop.testbenchVisualizer;
+
+import de.gaalop.CodeParserException;
+import de.gaalop.api.cfg.AssignmentNodeCollector;
+import de.gaalop.cfg.AssignmentNode;
+import de.gaalop.dfg.MultivectorComponent;
+import de.gaalop.visualizer.zerofinding.CompiledEvaluater;
+import de.gaalop.visualizer.zerofinding.Evaluater;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests, if the compiled evaluater computes the same values as the Evaluater
+ */
+public class TestCompiledEvaluater {
+
+    private static final MultivectorComponent X = new MultivectorComponent("x", 0);
+    private static final MultivectorComponent Y = new MultivectorComponent("y", 0);
+
+    private LinkedList<AssignmentNode> parse(String cluscript) throws CodeParserException {
+        AssignmentNodeCollector col = new AssignmentNodeCollector();
+        TestDifferentiater.parseGraph(cluscript).accept(col);
+        return col.getAssignmentNodes();
+    }
+
+    @Test
+    public void rowEqualsSingleEvaluations() throws CodeParserException {
+        LinkedList<AssignmentNode> nodes = parse("a_0 = x_0*x_0 - 2/y_0;\n"
+                + "a_0 = -a_0 + x_0*(a_0 - 1);\n"
+                + "?b_0 = sqrt(abs(a_0)) + cos(x_0)*exp(y_0);\n"
+                + "?b_1 = b_0/(1+x_0*x_0) - u_0;\n");
+        CompiledEvaluater evaluater = new CompiledEvaluater(Arrays.asList(X, Y), nodes);
+
+        int count = 17;
+        double[] xs = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = -2 + 0.25 * i;
+        }
+        double[] registers = evaluater.createRegisters(count);
+        evaluater.setValues(registers, count, X, xs);
+        evaluater.setValue(registers, count, Y, 0.5);
+        evaluater.evaluate(registers, count);
+
+        MultivectorComponent[] outputs = new MultivectorComponent[]{new MultivectorComponent("a", 0),
+            new MultivectorComponent("b", 0), new MultivectorComponent("b", 1)};
+        for (int i = 0; i < count; i++) {
+            HashMap<MultivectorComponent, Double> values = new HashMap<MultivectorComponent, Double>();
+            values.put(X, xs[i]);
+            values.put(Y, 0.5);
+            values.put(new MultivectorComponent("u", 0), Double.NaN);
+            new Evaluater(values).evaluate(nodes);
+
+            for (MultivectorComponent output : outputs) {
+                assertEquals(output.toString(), values.get(output), evaluater.getValue(registers, count, output, i), 0);
+            }
+        }
+        // u is neither an input nor assigned
+        assertTrue(Double.isNaN(evaluater.getValue(registers, count, new MultivectorComponent("b", 1), 0)));
+
+        LinkedHashMap<String, int[]> offsets = evaluater.getOffsets("b", count);
+        assertEquals(1, offsets.size());
+        assertEquals(2, offsets.get("b").length);
+    }
+
+}